@@ -1,31 +1,41 @@
 package com.expedia.content.media.processing.services;
 
+import com.amazonaws.services.s3.AmazonS3Client;
 import com.expedia.content.media.processing.pipeline.kafka.KafkaCommonPublisher;
 import com.expedia.content.media.processing.pipeline.reporting.CompositeReporting;
 import com.expedia.content.media.processing.pipeline.reporting.KafkaReporting;
 import com.expedia.content.media.processing.pipeline.reporting.Reporting;
 import com.expedia.content.media.processing.services.dao.DerivativesDao;
 import com.expedia.content.media.processing.services.dao.DomainCategoriesDao;
+import com.expedia.content.media.processing.services.dao.DomainMediaListingCache;
+import com.expedia.content.media.processing.services.dao.MediaCache;
 import com.expedia.content.media.processing.services.dao.MediaDao;
+import com.expedia.content.media.processing.services.dao.mediadb.MediaDBDataSource;
 import com.expedia.content.media.processing.services.dao.mediadb.MediaDBDerivativesDao;
 import com.expedia.content.media.processing.services.dao.mediadb.MediaDBLodgingReferenceHotelIdDao;
 import com.expedia.content.media.processing.services.dao.mediadb.MediaDBLodgingReferenceRoomIdDao;
 import com.expedia.content.media.processing.pipeline.util.Poker;
 import com.expedia.content.media.processing.services.dao.mediadb.MediaDBMediaDao;
 import com.expedia.content.media.processing.services.dao.mediadb.MediaDBDomainCategoriesDao;
+import com.expedia.content.media.processing.services.reqres.ImageMessageRequestConverter;
+import com.expedia.content.media.processing.services.validator.HTTPUrlVerifier;
+import com.expedia.content.media.processing.services.validator.S3Validator;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class ApplicationConfiguration {
@@ -45,6 +55,9 @@ public class ApplicationConfiguration {
     @Value("${mdb.datasource.url}")
     private String dataSourceURL;
 
+    @Value("${mdb.datasource.read.url:${mdb.datasource.url}}")
+    private String readDataSourceURL;
+
     @Value("${kafka.producer.retries}")
     private Integer producerRetries;
 
@@ -54,39 +67,156 @@ public class ApplicationConfiguration {
     @Autowired
     private Poker poker;
 
+    /**
+     * Connection pool used for writes and for the reads that must see them.
+     * Pool settings are bound from the {@code mdb.datasource.pool.write} properties of the active profile.
+     */
+    @Bean(destroyMethod = "close")
+    @Primary
+    @ConfigurationProperties(prefix = "mdb.datasource.pool.write")
+    public MediaDBDataSource mediaDBDataSource() {
+        return new MediaDBDataSource("mediaDBWritePool", dataSourceURL, username, password);
+    }
+
+    /**
+     * Connection pool used for read only queries, pointing to the reader endpoint when {@code mdb.datasource.read.url} is set.
+     * Pool settings are bound from the {@code mdb.datasource.pool.read} properties of the active profile.
+     */
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties(prefix = "mdb.datasource.pool.read")
+    public MediaDBDataSource mediaDBReadDataSource() {
+        return new MediaDBDataSource("mediaDBReadPool", readDataSourceURL, username, password);
+    }
+
+    /**
+     * Cache of media by guid, {@code mdb.cache.media-by-guid.enabled} turns it off for a profile.
+     */
+    @Bean
+    public MediaCache mediaCache(@Value("${mdb.cache.media-by-guid.enabled:false}") boolean enabled,
+                                 @Value("${mdb.cache.media-by-guid.maximum-size:10000}") long maximumSize,
+                                 @Value("${mdb.cache.media-by-guid.time-to-live-seconds:60}") long timeToLiveSeconds) {
+        return new MediaCache(enabled, maximumSize, timeToLiveSeconds);
+    }
+
+    /**
+     * Off heap cache of the media listing of domain items, {@code mdb.cache.domain-listing.enabled} turns it off for a profile.
+     * The listings live in direct buffers freed by the garbage collector once dropped, so the JVM MaxDirectMemorySize needs
+     * about twice {@code maximum-bytes}.
+     */
+    @Bean
+    public DomainMediaListingCache domainMediaListingCache(@Value("${mdb.cache.domain-listing.enabled:false}") boolean enabled,
+                                                           @Value("${mdb.cache.domain-listing.maximum-bytes:268435456}") long maximumBytes,
+                                                           @Value("${mdb.cache.domain-listing.time-to-live-seconds:60}") long timeToLiveSeconds) {
+        return new DomainMediaListingCache(enabled, maximumBytes, timeToLiveSeconds);
+    }
+
+    /**
+     * Settings of the fileUrl checks, bound from the {@code media.url-check} properties of the active profile.
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "media.url-check")
+    public HTTPUrlVerifier.Settings httpUrlVerifierSettings() {
+        return new HTTPUrlVerifier.Settings();
+    }
+
+    @Bean(destroyMethod = "close")
+    public HTTPUrlVerifier httpUrlVerifier(HTTPUrlVerifier.Settings httpUrlVerifierSettings) {
+        return new HTTPUrlVerifier(httpUrlVerifierSettings);
+    }
+
+    /**
+     * Settings of the S3 fileUrl checks, bound from the {@code media.s3-check} properties of the active profile.
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "media.s3-check")
+    public S3Validator.Settings s3ValidatorSettings() {
+        return new S3Validator.Settings();
+    }
+
+    /**
+     * S3 client of the S3 fileUrl checks, its connections are released when the context closes.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public AmazonS3Client s3CheckClient(S3Validator.Settings s3ValidatorSettings) {
+        return new AmazonS3Client(s3ValidatorSettings.toClientConfiguration());
+    }
+
+    @Bean
+    public S3Validator s3Validator(S3Validator.Settings s3ValidatorSettings) {
+        return new S3Validator(s3CheckClient(s3ValidatorSettings), s3ValidatorSettings);
+    }
+
+    /**
+     * Reads the mediaAdd and mediaUpdate bodies straight into an ImageMessageRequest.
+     */
+    @Bean
+    public ImageMessageRequestConverter imageMessageRequestConverter() {
+        return new ImageMessageRequestConverter();
+    }
+
+    /**
+     * Processes the mediaAdd and tempderivative requests once their fileUrl is verified, so the servlet threads are not held
+     * while the fileUrl is checked. Bounded, a request it rejects is answered as unavailable.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor verifiedRequestExecutor(@Value("${media.verified-request.pool-size:50}") int poolSize,
+                                                          @Value("${media.verified-request.queue-capacity:100}") int queueCapacity) {
+        final ThreadPoolTaskExecutor verifiedRequestExecutor = new ThreadPoolTaskExecutor();
+        verifiedRequestExecutor.setCorePoolSize(poolSize);
+        verifiedRequestExecutor.setMaxPoolSize(poolSize);
+        verifiedRequestExecutor.setQueueCapacity(queueCapacity);
+        verifiedRequestExecutor.setThreadNamePrefix("verified-request-");
+        return verifiedRequestExecutor;
+    }
+
     @Bean
-    public DriverManagerDataSource mediaDBDataSource() {
-        final DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl(dataSourceURL);
-        dataSource.setUsername(username);
-        dataSource.setPassword(password);
-        return dataSource;
+    public MediaDao mediaDBMediaDao(MediaCache mediaCache, DomainMediaListingCache domainMediaListingCache,
+                                    @Value("${mdb.domainfields.unindexed-lcm-media-id-lookup:true}") boolean unindexedLcmMediaIdLookup,
+                                    @Value("${mdb.stream.timeout-seconds:60}") long streamTimeoutSeconds) {
+        return new MediaDBMediaDao(mediaDBDataSource(), mediaDBReadDataSource(), mediaCache, domainMediaListingCache, unindexedLcmMediaIdLookup,
+                TimeUnit.SECONDS.toMillis(streamTimeoutSeconds));
+    }
+
+    /**
+     * Scheduler of the {@code @Scheduled} tasks. Spring defaults to a single thread, on which a long task such as the
+     * domain-fields backfill would hold back the refreshes of the lodging reference index and of the domain categories.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${media.scheduler.pool-size:5}") int poolSize) {
+        final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(poolSize);
+        taskScheduler.setThreadNamePrefix("media-scheduler-");
+        return taskScheduler;
     }
 
     @Bean
-    public MediaDao mediaDBMediaDao() {
-        return new MediaDBMediaDao(mediaDBDataSource());
+    public MediaDBLodgingReferenceHotelIdDao mediaDBLodgingReferenceHotelIdDao(
+            @Value("${mdb.lodging-reference.hotel-id-index.enabled:true}") boolean indexEnabled) {
+        return new MediaDBLodgingReferenceHotelIdDao(mediaDBReadDataSource(), indexEnabled);
     }
 
     @Bean
-    public MediaDBLodgingReferenceHotelIdDao mediaDBLodgingReferenceHotelIdDao() {
-        return new MediaDBLodgingReferenceHotelIdDao(mediaDBDataSource());
+    public MediaDBLodgingReferenceRoomIdDao mediaDBLodgingReferenceRoomIdDao(
+            @Value("${mdb.lodging-reference.hotel-rooms-cache.maximum-room-count:1000000}") long maximumRoomCount,
+            @Value("${mdb.lodging-reference.hotel-rooms-cache.time-to-live-seconds:300}") long timeToLiveSeconds,
+            @Value("${mdb.lodging-reference.hotel-rooms-cache.recheck-seconds:30}") long recheckSeconds) {
+        return new MediaDBLodgingReferenceRoomIdDao(mediaDBReadDataSource(), maximumRoomCount, timeToLiveSeconds, recheckSeconds);
     }
 
     @Bean
-    public MediaDBLodgingReferenceRoomIdDao mediaDBLodgingReferenceRoomIdDao() {
-        return new MediaDBLodgingReferenceRoomIdDao(mediaDBDataSource());
+    public DomainCategoriesDao mediaDBMediaDomainCategoriesDao(
+            @Value("${mdb.domain-categories.subcategory-cache.refresh-seconds:3600}") long subCategoryRefreshSeconds) {
+        return new MediaDBDomainCategoriesDao(mediaDBReadDataSource(), subCategoryRefreshSeconds);
     }
 
     @Bean
-    public DomainCategoriesDao mediaDBMediaDomainCategoriesDao() {
-        return new MediaDBDomainCategoriesDao(mediaDBDataSource());
+    public DomainCategoriesSnapshotService domainCategoriesSnapshotService(DomainCategoriesDao mediaDBMediaDomainCategoriesDao) {
+        return new DomainCategoriesSnapshotService(mediaDBMediaDomainCategoriesDao);
     }
 
     @Bean
     public DerivativesDao mediaDBDerivativesDao() {
-        return new MediaDBDerivativesDao(mediaDBDataSource());
+        return new MediaDBDerivativesDao(mediaDBReadDataSource());
     }
 
     @Bean
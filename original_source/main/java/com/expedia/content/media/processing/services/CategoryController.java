@@ -5,8 +5,8 @@ import com.expedia.content.media.processing.pipeline.util.FormattedLogger;
 import com.expedia.content.media.processing.pipeline.util.Poker;
 import com.expedia.content.media.processing.services.dao.DomainCategoriesDao;
 import com.expedia.content.media.processing.services.exception.DomainNotFoundException;
+import com.expedia.content.media.processing.services.DomainCategoriesSnapshotService.CategoriesResponse;
 import com.expedia.content.media.processing.services.dao.domain.Category;
-import com.expedia.content.media.processing.services.dao.domain.Subcategory;
 import com.expedia.content.media.processing.services.util.JSONUtil;
 import com.expedia.content.media.processing.services.util.MediaServiceUrl;
 import org.apache.commons.lang3.StringUtils;
@@ -25,7 +25,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
@@ -37,13 +37,12 @@ import static org.springframework.http.HttpStatus.NOT_FOUND;
 public class CategoryController extends CommonServiceController {
 
     private static final FormattedLogger LOGGER = new FormattedLogger(CategoryController.class);
-    private static final String NULL_CATEGORY = "0";
-    private static final String FEATURE_CATEGORY = "3";
 
     @Value("${cs.poke.hip-chat.room}")
     private String hipChatRoom;
     private final DomainCategoriesDao domainCategoriesDao;
     private final Poker poker;
+    private DomainCategoriesSnapshotService domainCategoriesSnapshotService;
 
     @Autowired
     public CategoryController(DomainCategoriesDao domainCategoriesDao, Poker poker) {
@@ -51,13 +50,24 @@ public class CategoryController extends CommonServiceController {
         this.poker = poker;
     }
 
+    /**
+     * Sets the snapshots of the domain categories responses. Without it, or when a response is missing from the snapshots,
+     * the domain categories are read from the MediaDB.
+     *
+     * @param domainCategoriesSnapshotService The snapshot service configured for the application.
+     */
+    @Autowired(required = false)
+    public void setDomainCategoriesSnapshotService(DomainCategoriesSnapshotService domainCategoriesSnapshotService) {
+        this.domainCategoriesSnapshotService = domainCategoriesSnapshotService;
+    }
+
     /**
      * Media domain categories service. Returns all categories for a domain. Can be filtered by a locale.
      *
      * @param headers Request header contains the requestId and the clientId.
      * @param domainName Domain for which the categories are required.
      * @param localeId Id of the locale to filter in.
-     * @return Returns a JSON response for the domain categories request.
+     * @return Returns a JSON response for the domain categories request, with an ETag when it is served from the snapshots.
      */
     @RequestMapping(value = "/media/v1/domaincategories/{domainName}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE, method = RequestMethod.GET)
     @Transactional
@@ -73,6 +83,11 @@ public class CategoryController extends CommonServiceController {
                             MediaServiceUrl.MEDIA_DOMAIN_CATEGORIES.getUrl() + domainName + localePath, BAD_REQUEST);
                 }
             }
+            final Optional<CategoriesResponse> snapshotResponse = (domainCategoriesSnapshotService == null) ? Optional.empty()
+                    : domainCategoriesSnapshotService.getDomainCategories(domainName, localeId);
+            if (snapshotResponse.isPresent()) {
+                return ResponseEntity.ok().eTag(snapshotResponse.get().getETag()).body(snapshotResponse.get().getJson());
+            }
             final String response = getDomainCategories(domainName, localeId);
             return new ResponseEntity<>(response, HttpStatus.OK);
         } catch (DomainNotFoundException e) {
@@ -100,24 +115,9 @@ public class CategoryController extends CommonServiceController {
     private String getDomainCategories(String domain, String localeId) throws DomainNotFoundException {
         if (Domain.LODGING.toString().equalsIgnoreCase(domain)) {
             final List<Category> domainCategories = domainCategoriesDao.getMediaCategoriesWithSubCategories(domain, localeId);
-            final List<Category> categoriesWithNonNullSubCategories = domainCategories.stream()
-                    .filter(category -> !category.getCategoryId().equals(FEATURE_CATEGORY))
-                    .filter(category -> !containsNullSubCategory(category.getSubcategories()))
-                    .collect(Collectors.toList());
-            return JSONUtil.generateJsonByCategoryList(categoriesWithNonNullSubCategories, domain);
+            return JSONUtil.generateJsonByCategoryList(DomainCategoriesSnapshotService.displayableCategories(domainCategories), domain);
         } else {
             throw new DomainNotFoundException("Domain Not Found");
         }
     }
-
-    /**
-     * returns true is the category has at least one subcategory 0
-     * this is because /media/v1/domaincategories/{domainName} should not display subcategory 0
-     *
-     * @param subcategories The list of subcategories to check for null subcategories in.
-     * @return true if a Null subcategory exists, false otherwise.
-     */
-    private boolean containsNullSubCategory(List<Subcategory> subcategories) {
-        return subcategories.stream().anyMatch(subcategory -> subcategory.getSubcategoryId().equals(NULL_CATEGORY));
-    }
 }
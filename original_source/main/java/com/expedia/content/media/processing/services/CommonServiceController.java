@@ -1,17 +1,24 @@
 package com.expedia.content.media.processing.services;
 
+import com.expedia.content.media.processing.pipeline.util.FormattedLogger;
 import com.expedia.content.media.processing.services.util.JSONUtil;
-import com.expedia.content.media.processing.services.validator.HTTPValidator;
+import com.expedia.content.media.processing.services.validator.HTTPUrlVerifier;
 import com.expedia.content.media.processing.services.validator.S3Validator;
 import com.expedia.content.media.processing.services.validator.ValidationStatus;
 import expedia.content.solutions.metrics.annotations.Counter;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.util.MultiValueMap;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
 import static com.expedia.content.media.processing.services.util.URLUtil.patchURL;
 
 /**
@@ -19,11 +26,46 @@ import static com.expedia.content.media.processing.services.util.URLUtil.patchUR
  */
 @SuppressWarnings({"PMD.AbstractClassWithoutAbstractMethod"})
 public abstract class CommonServiceController {
+    private static final FormattedLogger LOGGER = new FormattedLogger(CommonServiceController.class);
 
     protected static final String REQUEST_ID = "request-id";
     protected static final String VALID_MESSAGE = "OK";
     protected static final String INVALID_MESSAGE = "Invalid Message.";
 
+    private HTTPUrlVerifier httpUrlVerifier;
+    private S3Validator s3Validator;
+    private Executor verifiedRequestExecutor;
+
+    /**
+     * Sets the verifier of the HTTP fileUrls.
+     *
+     * @param httpUrlVerifier The verifier configured for the application.
+     */
+    @Autowired
+    public void setHttpUrlVerifier(HTTPUrlVerifier httpUrlVerifier) {
+        this.httpUrlVerifier = httpUrlVerifier;
+    }
+
+    /**
+     * Sets the validator of the S3 fileUrls.
+     *
+     * @param s3Validator The validator configured for the application.
+     */
+    @Autowired
+    public void setS3Validator(S3Validator s3Validator) {
+        this.s3Validator = s3Validator;
+    }
+
+    /**
+     * Sets the executor processing the requests once their fileUrl is verified, so the HEAD request threads are not held by them.
+     *
+     * @param verifiedRequestExecutor The executor configured for the application.
+     */
+    @Autowired
+    public void setVerifiedRequestExecutor(@Qualifier("verifiedRequestExecutor") Executor verifiedRequestExecutor) {
+        this.verifiedRequestExecutor = verifiedRequestExecutor;
+    }
+
     /**
      * Builds an error response.
      *
@@ -60,20 +102,73 @@ public abstract class CommonServiceController {
     }
 
     /**
-     * Verifies if the file exists in an S3 bucket or is available in HTTP.
+     * Verifies if the file exists in an S3 bucket or is available in HTTP. The HTTP files are verified without holding the
+     * calling thread, the S3 files are verified before returning.
      *
      * @param fileUrl Incoming imageMessage's fileUrl.
-     * @return {@code true} if the file exists; {@code false} otherwise.
+     * @return The future status of the file, valid if the file exists.
      */
-    public ValidationStatus verifyUrl(final String fileUrl) {
+    public CompletableFuture<ValidationStatus> verifyUrl(final String fileUrl) {
         if (StringUtils.isEmpty(fileUrl)) {
-            return new ValidationStatus(false, "No fileUrl provided.", "");
+            return CompletableFuture.completedFuture(new ValidationStatus(false, "No fileUrl provided.", ""));
         }
         if (fileUrl.startsWith(S3Validator.S3_PREFIX)) {
-            return S3Validator.checkFileExists(patchURL(fileUrl));
-        } else {
-            return HTTPValidator.checkFileExists(patchURL(fileUrl));
+            return CompletableFuture.completedFuture(s3Validator.verify(patchURL(fileUrl)));
+        }
+        return httpUrlVerifier.verify(patchURL(fileUrl));
+    }
+
+    /**
+     * Verifies the fileUrl of a request, then processes the request with the status of the file. A request whose file status
+     * is already known, cached for instance, is processed at once by the calling thread, the other requests are processed by
+     * the verified request executor once the file is verified. A check that failed, or a request the executor rejects, is
+     * processed with an unavailable status.
+     *
+     * @param fileUrl         Incoming message's fileUrl.
+     * @param verifiedRequest Processes the request with the status of its file.
+     * @return The future response of the request, failed with the exception the request processing threw.
+     */
+    protected CompletableFuture<ResponseEntity<String>> processWhenUrlVerified(final String fileUrl, final VerifiedRequest verifiedRequest) {
+        final CompletableFuture<ValidationStatus> fileValidation = verifyUrl(fileUrl);
+        final CompletableFuture<ResponseEntity<String>> response = new CompletableFuture<>();
+        if (fileValidation.isDone() && !fileValidation.isCompletedExceptionally()) {
+            process(verifiedRequest, fileValidation.getNow(null), response);
+            return response;
+        }
+        fileValidation.whenComplete((status, failure) -> {
+            if (failure != null) {
+                LOGGER.warn(failure, "Url check failed Url={}", fileUrl);
+            }
+            final ValidationStatus checkedStatus = failure == null ? status : ValidationStatus.unavailable();
+            try {
+                verifiedRequestExecutor.execute(() -> process(verifiedRequest, checkedStatus, response));
+            } catch (RejectedExecutionException e) {
+                LOGGER.warn("Verified request rejected, too many requests being processed Url={}", fileUrl);
+                process(verifiedRequest, ValidationStatus.unavailable(), response);
+            }
+        });
+        return response;
+    }
+
+    private static void process(VerifiedRequest verifiedRequest, ValidationStatus fileValidation, CompletableFuture<ResponseEntity<String>> response) {
+        try {
+            response.complete(verifiedRequest.process(fileValidation));
+        } catch (Exception e) {
+            response.completeExceptionally(e);
         }
     }
 
+    /**
+     * Processing of a request once its fileUrl is verified.
+     */
+    @FunctionalInterface
+    protected interface VerifiedRequest {
+        /**
+         * @param fileValidation The status of the fileUrl of the request.
+         * @return The response of the request.
+         * @throws Exception Thrown if processing the request fails.
+         */
+        @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+        ResponseEntity<String> process(ValidationStatus fileValidation) throws Exception;
+    }
 }
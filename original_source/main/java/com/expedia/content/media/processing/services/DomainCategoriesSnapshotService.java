@@ -0,0 +1,196 @@
+package com.expedia.content.media.processing.services;
+
+import com.expedia.content.media.processing.pipeline.domain.Domain;
+import com.expedia.content.media.processing.pipeline.util.FormattedLogger;
+import com.expedia.content.media.processing.services.dao.DomainCategoriesDao;
+import com.expedia.content.media.processing.services.dao.domain.Category;
+import com.expedia.content.media.processing.services.dao.domain.DomainCategory;
+import com.expedia.content.media.processing.services.dao.domain.Subcategory;
+import com.expedia.content.media.processing.services.util.JSONUtil;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import expedia.content.solutions.metrics.annotations.Gauge;
+import lombok.Getter;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.domainCategoryListToCategoryList;
+
+/**
+ * Keeps the responses of the domain categories service ready to be served.
+ * The categories of a domain are read in one query, and the JSON response of every localeId, and of all the localeIds, is built
+ * once per version of the domain categories. The version is a hash of the rows, the table is read again in the background and
+ * the responses are only rebuilt when the version changes. Each response comes with an ETag so clients can revalidate it.
+ * Note that the {@code @Gauge} annotations introduce aspects from metrics-support.
+ */
+public class DomainCategoriesSnapshotService {
+
+    private static final FormattedLogger LOGGER = new FormattedLogger(DomainCategoriesSnapshotService.class);
+    private static final String NULL_CATEGORY = "0";
+    private static final String FEATURE_CATEGORY = "3";
+    private static final String FIELD_SEPARATOR = "\u0000";
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    private static final List<String> SNAPSHOT_DOMAINS = Collections.singletonList(Domain.LODGING.getDomain());
+
+    private final DomainCategoriesDao domainCategoriesDao;
+    private final Map<String, DomainSnapshot> snapshotsByDomain = new ConcurrentHashMap<>();
+    private final AtomicLong rebuildCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public DomainCategoriesSnapshotService(DomainCategoriesDao domainCategoriesDao) {
+        this.domainCategoriesDao = domainCategoriesDao;
+    }
+
+    /**
+     * Gets the domain categories response of a domain and localeId.
+     *
+     * @param domain   The domain of the categories, in any case.
+     * @param localeId The localeId of the categories, null for all the localeIds.
+     * @return The response, Optional.empty() when the domain has no snapshot or the localeId has no categories in it.
+     */
+    public Optional<CategoriesResponse> getDomainCategories(String domain, String localeId) {
+        final DomainSnapshot snapshot = snapshotsByDomain.get(domain.toLowerCase(Locale.US));
+        final CategoriesResponse response = snapshot == null ? null
+                : (localeId == null ? snapshot.allLocalesResponse : snapshot.responsesByLocaleId.get(localeId));
+        if (response == null) {
+            missCount.incrementAndGet();
+        }
+        return Optional.ofNullable(response);
+    }
+
+    /**
+     * Builds the snapshots at startup, a domain whose categories can not be read is served from the MediaDB until the next
+     * refresh.
+     */
+    @PostConstruct
+    public void loadSnapshots() {
+        try {
+            refreshSnapshots();
+        } catch (Exception e) {
+            LOGGER.error(e, "Domain categories snapshot load failed, domain categories are read from the MediaDB until the next refresh");
+        }
+    }
+
+    /**
+     * Reads the categories of the domains and rebuilds the snapshot of the domains whose categories changed.
+     */
+    @Scheduled(initialDelayString = "${media.domain-categories.snapshot.refresh-delay-ms:60000}",
+            fixedDelayString = "${media.domain-categories.snapshot.refresh-delay-ms:60000}")
+    public synchronized void refreshSnapshots() {
+        for (final String domain : SNAPSHOT_DOMAINS) {
+            final List<DomainCategory> domainCategories = domainCategoriesDao.getDomainCategories(domain);
+            final String version = buildVersion(domainCategories);
+            final String domainKey = domain.toLowerCase(Locale.US);
+            final DomainSnapshot currentSnapshot = snapshotsByDomain.get(domainKey);
+            if (currentSnapshot == null || !currentSnapshot.version.equals(version)) {
+                snapshotsByDomain.put(domainKey, buildSnapshot(domain, version, domainCategories));
+                rebuildCount.incrementAndGet();
+                LOGGER.info("Rebuilt domain categories snapshot Domain={} Version={} RowCount={}", domain, version, domainCategories.size());
+            }
+        }
+    }
+
+    /**
+     * Removes the featured category and the categories having a null subcategory, they are not displayed by
+     * /media/v1/domaincategories/{domainName}.
+     *
+     * @param categories The categories of a domain.
+     * @return The categories to display.
+     */
+    public static List<Category> displayableCategories(List<Category> categories) {
+        return categories.stream()
+                .filter(category -> !category.getCategoryId().equals(FEATURE_CATEGORY))
+                .filter(category -> !containsNullSubCategory(category.getSubcategories()))
+                .collect(Collectors.toList());
+    }
+
+    private static boolean containsNullSubCategory(List<Subcategory> subcategories) {
+        return subcategories.stream().anyMatch(subcategory -> subcategory.getSubcategoryId().equals(NULL_CATEGORY));
+    }
+
+    private static DomainSnapshot buildSnapshot(String domain, String version, List<DomainCategory> domainCategories) {
+        final Map<String, List<DomainCategory>> domainCategoriesByLocaleId = new HashMap<>();
+        for (final DomainCategory domainCategory : domainCategories) {
+            domainCategoriesByLocaleId.computeIfAbsent(domainCategory.getLocaleId(), localeId -> new ArrayList<>()).add(domainCategory);
+        }
+        final Map<String, CategoriesResponse> responsesByLocaleId = new HashMap<>();
+        domainCategoriesByLocaleId.forEach((localeId, localeCategories) -> {
+            if (localeId != null) {
+                responsesByLocaleId.put(localeId, buildResponse(domain, localeCategories));
+            }
+        });
+        return new DomainSnapshot(version, buildResponse(domain, domainCategories), responsesByLocaleId);
+    }
+
+    private static CategoriesResponse buildResponse(String domain, List<DomainCategory> domainCategories) {
+        final String json = JSONUtil.generateJsonByCategoryList(displayableCategories(domainCategoryListToCategoryList(domainCategories)), domain);
+        return new CategoriesResponse(json, "\"" + HASH_FUNCTION.hashString(json, StandardCharsets.UTF_8) + "\"");
+    }
+
+    /**
+     * Hashes the rows of a domain, the hash does not depend on the order the rows are read in.
+     */
+    private static String buildVersion(List<DomainCategory> domainCategories) {
+        if (domainCategories.isEmpty()) {
+            return "";
+        }
+        final List<HashCode> rowHashes = domainCategories.stream()
+                .map(domainCategory -> HASH_FUNCTION.hashString(String.join(FIELD_SEPARATOR,
+                        String.valueOf(domainCategory.getParentCategoryId()), String.valueOf(domainCategory.getCategoryId()),
+                        String.valueOf(domainCategory.getLocaleId()), String.valueOf(domainCategory.getLocalizedName())), StandardCharsets.UTF_8))
+                .collect(Collectors.toList());
+        return Hashing.combineUnordered(rowHashes).toString();
+    }
+
+    @Gauge(name = "domainCategoriesSnapshotRebuilds")
+    public Long rebuildCount() {
+        return rebuildCount.get();
+    }
+
+    @Gauge(name = "domainCategoriesSnapshotMisses")
+    public Long missCount() {
+        return missCount.get();
+    }
+
+    /**
+     * JSON response of the domain categories service, and its ETag.
+     */
+    @Getter
+    public static final class CategoriesResponse {
+        private final String json;
+        private final String eTag;
+
+        private CategoriesResponse(String json, String eTag) {
+            this.json = json;
+            this.eTag = eTag;
+        }
+    }
+
+    /**
+     * The responses of a domain for one version of its categories.
+     */
+    private static final class DomainSnapshot {
+        private final String version;
+        private final CategoriesResponse allLocalesResponse;
+        private final Map<String, CategoriesResponse> responsesByLocaleId;
+
+        private DomainSnapshot(String version, CategoriesResponse allLocalesResponse, Map<String, CategoriesResponse> responsesByLocaleId) {
+            this.version = version;
+            this.allLocalesResponse = allLocalesResponse;
+            this.responsesByLocaleId = responsesByLocaleId;
+        }
+    }
+}
@@ -13,6 +13,7 @@ import com.expedia.content.media.processing.pipeline.util.FormattedLogger;
 import com.expedia.content.media.processing.services.dao.MediaDao;
 import com.expedia.content.media.processing.services.dao.domain.Media;
 import com.expedia.content.media.processing.services.dao.domain.Thumbnail;
+import com.expedia.content.media.processing.services.reqres.ImageMessageRequest;
 import com.expedia.content.media.processing.services.util.DomainDataUtil;
 import com.expedia.content.media.processing.services.util.FileNameUtil;
 import com.expedia.content.media.processing.services.util.MediaReplacement;
@@ -73,16 +74,18 @@ public class MediaAddProcessor {
     private final ThumbnailProcessor thumbnailProcessor;
     private final MediaDao mediaDao;
     private final KafkaCommonPublisher kafkaCommonPublisher;
+    private final MediaUnheroProcessor mediaUnheroProcessor;
 
     @Autowired
     public MediaAddProcessor(MediaDao mediaDao, KafkaCommonPublisher kafkaCommonPublisher, ThumbnailProcessor thumbnailProcessor, LogActivityProcess logActivityProcess,
-                             Reporting reporting, QueueMessagingTemplate messagingTemplate) {
+                             Reporting reporting, QueueMessagingTemplate messagingTemplate, MediaUnheroProcessor mediaUnheroProcessor) {
         this.mediaDao = mediaDao;
         this.kafkaCommonPublisher = kafkaCommonPublisher;
         this.thumbnailProcessor = thumbnailProcessor;
         this.logActivityProcess = logActivityProcess;
         this.reporting = reporting;
         this.messagingTemplate = messagingTemplate;
+        this.mediaUnheroProcessor = mediaUnheroProcessor;
 
     }
 
@@ -101,10 +104,28 @@ public class MediaAddProcessor {
      * @return The response for the service call.
      * @throws Exception Thrown if the message can't be validated or the response can't be serialized.
      */
-    @SuppressWarnings({"PMD.PrematureDeclaration", "PMD.CyclomaticComplexity", "PMD.NPathComplexity","Duplicates"})
     public ResponseEntity<String> processRequest(final String message, final String requestID,
                                                   final String serviceUrl, final String clientId, HttpStatus successStatus, Date timeReceived) throws Exception {
-        final ImageMessage imageMessage = buildImageMessageFromJSONMessage(message, requestID, clientId);
+        return processRequest(new ImageMessageRequest(message), requestID, serviceUrl, clientId, successStatus, timeReceived);
+    }
+
+    /**
+     * Processes a MediaAdd request from the ImageMessage already bound by the validation of the request.
+     *
+     * @param request The mediaAdd request.
+     * @param requestID The id of the request. Used for tracking purposes.
+     * @param serviceUrl URL of the message called.
+     * @param clientId Web service client id.
+     * @param successStatus Status to return when successful.
+     * @param timeReceived The time at which MediaService received the request
+     * @return The response for the service call.
+     * @throws Exception Thrown if the message can't be validated or the response can't be serialized.
+     * @see #processRequest(String, String, String, String, HttpStatus, Date)
+     */
+    @SuppressWarnings({"PMD.PrematureDeclaration", "PMD.CyclomaticComplexity", "PMD.NPathComplexity","Duplicates"})
+    public ResponseEntity<String> processRequest(final ImageMessageRequest request, final String requestID,
+                                                  final String serviceUrl, final String clientId, HttpStatus successStatus, Date timeReceived) throws Exception {
+        final ImageMessage imageMessage = buildImageMessageFromRequest(request.getImageMessage(), requestID, clientId);
         imageMessage.addLogEntry(new LogEntry(App.MEDIA_SERVICE, Activity.RECEPTION, timeReceived));
         logActivity(imageMessage, Activity.RECEPTION, timeReceived);
         final Map<String, String> response = new HashMap<>();
@@ -134,7 +155,7 @@ public class MediaAddProcessor {
             LOGGER.info("Finished inserting media in MediaDB MediaGuid={} RequestId={} ClientId={}", imageMessage.getMediaGuid(), requestID, clientId);
 
         }
-        unHeroMedia(imageMessage);
+        mediaUnheroProcessor.unheroMedia(imageMessage, imageMessage.getOuterDomainData() == null ? null : imageMessage.getOuterDomainData().getDomainId());
         publishMsg(imageMessage);
         final ResponseEntity<String> responseEntity = new ResponseEntity<>(OBJECT_MAPPER.writeValueAsString(response), successStatus);
         LOGGER.info("SUCCESS ResponseStatus={} ResponseBody={} ServiceUrl={}",
@@ -143,49 +164,16 @@ public class MediaAddProcessor {
     }
 
     /**
-     * unhero current hero image in mediaDB
-     * @param imageMessage
-     */
-    private void unHeroMedia(ImageMessage imageMessage) {
-        if (imageMessage.getOuterDomainData() != null
-                && imageMessage.getOuterDomainData().getDomainFields() != null
-                && ("true").equals(imageMessage.getOuterDomainData().getDomainFields().get("propertyHero"))
-                && imageMessage.getOuterDomainData().getDomain() != null
-                && ("Lodging").equals(imageMessage.getOuterDomainData().getDomain().getDomain())) {
-            LOGGER.info("Started query media by domainId={}", imageMessage.getOuterDomainData().getDomainId());
-            final List<Optional<Media>> currentHeroList = mediaDao.getHeroMediaByDomainId(imageMessage.getOuterDomainData().getDomainId());
-            LOGGER.info("end query media by domainId={} heroListSize={}", imageMessage.getOuterDomainData().getDomainId(), currentHeroList.size());
-            currentHeroList
-                    .stream()
-                    .filter(Optional::isPresent)
-                    .filter(media -> !media.get().getMediaGuid().equals(imageMessage.getMediaGuid()))
-                    .map(Optional::get)
-                    .forEach(media -> {
-                        mediaDao.unheroMedia(media.getMediaGuid(),
-                                media.getDomainFields().replace("\"propertyHero\":\"true\"", "\"propertyHero\":\"false\""));
-                        try {
-                            kafkaCommonPublisher
-                                    .publishImageMessage(media.toImageMessage(), imageMessageTopic, imageMessageRetryTopic);
-                        } catch (Exception ex) {
-                            LOGGER.error(ex, "send kafka message failed imageMessage={}", imageMessage.toJSONMessage());
-                        }
-
-                    });
-        }
-    }
-
-    /**
-     * Builds an ImageMessage by parsing a Json String message. This method adds appropriate fields based on whether the message is a
+     * Builds an ImageMessage from the ImageMessage of a request. This method adds appropriate fields based on whether the message is a
      * reprocess method or not; generating a MediaGuid and resolving a filename in the latter case.
      *
-     * @param message The Json String from which to parse, to build and add the appropriate fields to an ImageMessage
+     * @param imageMessage The ImageMessage bound from the request, to build and add the appropriate fields to
      * @param requestId The id of the request. Used for tracking purposes.
      * @param clientId Web service client id.
      * @return A Map contains the updated message with request and other data added
      * and if the file is checked for reprocessing .
      */
-    private ImageMessage buildImageMessageFromJSONMessage(final String message, final String requestId, final String clientId) {
-        final ImageMessage imageMessage = ImageMessage.parseJsonMessage(message);
+    private ImageMessage buildImageMessageFromRequest(final ImageMessage imageMessage, final String requestId, final String clientId) {
         final ImageMessage.ImageMessageBuilder imageMessageBuilder = imageMessage.createBuilderFromMessage();
         OuterDomain outerDomain = imageMessage.getOuterDomainData();
         final boolean isReprocessMedia = verifyReprocessMediaAndUpdateImageMessage(imageMessage.getFileName(), imageMessageBuilder, outerDomain, clientId, requestId);
@@ -266,7 +254,7 @@ public class MediaAddProcessor {
      * Resolves which fileName should be used as the ProvidedName. If the fileName field does not exist a name
      * is extracted from the FileURL.
      * Note: this method will only be called on new media sent through MediaAdd.
-     * message is parsed and Reprocessed Media will never end up in the branch in @buildImageMessageFromJSONMessage()
+     * message is parsed and Reprocessed Media will never end up in the branch in @buildImageMessageFromRequest()
      * that calls this method
      *
      * @param imageMessage an imageMessage that does has null for the providedName field
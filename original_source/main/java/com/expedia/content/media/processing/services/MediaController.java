@@ -4,6 +4,7 @@ import static org.springframework.http.HttpStatus.ACCEPTED;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -13,6 +14,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import javax.servlet.http.HttpServletResponse;
 
 import com.expedia.content.media.processing.pipeline.domain.Domain;
 import com.expedia.content.media.processing.pipeline.domain.ImageMessage;
@@ -21,6 +25,7 @@ import com.expedia.content.media.processing.pipeline.kafka.KafkaCommonPublisher;
 import com.expedia.content.media.processing.pipeline.reporting.LogActivityProcess;
 import com.expedia.content.media.processing.pipeline.reporting.LogEntry;
 import com.expedia.content.media.processing.pipeline.reporting.Reporting;
+import com.expedia.content.media.processing.pipeline.util.ESAPIValidationUtil;
 import com.expedia.content.media.processing.pipeline.util.FormattedLogger;
 import com.expedia.content.media.processing.pipeline.util.Poker;
 import com.expedia.content.media.processing.services.dao.MediaDao;
@@ -28,19 +33,24 @@ import com.expedia.content.media.processing.services.dao.domain.Media;
 import com.expedia.content.media.processing.services.dao.mediadb.MediaDBLodgingReferenceHotelIdDao;
 import com.expedia.content.media.processing.services.exception.MediaNotFoundException;
 import com.expedia.content.media.processing.services.exception.PaginationValidationException;
+import com.expedia.content.media.processing.services.reqres.ImageMessageRequest;
 import com.expedia.content.media.processing.services.reqres.MediaByDomainIdResponse;
 import com.expedia.content.media.processing.services.reqres.MediaGetResponse;
+import com.expedia.content.media.processing.services.util.ContinuationToken;
 import com.expedia.content.media.processing.services.util.JSONUtil;
 import com.expedia.content.media.processing.services.util.MediaServiceUrl;
+import com.expedia.content.media.processing.services.util.ResponseEncoder;
+import com.expedia.content.media.processing.services.util.ThreadCpuTime;
 import com.expedia.content.media.processing.services.util.ValidatorUtil;
 import com.expedia.content.media.processing.services.validator.MapMessageValidator;
 import com.expedia.content.media.processing.services.validator.ValidationStatus;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
 
 import org.apache.commons.lang.StringEscapeUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.aws.messaging.core.QueueMessagingTemplate;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -72,10 +82,7 @@ import expedia.content.solutions.metrics.annotations.Timer;
 public class MediaController extends CommonServiceController {
 
     private static final FormattedLogger LOGGER = new FormattedLogger(MediaController.class);
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     private static final String UNAUTHORIZED_USER_MESSAGE = "User is not authorized.";
-    private static final String DOMAIN = "domain";
-    private static final String DOMAIN_ID = "domainId";
     private static final String REG_EX_GUID = "[a-z0-9]{8}(-[a-z0-9]{4}){3}-[a-z0-9]{12}";
     private static final String DUPLICATED_STATUS = "DUPLICATE";
     private static final String DEFAULT_VALIDATION_RULES = "DEFAULT";
@@ -86,6 +93,7 @@ public class MediaController extends CommonServiceController {
     static {
         STATUS_MAP.put(ValidationStatus.NOT_FOUND, NOT_FOUND);
         STATUS_MAP.put(ValidationStatus.ZERO_BYTES, BAD_REQUEST);
+        STATUS_MAP.put(ValidationStatus.UNAVAILABLE, SERVICE_UNAVAILABLE);
         STATUS_MAP.put(ValidationStatus.INVALID, BAD_REQUEST);
         STATUS_MAP.put(ValidationStatus.VALID, OK);
     }
@@ -129,9 +137,10 @@ public class MediaController extends CommonServiceController {
     }
 
     /**
-     * Web service interface to push a media file into the media processing pipeline.
+     * Web service interface to push a media file into the media processing pipeline. The request thread is released while the
+     * fileUrl is verified, the request is then processed by the verified request executor.
      *
-     * @param message JSON formatted ImageMessage.
+     * @param request JSON formatted ImageMessage, read once from the request body.
      * @param headers Request headers.
      * @return A Success ResponseEntity if all processes are successful, otherwise and Error ResponseEntity is returned.
      * @throws Exception Thrown if processing the message fails.
@@ -141,29 +150,65 @@ public class MediaController extends CommonServiceController {
     @Timer(name = "addMessageTimer")
     @SuppressWarnings("PMD.SignatureDeclareThrowsException")
     @RequestMapping(value = "/media/v1/images", produces = MediaType.APPLICATION_JSON_UTF8_VALUE, method = RequestMethod.POST)
-    public ResponseEntity<String> mediaAdd(@RequestBody final String message, @RequestHeader final MultiValueMap<String,String> headers) throws Exception {
+    public CompletableFuture<ResponseEntity<String>> mediaAdd(@RequestBody final ImageMessageRequest request,
+                                                              @RequestHeader final MultiValueMap<String,String> headers) throws Exception {
+        final long cpuStart = ThreadCpuTime.nanos();
         final Date timeReceived = new Date();
+        final String message = request.getMessage();
         final String clientID = getClientId();
         final String requestID = verifyRequestId(headers, true);
         final String serviceUrl = MediaServiceUrl.MEDIA_IMAGES.getUrl();
         LOGGER.info("RECEIVED ADD REQUEST ServiceUrl={} ClientId={} RequestId={} JSONMessage={}", serviceUrl, clientID, requestID, message);
         try {
-            final Optional<ResponseEntity<String>> errorResponse = validateMediaAddRequest(message, requestID, clientID, serviceUrl);
+            final Optional<ResponseEntity<String>> errorResponse = validateMediaAddRequest(request, requestID, clientID, serviceUrl);
             if (errorResponse.isPresent()) {
-                return errorResponse.get();
+                return CompletableFuture.completedFuture(errorResponse.get());
             }
-            return mediaAddProcessor.processRequest(message, requestID, serviceUrl, clientID, ACCEPTED, timeReceived);
-        } catch (ImageMessageException ex) {
+            final String fileUrl = request.getImageMessage().getFileUrl();
+            request.addCpuNanos(ThreadCpuTime.nanos() - cpuStart);
+            return processWhenUrlVerified(fileUrl, fileValidation -> {
+                final long processCpuStart = ThreadCpuTime.nanos();
+                try {
+                    final Optional<ResponseEntity<String>> fileErrorResponse = validateMediaAddFile(fileValidation, message, requestID, clientID, serviceUrl);
+                    if (fileErrorResponse.isPresent()) {
+                        return fileErrorResponse.get();
+                    }
+                    return mediaAddProcessor.processRequest(request, requestID, serviceUrl, clientID, ACCEPTED, timeReceived);
+                } catch (Exception ex) {
+                    return handleMediaAddException(ex, message, requestID, clientID, serviceUrl);
+                } finally {
+                    request.addCpuNanos(ThreadCpuTime.nanos() - processCpuStart);
+                    LOGGER.info("END ADD REQUEST ServiceUrl={} ClientId={} RequestId={} CpuMicros={}", serviceUrl, clientID, requestID, request.getCpuMicros());
+                }
+            });
+        } catch (Exception ex) {
+            return CompletableFuture.completedFuture(handleMediaAddException(ex, message, requestID, clientID, serviceUrl));
+        }
+    }
+
+    /**
+     * Answers a bad request to a mediaAdd request whose message is not a valid ImageMessage, and reports the other failures.
+     *
+     * @param ex The exception processing the request threw.
+     * @param message The mediaAdd request message.
+     * @param requestID The requestId sent in the request headers.
+     * @param clientID The clientId sent in the request headers.
+     * @param serviceUrl The MediaAdd service url.
+     * @return The bad request response if the message is not valid.
+     * @throws Exception The exception processing the request threw, when the message is valid.
+     */
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    private ResponseEntity<String> handleMediaAddException(Exception ex, String message, String requestID, String clientID, String serviceUrl) throws Exception {
+        if (ex instanceof ImageMessageException) {
             final ResponseEntity<String> errorResponse = buildErrorResponse("JSON request format is invalid. Json message=" + message, serviceUrl, BAD_REQUEST);
             LOGGER.error(ex, "ERROR ResponseStatus={} ResponseBody={} ServiceUrl={} ClientId={} RequestId={} ErrorMessage={}",
                     Arrays.asList(errorResponse.getStatusCode().toString(), errorResponse.getBody(), serviceUrl, clientID, requestID, ex.getMessage()), message);
             return errorResponse;
-        } catch (Exception ex) {
-            LOGGER.error(ex, "ERROR ServiceUrl={} ClientId={} RequestId={} ErrorMessage={}", Arrays.asList(serviceUrl, clientID, requestID, ex.getMessage()), message);
-            poker.poke("Media Services failed to process a mediaAdd request - RequestId: " + requestID, hipChatRoom,
-                    message, ex);
-            throw ex;
         }
+        LOGGER.error(ex, "ERROR ServiceUrl={} ClientId={} RequestId={} ErrorMessage={}", Arrays.asList(serviceUrl, clientID, requestID, ex.getMessage()), message);
+        poker.poke("Media Services failed to process a mediaAdd request - RequestId: " + requestID, hipChatRoom,
+                message, ex);
+        throw ex;
     }
 
     /**
@@ -189,23 +234,39 @@ public class MediaController extends CommonServiceController {
     /**
      * Validates a Media Add Request. If the request is valid null is returned, otherwise an Error ResponseEntity is returned.
      *
-     * @param message The mediaAdd JSON request.
+     * @param request The mediaAdd request.
      * @param requestId The requestId sent in the request headers.
      * @param clientId The clientId sent in the request headers.
      * @param serviceUrl The MediaAdd service url.
      * @return an Error ResponseEntity if the request is not valid, null otherwise.
      * @throws Exception validating the image message can throw an exception.
      */
-    private Optional<ResponseEntity<String>> validateMediaAddRequest(String message, String requestId, String clientId, String serviceUrl) throws Exception {
+    private Optional<ResponseEntity<String>> validateMediaAddRequest(ImageMessageRequest request, String requestId, String clientId, String serviceUrl)
+            throws Exception {
+        final String message = request.getMessage();
         LOGGER.info("Validation of image: RequestId={}", Arrays.asList(requestId), message);
-        final String json = validateImageMessage(message, clientId);
+        final String json = validateImageMessage(request, clientId);
         if (!"[]".equals(json)) {
             LOGGER.warn("Returning bad request ServiceUrl={} ClientId={} RequestId={} ErrorMessage={}", Arrays.asList(serviceUrl, clientId, requestId, json), message);
             return Optional.of(buildErrorResponse(json, serviceUrl, BAD_REQUEST));
         }
-        @SuppressWarnings("CPD-START")
-        final ImageMessage imageMessage = ImageMessage.parseJsonMessage(message);
-        final ValidationStatus fileValidation = verifyUrl(imageMessage.getFileUrl());
+        return Optional.empty();
+    }
+
+    /**
+     * Validates the fileUrl status of a Media Add Request. If the file is valid Optional.empty() is returned, otherwise an Error
+     * ResponseEntity is returned.
+     *
+     * @param fileValidation The status of the fileUrl of the request.
+     * @param message The mediaAdd request message.
+     * @param requestId The requestId sent in the request headers.
+     * @param clientId The clientId sent in the request headers.
+     * @param serviceUrl The MediaAdd service url.
+     * @return an Error ResponseEntity if the file is not valid, Optional.empty() otherwise.
+     */
+    @SuppressWarnings("CPD-START")
+    private static Optional<ResponseEntity<String>> validateMediaAddFile(ValidationStatus fileValidation, String message, String requestId, String clientId,
+                                                                         String serviceUrl) {
         if (!fileValidation.isValid()) {
             switch (fileValidation.getStatus()) {
                 case ValidationStatus.NOT_FOUND:
@@ -216,6 +277,10 @@ public class MediaController extends CommonServiceController {
                     LOGGER.info("BAD REQUEST Reason=\"Provided 'file is 0 Bytes'\" ServiceUrl={} ClientId={} RequestId={}",
                             Arrays.asList(serviceUrl, clientId, requestId), message);
                     break;
+                case ValidationStatus.UNAVAILABLE:
+                    LOGGER.warn("SERVICE UNAVAILABLE Reason=\"Provided 'fileUrl could not be verified'\" ServiceUrl={} ClientId={} RequestId={}",
+                            Arrays.asList(serviceUrl, clientId, requestId), message);
+                    break;
                 default:
                     LOGGER.info("BAD REQUEST ServiceUrl={} ClientId={} RequestId={}",
                             Arrays.asList(serviceUrl, clientId, requestId), message);
@@ -230,7 +295,7 @@ public class MediaController extends CommonServiceController {
      * web service interface to update media information
      *
      * @param queryId can be lcmMediaId or media GUID
-     * @param message JSON message
+     * @param updateRequest JSON message, read once from the request body.
      * @param headers Request headers.
      * @return A Success ResponseEntity if all processes are successful, otherwise and Error ResponseEntity is returned.
      * @throws Exception
@@ -239,8 +304,10 @@ public class MediaController extends CommonServiceController {
     @Timer(name = "updateMessageTimer")
     @SuppressWarnings("PMD.SignatureDeclareThrowsException")
     @RequestMapping(value = "/media/v1/images/{queryId}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE, method = RequestMethod.PUT)
-    public ResponseEntity<String> mediaUpdate(@PathVariable("queryId") final String queryId, @RequestBody final String message, @RequestHeader final MultiValueMap<String,String> headers)
-            throws Exception {
+    public ResponseEntity<String> mediaUpdate(@PathVariable("queryId") final String queryId, @RequestBody final ImageMessageRequest updateRequest,
+                                              @RequestHeader final MultiValueMap<String,String> headers) throws Exception {
+        final long cpuStart = ThreadCpuTime.nanos();
+        final String message = updateRequest.getMessage();
         final String requestID = getRequestId(headers);
         final String clientID = getClientId();
         final String serviceUrl = MediaServiceUrl.MEDIA_IMAGES.getUrl() + "/" + queryId;
@@ -252,18 +319,20 @@ public class MediaController extends CommonServiceController {
                         serviceUrl, BAD_REQUEST);
             }
             LOGGER.info("Started querying media by media-guid in MediaDB ClientId={} RequestId={} MediaGUID={}", clientID, requestID, queryId);
-            final Media mediaInMediaDB = mediaDao.getMediaByGuid(queryId).orElseThrow(MediaNotFoundException::new);
+            final Media mediaInMediaDB = mediaDao.getMediaByGuidForUpdate(queryId).orElseThrow(MediaNotFoundException::new);
             LOGGER.info("Finished querying media by media-guid in MediaDB ClientId={} RequestId={} MediaGUID={}", clientID, requestID, queryId);
-            final String updatedJsonMessage = appendDomain(message, mediaInMediaDB.getDomainId(), mediaInMediaDB.getDomain());
-            final Optional<ResponseEntity<String>> errorResponse = validateMediaUpdateRequest(mediaInMediaDB, updatedJsonMessage, serviceUrl);
+            // the domain of the stored media is added to the body before it is bound, the body is bound once with it
+            final ImageMessageRequest request = ImageMessageRequest.withDomain(ESAPIValidationUtil.validateJson(message), mediaInMediaDB.getDomain(),
+                    mediaInMediaDB.getDomainId());
+            final Optional<ResponseEntity<String>> errorResponse = validateMediaUpdateRequest(mediaInMediaDB, request, serviceUrl);
             if (errorResponse.isPresent()) {
                 LOGGER.warn("UPDATE VALIDATION ValidationError={} ServiceUrl={} QueryId={} ClientId={} RequestId={} JSONMessage={}",
                         errorResponse.get(), serviceUrl, queryId, clientID, requestID, message);
                 return errorResponse.get();
             }
-            final ImageMessage imageMessage = ImageMessage.parseJsonMessage(updatedJsonMessage);
-            final ResponseEntity<String> response = mediaUpdateProcessor.processRequest(imageMessage, mediaInMediaDB);
-            LOGGER.info("END UPDATE REQUEST ServiceUrl={} QueryId={} ClientId={} RequestId={} JSONMessage={}", serviceUrl, queryId, clientID, requestID, message);
+            final ResponseEntity<String> response = mediaUpdateProcessor.processRequest(request.getImageMessage(), mediaInMediaDB);
+            LOGGER.info("END UPDATE REQUEST ServiceUrl={} QueryId={} ClientId={} RequestId={} CpuMicros={} JSONMessage={}", serviceUrl, queryId, clientID, requestID,
+                    (ThreadCpuTime.nanos() - cpuStart) / 1000L, message);
             return response;
         } catch (MediaNotFoundException ex) {
             return buildErrorResponse("Requested resource with ID " + queryId + " was not found.", serviceUrl, NOT_FOUND);
@@ -286,39 +355,23 @@ public class MediaController extends CommonServiceController {
      * Validates a MediaUpdate Request. Verifies is the JsonMessage is well formatted, and does not contain any malformed data.
      *
      * @param originalMedia The media record currently in the MediaDB associated with the queryId for the update request.
-     * @param jsonMessage The request JsonMessage.
+     * @param request The update request, with the domain data of the original media appended.
      * @param serviceUrl The url for MediaUpdate requests.
      * @return An Error respone ResponseEntity if the update request is not valid, otherwise null.
      * @throws Exception
      */
-    private Optional<ResponseEntity<String>> validateMediaUpdateRequest(Media originalMedia, String jsonMessage, String serviceUrl) throws Exception {
-        final String jsonValidationErrors = validateImageMessage(jsonMessage, "EPCUpdate");
+    private Optional<ResponseEntity<String>> validateMediaUpdateRequest(Media originalMedia, ImageMessageRequest request, String serviceUrl) throws Exception {
+        final String jsonValidationErrors = validateImageMessage(request, "EPCUpdate");
         if (!"[]".equals(jsonValidationErrors)) {
             return Optional.of(buildErrorResponse(jsonValidationErrors, serviceUrl, BAD_REQUEST));
         }
-        final ImageMessage updateMessage = ImageMessage.parseJsonMessage(jsonMessage);
+        final ImageMessage updateMessage = request.getImageMessage();
         if (updateMessage.getHidden() && !canMediaBeHidden(originalMedia)) {
             return Optional.of(buildErrorResponse("Only unpublished media can be hidden", serviceUrl, BAD_REQUEST));
         }
         return Optional.empty();
     }
 
-    /**
-     * Appends Domain 'Lodging' and DomainId to the input JsonMessage.
-     *
-     * @param message The JsonMessage to append domainData to.
-     * @param domainId The domainId to append to the input JsonMessage.
-     * @param domain The domain of the original Media to append to this update request.
-     * @return updated JsonMessage String.
-     * @throws Exception
-     */
-    private String appendDomain(String message, String domainId, String domain) throws Exception {
-        final Map<String, Object> jsonMap = JSONUtil.buildMapFromJson(message);
-        jsonMap.put(DOMAIN, domain);
-        jsonMap.put(DOMAIN_ID, domainId);
-        return new ObjectMapper().writeValueAsString(jsonMap);
-    }
-
     /**
      * Verify if a media can be hidden.
      * An image can be permanently hidden from all messages, including further updates.
@@ -345,6 +398,32 @@ public class MediaController extends CommonServiceController {
     @RequestMapping(value = "/media/v1/images/{mediaGUID}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE, method = RequestMethod.GET)
     @Transactional
     public ResponseEntity<String> getMedia(@PathVariable("mediaGUID") final String mediaGUID, @RequestHeader final MultiValueMap<String,String> headers) throws Exception {
+        return getMedia(mediaGUID, headers, ResponseEncoder.JSON);
+    }
+
+    /**
+     * Web services interface to retrieve media information by its GUID, encoded in the Smile or CBOR binary format requested
+     * by the Accept header.
+     *
+     * @param mediaGUID The GUID of the requested media.
+     * @param accept The Accept header of the request.
+     * @param headers Headers of the request.
+     * @return The requested media information.
+     * @throws Exception Thrown if processing the message fails.
+     */
+    @Meter(name = "getMediaByGUIDBinaryMessageCounter")
+    @Timer(name = "getMediaByGUIDBinaryMessageTimer")
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    @RequestMapping(value = "/media/v1/images/{mediaGUID}", produces = {ResponseEncoder.APPLICATION_SMILE_VALUE, ResponseEncoder.APPLICATION_CBOR_VALUE},
+            method = RequestMethod.GET)
+    @Transactional
+    public ResponseEntity<byte[]> getMediaBinary(@PathVariable("mediaGUID") final String mediaGUID, @RequestHeader(HttpHeaders.ACCEPT) final String accept,
+            @RequestHeader final MultiValueMap<String,String> headers) throws Exception {
+        return getMedia(mediaGUID, headers, ResponseEncoder.forAccept(accept));
+    }
+
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    private <T> ResponseEntity<T> getMedia(final String mediaGUID, final MultiValueMap<String,String> headers, final ResponseEncoder<T> encoder) throws Exception {
         final String requestID = getRequestId(headers);
         final String clientID = getClientId();
         final String serviceUrl = MediaServiceUrl.MEDIA_IMAGES.getUrl() + "/" + mediaGUID;
@@ -352,17 +431,18 @@ public class MediaController extends CommonServiceController {
         try {
             if (!mediaGUID.matches(REG_EX_GUID)) {
                 LOGGER.warn("INVALID GET REQUEST ServiceUrl={} ClientId={} RequestId={} MediaGUID={}", serviceUrl, clientID, requestID, mediaGUID);
-                return buildErrorResponse("Input mediaGUID is invalid. Must be a valid GUID in the following format [xxxxxxxx-xxxx-xxxx-xxxx-xxxxxxxxxxxx]", serviceUrl, BAD_REQUEST);
+                return encoder.encode(buildErrorResponse("Input mediaGUID is invalid. Must be a valid GUID in the following format [xxxxxxxx-xxxx-xxxx-xxxx-xxxxxxxxxxxx]",
+                        serviceUrl, BAD_REQUEST));
             }
             LOGGER.info("Started querying media by media-guid in MediaDB ClientId={} RequestId={} MediaGUID={}", clientID, requestID, mediaGUID);
             final MediaGetResponse mediaResponse = mediaGetProcessor.processMediaGetRequest(mediaGUID).orElseThrow(MediaNotFoundException::new);
             LOGGER.info("Finished querying media by media-guid in MediaDB ClientId={} RequestId={} MediaGUID={}", clientID, requestID, mediaGUID);
-            return new ResponseEntity<>(OBJECT_MAPPER.writeValueAsString(mediaResponse), OK);
+            return encoder.encode(mediaResponse, OK);
         } catch (MediaNotFoundException ex) {
             final ResponseEntity<String> errorResponse = buildErrorResponse("Requested resource with ID " + mediaGUID + " was not found.", serviceUrl, NOT_FOUND);
             LOGGER.info("INVALID GET REQUEST ResponseStatus={} ResponseBody={} ErrorMessage={} MediaGUID={} ClientId={} RequestId={}",
                     errorResponse.getStatusCode().toString(), errorResponse.getBody(), ex.getMessage(), mediaGUID, clientID, requestID);
-            return errorResponse;
+            return encoder.encode(errorResponse);
         } catch (Exception ex) {
             LOGGER.error(ex, "ERROR ServiceUrl={} ClientId={} RequestId={} MediaGuid={} ErrorMessage={}", serviceUrl, clientID, requestID, mediaGUID, ex.getMessage());
             poker.poke("Media Services failed to process a getMedia request - RequestId: " + requestID + " ClientId: " + clientID, hipChatRoom, mediaGUID, ex);
@@ -391,7 +471,7 @@ public class MediaController extends CommonServiceController {
                 LOGGER.warn("INVALID DELETE REQUEST ServiceUrl={} ClientId={} RequestId={} MediaGUID={}", serviceUrl, clientID, requestID, mediaGUID);
                 return buildErrorResponse("Invalid media GUID provided.", serviceUrl, BAD_REQUEST);
             }
-            final Media media = mediaDao.getMediaByGuid(mediaGUID).orElseThrow(MediaNotFoundException::new);
+            final Media media = mediaDao.getMediaByGuidForUpdate(mediaGUID).orElseThrow(MediaNotFoundException::new);
             media.setHidden(true);
             final ImageMessage imageMessage = media.toImageMessage();
             kafkaCommonPublisher.publishImageMessage(imageMessage, imageMessageTopic, imageMessageRetryTopic);
@@ -418,6 +498,9 @@ public class MediaController extends CommonServiceController {
      * @param headers Headers of the request.
      * @param pageSize Positive integer to filter the number of media displayed per page. pageSize is inclusive with pageIndex.
      * @param pageIndex Positive integer to filter the page to display. pageIndex is inclusive with pageSize.
+     * @param continuationToken Cursor pagination token returned with the previous page, empty for the first page. Used with pageSize instead of pageIndex.
+     * Cursor pages are ordered by media guid, not in the response order of pageIndex pages (property hero first, then by subcategory id):
+     * a client needing the response order reads all the cursor pages and sorts them.
      * @return The list of media data belonging to the domain item.
      * @throws Exception Thrown if processing the message fails.
      */
@@ -432,7 +515,52 @@ public class MediaController extends CommonServiceController {
             @RequestParam(value = "activeFilter", required = false, defaultValue = "all") final String activeFilter,
             @RequestParam(value = "derivativeTypeFilter", required = false) final String derivativeTypeFilter,
             @RequestParam(value = "derivativeCategoryFilter", required = false) final String derivativeCategoryFilter,
+            @RequestParam(value = "continuationToken", required = false) final String continuationToken,
             @RequestHeader final MultiValueMap<String,String> headers) throws Exception {
+        return getMediaByDomainId(domainName, domainId, pageSize, pageIndex, activeFilter, derivativeTypeFilter, derivativeCategoryFilter, continuationToken, headers,
+                ResponseEncoder.JSON);
+    }
+
+    /**
+     * Web services interface to retrieve media information by domain name and id, encoded in the Smile or CBOR binary format
+     * requested by the Accept header. The parameters are the ones of {@link #getMediaByDomainId}.
+     *
+     * @param domainName Name of the domain the domain id belongs to.
+     * @param domainId Identification of the domain item the media is required.
+     * @param activeFilter Filter determining what images to return.
+     * @param derivativeTypeFilter Inclusive filter to use to only return certain types of derivatives.
+     * @param derivativeCategoryFilter Inclusive filter to use to only return certain types of medias.
+     * @param accept The Accept header of the request.
+     * @param headers Headers of the request.
+     * @param pageSize Positive integer to filter the number of media displayed per page.
+     * @param pageIndex Positive integer to filter the page to display.
+     * @param continuationToken Cursor pagination token returned with the previous page, empty for the first page. Cursor pages are ordered by media guid.
+     * @return The list of media data belonging to the domain item.
+     * @throws Exception Thrown if processing the message fails.
+     */
+    @Meter(name = "getMediaByDomainIdBinaryMessageCounter")
+    @Timer(name = "getMediaByDomainIdBinaryMessageTimer")
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    @RequestMapping(value = "/media/v1/imagesbydomain/{domainName}/domainId/{domainId}",
+            produces = {ResponseEncoder.APPLICATION_SMILE_VALUE, ResponseEncoder.APPLICATION_CBOR_VALUE}, method = RequestMethod.GET)
+    @Transactional
+    public ResponseEntity<byte[]> getMediaByDomainIdBinary(@PathVariable("domainName") final String domainName, @PathVariable("domainId") final String domainId,
+            @RequestParam(value = "pageSize", required = false) final Integer pageSize,
+            @RequestParam(value = "pageIndex", required = false) final Integer pageIndex,
+            @RequestParam(value = "activeFilter", required = false, defaultValue = "all") final String activeFilter,
+            @RequestParam(value = "derivativeTypeFilter", required = false) final String derivativeTypeFilter,
+            @RequestParam(value = "derivativeCategoryFilter", required = false) final String derivativeCategoryFilter,
+            @RequestParam(value = "continuationToken", required = false) final String continuationToken,
+            @RequestHeader(HttpHeaders.ACCEPT) final String accept,
+            @RequestHeader final MultiValueMap<String,String> headers) throws Exception {
+        return getMediaByDomainId(domainName, domainId, pageSize, pageIndex, activeFilter, derivativeTypeFilter, derivativeCategoryFilter, continuationToken, headers,
+                ResponseEncoder.forAccept(accept));
+    }
+
+    @SuppressWarnings({"PMD.SignatureDeclareThrowsException", "PMD.ExcessiveParameterList"})
+    private <T> ResponseEntity<T> getMediaByDomainId(final String domainName, final String domainId, final Integer pageSize, final Integer pageIndex,
+            final String activeFilter, final String derivativeTypeFilter, final String derivativeCategoryFilter, final String continuationToken,
+            final MultiValueMap<String,String> headers, final ResponseEncoder<T> encoder) throws Exception {
         final String requestID = getRequestId(headers);
         final String clientID = getClientId();
         final String serviceUrl = MediaServiceUrl.MEDIA_BY_DOMAIN.getUrl();
@@ -440,21 +568,21 @@ public class MediaController extends CommonServiceController {
                         "DerivativeTypeFilter={}",
                 serviceUrl, clientID, requestID, domainName, domainId, pageSize, pageIndex, activeFilter, derivativeTypeFilter);
         try {
-            final ResponseEntity<String> errorResponse = validateMediaByDomainIdRequest(domainName, domainId, activeFilter, pageSize, pageIndex);
+            final ResponseEntity<String> errorResponse = validateMediaByDomainIdRequest(domainName, domainId, activeFilter, pageSize, pageIndex, continuationToken);
             if (errorResponse != null) {
                 LOGGER.warn("INVALID GET BY DOMAIN ID REQUEST ResponseStatus={} ResponseBody={} ServiceUrl={} ClientId={} RequestId={} DomainName={} DomainId={} PageSize={} " +
                                 "PageIndex={} ActiveFilter={} DerivativeTypeFilter={}",
                         errorResponse.getStatusCode().toString(), errorResponse.getBody(), serviceUrl, clientID, requestID, domainName, domainId, pageSize, pageIndex,
                         activeFilter, derivativeTypeFilter);
-                return errorResponse;
+                return encoder.encode(errorResponse);
             }
             LOGGER.info("Started querying media by domainId in MediaDB ClientId={} RequestId={} DomainName={} DomainId={}", clientID, requestID, domainName, domainId);
             final MediaByDomainIdResponse response = mediaGetProcessor.processMediaByDomainIDRequest(Domain.findDomain(domainName, true), domainId, activeFilter, derivativeTypeFilter,
-                    derivativeCategoryFilter, pageSize, pageIndex);
+                    derivativeCategoryFilter, pageSize, pageIndex, continuationToken);
             LOGGER.info("Finished querying media by domainId in MediaDB ClientId={} RequestId={} DomainName={} DomainId={}", clientID, requestID, domainName, domainId);
-            return new ResponseEntity<>(OBJECT_MAPPER.writeValueAsString(response), OK);
+            return encoder.encode(response, OK);
         } catch (PaginationValidationException p) {
-            return buildErrorResponse(p.getMessage(), serviceUrl, BAD_REQUEST);
+            return encoder.encode(buildErrorResponse(p.getMessage(), serviceUrl, BAD_REQUEST));
         } catch (Exception ex) {
             LOGGER.warn(ex, "INVALID GET BY DOMAIN ID REQUEST ServiceUrl={} ClientId={} RequestId={} DomainName={} DomainId={} PageSize={} PageIndex={} ActiveFilter={} " +
                             "DerivativeTypeFilter={}",
@@ -465,6 +593,96 @@ public class MediaController extends CommonServiceController {
         }
     }
 
+    /**
+     * Web services interface to stream media information by domain name and id. The response has the content of the
+     * {@link #getMediaByDomainId} response, written to the response output stream as the media are read from MediaDB, so
+     * the memory used by a request does not grow with the number of media of the domain item. Cursor pagination is not
+     * supported when streaming. A stream still running after {@code mdb.stream.timeout-seconds} is aborted, so a slow client
+     * does not hold a read pool connection.
+     *
+     * @param domainName Name of the domain the domain id belongs to.
+     * @param domainId Identification of the domain item the media is required.
+     * @param activeFilter Filter determining what images to return. When true only active are returned. When false only inactive media is returned. When
+     * all then all are returned. All is set a default.
+     * @param derivativeTypeFilter Inclusive filter to use to only return certain types of derivatives. Returns all derivatives if not specified.
+     * @param derivativeCategoryFilter Inclusive filter to use to only return certain types of medias. Returns all medias if not specified.
+     * @param headers Headers of the request.
+     * @param pageSize Positive integer to filter the number of media displayed per page. pageSize is inclusive with pageIndex.
+     * @param pageIndex Positive integer to filter the page to display. pageIndex is inclusive with pageSize.
+     * @param continuationToken Not supported when streaming, a bad request is returned when it is set.
+     * @param accept The Accept header of the request, selects JSON, Smile or CBOR, JSON by default.
+     * @param response The response to write the media data belonging to the domain item to.
+     * @throws Exception Thrown if processing the message fails.
+     */
+    @Meter(name = "streamMediaByDomainIdMessageCounter")
+    @Timer(name = "streamMediaByDomainIdMessageTimer")
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    @RequestMapping(value = "/media/v1/imagesbydomain/{domainName}/domainId/{domainId}", params = "stream=true",
+            produces = {MediaType.APPLICATION_JSON_UTF8_VALUE, ResponseEncoder.APPLICATION_SMILE_VALUE, ResponseEncoder.APPLICATION_CBOR_VALUE}, method = RequestMethod.GET)
+    public void streamMediaByDomainId(@PathVariable("domainName") final String domainName, @PathVariable("domainId") final String domainId,
+            @RequestParam(value = "pageSize", required = false) final Integer pageSize,
+            @RequestParam(value = "pageIndex", required = false) final Integer pageIndex,
+            @RequestParam(value = "activeFilter", required = false, defaultValue = "all") final String activeFilter,
+            @RequestParam(value = "derivativeTypeFilter", required = false) final String derivativeTypeFilter,
+            @RequestParam(value = "derivativeCategoryFilter", required = false) final String derivativeCategoryFilter,
+            @RequestParam(value = "continuationToken", required = false) final String continuationToken,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) final String accept,
+            @RequestHeader final MultiValueMap<String,String> headers, final HttpServletResponse response) throws Exception {
+        final String requestID = getRequestId(headers);
+        final String clientID = getClientId();
+        final String serviceUrl = MediaServiceUrl.MEDIA_BY_DOMAIN.getUrl();
+        LOGGER.info("RECEIVED STREAM BY DOMAIN ID REQUEST ServiceUrl={} ClientId={} RequestId={} DomainName={} DomainId={} PageSize={} PageIndex={} ActiveFilter={} " +
+                        "DerivativeTypeFilter={}",
+                serviceUrl, clientID, requestID, domainName, domainId, pageSize, pageIndex, activeFilter, derivativeTypeFilter);
+        try {
+            if (continuationToken != null) {
+                throw new PaginationValidationException("continuationToken can not be used with stream=true, use pageSize and pageIndex to page a stream.");
+            }
+            final ResponseEntity<String> errorResponse = validateMediaByDomainIdRequest(domainName, domainId, activeFilter, pageSize, pageIndex, null);
+            if (errorResponse != null) {
+                LOGGER.warn("INVALID STREAM BY DOMAIN ID REQUEST ResponseStatus={} ResponseBody={} ServiceUrl={} ClientId={} RequestId={} DomainName={} DomainId={} " +
+                                "PageSize={} PageIndex={} ActiveFilter={} DerivativeTypeFilter={}",
+                        errorResponse.getStatusCode().toString(), errorResponse.getBody(), serviceUrl, clientID, requestID, domainName, domainId, pageSize, pageIndex,
+                        activeFilter, derivativeTypeFilter);
+                writeResponse(errorResponse, response);
+                return;
+            }
+            final ResponseEncoder<?> encoder = ResponseEncoder.negotiate(accept);
+            response.setStatus(OK.value());
+            response.setContentType(encoder.getContentType().toString());
+            final JsonGenerator generator = encoder.createGenerator(response.getOutputStream());
+            mediaGetProcessor.streamMediaByDomainIDRequest(Domain.findDomain(domainName, true), domainId, activeFilter, derivativeTypeFilter,
+                    derivativeCategoryFilter, pageSize, pageIndex, generator);
+            // closed only once the document is complete: when streaming fails the output is left open and the exception is rethrown,
+            // so the container aborts the committed response instead of ending it cleanly as a truncated 200
+            generator.close();
+            LOGGER.info("Finished streaming media by domainId from MediaDB ClientId={} RequestId={} DomainName={} DomainId={}", clientID, requestID, domainName,
+                    domainId);
+        } catch (PaginationValidationException p) {
+            writeResponse(buildErrorResponse(p.getMessage(), serviceUrl, BAD_REQUEST), response);
+        } catch (Exception ex) {
+            LOGGER.warn(ex, "INVALID STREAM BY DOMAIN ID REQUEST ServiceUrl={} ClientId={} RequestId={} DomainName={} DomainId={} PageSize={} PageIndex={} " +
+                            "ActiveFilter={} DerivativeTypeFilter={} ResponseCommitted={}",
+                    serviceUrl, clientID, requestID, domainName, domainId, pageSize, pageIndex, activeFilter, derivativeTypeFilter, response.isCommitted());
+            poker.poke("Media Services failed to process a streamMediaByDomainId request - RequestId: " + requestID + " ClientId: " + clientID, hipChatRoom,
+                    domainId, ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Writes a response entity to a servlet response, for handlers writing their response themselves.
+     *
+     * @param responseEntity The status and body to write.
+     * @param response The servlet response to write to.
+     * @throws IOException Thrown if the response can not be written.
+     */
+    private static void writeResponse(ResponseEntity<String> responseEntity, HttpServletResponse response) throws IOException {
+        response.setStatus(responseEntity.getStatusCode().value());
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        response.getWriter().write(responseEntity.getBody());
+    }
+
     /**
      * Validates the media by domain id request.
      *
@@ -473,9 +691,11 @@ public class MediaController extends CommonServiceController {
      * @param activeFilter Active filter to validate.
      * @param pageSize The pagSize value to validate.
      * @param pageIndex The pageIndex value to validate.
+     * @param continuationToken The continuationToken value to validate.
      * @return Returns a response if the validation fails; null otherwise.
      */
-    private ResponseEntity<String> validateMediaByDomainIdRequest(final String domainName, String domainId, final String activeFilter, Integer pageSize, Integer pageIndex) {
+    private ResponseEntity<String> validateMediaByDomainIdRequest(final String domainName, String domainId, final String activeFilter, Integer pageSize, Integer pageIndex,
+                                                                  String continuationToken) {
         if (activeFilter != null && !activeFilter.equalsIgnoreCase("all") && !activeFilter.equalsIgnoreCase("true")
                 && !activeFilter.equalsIgnoreCase("false")) {
             return new ResponseEntity<>("Unsupported active filter " + activeFilter, BAD_REQUEST);
@@ -487,7 +707,14 @@ public class MediaController extends CommonServiceController {
         if (Domain.LODGING.getDomain().equalsIgnoreCase(domain.getDomain()) && !lodgingReferenceHotelIdDao.domainIdExists(domainId)) {
             return new ResponseEntity<>("DomainId not found: " + domainId, NOT_FOUND);
         }
-        if (pageSize != null || pageIndex != null) {
+        if (continuationToken != null) {
+            if (pageIndex != null) {
+                throw new PaginationValidationException("pageIndex can not be used with continuationToken, use pageSize with continuationToken to page with a cursor.");
+            } else if (pageSize == null || pageSize <= 0) {
+                throw new PaginationValidationException("pageSize must be a positive value when continuationToken is set.");
+            }
+            ContinuationToken.decode(continuationToken);
+        } else if (pageSize != null || pageIndex != null) {
             if (pageIndex == null) {
                 throw new PaginationValidationException("pageIndex is null and pageSize is not null, both pageSize and pageIndex parameters are inclusive. " +
                         "Set both parameters or neither.");
@@ -518,22 +745,22 @@ public class MediaController extends CommonServiceController {
      * Get validator list by different client, and do validation by rules and DAO validator (later)
      * return the validation error list that combine all of the error result.
      *
-     * @param message input json message.
+     * @param request The request to validate.
      * @param clientId Web service client id.
      * @return JSON string contains fileName and error description.
      * @throws Exception when message to ImageMessage and convert java list to json.
      */
-    private String validateImageMessage(final String message, final String clientId) {
+    private String validateImageMessage(final ImageMessageRequest request, final String clientId) {
         final List<MapMessageValidator> defaultValidatorList = mapValidatorList.get(DEFAULT_VALIDATION_RULES);
         final List<MapMessageValidator> validatorList = mapValidatorList.getOrDefault(clientId, defaultValidatorList);
         if (validatorList == null && defaultValidatorList == null) {
             return UNAUTHORIZED_USER_MESSAGE;
         }
         if (validatorList == defaultValidatorList) {
-            LOGGER.warn("NO VALIDATION FOR CLIENT Action=\"Using default validations\" ClientId={}", Arrays.asList(clientId), message);
+            LOGGER.warn("NO VALIDATION FOR CLIENT Action=\"Using default validations\" ClientId={}", Arrays.asList(clientId), request.getMessage());
         }
         List<String> validationErrorList = null;
-        final ImageMessage imageMessage = ImageMessage.parseJsonMessage(message);
+        final ImageMessage imageMessage = request.getImageMessage();
         for (final MapMessageValidator mapMessageValidator : validatorList) {
             validationErrorList = mapMessageValidator.validateImages(Arrays.asList(imageMessage));
             if (!validationErrorList.isEmpty()) {
@@ -3,31 +3,36 @@ package com.expedia.content.media.processing.services;
 import com.expedia.content.media.processing.pipeline.domain.Domain;
 import com.expedia.content.media.processing.services.dao.MediaDao;
 import com.expedia.content.media.processing.services.dao.domain.Comment;
+import com.expedia.content.media.processing.services.dao.domain.DomainFields;
 import com.expedia.content.media.processing.services.dao.domain.DomainIdMedia;
 import com.expedia.content.media.processing.services.dao.domain.Media;
+import com.expedia.content.media.processing.services.dao.domain.StoredJsonMap;
 import com.expedia.content.media.processing.services.reqres.MediaByDomainIdResponse;
 import com.expedia.content.media.processing.services.reqres.MediaGetResponse;
+import com.expedia.content.media.processing.services.util.ContinuationToken;
+import com.expedia.content.media.processing.services.util.TimestampFormatter;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.text.SimpleDateFormat;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-import static com.expedia.content.media.processing.services.util.JSONUtil.buildMapFromJson;
+import static com.expedia.content.media.processing.services.util.JSONUtil.buildMapFromStoredJson;
+import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.isStoredJson;
 
 /**
  * Helper class for processing Media Get requests.
  */
 @Component
-@SuppressWarnings({"PMD.UnsynchronizedStaticDateFormatter"})
 public class MediaGetProcessor {
-    private final static SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd hh:mm:ss.SSS XXX", Locale.US);
 
     private final MediaDao mediaDao;
 
@@ -47,27 +52,123 @@ public class MediaGetProcessor {
      * @param derivativeCategoryFilter Inclusive filter to use to only return certain types of medias. Returns all medias if not specified.
      * @param pageSize Positive integer to filter the number of media displayed per page. pageSize is inclusive with pageIndex.
      * @param pageIndex Positive integer to filter the page to display. pageIndex is inclusive with pageSize.
+     * @param continuationToken Token returned with the previous page when paging with a cursor, empty for the first page. When set pageSize
+     * is the page size and pageIndex is not used. Null when not paging with a cursor.
      * @return A MediaByDomainResponse to represent the values from the Media DB.
      */
     public MediaByDomainIdResponse processMediaByDomainIDRequest(Domain domain, String domainId, String activeFilter, String derivativeTypeFilter,
-                                                                 String derivativeCategoryFilter, Integer pageSize, Integer pageIndex) {
-        final List<DomainIdMedia> domainIdMedias = mediaDao.getMediaByDomainId(domain, domainId, activeFilter, derivativeTypeFilter, derivativeCategoryFilter, pageSize, pageIndex)
-                .stream()
+                                                                 String derivativeCategoryFilter, Integer pageSize, Integer pageIndex,
+                                                                 String continuationToken) {
+        final boolean isCursorUsed = continuationToken != null;
+        final String lastMediaGuid = isCursorUsed ? ContinuationToken.decode(continuationToken) : null;
+        final List<Optional<DomainIdMedia>> domainIdMediaRows = isCursorUsed
+                ? mediaDao.getMediaByDomainIdAfter(domain, domainId, activeFilter, derivativeTypeFilter, derivativeCategoryFilter, pageSize, lastMediaGuid)
+                : mediaDao.getMediaByDomainId(domain, domainId, activeFilter, derivativeTypeFilter, derivativeCategoryFilter, pageSize, pageIndex);
+        final List<DomainIdMedia> domainIdMedias = domainIdMediaRows.stream()
                 .filter(Optional::isPresent)
                 .map(Optional::get)
                 // NOTE: these sorting orders matter, sort by subcategory, then sort the propertyHero to be first.
                 .sorted(sortBySubcategoryId())
                 .sorted(sortPropertyHeroFirst())
                 .collect(Collectors.toList());
-        final Integer totalMediaCount = mediaDao.getTotalMediaCountByDomainId(domain, domainId, activeFilter, derivativeCategoryFilter).orElse(0);
+        // a cursor page has no index, only the total of a partially filled first page is known from the listing
+        final Optional<Integer> listedMediaCount = isCursorUsed
+                ? (lastMediaGuid == null ? resolveTotalMediaCount(domainIdMediaRows.size(), pageSize, 1) : Optional.empty())
+                : resolveTotalMediaCount(domainIdMediaRows.size(), pageSize, pageIndex);
+        final Integer totalMediaCount = listedMediaCount.orElseGet(() -> mediaDao.getTotalMediaCountByDomainId(domain, domainId, activeFilter, derivativeCategoryFilter).orElse(0));
         return MediaByDomainIdResponse.builder()
                 .domain(domain.getDomain())
                 .domainId(domainId)
                 .totalMediaCount(totalMediaCount)
                 .images(domainIdMedias)
+                .continuationToken(isCursorUsed ? nextContinuationToken(domainIdMedias, domainIdMediaRows.size(), pageSize) : null)
                 .build();
     }
 
+    /**
+     * Handles a MediaByDomainId request by writing the response as the media are read, instead of building it in memory.
+     * The media are written in the response order of {@link MediaDao#streamMediaByDomainId}, the order the pages of
+     * {@link #processMediaByDomainIDRequest} are taken over, and totalMediaCount is written after the images since it is only
+     * known once they are all read.
+     *
+     * @param domain The domain the domain id belongs to.
+     * @param domainId Identification of the domain item the media is required.
+     * @param activeFilter Filter determining what images to return. When true only active are returned. When false only inactive media is returned. When
+     * all then all are returned. All is set a default.
+     * @param derivativeTypeFilter Inclusive filter to use to only return certain types of derivatives. Returns all derivatives if not specified.
+     * @param derivativeCategoryFilter Inclusive filter to use to only return certain types of medias. Returns all medias if not specified.
+     * @param pageSize Positive integer to filter the number of media displayed per page. pageSize is inclusive with pageIndex.
+     * @param pageIndex Positive integer to filter the page to display. pageIndex is inclusive with pageSize.
+     * @param generator The JSON generator to write the response to, it needs a codec to write the media.
+     * @throws IOException Thrown if the response can not be written.
+     */
+    public void streamMediaByDomainIDRequest(Domain domain, String domainId, String activeFilter, String derivativeTypeFilter,
+                                             String derivativeCategoryFilter, Integer pageSize, Integer pageIndex, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("domain", domain.getDomain());
+        generator.writeStringField("domainId", domainId);
+        generator.writeArrayFieldStart("images");
+        final int rowCount;
+        try {
+            rowCount = mediaDao.streamMediaByDomainId(domain, domainId, activeFilter, derivativeTypeFilter, derivativeCategoryFilter, pageSize, pageIndex,
+                    media -> writeMedia(generator, media));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generator.writeEndArray();
+        final Integer totalMediaCount = resolveTotalMediaCount(rowCount, pageSize, pageIndex)
+                .orElseGet(() -> mediaDao.getTotalMediaCountByDomainId(domain, domainId, activeFilter, derivativeCategoryFilter).orElse(0));
+        generator.writeNumberField("totalMediaCount", totalMediaCount);
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    private static void writeMedia(JsonGenerator generator, DomainIdMedia media) {
+        try {
+            generator.writeObject(media);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Resolves the total media count from the listing itself when possible, to avoid a count query:
+     * without pagination every media is listed, and a partially filled page is the last one.
+     *
+     * @param rowCount Number of rows returned by the listing.
+     * @param pageSize The requested page size, null when pagination is not used.
+     * @param pageIndex The requested page index, null when pagination is not used.
+     * @return The total media count, or Optional.empty() if it can not be known from the listing.
+     */
+    private static Optional<Integer> resolveTotalMediaCount(int rowCount, Integer pageSize, Integer pageIndex) {
+        if (pageSize == null || pageIndex == null) {
+            return Optional.of(rowCount);
+        }
+        if (rowCount < pageSize && (rowCount > 0 || pageIndex == 1)) {
+            return Optional.of(pageSize * (pageIndex - 1) + rowCount);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Builds the continuation token of the page following a cursor page.
+     *
+     * @param domainIdMedias The media of the page.
+     * @param rowCount Number of rows returned for the page.
+     * @param pageSize The requested page size.
+     * @return The token to request the next page with, or null if the page is the last one.
+     */
+    private static String nextContinuationToken(List<DomainIdMedia> domainIdMedias, int rowCount, Integer pageSize) {
+        if (rowCount < pageSize) {
+            return null;
+        }
+        return domainIdMedias.stream()
+                .map(DomainIdMedia::getMediaGuid)
+                .max(Comparator.naturalOrder())
+                .map(ContinuationToken::encode)
+                .orElse(null);
+    }
+
     /**
      * Determines if a DomainIdMedia is a Property Hero Media.
      * note: the propertyHero flag is contained in the DomainFields Map.
@@ -79,8 +180,7 @@ public class MediaGetProcessor {
      * @return true if a DomainIdMedia is a propertyHero, false otherwise.
      */
     private static boolean isPropertyHero(DomainIdMedia media) {
-        final String propertyHeroValue = String.valueOf(media.getDomainFields().get("propertyHero"));
-        return StringUtils.isEmpty(propertyHeroValue) ? false : Boolean.valueOf(propertyHeroValue);
+        return DomainFields.isPropertyHero(media.getDomainFields().get("propertyHero"));
     }
 
     /**
@@ -157,6 +257,7 @@ public class MediaGetProcessor {
      * @return A MediaGetResponse object representative of the Media object passed.
      */
     private MediaGetResponse convertMediaToMediaGetResponse(Media media) {
+        final String lastUpdateDateTime = TimestampFormatter.format(media.getLastUpdated());
         return MediaGetResponse.builder()
                 .mediaGuid(media.getMediaGuid())
                 .fileUrl(media.getFileUrl())
@@ -168,20 +269,32 @@ public class MediaGetProcessor {
                 .fileSize(media.getFileSize())
                 .status(media.getStatus())
                 .lastUpdatedBy(media.getClientId())
-                .lastUpdateDateTime(DATE_FORMAT.format(media.getLastUpdated()))
+                .lastUpdateDateTime(lastUpdateDateTime)
                 .domainProvider(media.getProvider())
                 .domainDerivativeCategory(media.getDomainDerivativeCategory())
-                .domainFields(media.getDomainFields() == null ? new HashMap<>() : buildMapFromJson(media.getDomainFields()))
+                .domainFields(isStoredJson(media.getDomainFields(), '{') ? new StoredJsonMap(media.getDomainFields())
+                        : media.getDomainFields() == null ? new HashMap<>() : buildMapFromStoredJson(media.getDomainFields()))
                 .derivatives(media.getDerivativesList())
-                .comments(media.getCommentList().stream()
-                        .map(commentString -> Comment.builder()
-                            .note(commentString)
-                            .timestamp(DATE_FORMAT.format(media.getLastUpdated()))
-                            .build())
-                        .filter(comment -> !StringUtils.isEmpty(comment.getNote()))
-                        .collect(Collectors.toList()))
+                .comments(buildComments(media.getCommentList(), lastUpdateDateTime))
                 .domain(media.getDomain())
                 .domainId(media.getDomainId())
                 .build();
     }
+
+    /**
+     * Builds the comments of a media response, skipping empty comments.
+     *
+     * @param commentList The comments of the media.
+     * @param timestamp   The formatted timestamp of the comments.
+     * @return The comments.
+     */
+    private static List<Comment> buildComments(List<String> commentList, String timestamp) {
+        final List<Comment> comments = new ArrayList<>(commentList.size());
+        for (final String note : commentList) {
+            if (!StringUtils.isEmpty(note)) {
+                comments.add(Comment.builder().note(note).timestamp(timestamp).build());
+            }
+        }
+        return comments;
+    }
 }
@@ -0,0 +1,152 @@
+package com.expedia.content.media.processing.services;
+
+import com.expedia.content.media.processing.pipeline.domain.ImageMessage;
+import com.expedia.content.media.processing.pipeline.kafka.KafkaCommonPublisher;
+import com.expedia.content.media.processing.pipeline.util.FormattedLogger;
+import com.expedia.content.media.processing.services.dao.MediaDao;
+import com.expedia.content.media.processing.services.dao.domain.DomainFields;
+import com.expedia.content.media.processing.services.dao.domain.Media;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Helper class unheroing the current hero media of a property when a MediaAdd or MediaUpdate request sets a new hero.
+ * The hero media are unheroed in MediaDB in one transaction, and the media it actually unheroed are then published to Kafka
+ * concurrently; the request thread waits once for all the publications, up to a timeout. The publication pool has a bounded
+ * queue, a media that can not be queued is logged as a failed publication, the same way as a publication that times out.
+ * The unhero is committed before the publications, so a failed publication never fails the request.
+ */
+@Component
+public class MediaUnheroProcessor {
+    private static final FormattedLogger LOGGER = new FormattedLogger(MediaUnheroProcessor.class);
+
+    @Value("${kafka.imagemessage.topic}")
+    private String imageMessageTopic;
+    @Value("${kafka.imagemessage.topic.retry}")
+    private String imageMessageRetryTopic;
+    private final MediaDao mediaDao;
+    private final KafkaCommonPublisher kafkaCommonPublisher;
+    private final ExecutorService publishExecutor;
+    private final long publishTimeoutMillis;
+
+    @Autowired
+    public MediaUnheroProcessor(MediaDao mediaDao, KafkaCommonPublisher kafkaCommonPublisher,
+                                @Value("${media.unhero.publish.threads:4}") int publishThreads,
+                                @Value("${media.unhero.publish.queue-capacity:100}") int publishQueueCapacity,
+                                @Value("${media.unhero.publish.timeout-ms:10000}") long publishTimeoutMillis) {
+        this(mediaDao, kafkaCommonPublisher, new ThreadPoolExecutor(publishThreads, publishThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(publishQueueCapacity), new ThreadFactoryBuilder().setNameFormat("unhero-publish-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy()), publishTimeoutMillis);
+    }
+
+    /**
+     * @param mediaDao             MediaDB access to find and unhero the hero media.
+     * @param kafkaCommonPublisher Publisher of the unheroed media.
+     * @param publishExecutor      Executor running the Kafka publications, shut down with this processor.
+     * @param publishTimeoutMillis Milliseconds the request thread waits for the publications.
+     */
+    public MediaUnheroProcessor(MediaDao mediaDao, KafkaCommonPublisher kafkaCommonPublisher, ExecutorService publishExecutor,
+                                long publishTimeoutMillis) {
+        this.mediaDao = mediaDao;
+        this.kafkaCommonPublisher = kafkaCommonPublisher;
+        this.publishExecutor = publishExecutor;
+        this.publishTimeoutMillis = publishTimeoutMillis;
+    }
+
+    /**
+     * Unheroes the current hero media of the property when the ImageMessage sets a new Lodging hero, and publishes them.
+     * A failed publication is logged and does not fail the request, nor the other publications. Publications that are not
+     * complete within the timeout are logged with their media guid and left running.
+     *
+     * @param imageMessage The ImageMessage of the new hero media.
+     * @param domainId     The id of the property.
+     */
+    public void unheroMedia(ImageMessage imageMessage, String domainId) {
+        if (imageMessage.getOuterDomainData() != null
+                && imageMessage.getOuterDomainData().getDomainFields() != null
+                && DomainFields.isPropertyHero(imageMessage.getOuterDomainData().getDomainFields().get("propertyHero"))
+                && imageMessage.getOuterDomainData().getDomain() != null
+                && ("Lodging").equals(imageMessage.getOuterDomainData().getDomain().getDomain())) {
+            LOGGER.info("Started unhero media by domainId={}", domainId);
+            final List<Media> unheroedMediaList = mediaDao.unheroMediaByDomainId(domainId, imageMessage.getMediaGuid());
+            LOGGER.info("end unhero media by domainId={} unheroedCount={}", domainId, unheroedMediaList.size());
+            if (unheroedMediaList.isEmpty()) {
+                return;
+            }
+            final List<Media> queuedMediaList = new ArrayList<>(unheroedMediaList.size());
+            final List<CompletableFuture<Void>> publications = new ArrayList<>(unheroedMediaList.size());
+            for (final Media media : unheroedMediaList) {
+                try {
+                    publications.add(CompletableFuture.runAsync(() -> publishUnheroedMedia(media, imageMessage), publishExecutor));
+                    queuedMediaList.add(media);
+                } catch (RejectedExecutionException e) {
+                    LOGGER.error(e, "send kafka message rejected MediaGuid={} imageMessage={}", media.getMediaGuid(), imageMessage.toJSONMessage());
+                }
+            }
+            try {
+                CompletableFuture.allOf(publications.toArray(new CompletableFuture[publications.size()]))
+                        .get(publishTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                LOGGER.error(e, "Timed out publishing unheroed media domainId={} UnpublishedMediaGuids={} TimeoutMillis={}", domainId,
+                        unpublishedMediaGuids(queuedMediaList, publications), publishTimeoutMillis);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOGGER.error(e, "Interrupted publishing unheroed media domainId={} UnpublishedMediaGuids={}", domainId,
+                        unpublishedMediaGuids(queuedMediaList, publications));
+                return;
+            } catch (ExecutionException e) {
+                LOGGER.error(e.getCause(), "Failed publishing unheroed media domainId={}", domainId);
+                return;
+            }
+            LOGGER.info("Published unheroed media domainId={} unheroedCount={} queuedCount={}", domainId, unheroedMediaList.size(),
+                    queuedMediaList.size());
+        }
+    }
+
+    /**
+     * @return The guids of the queued media whose publication is not complete.
+     */
+    private static List<String> unpublishedMediaGuids(List<Media> queuedMediaList, List<CompletableFuture<Void>> publications) {
+        final List<String> mediaGuids = new ArrayList<>();
+        for (int i = 0; i < publications.size(); i++) {
+            if (!publications.get(i).isDone()) {
+                mediaGuids.add(queuedMediaList.get(i).getMediaGuid());
+            }
+        }
+        return mediaGuids;
+    }
+
+    /**
+     * Publishes an unheroed media to Kafka, logging a failure the same way for every media.
+     *
+     * @param media        The unheroed media, with its domain fields as written by the unhero.
+     * @param imageMessage The ImageMessage of the new hero media.
+     */
+    private void publishUnheroedMedia(Media media, ImageMessage imageMessage) {
+        try {
+            kafkaCommonPublisher.publishImageMessage(media.toImageMessage(), imageMessageTopic, imageMessageRetryTopic);
+        } catch (Exception ex) {
+            LOGGER.error(ex, "send kafka message failed MediaGuid={} imageMessage={}", media.getMediaGuid(), imageMessage.toJSONMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publishExecutor.shutdown();
+    }
+}
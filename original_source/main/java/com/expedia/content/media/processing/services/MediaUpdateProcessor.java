@@ -5,7 +5,6 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 import com.expedia.content.media.processing.pipeline.kafka.KafkaCommonPublisher;
 import com.expedia.content.media.processing.pipeline.util.FormattedLogger;
@@ -20,7 +19,6 @@ import org.apache.commons.lang3.StringUtils;
 import com.expedia.content.media.processing.pipeline.domain.ImageMessage;
 import com.expedia.content.media.processing.services.dao.domain.Media;
 import com.expedia.content.media.processing.services.util.JSONUtil;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Helper class for processing Media Update requests.
@@ -36,11 +34,13 @@ public class MediaUpdateProcessor {
     private String imageMessageRetryTopic;
     private final KafkaCommonPublisher kafkaCommonPublisher;
     private final MediaDao mediaDao;
+    private final MediaUnheroProcessor mediaUnheroProcessor;
 
     @Autowired
-    public MediaUpdateProcessor(KafkaCommonPublisher kafkaCommonPublisher, MediaDao mediaDao) {
+    public MediaUpdateProcessor(KafkaCommonPublisher kafkaCommonPublisher, MediaDao mediaDao, MediaUnheroProcessor mediaUnheroProcessor) {
         this.kafkaCommonPublisher = kafkaCommonPublisher;
         this.mediaDao = mediaDao;
+        this.mediaUnheroProcessor = mediaUnheroProcessor;
     }
 
     /**
@@ -59,49 +59,15 @@ public class MediaUpdateProcessor {
         final ImageMessage updatedImageMessage = buildUpdatedImageMessage(updateImageMessage, originalMedia);
         LOGGER.info("Started updating media in MediaDB MediaGuid={}", originalMedia.getMediaGuid());
         mediaDao.updateMedia(updatedImageMessage);
-        unHeroMedia(updatedImageMessage, originalMedia.getDomainId());
+        mediaUnheroProcessor.unheroMedia(updatedImageMessage, originalMedia.getDomainId());
         LOGGER.info("Finished updating media in MediaDB MediaGuid={}", originalMedia.getMediaGuid());
-        // TODO: Update all the media that needs to be unhero'd in mediaDB and send them to kafka as well.
         kafkaCommonPublisher.publishImageMessage(addUpdateOperationTag(updatedImageMessage), imageMessageTopic, imageMessageRetryTopic);
         final Map<String, Object> response = new HashMap<>();
         response.put("status", HttpStatus.OK.value());
-        final String jsonResponse = new ObjectMapper().writeValueAsString(response);
+        final String jsonResponse = JSONUtil.writeJson(response);
         return new ResponseEntity<>(jsonResponse, HttpStatus.OK);
     }
 
-    /**
-     * unhero current hero image in mediaDB
-     * @param imageMessage
-     * @param domainId
-     */
-    @SuppressWarnings("CPD-START")
-    private void unHeroMedia(ImageMessage imageMessage, String domainId) {
-        if (imageMessage.getOuterDomainData() != null
-                && imageMessage.getOuterDomainData().getDomainFields() != null
-                && ("true").equals(imageMessage.getOuterDomainData().getDomainFields().get("propertyHero"))
-                && imageMessage.getOuterDomainData().getDomain() != null
-                && ("Lodging").equals(imageMessage.getOuterDomainData().getDomain().getDomain())) {
-            LOGGER.info("Started query media by domainId={}", domainId);
-            final List<Optional<Media>> currentHeroList = mediaDao.getHeroMediaByDomainId(domainId);
-            LOGGER.info("end query media by domainId={} heroListSize={}", imageMessage.getOuterDomainData().getDomainId(), currentHeroList.size());
-            currentHeroList
-                    .stream()
-                    .filter(Optional::isPresent)
-                    .filter(media -> !media.get().getMediaGuid().equals(imageMessage.getMediaGuid()))
-                    .map(Optional::get)
-                    .forEach(media -> {
-                        mediaDao.unheroMedia(media.getMediaGuid(),
-                                media.getDomainFields().replace("\"propertyHero\":\"true\"", "\"propertyHero\":\"false\""));
-                        try {
-                            kafkaCommonPublisher
-                                    .publishImageMessage(media.toImageMessage(), imageMessageTopic, imageMessageRetryTopic);
-                        } catch (Exception ex) {
-                            LOGGER.error(ex, "send kafka message failed imageMessage={}", imageMessage.toJSONMessage());
-                        }
-                    });
-        }
-    }
-
     /**
      * Merges the data from the updateImageMessage with the originalMedia and then produces an ImageMessage with all of its fields up to date.
      *
@@ -110,8 +76,7 @@ public class MediaUpdateProcessor {
      * @return an up to date ImageMessage containing data from both the updateImageMessage and the originalMedia.
      * @throws Exception
      */
-    //CPD END to suppress the above method of duplicate warning
-    @SuppressWarnings({"PMD.NPathComplexity","CPD-END"})
+    @SuppressWarnings({"PMD.NPathComplexity"})
     private ImageMessage buildUpdatedImageMessage(ImageMessage updateImageMessage, Media originalMedia) throws Exception {
         if (updateImageMessage.getComment() != null) {
             final List<String> commentList = new ArrayList<>();
@@ -127,10 +92,10 @@ public class MediaUpdateProcessor {
         originalMedia.setUserId(StringUtils.isEmpty(updateImageMessage.getUserId()) ? updateImageMessage.getClientId() : updateImageMessage.getUserId());
         originalMedia.setLastUpdated(new Date());
         final String domainFields = originalMedia.getDomainFields();
-        final Map<String, Object> domainFieldsInDB = domainFields == null ? new HashMap<>() : JSONUtil.buildMapFromJson(domainFields);
+        final Map<String, Object> domainFieldsInDB = domainFields == null ? new HashMap<>() : JSONUtil.buildMapFromStoredJson(domainFields);
         final Map<String, Object> domainFieldsNew = updateImageMessage.getOuterDomainData().getDomainFields();
         final Map<String, Object> domainFieldsCombine = combineDomainFields(domainFieldsInDB, domainFieldsNew);
-        originalMedia.setDomainFields(new ObjectMapper().writeValueAsString(domainFieldsCombine));
+        originalMedia.setDomainFields(JSONUtil.writeJson(domainFieldsCombine));
         return originalMedia.toImageMessage();
     }
 
@@ -7,6 +7,7 @@ import com.expedia.content.media.processing.services.dao.MediaDao;
 import com.expedia.content.media.processing.services.dao.domain.MediaProcessLog;
 import com.expedia.content.media.processing.services.util.JSONUtil;
 import com.expedia.content.media.processing.services.util.MediaServiceUrl;
+import com.expedia.content.media.processing.services.util.ResponseEncoder;
 import com.expedia.content.media.processing.services.exception.RequestMessageException;
 import com.expedia.content.media.processing.services.validator.RequestMessageValidator;
 import com.expedia.content.media.processing.services.validator.ValidationStatus;
@@ -14,6 +15,7 @@ import expedia.content.solutions.metrics.annotations.Meter;
 import expedia.content.solutions.metrics.annotations.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -60,29 +62,56 @@ public class StatusController extends CommonServiceController {
      * @return ResponseEntity Standard spring response object.
      * @throws Exception Thrown if processing the message fails.
      */
-    @SuppressWarnings({"rawtypes", "unchecked", "PMD.SignatureDeclareThrowsException"})
+    @SuppressWarnings({"rawtypes", "PMD.SignatureDeclareThrowsException"})
     @Meter(name = "mediaLatestStatusCounter")
     @Timer(name = "mediaLatestStatusTimer")
     @RequestMapping(value = "/media/v1/lateststatus", method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
     @Transactional
     public ResponseEntity getMediaLatestStatus(@RequestBody final String message, @RequestHeader MultiValueMap<String, String> headers) throws Exception {
+        return getMediaLatestStatus(message, headers, ResponseEncoder.JSON);
+    }
+
+    /**
+     * Web service interface to get the latest media file process status, encoded in the Smile or CBOR binary format requested
+     * by the Accept header.
+     *
+     * @param message JSON formatted message, "mediaNames", contains an array of media file names.
+     * @param accept The Accept header of the request.
+     * @param headers Headers of the request.
+     * @return ResponseEntity Standard spring response object.
+     * @throws Exception Thrown if processing the message fails.
+     */
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    @Meter(name = "mediaLatestStatusBinaryCounter")
+    @Timer(name = "mediaLatestStatusBinaryTimer")
+    @RequestMapping(value = "/media/v1/lateststatus", method = RequestMethod.POST,
+            produces = {ResponseEncoder.APPLICATION_SMILE_VALUE, ResponseEncoder.APPLICATION_CBOR_VALUE})
+    @Transactional
+    public ResponseEntity<byte[]> getMediaLatestStatusBinary(@RequestBody final String message, @RequestHeader(HttpHeaders.ACCEPT) final String accept,
+            @RequestHeader MultiValueMap<String, String> headers) throws Exception {
+        return getMediaLatestStatus(message, headers, ResponseEncoder.forAccept(accept));
+    }
+
+    @SuppressWarnings({"unchecked", "PMD.SignatureDeclareThrowsException"})
+    private <T> ResponseEntity<T> getMediaLatestStatus(final String message, final MultiValueMap<String, String> headers, final ResponseEncoder<T> encoder)
+            throws Exception {
         final String requestID = getRequestId(headers);
         LOGGER.info("RECEIVED LATEST STATUS REQUEST ServiceUrl={} RequestId={} RequestMessage={}",
                 MediaServiceUrl.MEDIA_STATUS.getUrl(), requestID, message);
         try {
             final ValidationStatus validationStatus = validateMediaStatusMessage(message);
             if (!validationStatus.isValid()) {
-                return buildErrorResponse(validationStatus.getMessage(), MediaServiceUrl.MEDIA_STATUS.getUrl(), BAD_REQUEST);
+                return encoder.encode(buildErrorResponse(validationStatus.getMessage(), MediaServiceUrl.MEDIA_STATUS.getUrl(), BAD_REQUEST));
             }
             final Map<String, Object> map = JSONUtil.buildMapFromJson(message);
-            final String jsonResponse = getMediaStatusList((List<String>) map.get("mediaNames"));
+            final Map<String, Object> statusResponse = getMediaStatusList((List<String>) map.get("mediaNames"));
             LOGGER.info("RESPONSE ServiceUrl={} RequestId={} ResponseMessage={}",
-                    MediaServiceUrl.MEDIA_STATUS.getUrl(), requestID, jsonResponse);
-            return new ResponseEntity<>(jsonResponse, HttpStatus.OK);
+                    MediaServiceUrl.MEDIA_STATUS.getUrl(), requestID, statusResponse);
+            return encoder.encode(statusResponse, HttpStatus.OK);
         } catch (RequestMessageException ex) {
             LOGGER.error(ex, "ERROR ServiceUrl={} RequestId={} RequestMessage={} ErrorMessage={}",
                     MediaServiceUrl.MEDIA_STATUS.getUrl(), requestID, message, ex.getMessage());
-            return buildErrorResponse(ex.getMessage(), MediaServiceUrl.MEDIA_STATUS.getUrl(), BAD_REQUEST);
+            return encoder.encode(buildErrorResponse(ex.getMessage(), MediaServiceUrl.MEDIA_STATUS.getUrl(), BAD_REQUEST));
         } catch (Exception ex) {
             LOGGER.error(ex, "ERROR ServiceUrl={} RequestId={} RequestMessage={} ErrorMessage={}",
                     MediaServiceUrl.MEDIA_STATUS.getUrl(), requestID, message, ex.getMessage());
@@ -120,15 +149,15 @@ public class StatusController extends CommonServiceController {
      * query LCM DB to get the media file status.
      *
      * @param fileNameList
-     * @return json message that contain status and time
+     * @return message that contain status and time
      * @throws Exception
      */
     @Meter(name = "mediaStatusCounter")
     @Timer(name = "mediaStatusTimer")
     @RetryableMethod
-    private String getMediaStatusList(final List<String> fileNameList) {
+    private Map<String, Object> getMediaStatusList(final List<String> fileNameList) {
         final List<MediaProcessLog> statusLogList = mediaDao.findMediaStatus(fileNameList);
-        return JSONUtil.generateJsonByProcessLogList(statusLogList);
+        return JSONUtil.buildMapByProcessLogList(statusLogList);
     }
 
 }
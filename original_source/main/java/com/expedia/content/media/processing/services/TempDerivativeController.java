@@ -24,10 +24,12 @@ import org.springframework.web.bind.annotation.RestController;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
 
 /**
  * Web service controller for temporary derivatives.
@@ -41,6 +43,7 @@ public class TempDerivativeController extends CommonServiceController {
     static {
         STATUS_MAP.put(ValidationStatus.NOT_FOUND, NOT_FOUND);
         STATUS_MAP.put(ValidationStatus.ZERO_BYTES, BAD_REQUEST);
+        STATUS_MAP.put(ValidationStatus.UNAVAILABLE, SERVICE_UNAVAILABLE);
         STATUS_MAP.put(ValidationStatus.VALID, OK);
     }
 
@@ -58,7 +61,8 @@ public class TempDerivativeController extends CommonServiceController {
     }
 
     /**
-     * Web services interface to create a temporary derivative of a given image with given specifications.
+     * Web services interface to create a temporary derivative of a given image with given specifications. The request thread is
+     * released while the fileUrl is verified, the derivative is then created by the verified request executor.
      *
      * @param message JSON formated TempDerivativeMessage.
      * @param headers request Headers.
@@ -66,7 +70,8 @@ public class TempDerivativeController extends CommonServiceController {
      * @throws Exception
      */
     @RequestMapping(value = "/media/v1/tempderivative", method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<String> getTempDerivative(@RequestBody final String message, @RequestHeader MultiValueMap<String,String> headers) throws Exception {
+    public CompletableFuture<ResponseEntity<String>> getTempDerivative(@RequestBody final String message, @RequestHeader MultiValueMap<String,String> headers)
+            throws Exception {
         final String requestID = getRequestId(headers);
         final String serviceUrl = MediaServiceUrl.MEDIA_TEMP_DERIVATIVE.getUrl();
         LOGGER.info("RECEIVED TEMP DERIVATIVE REQUEST ServiceUrl={} RequestId={} RequestMessage={}", serviceUrl, requestID, message);
@@ -75,38 +80,71 @@ public class TempDerivativeController extends CommonServiceController {
             final String errors = tempDerivativeMVELValidator.validateTempDerivativeMessage(tempDerivativeMessage);
             if (!errors.isEmpty()) {
                 LOGGER.error("ERROR ServiceUrl={} ErrorMessage={} RequestId={} RequestMessage={}", serviceUrl, errors, requestID, message);
-                return buildErrorResponse("JSON request format is invalid. " + errors + " Json message=" + message, serviceUrl, BAD_REQUEST);
+                return CompletableFuture.completedFuture(
+                        buildErrorResponse("JSON request format is invalid. " + errors + " Json message=" + message, serviceUrl, BAD_REQUEST));
             }
-            @SuppressWarnings("CPD-START")
-            final ValidationStatus fileValidation = verifyUrl(tempDerivativeMessage.getFileUrl());
-            if (!fileValidation.isValid()) {
-                final ResponseEntity<String> responseEntity = buildErrorResponse(fileValidation.getMessage(), serviceUrl, STATUS_MAP.get(fileValidation.getStatus()) == null ?
-                        BAD_REQUEST : STATUS_MAP.get(fileValidation.getStatus()));
-                switch (fileValidation.getStatus()) {
-                    case ValidationStatus.NOT_FOUND:
-                        LOGGER.info("NOT FOUND Reason=\"Provided 'fileUrl does not exist'\" ServiceUrl={} RequestId={}", Arrays.asList(serviceUrl, requestID), message);
-                        break;
-                    case ValidationStatus.ZERO_BYTES:
-                        LOGGER.info("BAD REQUEST Reason=\"Provided 'file is 0 Bytes'\" ServiceUrl={} RequestId={}", Arrays.asList(serviceUrl, requestID), message);
-                        break;
-                    default:
-                        LOGGER.info("BAD REQUEST ServiceUrl={} RequestId={}", Arrays.asList(serviceUrl, requestID), message);
-                        break;
+            return processWhenUrlVerified(tempDerivativeMessage.getFileUrl(), fileValidation -> {
+                try {
+                    return createTempDerivative(tempDerivativeMessage, fileValidation, message, requestID, serviceUrl);
+                } catch (Exception ex) {
+                    throw handleTempDerivativeException(ex, message, requestID, serviceUrl);
                 }
-                return responseEntity;
-            }
-            @SuppressWarnings("CPD-END")
-            final Map<String, String> response = new HashMap<>();
-            response.put(RESPONSE_FIELD_THUMBNAIL_URL, thumbnailProcessor.createTempDerivativeThumbnail(tempDerivativeMessage));
-            return new ResponseEntity<>(OBJECT_MAPPER.writeValueAsString(response), OK);
+            });
         } catch (Exception ex) {
-            LOGGER.error(ex, "ERROR ServiceUrl={} ErrorMessage={} RequestId={} RequestMessage={}", serviceUrl, ex.getMessage(), requestID, message);
-            poker.poke("Media Services failed to process a getTempDerivative request - RequestId: " + requestID, hipChatRoom,
-                    message, ex);
-            throw ex;
+            throw handleTempDerivativeException(ex, message, requestID, serviceUrl);
         }
     }
 
+    /**
+     * Creates the temporary derivative once the fileUrl is verified.
+     *
+     * @param tempDerivativeMessage The temporary derivative request.
+     * @param fileValidation The status of the fileUrl of the request.
+     * @param message The request message.
+     * @param requestID The requestId sent in the request headers.
+     * @param serviceUrl The temporary derivative service url.
+     * @return url of the generated temporary derivative, or an Error ResponseEntity if the file is not valid.
+     * @throws Exception Thrown if creating the derivative fails.
+     */
+    @SuppressWarnings({"CPD-START", "PMD.SignatureDeclareThrowsException"})
+    private ResponseEntity<String> createTempDerivative(TempDerivativeMessage tempDerivativeMessage, ValidationStatus fileValidation, String message,
+                                                        String requestID, String serviceUrl) throws Exception {
+        if (!fileValidation.isValid()) {
+            final ResponseEntity<String> responseEntity = buildErrorResponse(fileValidation.getMessage(), serviceUrl, STATUS_MAP.get(fileValidation.getStatus()) == null ?
+                    BAD_REQUEST : STATUS_MAP.get(fileValidation.getStatus()));
+            switch (fileValidation.getStatus()) {
+                case ValidationStatus.NOT_FOUND:
+                    LOGGER.info("NOT FOUND Reason=\"Provided 'fileUrl does not exist'\" ServiceUrl={} RequestId={}", Arrays.asList(serviceUrl, requestID), message);
+                    break;
+                case ValidationStatus.ZERO_BYTES:
+                    LOGGER.info("BAD REQUEST Reason=\"Provided 'file is 0 Bytes'\" ServiceUrl={} RequestId={}", Arrays.asList(serviceUrl, requestID), message);
+                    break;
+                case ValidationStatus.UNAVAILABLE:
+                    LOGGER.warn("SERVICE UNAVAILABLE Reason=\"Provided 'fileUrl could not be verified'\" ServiceUrl={} RequestId={}", Arrays.asList(serviceUrl, requestID), message);
+                    break;
+                default:
+                    LOGGER.info("BAD REQUEST ServiceUrl={} RequestId={}", Arrays.asList(serviceUrl, requestID), message);
+                    break;
+            }
+            return responseEntity;
+        }
+        final Map<String, String> response = new HashMap<>();
+        response.put(RESPONSE_FIELD_THUMBNAIL_URL, thumbnailProcessor.createTempDerivativeThumbnail(tempDerivativeMessage));
+        return new ResponseEntity<>(OBJECT_MAPPER.writeValueAsString(response), OK);
+    }
+
+    /**
+     * Logs and reports a failed temporary derivative request.
+     *
+     * @return The exception to rethrow.
+     */
+    private Exception handleTempDerivativeException(Exception ex, String message, String requestID, String serviceUrl) {
+        LOGGER.error(ex, "ERROR ServiceUrl={} ErrorMessage={} RequestId={} RequestMessage={}", serviceUrl, ex.getMessage(), requestID, message);
+        poker.poke("Media Services failed to process a getTempDerivative request - RequestId: " + requestID, hipChatRoom,
+                message, ex);
+        return ex;
+    }
+
     private static TempDerivativeMessage buildTempDerivativeFromJSONMessage(String jsonMessage) throws RequestMessageException {
         final Map jsonMap = JSONUtil.buildMapFromJson(jsonMessage);
         final String fileUrl = (String) jsonMap.get("fileUrl");
@@ -2,6 +2,7 @@ package com.expedia.content.media.processing.services.dao;
 
 import com.expedia.content.media.processing.pipeline.domain.OuterDomain;
 import com.expedia.content.media.processing.services.dao.domain.Category;
+import com.expedia.content.media.processing.services.dao.domain.DomainCategory;
 
 import java.util.List;
 
@@ -20,6 +21,14 @@ public interface DomainCategoriesDao {
      */
     List<Category> getMediaCategoriesWithSubCategories(String domain, String localeId);
 
+    /**
+     * Returns the rows of the categories and subcategories of a domain, for all languages.
+     *
+     * @param domain The domain to query categories and subcategories for.
+     * @return A list of DomainCategory objects, one per category or subcategory and localeId.
+     */
+    List<DomainCategory> getDomainCategories(String domain);
+
     /**
      * verifies if the subcategoryId in the OuterDomain exists in the Database.
      *
@@ -0,0 +1,175 @@
+package com.expedia.content.media.processing.services.dao;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the number of visible media of a domain item broken down by active flag and derivative category, so the total count
+ * of any active/derivativeCategory filter combination can be summed up without querying the database. Derivative categories
+ * are compared ignoring case, as the MediaDB collation does.
+ * This is a bounded TTL cache of counts read from the database, not a count maintained by the writes: entries are dropped when
+ * media of the domain item is written through this instance, but a write done through another instance only shows once the
+ * entry expires, so counts served by one instance can be up to the TTL behind the writes of the others. Counts read while an
+ * invalidation was running are not stored, see {@link #putCounts(String, String, Map, long)}.
+ */
+public class DomainMediaCountCache {
+
+    private static final String KEY_SEPARATOR = "|";
+    private static final String ACTIVE_FILTER_ALL = "all";
+    private static final String ACTIVE_FILTER_TRUE = "true";
+
+    private final Cache<String, Map<CountKey, Integer>> countsByDomainId;
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    /**
+     * @param maximumSize      Maximum number of domain items whose counts are cached.
+     * @param timeToLiveMillis Milliseconds the counts of a domain item stay cached after being read.
+     */
+    public DomainMediaCountCache(long maximumSize, long timeToLiveMillis) {
+        this.countsByDomainId = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLiveMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Gets the media count of a domain item for a filter combination.
+     *
+     * @param domain                   Domain the item belongs to.
+     * @param domainId                 The id of the domain item.
+     * @param activeFilter             "true", "false", or "all"/null for both.
+     * @param derivativeCategoryFilter Comma separated derivative categories, null or empty for all.
+     * @return The count if the domain item counts are cached, Optional.empty() otherwise.
+     */
+    public Optional<Integer> getCount(String domain, String domainId, String activeFilter, String derivativeCategoryFilter) {
+        final Map<CountKey, Integer> counts = countsByDomainId.getIfPresent(buildKey(domain, domainId));
+        return counts == null ? Optional.empty() : Optional.of(sumCounts(counts, activeFilter, derivativeCategoryFilter));
+    }
+
+    /**
+     * Sums up the counts of a domain item for a filter combination.
+     *
+     * @param counts                   The counts of the domain item built with {@link #newCounts()}.
+     * @param activeFilter             "true", "false", or "all"/null for both.
+     * @param derivativeCategoryFilter Comma separated derivative categories, null or empty for all.
+     * @return The media count of the filter combination.
+     */
+    public static int sumCounts(Map<CountKey, Integer> counts, String activeFilter, String derivativeCategoryFilter) {
+        final boolean isActiveFilterUsed = activeFilter != null && !activeFilter.isEmpty() && !ACTIVE_FILTER_ALL.equals(activeFilter);
+        final boolean active = ACTIVE_FILTER_TRUE.equals(activeFilter);
+        final List<String> derivativeCategories = derivativeCategoryFilter == null || derivativeCategoryFilter.isEmpty() ? null
+                : Arrays.stream(derivativeCategoryFilter.split(",")).map(DomainMediaCountCache::normalizeDerivativeCategory).collect(Collectors.toList());
+        int total = 0;
+        for (final Map.Entry<CountKey, Integer> entry : counts.entrySet()) {
+            final CountKey key = entry.getKey();
+            if ((!isActiveFilterUsed || key.active == active)
+                    && (derivativeCategories == null || derivativeCategories.contains(key.derivativeCategory))) {
+                total += entry.getValue();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return The number of invalidations so far, to read before loading counts to store with
+     * {@link #putCounts(String, String, Map, long)}.
+     */
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    /**
+     * Stores the counts of a domain item, unless an invalidation happened since they started loading.
+     *
+     * @param domain                      Domain the item belongs to.
+     * @param domainId                    The id of the domain item.
+     * @param counts                      The counts of the domain item built with {@link #newCounts()}.
+     * @param invalidationCountBeforeLoad The {@link #getInvalidationCount()} read before the counts started loading.
+     */
+    public void putCounts(String domain, String domainId, Map<CountKey, Integer> counts, long invalidationCountBeforeLoad) {
+        // counts read while an invalidation was running may be the counts the invalidation was meant to drop
+        if (invalidationCount.get() == invalidationCountBeforeLoad) {
+            countsByDomainId.put(buildKey(domain, domainId), Collections.unmodifiableMap(counts));
+        }
+    }
+
+    /**
+     * Drops the counts of a domain item after its media was written.
+     *
+     * @param domain   Domain the item belongs to.
+     * @param domainId The id of the domain item.
+     */
+    public void invalidate(String domain, String domainId) {
+        invalidationCount.incrementAndGet();
+        countsByDomainId.invalidate(buildKey(domain, domainId));
+    }
+
+    /**
+     * @return An empty map to accumulate the counts of a domain item with {@link #increment(Map, boolean, String, int)}.
+     */
+    public static Map<CountKey, Integer> newCounts() {
+        return new HashMap<>();
+    }
+
+    /**
+     * Adds to the count of an active flag and derivative category combination.
+     *
+     * @param counts             The counts to add to.
+     * @param active             The active flag of the media.
+     * @param derivativeCategory The derivative category of the media, may be null.
+     * @param count              The number of media to add.
+     */
+    public static void increment(Map<CountKey, Integer> counts, boolean active, String derivativeCategory, int count) {
+        counts.merge(new CountKey(active, derivativeCategory), count, Integer::sum);
+    }
+
+    private static String buildKey(String domain, String domainId) {
+        return domain + KEY_SEPARATOR + domainId;
+    }
+
+    private static String normalizeDerivativeCategory(String derivativeCategory) {
+        return derivativeCategory == null ? null : derivativeCategory.toLowerCase(Locale.US);
+    }
+
+    /**
+     * Active flag and derivative category combination counted.
+     */
+    public static final class CountKey {
+        private final boolean active;
+        private final String derivativeCategory;
+
+        private CountKey(boolean active, String derivativeCategory) {
+            this.active = active;
+            this.derivativeCategory = normalizeDerivativeCategory(derivativeCategory);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof CountKey)) {
+                return false;
+            }
+            final CountKey otherKey = (CountKey) other;
+            return active == otherKey.active && Objects.equals(derivativeCategory, otherKey.derivativeCategory);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(active, derivativeCategory);
+        }
+    }
+}
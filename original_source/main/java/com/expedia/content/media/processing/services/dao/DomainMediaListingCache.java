@@ -0,0 +1,190 @@
+package com.expedia.content.media.processing.services.dao;
+
+import com.expedia.content.media.processing.pipeline.util.FormattedLogger;
+import expedia.content.solutions.metrics.annotations.Gauge;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of the complete media listing of domain items, kept outside of the heap in direct buffers so large
+ * domain items do not weigh on the heap and on garbage collection. Listings are stored in the binary form given by the loader.
+ * The cache is bounded by the total size of the stored listings and evicts the least recently used listings first. Entries
+ * are invalidated when media of the domain item is written, and expire after a TTL to pick up writes done by other instances.
+ * <p>
+ * Buffers of dropped listings are not reused, since readers may still hold views of them, and their memory is only freed once
+ * they are garbage collected. The direct memory used can therefore exceed the maximum size by the listings dropped since the
+ * last collection: -XX:MaxDirectMemorySize must leave that headroom, twice the maximum size for instance. When the direct
+ * memory runs out anyway, a loaded listing is returned from the heap and not cached.
+ * Note that the {@code @Gauge} annotations introduce aspects from metrics-support.
+ */
+public class DomainMediaListingCache {
+
+    private static final FormattedLogger LOGGER = new FormattedLogger(DomainMediaListingCache.class);
+    private static final String KEY_SEPARATOR = "|";
+
+    private final boolean enabled;
+    private final long maximumBytes;
+    private final long timeToLiveMillis;
+    private final LinkedHashMap<String, Listing> listings = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong invalidationCount = new AtomicLong();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong directMemoryFailureCount = new AtomicLong();
+    private long totalBytes;
+
+    /**
+     * @param enabled           false to read every listing from the database.
+     * @param maximumBytes      Maximum total size, in bytes, of the cached listings.
+     * @param timeToLiveSeconds Seconds a listing stays cached after being read.
+     */
+    public DomainMediaListingCache(boolean enabled, long maximumBytes, long timeToLiveSeconds) {
+        this.enabled = enabled;
+        this.maximumBytes = maximumBytes;
+        this.timeToLiveMillis = timeToLiveSeconds * 1000L;
+    }
+
+    /**
+     * @return false when listings must be read from the database.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Gets the listing of a domain item, loading it when it is not cached.
+     *
+     * @param domain   Domain the item belongs to.
+     * @param domainId The id of the domain item.
+     * @param loader   Reads the listing from the database and returns it in its binary form.
+     * @return A read only buffer of the listing positioned at its start.
+     */
+    public ByteBuffer getListing(String domain, String domainId, Supplier<byte[]> loader) {
+        final String key = buildKey(domain, domainId);
+        final ByteBuffer cachedListing = get(key);
+        if (cachedListing != null) {
+            hitCount.incrementAndGet();
+            return cachedListing;
+        }
+        missCount.incrementAndGet();
+        final long invalidationCountBeforeLoad = invalidationCount.get();
+        final byte[] listing = loader.get();
+        if (listing.length > maximumBytes) {
+            return ByteBuffer.wrap(listing).asReadOnlyBuffer();
+        }
+        final ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.allocateDirect(listing.length);
+        } catch (OutOfMemoryError e) {
+            LOGGER.warn("Direct memory exhausted, listing not cached Domain={} DomainId={} ListingBytes={}", domain, domainId, listing.length);
+            directMemoryFailureCount.incrementAndGet();
+            return ByteBuffer.wrap(listing).asReadOnlyBuffer();
+        }
+        buffer.put(listing);
+        buffer.flip();
+        put(key, buffer, invalidationCountBeforeLoad);
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Drops the listing of a domain item after its media was written.
+     *
+     * @param domain   Domain the item belongs to.
+     * @param domainId The id of the domain item.
+     */
+    public synchronized void invalidate(String domain, String domainId) {
+        invalidationCount.incrementAndGet();
+        final Listing listing = listings.remove(buildKey(domain, domainId));
+        if (listing != null) {
+            totalBytes -= listing.buffer.capacity();
+        }
+    }
+
+    /**
+     * Drops all the listings after a write to media of an unknown domain item.
+     */
+    public synchronized void invalidateAll() {
+        invalidationCount.incrementAndGet();
+        listings.clear();
+        totalBytes = 0L;
+    }
+
+    private synchronized ByteBuffer get(String key) {
+        final Listing listing = listings.get(key);
+        if (listing == null) {
+            return null;
+        }
+        if (listing.expiryTime < System.currentTimeMillis()) {
+            listings.remove(key);
+            totalBytes -= listing.buffer.capacity();
+            return null;
+        }
+        return listing.buffer.asReadOnlyBuffer();
+    }
+
+    private synchronized void put(String key, ByteBuffer buffer, long invalidationCountBeforeLoad) {
+        // a listing read while an invalidation was running may be the version the invalidation was meant to drop
+        if (invalidationCount.get() != invalidationCountBeforeLoad) {
+            return;
+        }
+        final Listing previousListing = listings.put(key, new Listing(buffer, System.currentTimeMillis() + timeToLiveMillis));
+        if (previousListing != null) {
+            totalBytes -= previousListing.buffer.capacity();
+        }
+        totalBytes += buffer.capacity();
+        final Iterator<Listing> leastRecentlyUsed = listings.values().iterator();
+        while (totalBytes > maximumBytes && leastRecentlyUsed.hasNext()) {
+            totalBytes -= leastRecentlyUsed.next().buffer.capacity();
+            leastRecentlyUsed.remove();
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    private static String buildKey(String domain, String domainId) {
+        return domain + KEY_SEPARATOR + domainId;
+    }
+
+    @Gauge(name = "domainMediaListingCacheHits")
+    public Long hitCount() {
+        return hitCount.get();
+    }
+
+    @Gauge(name = "domainMediaListingCacheMisses")
+    public Long missCount() {
+        return missCount.get();
+    }
+
+    @Gauge(name = "domainMediaListingCacheEvictions")
+    public Long evictionCount() {
+        return evictionCount.get();
+    }
+
+    @Gauge(name = "domainMediaListingCacheDirectMemoryFailures")
+    public Long directMemoryFailureCount() {
+        return directMemoryFailureCount.get();
+    }
+
+    @Gauge(name = "domainMediaListingCacheBytes")
+    public synchronized Long totalBytes() {
+        return totalBytes;
+    }
+
+    @Gauge(name = "domainMediaListingCacheSize")
+    public synchronized Integer size() {
+        return listings.size();
+    }
+
+    private static final class Listing {
+        private final ByteBuffer buffer;
+        private final long expiryTime;
+
+        private Listing(ByteBuffer buffer, long expiryTime) {
+            this.buffer = buffer;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
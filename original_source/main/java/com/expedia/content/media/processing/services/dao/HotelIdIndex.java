@@ -0,0 +1,96 @@
+package com.expedia.content.media.processing.services.dao;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of hotel ids, kept as a sorted array of primitive longs so the ids of every hotel fit in a few megabytes and
+ * are searched without boxing. New ids are merged into a copy of the index.
+ */
+public final class HotelIdIndex {
+
+    public static final HotelIdIndex EMPTY = new HotelIdIndex(new long[0]);
+
+    private final long[] sortedIds;
+
+    private HotelIdIndex(long[] sortedIds) {
+        this.sortedIds = sortedIds;
+    }
+
+    /**
+     * Builds an index of hotel ids.
+     *
+     * @param ids    The hotel ids, in any order and possibly repeated. The array is sorted in place.
+     * @param length The number of ids to read from the array.
+     * @return The index.
+     */
+    public static HotelIdIndex of(long[] ids, int length) {
+        Arrays.sort(ids, 0, length);
+        return new HotelIdIndex(distinct(ids, length));
+    }
+
+    /**
+     * Builds a copy of this index with more hotel ids.
+     *
+     * @param ids    The hotel ids to add, in any order and possibly repeated or already indexed. The array is sorted in place.
+     * @param length The number of ids to read from the array.
+     * @return The new index, this index when there are no ids to add.
+     */
+    public HotelIdIndex merge(long[] ids, int length) {
+        if (length == 0) {
+            return this;
+        }
+        Arrays.sort(ids, 0, length);
+        final long[] mergedIds = new long[sortedIds.length + length];
+        int index = 0;
+        int addedIndex = 0;
+        int mergedLength = 0;
+        while (index < sortedIds.length || addedIndex < length) {
+            final long id;
+            if (addedIndex == length || (index < sortedIds.length && sortedIds[index] <= ids[addedIndex])) {
+                id = sortedIds[index++];
+            } else {
+                id = ids[addedIndex++];
+            }
+            if (mergedLength == 0 || mergedIds[mergedLength - 1] != id) {
+                mergedIds[mergedLength++] = id;
+            }
+        }
+        return mergedLength == sortedIds.length ? this : new HotelIdIndex(Arrays.copyOf(mergedIds, mergedLength));
+    }
+
+    /**
+     * @param hotelId The hotel id to look for.
+     * @return true if the hotel id is in the index.
+     */
+    public boolean contains(long hotelId) {
+        return Arrays.binarySearch(sortedIds, hotelId) >= 0;
+    }
+
+    /**
+     * @return The greatest hotel id of the index, Long.MIN_VALUE when the index is empty.
+     */
+    public long maxId() {
+        return sortedIds.length == 0 ? Long.MIN_VALUE : sortedIds[sortedIds.length - 1];
+    }
+
+    public int size() {
+        return sortedIds.length;
+    }
+
+    /**
+     * @return The number of bytes used by the ids of the index.
+     */
+    public long sizeInBytes() {
+        return (long) sortedIds.length * Long.BYTES;
+    }
+
+    private static long[] distinct(long[] sortedIds, int length) {
+        int distinctLength = 0;
+        for (int i = 0; i < length; i++) {
+            if (distinctLength == 0 || sortedIds[distinctLength - 1] != sortedIds[i]) {
+                sortedIds[distinctLength++] = sortedIds[i];
+            }
+        }
+        return Arrays.copyOf(sortedIds, distinctLength);
+    }
+}
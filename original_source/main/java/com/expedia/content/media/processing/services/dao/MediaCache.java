@@ -0,0 +1,104 @@
+package com.expedia.content.media.processing.services.dao;
+
+import com.expedia.content.media.processing.services.dao.domain.Media;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import expedia.content.solutions.metrics.annotations.Gauge;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of media by guid. Entries are evicted by size and expire after a TTL to pick up writes done by
+ * other instances; writes done through this instance invalidate the media they touch.
+ * Cached media are copied in and out so callers updating the media they get do not change the cached one.
+ * Note that the {@code @Gauge} annotations introduce aspects from metrics-support.
+ */
+public class MediaCache {
+
+    private final boolean enabled;
+    private final Cache<String, Media> mediaByGuid;
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    /**
+     * @param enabled           false to read every media from the database.
+     * @param maximumSize       Maximum number of cached media.
+     * @param timeToLiveSeconds Seconds a media stays cached after being read.
+     */
+    public MediaCache(boolean enabled, long maximumSize, long timeToLiveSeconds) {
+        this.enabled = enabled;
+        this.mediaByGuid = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Gets a media from the cache, loading it when it is not cached. Missing media are not cached so a media added through
+     * another instance is found as soon as it is written.
+     *
+     * @param mediaGuid The guid of the media.
+     * @param loader    Reads the media from the database.
+     * @return The media, Optional.empty() when it does not exist.
+     */
+    public Optional<Media> getMediaByGuid(String mediaGuid, Function<String, Optional<Media>> loader) {
+        if (!enabled) {
+            return loader.apply(mediaGuid);
+        }
+        final Media cachedMedia = mediaByGuid.getIfPresent(mediaGuid);
+        if (cachedMedia != null) {
+            return Optional.of(Media.of(cachedMedia));
+        }
+        final long invalidationCountBeforeLoad = invalidationCount.get();
+        final Optional<Media> media = loader.apply(mediaGuid);
+        // a media read while an invalidation was running may be the version the invalidation was meant to drop
+        if (media.isPresent() && invalidationCount.get() == invalidationCountBeforeLoad) {
+            mediaByGuid.put(mediaGuid, Media.of(media.get()));
+        }
+        return media;
+    }
+
+    /**
+     * Drops a media after it was written.
+     *
+     * @param mediaGuid The guid of the media.
+     */
+    public void invalidate(String mediaGuid) {
+        invalidationCount.incrementAndGet();
+        mediaByGuid.invalidate(mediaGuid);
+    }
+
+    /**
+     * Drops all the media of a domain item after a statement wrote media of the item without knowing their guids.
+     *
+     * @param domain   Domain the item belongs to.
+     * @param domainId The id of the domain item.
+     */
+    public void invalidateDomainId(String domain, String domainId) {
+        invalidationCount.incrementAndGet();
+        mediaByGuid.asMap().values().removeIf(media -> domain.equals(media.getDomain()) && domainId.equals(media.getDomainId()));
+    }
+
+    @Gauge(name = "mediaByGuidCacheHits")
+    public Long hitCount() {
+        return mediaByGuid.stats().hitCount();
+    }
+
+    @Gauge(name = "mediaByGuidCacheMisses")
+    public Long missCount() {
+        return mediaByGuid.stats().missCount();
+    }
+
+    @Gauge(name = "mediaByGuidCacheEvictions")
+    public Long evictionCount() {
+        return mediaByGuid.stats().evictionCount();
+    }
+
+    @Gauge(name = "mediaByGuidCacheSize")
+    public Long size() {
+        return mediaByGuid.size();
+    }
+}
@@ -9,6 +9,7 @@ import com.expedia.content.media.processing.services.dao.domain.MediaProcessLog;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * An interface for all DAOs implementations to adhere to for accessing media.
@@ -16,7 +17,8 @@ import java.util.Optional;
 public interface MediaDao {
 
     /**
-     * Retrieve media items for a domain item.
+     * Retrieve media items for a domain item, in the response order of {@link #streamMediaByDomainId}. Pages are taken
+     * over that order, so a page holds the same media whichever way it is read.
      *
      * @param domain                    Domain the item belongs too.
      * @param domainId                  The id of the domain item media items are needed.
@@ -30,7 +32,51 @@ public interface MediaDao {
     List<Optional<DomainIdMedia>> getMediaByDomainId(Domain domain, String domainId, String activeFilter, String derivativeFilter, String derivativeCategoryFilter,
                                                      Integer pageSize, Integer pageIndex);
 
+    /**
+     * Retrieve a page of media items for a domain item, ordered by media guid, starting after a given media guid.
+     * Seeking on the guid keeps the cost of a page constant no matter how deep the page is. The pages are not in the response
+     * order of {@link #getMediaByDomainId}: the guid never changes, so a hero or subcategory update between two pages can not
+     * make the cursor skip or repeat a media, as it would with a cursor on the response order.
+     *
+     * @param domain                    Domain the item belongs too.
+     * @param domainId                  The id of the domain item media items are needed.
+     * @param activeFilter              Filters active or inactive media. If "all" or null is provided all items are returned.
+     * @param derivativeFilter          Inclusive filter of derivatives. A null or empty string will not exclude any derivatives.
+     * @param derivativeCategoryFilter  Inclusive filter of media. A null or empty string will not exclude any media.
+     * @param pageSize                  Positive integer, the maximum number of media to return.
+     * @param lastMediaGuid             The guid of the last media of the previous page, null for the first page.
+     * @return List of media that belongs to the domain item.
+     */
+    List<Optional<DomainIdMedia>> getMediaByDomainIdAfter(Domain domain, String domainId, String activeFilter, String derivativeFilter,
+                                                          String derivativeCategoryFilter, Integer pageSize, String lastMediaGuid);
+
+    /**
+     * Streams the media items of a domain item, one at a time, in response order: property hero first, then by ascending
+     * subcategory id, media without a subcategory id last. The rows are read with a forward only cursor so the media of
+     * the domain item are never all held in memory.
+     *
+     * @param domain                    Domain the item belongs too.
+     * @param domainId                  The id of the domain item media items are needed.
+     * @param activeFilter              Filters active or inactive media. If "all" or null is provided all items are returned.
+     * @param derivativeFilter          Inclusive filter of derivatives. A null or empty string will not exclude any derivatives.
+     * @param derivativeCategoryFilter  Inclusive filter of media. A null or empty string will not exclude any media.
+     * @param pageSize                  Positive integer to filter the number of media displayed per page. pageSize is inclusive with pageIndex.
+     * @param pageIndex                 Positive integer to filter the page to display. pageIndex is inclusive with pageSize.
+     * @param mediaConsumer             Receives each media item as it is read.
+     * @return The number of rows read.
+     */
+    int streamMediaByDomainId(Domain domain, String domainId, String activeFilter, String derivativeFilter, String derivativeCategoryFilter,
+                              Integer pageSize, Integer pageIndex, Consumer<DomainIdMedia> mediaConsumer);
 
+    /**
+     * Retrieve the number of media items of a domain item.
+     *
+     * @param domain                    Domain the item belongs too.
+     * @param domainId                  The id of the domain item.
+     * @param activeFilter              Filters active or inactive media. If "all" or null is provided all items are counted.
+     * @param derivativeCategoryFilter  Inclusive filter of media. A null or empty string will not exclude any media.
+     * @return The number of media items.
+     */
     Optional<Integer> getTotalMediaCountByDomainId(Domain domain, String domainId, String activeFilter, String derivativeCategoryFilter);
 
     /**
@@ -56,6 +102,15 @@ public interface MediaDao {
      */
     Optional<Media> getMediaByGuid(String mediaGUID);
 
+    /**
+     * get the latest version of a Media record from DB by GUID, for a request that rewrites it.
+     * The media is read from the write data source, never from a cache, so the media written back is not based on a stale copy.
+     *
+     * @param mediaGUID GUID of the media.
+     * @return The media, Optional.empty() when it does not exist.
+     */
+    Optional<Media> getMediaByGuidForUpdate(String mediaGUID);
+
     /**
      * get Media list from MediaDB by lcmMedia ID.
      * @param mediaId
@@ -77,6 +132,14 @@ public interface MediaDao {
      */
     void unheroMedia(String mediaGUID, String domainField);
 
+    /**
+     * set propertyHero to false for all the hero media of a property but its new hero
+     * @param domainId The id of the property.
+     * @param heroMediaGuid The guid of the new hero media, which keeps propertyHero.
+     * @return The media unheroed, with their domain fields as written.
+     */
+    List<Media> unheroMediaByDomainId(String domainId, String heroMediaGuid);
+
     /**
      * store imageMessage in media DB
      *
@@ -1,23 +1,150 @@
 package com.expedia.content.media.processing.services.dao;
 
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-
-import java.util.Date;
-import java.util.List;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
 
 /**
- * Cache object to store mediaSubcategories in memory.
+ * Cache of the mediaSubcategory ids of each domain and localeId.
+ * The ids of a domain and localeId are loaded the first time they are looked up, concurrent lookups wait for the same load.
+ * Once loaded they are refreshed ahead in the background: a lookup made after the refresh interval still reads the cached ids
+ * and starts a reload on the refresh executor, so lookups never wait on a reload. When a reload fails the cached ids are kept
+ * and the next lookup tries again.
  */
-@AllArgsConstructor
-@Getter
-@SuppressWarnings({"PMD.UnusedPrivateField"})
 public class MediaSubCategoryCache {
-    private final List<String> mediaSubCategoryIds;
-    private final Date expiryDate;
 
-    public List<String> getMediaSubCategoryCache() {
-        return mediaSubCategoryIds;
+    private static final long MAXIMUM_SIZE = 1000L;
+
+    private final LoadingCache<SubCategoryKey, Set<String>> subCategoryIdsByKey;
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong refreshFailureCount = new AtomicLong();
+
+    /**
+     * @param subCategoryIdsLoader Reads the subcategory ids of a domain and localeId.
+     * @param refreshAfterSeconds  Seconds after which the ids of a domain and localeId are reloaded in the background.
+     * @param refreshExecutor      Executor running the background reloads.
+     */
+    public MediaSubCategoryCache(BiFunction<String, String, Collection<String>> subCategoryIdsLoader, long refreshAfterSeconds,
+                                 Executor refreshExecutor) {
+        this(subCategoryIdsLoader, refreshAfterSeconds, refreshExecutor, Ticker.systemTicker());
+    }
+
+    MediaSubCategoryCache(BiFunction<String, String, Collection<String>> subCategoryIdsLoader, long refreshAfterSeconds,
+                          Executor refreshExecutor, Ticker ticker) {
+        this.subCategoryIdsByKey = CacheBuilder.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .refreshAfterWrite(refreshAfterSeconds, TimeUnit.SECONDS)
+                .ticker(ticker)
+                .recordStats()
+                .build(new CacheLoader<SubCategoryKey, Set<String>>() {
+                    @Override
+                    public Set<String> load(SubCategoryKey key) {
+                        return Collections.unmodifiableSet(new HashSet<>(subCategoryIdsLoader.apply(key.domain, key.localeId)));
+                    }
+
+                    @Override
+                    public ListenableFuture<Set<String>> reload(SubCategoryKey key, Set<String> oldValue) {
+                        final ListenableFutureTask<Set<String>> task = ListenableFutureTask.create(() -> {
+                            refreshCount.incrementAndGet();
+                            try {
+                                return load(key);
+                            } catch (RuntimeException e) {
+                                refreshFailureCount.incrementAndGet();
+                                throw e;
+                            }
+                        });
+                        refreshExecutor.execute(task);
+                        return task;
+                    }
+                });
+    }
+
+    /**
+     * Verifies if a subcategory id exists for a domain and localeId.
+     *
+     * @param domain        The domain of the subcategory.
+     * @param localeId      The localeId of the subcategory.
+     * @param subCategoryId The subcategory id to look for.
+     * @return true if the subcategory id exists.
+     */
+    public boolean contains(String domain, String localeId, String subCategoryId) {
+        try {
+            return subCategoryIdsByKey.getUnchecked(new SubCategoryKey(domain, localeId)).contains(subCategoryId);
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public long hitCount() {
+        return subCategoryIdsByKey.stats().hitCount();
+    }
+
+    public long missCount() {
+        return subCategoryIdsByKey.stats().missCount();
+    }
+
+    /**
+     * @return The number of background reloads started.
+     */
+    public long refreshCount() {
+        return refreshCount.get();
+    }
+
+    /**
+     * @return The number of background reloads that failed.
+     */
+    public long refreshFailureCount() {
+        return refreshFailureCount.get();
+    }
+
+    public long size() {
+        return subCategoryIdsByKey.size();
+    }
+
+    /**
+     * Domain and localeId the subcategory ids are cached for, the localeId may be null.
+     */
+    private static final class SubCategoryKey {
+        private final String domain;
+        private final String localeId;
+
+        private SubCategoryKey(String domain, String localeId) {
+            this.domain = domain;
+            this.localeId = localeId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof SubCategoryKey)) {
+                return false;
+            }
+            final SubCategoryKey key = (SubCategoryKey) other;
+            return Objects.equals(domain, key.domain) && Objects.equals(localeId, key.localeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(domain, localeId);
+        }
     }
 }
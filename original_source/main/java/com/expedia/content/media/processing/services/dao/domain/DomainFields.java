@@ -0,0 +1,90 @@
+package com.expedia.content.media.processing.services.dao.domain;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Typed view of the domain-fields JSON of a media. The fields the service reads are bound to properties, any other
+ * field is kept as is so the JSON can be written back without losing data. Whether media is the property hero is always
+ * decided by {@link #isPropertyHero(Object)}, whichever form the domain fields are read in.
+ */
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DomainFields {
+    private static final String LCM_MEDIA_ID = "lcmMediaId";
+    private static final String PROPERTY_HERO = "propertyHero";
+    private static final String SUBCATEGORY_ID = "subcategoryId";
+
+    private String lcmMediaId;
+    private String propertyHero;
+    private String subcategoryId;
+    private List<Room> rooms;
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Object> otherFields = new LinkedHashMap<>();
+
+    @JsonAnyGetter
+    public Map<String, Object> getOtherFields() {
+        return otherFields;
+    }
+
+    @JsonAnySetter
+    public void setOtherField(String name, Object value) {
+        otherFields.put(name, value);
+    }
+
+    /**
+     * Tells if the domain fields mark the media as the property hero.
+     *
+     * @return true when propertyHero is true, see {@link #isPropertyHero(Object)}.
+     */
+    @JsonIgnore
+    public boolean isPropertyHeroMedia() {
+        return isPropertyHero(propertyHero);
+    }
+
+    /**
+     * Tells if a propertyHero value of domain fields marks the media as the property hero.
+     *
+     * @param propertyHero The propertyHero value, as read from the typed view or from a domain fields map.
+     * @return true when the value is the boolean true or the text "true", whatever the case.
+     */
+    public static boolean isPropertyHero(Object propertyHero) {
+        return propertyHero != null && "true".equalsIgnoreCase(propertyHero.toString());
+    }
+
+    /**
+     * Builds the typed view of domain fields read as a map, for domain fields whose values do not all bind to the typed
+     * properties: an object subcategoryId or rooms that are not objects for instance. Text, number and boolean values of
+     * lcmMediaId, propertyHero and subcategoryId are bound as text, any other value, rooms included, is kept as is with the
+     * other fields.
+     *
+     * @param domainFieldsMap The domain fields.
+     * @return The typed domain fields.
+     */
+    public static DomainFields fromMap(Map<String, Object> domainFieldsMap) {
+        final DomainFields domainFields = new DomainFields();
+        domainFieldsMap.forEach((name, value) -> {
+            final boolean isScalar = value instanceof String || value instanceof Number || value instanceof Boolean;
+            if (isScalar && LCM_MEDIA_ID.equals(name)) {
+                domainFields.lcmMediaId = value.toString();
+            } else if (isScalar && PROPERTY_HERO.equals(name)) {
+                domainFields.propertyHero = value.toString();
+            } else if (isScalar && SUBCATEGORY_ID.equals(name)) {
+                domainFields.subcategoryId = value.toString();
+            } else {
+                domainFields.otherFields.put(name, value);
+            }
+        });
+        return domainFields;
+    }
+}
@@ -2,12 +2,16 @@ package com.expedia.content.media.processing.services.dao.domain;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 
 /**
  * Media response object representation.
+ * The domainFields and derivatives can be given decoded, or as decoders called the first time they are read.
  */
 @Builder
 @Getter
@@ -29,5 +33,18 @@ public class DomainIdMedia {
     private final Map<String, Object> domainFields;
     private final List<Map<String, Object>> derivatives;
     private final List<Comment> comments;
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    private final Supplier<Map<String, Object>> domainFieldsDecoder;
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    private final Supplier<List<Map<String, Object>>> derivativesDecoder;
 
+    public Map<String, Object> getDomainFields() {
+        return domainFields == null && domainFieldsDecoder != null ? domainFieldsDecoder.get() : domainFields;
+    }
+
+    public List<Map<String, Object>> getDerivatives() {
+        return derivatives == null && derivativesDecoder != null ? derivativesDecoder.get() : derivatives;
+    }
 }
@@ -2,8 +2,10 @@ package com.expedia.content.media.processing.services.dao.domain;
 
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -14,6 +16,7 @@ import com.expedia.content.media.processing.pipeline.domain.OuterDomain;
 import com.expedia.content.media.processing.pipeline.exception.ImageMessageException;
 import com.expedia.content.media.processing.services.util.JSONUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -21,6 +24,9 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.apache.commons.lang3.StringUtils;
 
+import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.convertLcmMediaIdInMapToString;
+import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.isStoredJson;
+
 /**
  * This class encapsulated the media properties before store in the database The
  * Media is build base on the received image message
@@ -64,21 +70,130 @@ public class Media {
     private Boolean propertyHero;
     private Boolean hidden;
     private String providedName;
+    /**
+     * State of the lazy decoding of the JSON columns, initialized final so it is left out of the builder and the constructor.
+     */
+    @Getter(AccessLevel.NONE)
+    private final transient LazyJsonColumns lazyJsonColumns = new LazyJsonColumns();
 
+    /**
+     * Copies a media. The domainData, derivativesList and commentList collections, and the maps and lists nested in them, are
+     * copied too, so changing the copy never changes the media it was copied from.
+     *
+     * @param media The media to copy.
+     * @return The copy.
+     */
     public static Media of(Media media) {
-        return new Media(media.mediaGuid, media.fileUrl, media.fileName, media.fileSize, media.width, media.height, media.sourceUrl, media.domain, media.domainId, media.domainFields,
-                media.lastUpdated, media.active, media.provider, media.clientId, media.userId, media.metadata, media.derivatives, media.pHash, media.sha1, media.environment,
-                media.lcmMediaId, media.derivativesList, media.domainData, media.commentList, media.status, media.domainDerivativeCategory, media.propertyHero, media.hidden,
-                media.providedName);
+        final Media copy = new Media(media.mediaGuid, media.fileUrl, media.fileName, media.fileSize, media.width, media.height, media.sourceUrl, media.domain, media.domainId,
+                media.domainFields, media.lastUpdated == null ? null : new Date(media.lastUpdated.getTime()), media.active, media.provider, media.clientId,
+                media.userId, media.metadata, media.derivatives, media.pHash, media.sha1, media.environment, media.lcmMediaId,
+                (List<Map<String, Object>>) deepCopy(media.derivativesList), (Map<String, Object>) deepCopy(media.domainData),
+                media.commentList == null ? null : new ArrayList<>(media.commentList), media.status, media.domainDerivativeCategory,
+                media.propertyHero, media.hidden, media.providedName);
+        copy.lazyJsonColumns.enabled = media.lazyJsonColumns.enabled;
+        copy.lazyJsonColumns.fingerprints = media.lazyJsonColumns.fingerprints;
+        return copy;
+    }
+
+    /**
+     * Copies a value decoded from JSON: maps and lists are copied recursively, a stored JSON value not decoded yet is copied
+     * from its stored JSON, other values are immutable and shared.
+     */
+    private static Object deepCopy(Object value) {
+        if (value instanceof StoredJson && ((StoredJson) value).getDecodedValue() == null) {
+            final String storedJson = ((StoredJson) value).getStoredJson();
+            return value instanceof StoredJsonMap ? new StoredJsonMap(storedJson) : new StoredJsonList(storedJson);
+        }
+        if (value instanceof Map) {
+            final Map<Object, Object> copy = new LinkedHashMap<>();
+            ((Map<?, ?>) value).forEach((key, entryValue) -> copy.put(key, deepCopy(entryValue)));
+            return copy;
+        }
+        if (value instanceof List) {
+            final List<Object> copy = new ArrayList<>();
+            ((List<?>) value).forEach(element -> copy.add(deepCopy(element)));
+            return copy;
+        }
+        return value;
+    }
+
+    /**
+     * Makes the values held in the JSON columns of a media read from MediaDB decoded the first time they are read, instead
+     * of when the row is mapped: domainData, lcmMediaId and propertyHero from domainFields, derivativesList from derivatives,
+     * pHash and sha1 from the fingerprints column. Each column is decoded at most once.
+     *
+     * @param fingerprints The fingerprints column, null when it was not selected.
+     * @return This media.
+     */
+    public Media decodeJsonColumnsLazily(String fingerprints) {
+        lazyJsonColumns.enabled = true;
+        lazyJsonColumns.fingerprints = fingerprints;
+        return this;
+    }
+
+    public void setDomainFields(String domainFields) {
+        this.domainFields = domainFields;
+        this.propertyHero = null;
+        if (lazyJsonColumns.enabled) {
+            this.domainData = null;
+            this.lcmMediaId = null;
+            lazyJsonColumns.typedDomainFields = null;
+        }
+    }
+
+    public Map<String, Object> getDomainData() {
+        if (domainData == null && lazyJsonColumns.enabled) {
+            domainData = domainFields == null ? new HashMap<>() : convertLcmMediaIdInMapToString(JSONUtil.buildMapFromStoredJson(domainFields));
+        }
+        return domainData;
+    }
+
+    public String getLcmMediaId() {
+        if (lcmMediaId == null && lazyJsonColumns.enabled) {
+            final DomainFields typedDomainFields = getTypedDomainFields();
+            lcmMediaId = typedDomainFields == null || typedDomainFields.getLcmMediaId() == null ? "" : typedDomainFields.getLcmMediaId();
+        }
+        return lcmMediaId;
+    }
+
+    public List<Map<String, Object>> getDerivativesList() {
+        if (derivativesList == null && lazyJsonColumns.enabled) {
+            derivativesList = isStoredJson(derivatives, '[') ? new StoredJsonList(derivatives) : JSONUtil.buildMapListFromJson(derivatives);
+        }
+        return derivativesList;
+    }
+
+    public String getPHash() {
+        decodeFingerprints();
+        return pHash;
+    }
+
+    public String getSha1() {
+        decodeFingerprints();
+        return sha1;
     }
 
     public Boolean getPropertyHero() {
-        final Map domainMap = JSONUtil.buildMapFromJson(domainFields);
-        if (domainMap == null) {
-            return false;
+        if (propertyHero == null) {
+            if (lazyJsonColumns.enabled) {
+                final DomainFields typedDomainFields = getTypedDomainFields();
+                propertyHero = typedDomainFields != null && typedDomainFields.isPropertyHeroMedia();
+            } else {
+                final Map domainMap = JSONUtil.buildMapFromJson(domainFields);
+                propertyHero = domainMap != null && DomainFields.isPropertyHero(domainMap.get("propertyHero"));
+            }
         }
-        final String hero = (String) domainMap.get("propertyHero");
-        return "true".equalsIgnoreCase(hero);
+        return propertyHero;
+    }
+
+    /**
+     * Binds the domain fields read from MediaDB to their typed view, once, for the fields the service reads itself.
+     */
+    private DomainFields getTypedDomainFields() {
+        if (lazyJsonColumns.typedDomainFields == null && domainFields != null) {
+            lazyJsonColumns.typedDomainFields = JSONUtil.buildDomainFieldsFromStoredJson(domainFields);
+        }
+        return lazyJsonColumns.typedDomainFields;
     }
 
     public String getStatus() {
@@ -100,7 +215,8 @@ public class Media {
         outerDomainMap.put("domainDerivativeCategory", this.getDomainDerivativeCategory());
         outerDomainMap.put("domainProvider", this.getProvider());
         if(!StringUtils.isEmpty(this.getDomainFields())){
-            outerDomainMap.put("domainFields", (Map<String, Object>) JSONUtil.buildMapFromJson(this.getDomainFields()));
+            outerDomainMap.put("domainFields", lazyJsonColumns.enabled ? JSONUtil.buildMapFromStoredJson(this.getDomainFields())
+                    : (Map<String, Object>) JSONUtil.buildMapFromJson(this.getDomainFields()));
         }
         final OuterDomain outerDomain = retrieveOuterDomainDomain(outerDomainMap);
 
@@ -125,6 +241,21 @@ public class Media {
                 .build();
     }
 
+    private void decodeFingerprints() {
+        if (lazyJsonColumns.fingerprints == null) {
+            return;
+        }
+        final List<Map<String, Object>> fingerprintsList = JSONUtil.buildMapListFromJson(lazyJsonColumns.fingerprints);
+        lazyJsonColumns.fingerprints = null;
+        pHash = findFingerprint(fingerprintsList, "pHash");
+        sha1 = findFingerprint(fingerprintsList, "SHA1");
+    }
+
+    private static String findFingerprint(List<Map<String, Object>> fingerprintsList, String algorithm) {
+        return fingerprintsList.stream().filter(map -> algorithm.equals(map.get("algorithm")))
+                .map(map -> ((List<String>) map.get("values")).get(0)).findFirst().orElse(null);
+    }
+
     private static OuterDomain retrieveOuterDomainDomain(Map<String, Object> mapMessage) {
         final String domainName = (String) mapMessage.get("domain");
         if(domainName == null) {
@@ -171,4 +302,14 @@ public class Media {
             return null;
         }
     }
+
+    /**
+     * Lazy decoding state of a media read from MediaDB. Like the rest of the media it is not thread safe, a media shared
+     * between threads is copied with {@link #of(Media)}.
+     */
+    private static final class LazyJsonColumns {
+        private boolean enabled;
+        private String fingerprints;
+        private DomainFields typedDomainFields;
+    }
 }
@@ -0,0 +1,34 @@
+package com.expedia.content.media.processing.services.dao.domain;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Typed view of a room of the domain-fields JSON, any other field of the room is kept as is.
+ */
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Room {
+    private String roomId;
+    private String roomHero;
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Object> otherFields = new LinkedHashMap<>();
+
+    @JsonAnyGetter
+    public Map<String, Object> getOtherFields() {
+        return otherFields;
+    }
+
+    @JsonAnySetter
+    public void setOtherField(String name, Object value) {
+        otherFields.put(name, value);
+    }
+}
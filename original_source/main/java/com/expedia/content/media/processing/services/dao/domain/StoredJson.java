@@ -0,0 +1,25 @@
+package com.expedia.content.media.processing.services.dao.domain;
+
+/**
+ * A value held as the JSON text stored in MediaDB and decoded the first time it is read. Until then it is written to
+ * responses as the stored JSON itself, see {@link com.expedia.content.media.processing.services.util.StoredJsonSerializer}.
+ */
+public interface StoredJson {
+
+    /**
+     * @return The stored JSON text.
+     */
+    String getStoredJson();
+
+    /**
+     * @return The decoded value, null while the stored JSON was not read.
+     */
+    Object getDecodedValue();
+
+    /**
+     * Decodes the stored JSON, once.
+     *
+     * @return The decoded value.
+     */
+    Object decode();
+}
@@ -0,0 +1,71 @@
+package com.expedia.content.media.processing.services.dao.domain;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+
+import com.expedia.content.media.processing.services.util.JSONUtil;
+import com.expedia.content.media.processing.services.util.StoredJsonSerializer;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * A JSON array of objects stored in MediaDB, such as derivatives, seen as a list of maps. The array is decoded the first time
+ * the list is read, once, and written to responses as the stored JSON while it is not decoded. The decoded list can be modified.
+ */
+@JsonSerialize(using = StoredJsonSerializer.class)
+public final class StoredJsonList extends AbstractList<Map<String, Object>> implements StoredJson {
+
+    private final String storedJson;
+    private volatile List<Map<String, Object>> decoded;
+
+    public StoredJsonList(String storedJson) {
+        this.storedJson = storedJson;
+    }
+
+    @Override
+    public String getStoredJson() {
+        return storedJson;
+    }
+
+    @Override
+    public Object getDecodedValue() {
+        return decoded;
+    }
+
+    @Override
+    public List<Map<String, Object>> decode() {
+        if (decoded == null) {
+            synchronized (this) {
+                if (decoded == null) {
+                    decoded = JSONUtil.buildMapListFromJson(storedJson);
+                }
+            }
+        }
+        return decoded;
+    }
+
+    @Override
+    public Map<String, Object> get(int index) {
+        return decode().get(index);
+    }
+
+    @Override
+    public int size() {
+        return decode().size();
+    }
+
+    @Override
+    public Map<String, Object> set(int index, Map<String, Object> element) {
+        return decode().set(index, element);
+    }
+
+    @Override
+    public void add(int index, Map<String, Object> element) {
+        decode().add(index, element);
+    }
+
+    @Override
+    public Map<String, Object> remove(int index) {
+        return decode().remove(index);
+    }
+}
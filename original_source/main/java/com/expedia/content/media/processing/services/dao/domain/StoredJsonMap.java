@@ -0,0 +1,76 @@
+package com.expedia.content.media.processing.services.dao.domain;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.expedia.content.media.processing.services.util.JSONUtil;
+import com.expedia.content.media.processing.services.util.StoredJsonSerializer;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * A JSON object stored in MediaDB, such as domain-fields, seen as a map. The object is decoded the first time the map is read,
+ * once, and written to responses as the stored JSON while it is not decoded. The decoded map can be modified.
+ */
+@JsonSerialize(using = StoredJsonSerializer.class)
+public final class StoredJsonMap extends AbstractMap<String, Object> implements StoredJson {
+
+    private final String storedJson;
+    private volatile Map<String, Object> decoded;
+
+    public StoredJsonMap(String storedJson) {
+        this.storedJson = storedJson;
+    }
+
+    @Override
+    public String getStoredJson() {
+        return storedJson;
+    }
+
+    @Override
+    public Object getDecodedValue() {
+        return decoded;
+    }
+
+    @Override
+    public Map<String, Object> decode() {
+        if (decoded == null) {
+            synchronized (this) {
+                if (decoded == null) {
+                    decoded = JSONUtil.buildMapFromStoredJson(storedJson);
+                }
+            }
+        }
+        return decoded;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return decode().entrySet();
+    }
+
+    @Override
+    public int size() {
+        return decode().size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return decode().containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        return decode().get(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return decode().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return decode().remove(key);
+    }
+}
@@ -0,0 +1,77 @@
+package com.expedia.content.media.processing.services.dao.mediadb;
+
+import com.expedia.content.media.processing.pipeline.util.FormattedLogger;
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.apache.tomcat.jdbc.pool.PoolExhaustedException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pooled MediaDB DataSource. Pool sizing, idle validation and abandoned connection (leak) detection are bound
+ * from the {@code mdb.datasource.pool.*} properties of the deployment profile. On top of the pool statistics
+ * this DataSource keeps track of the time threads spend waiting for a connection and of the borrows that
+ * timed out, so both can be published as metrics.
+ */
+public class MediaDBDataSource extends DataSource {
+
+    private static final FormattedLogger LOGGER = new FormattedLogger(MediaDBDataSource.class);
+
+    private final String poolName;
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowWaitNanos = new AtomicLong();
+    private final AtomicLong borrowTimeoutCount = new AtomicLong();
+
+    public MediaDBDataSource(String poolName, String url, String username, String password) {
+        super();
+        this.poolName = poolName;
+        setName(poolName);
+        setDriverClassName("com.mysql.cj.jdbc.Driver");
+        setUrl(url);
+        setUsername(username);
+        setPassword(password);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final long start = System.nanoTime();
+        try {
+            return super.getConnection();
+        } catch (PoolExhaustedException e) {
+            borrowTimeoutCount.incrementAndGet();
+            LOGGER.error(e, "MediaDB connection borrow timed out Pool={} Active={} Idle={} Waiting={}", poolName, getActive(), getIdle(), getWaitCount());
+            throw e;
+        } finally {
+            borrowWaitNanos.addAndGet(System.nanoTime() - start);
+            borrowCount.incrementAndGet();
+        }
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    /**
+     * @return Number of connections borrowed (or attempted to be borrowed) from the pool.
+     */
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    /**
+     * @return Number of borrows that failed because no connection became available within {@code maxWait}.
+     */
+    public long getBorrowTimeoutCount() {
+        return borrowTimeoutCount.get();
+    }
+
+    /**
+     * @return Average time in milliseconds a thread waited to borrow a connection from the pool.
+     */
+    public double getAverageBorrowWaitMillis() {
+        final long borrows = borrowCount.get();
+        return borrows == 0 ? 0D : (double) TimeUnit.NANOSECONDS.toMicros(borrowWaitNanos.get()) / borrows / 1000D;
+    }
+}
@@ -6,29 +6,53 @@ import com.expedia.content.media.processing.services.dao.MediaSubCategoryCache;
 import com.expedia.content.media.processing.services.dao.domain.Category;
 import com.expedia.content.media.processing.services.dao.domain.DomainCategory;
 import com.expedia.content.media.processing.services.dao.domain.Subcategory;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import expedia.content.solutions.metrics.annotations.Gauge;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import javax.annotation.PreDestroy;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.domainCategoryListToCategoryList;
 
+/**
+ * Dao class for accessing the domain categories in MediaDB.
+ * The subcategory ids checked by {@link #subCategoryIdExists(OuterDomain, String)} are cached by domain and localeId, and
+ * refreshed in the background.
+ * Note that the {@code @Gauge} annotations introduce aspects from metrics-support.
+ */
 public class MediaDBDomainCategoriesDao implements DomainCategoriesDao {
-    private MediaSubCategoryCache mediaSubCategoryCache;
     private static final String SUBCATEGORY_ID = "subcategoryId";
     private static final String ALL_CATEGORIES_AND_SUBCATEGORIES_QUERY = "SELECT * FROM `domain-category` WHERE `domain` = ?";
     private static final String CATEGORIES_AND_SUBCATEGORIES_BY_LOCAL_ID_QUERY = "SELECT * FROM `domain-category` WHERE `domain` = ? AND `locale-id` = ?";
 
     private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService refreshExecutor;
+    private final MediaSubCategoryCache mediaSubCategoryCache;
 
     public MediaDBDomainCategoriesDao(DataSource mediaDBDataSource) {
+        this(mediaDBDataSource, 3600L);
+    }
+
+    /**
+     * @param mediaDBDataSource         DataSource of the domain categories.
+     * @param subCategoryRefreshSeconds Seconds after which the cached subcategory ids of a domain and localeId are reloaded.
+     */
+    public MediaDBDomainCategoriesDao(DataSource mediaDBDataSource, long subCategoryRefreshSeconds) {
         this.jdbcTemplate = new JdbcTemplate(mediaDBDataSource);
+        this.refreshExecutor = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("subcategory-refresh-%d").setDaemon(true).build());
+        this.mediaSubCategoryCache = new MediaSubCategoryCache(
+                (domain, localeId) -> collectSubCategoryIds(getMediaCategoriesWithSubCategoriesByLocaleId(domain, localeId)),
+                subCategoryRefreshSeconds, refreshExecutor);
     }
 
     @Override
@@ -36,9 +60,10 @@ public class MediaDBDomainCategoriesDao implements DomainCategoriesDao {
         return (localeId == null) ? getAllMediaCategoriesWithSubCategories(domain) : getMediaCategoriesWithSubCategoriesByLocaleId(domain, localeId);
     }
 
+    @Override
     @SuppressWarnings("CPD-START")
-    private List<Category> getAllMediaCategoriesWithSubCategories(String domain) {
-        final List<DomainCategory> domainCategoryList = jdbcTemplate.query((Connection connection) -> {
+    public List<DomainCategory> getDomainCategories(String domain) {
+        return jdbcTemplate.query((Connection connection) -> {
             final PreparedStatement statement = connection.prepareStatement(ALL_CATEGORIES_AND_SUBCATEGORIES_QUERY);
             statement.setString(1, domain);
             return statement;
@@ -49,7 +74,10 @@ public class MediaDBDomainCategoriesDao implements DomainCategoriesDao {
                 .localizedName(resultSet.getString("localized-name"))
                 .build()
         );
-        return domainCategoryListToCategoryList(domainCategoryList);
+    }
+
+    private List<Category> getAllMediaCategoriesWithSubCategories(String domain) {
+        return domainCategoryListToCategoryList(getDomainCategories(domain));
     }
 
     private List<Category> getMediaCategoriesWithSubCategoriesByLocaleId(String domain, String queryLocaleId) {
@@ -75,12 +103,7 @@ public class MediaDBDomainCategoriesDao implements DomainCategoriesDao {
         final String category = getCategory(outerDomain);
         Boolean categoryExists = Boolean.TRUE;
         if (StringUtils.isNotBlank(category)) {
-            final Calendar cal = Calendar.getInstance();
-            if (mediaSubCategoryCache == null || mediaSubCategoryCache.getExpiryDate().before(cal.getTime())) {
-                final List<Category> domainCategories = getMediaCategoriesWithSubCategoriesByLocaleId(outerDomain.getDomain().getDomain(), localeId);
-                setMediaSubCategoryCache(domainCategories, cal);
-            }
-            categoryExists = mediaSubCategoryCache.getMediaSubCategoryCache().contains(category);
+            categoryExists = mediaSubCategoryCache.contains(outerDomain.getDomain().getDomain(), localeId, category);
         }
         return categoryExists;
     }
@@ -99,18 +122,42 @@ public class MediaDBDomainCategoriesDao implements DomainCategoriesDao {
     }
 
     /**
-     * sets mediaSubCategoryCache which contains the subcategories
+     * collects the ids of the subcategories
      * @param categoryList
-     * @param expiryDate
+     * @return
      */
-    private void setMediaSubCategoryCache(List<Category> categoryList, Calendar expiryDate) {
+    private static List<String> collectSubCategoryIds(List<Category> categoryList) {
         final List<String> mediaSubCategoryIds = new ArrayList<>();
         for (final Category category : categoryList) {
             for (final Subcategory subcategory : category.getSubcategories()) {
                 mediaSubCategoryIds.add(subcategory.getSubcategoryId());
             }
         }
-        expiryDate.add(Calendar.DATE, 1);
-        mediaSubCategoryCache = new MediaSubCategoryCache(mediaSubCategoryIds, expiryDate.getTime());
+        return mediaSubCategoryIds;
+    }
+
+    @Gauge(name = "subCategoryCacheHits")
+    public Long subCategoryCacheHitCount() {
+        return mediaSubCategoryCache.hitCount();
+    }
+
+    @Gauge(name = "subCategoryCacheMisses")
+    public Long subCategoryCacheMissCount() {
+        return mediaSubCategoryCache.missCount();
+    }
+
+    @Gauge(name = "subCategoryCacheRefreshes")
+    public Long subCategoryCacheRefreshCount() {
+        return mediaSubCategoryCache.refreshCount();
+    }
+
+    @Gauge(name = "subCategoryCacheRefreshFailures")
+    public Long subCategoryCacheRefreshFailureCount() {
+        return mediaSubCategoryCache.refreshFailureCount();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdown();
     }
 }
@@ -0,0 +1,173 @@
+package com.expedia.content.media.processing.services.dao.mediadb;
+
+import com.expedia.content.media.processing.pipeline.util.FormattedLogger;
+import com.expedia.content.media.processing.services.dao.domain.DomainFields;
+import com.expedia.content.media.processing.services.exception.RequestMessageException;
+import com.expedia.content.media.processing.services.util.JSONUtil;
+import expedia.content.solutions.metrics.annotations.Gauge;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the media columns derived from the domain-fields JSON, which index lookups that used to scan the JSON text.
+ * The backfill fills the derived columns of rows written before the columns existed, and the consistency check reports rows
+ * whose derived columns do not match their domain-fields. Both walk the media table in guid order, one batch at a time.
+ */
+@Component
+public class MediaDBDomainFieldsIndexer {
+
+    private static final FormattedLogger LOGGER = new FormattedLogger(MediaDBDomainFieldsIndexer.class);
+    private static final String MODE_CHECK = "check";
+    private static final String MODE_BACKFILL = "backfill";
+    private static final String MEDIA_DOMAIN_FIELDS_BATCH_QUERY = "SELECT `guid`, `domain-fields`, `lcm-media-id`, `property-hero` FROM `media` " +
+            "WHERE `guid` > ? ORDER BY `guid` LIMIT ?";
+    // the domain-fields guard skips rows rewritten since they were read, their derived columns were written with them
+    private static final String UPDATE_DERIVED_COLUMNS_QUERY = "UPDATE `media` SET `lcm-media-id` = ?, `property-hero` = ? " +
+            "WHERE `guid` = ? AND `domain-fields` <=> ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String mode;
+    private final int batchSize;
+    private volatile long lastMismatchCount;
+
+    /**
+     * @param mediaDBDataSource DataSource of the media table, the write DataSource so fixed rows are not read back stale.
+     * @param mode              Scheduled run mode: "off", "check" to only report mismatches or "backfill" to also fix them.
+     * @param batchSize         Number of rows read per batch.
+     */
+    @Autowired
+    public MediaDBDomainFieldsIndexer(@Qualifier("mediaDBDataSource") DataSource mediaDBDataSource,
+                                      @Value("${mdb.domainfields.reconcile.mode:backfill}") String mode,
+                                      @Value("${mdb.domainfields.reconcile.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(mediaDBDataSource);
+        this.mode = mode;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Runs the check or the backfill, as configured, off the request path.
+     */
+    @Scheduled(initialDelayString = "${mdb.domainfields.reconcile.initial-delay-ms:600000}",
+            fixedDelayString = "${mdb.domainfields.reconcile.delay-ms:86400000}")
+    public void reconcileDomainFieldsColumns() {
+        if (MODE_BACKFILL.equals(mode)) {
+            backfill();
+        } else if (MODE_CHECK.equals(mode)) {
+            checkConsistency();
+        }
+    }
+
+    /**
+     * Writes the derived columns of every row whose columns do not match its domain-fields.
+     *
+     * @return The number of rows found out of date.
+     */
+    public long backfill() {
+        return reconcile(true);
+    }
+
+    /**
+     * Logs every row whose derived columns do not match its domain-fields, without changing them.
+     *
+     * @return The number of rows found out of date.
+     */
+    public long checkConsistency() {
+        return reconcile(false);
+    }
+
+    @Gauge(name = "mediaDBDomainFieldsMismatches")
+    public Long lastMismatchCount() {
+        return lastMismatchCount;
+    }
+
+    private long reconcile(boolean fix) {
+        LOGGER.info("Reconciling domain-fields derived columns Fix={} BatchSize={}", fix, batchSize);
+        final long startTime = System.currentTimeMillis();
+        String lastGuid = "";
+        long rowCount = 0;
+        long mismatchCount = 0;
+        List<DerivedColumns> batch;
+        do {
+            batch = readBatch(lastGuid);
+            final List<DerivedColumns> mismatches = batch.stream().filter(DerivedColumns::isOutOfDate).collect(Collectors.toList());
+            mismatches.forEach(row -> LOGGER.warn("Derived columns do not match domain-fields MediaGuid={} LcmMediaId={} ExpectedLcmMediaId={} " +
+                    "PropertyHero={} ExpectedPropertyHero={}", row.guid, row.lcmMediaId, row.expectedLcmMediaId, row.propertyHero, row.expectedPropertyHero));
+            if (fix && !mismatches.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_DERIVED_COLUMNS_QUERY, mismatches, mismatches.size(), (PreparedStatement statement, DerivedColumns row) -> {
+                    statement.setString(1, row.expectedLcmMediaId);
+                    statement.setInt(2, row.expectedPropertyHero ? 1 : 0);
+                    statement.setString(3, row.guid);
+                    statement.setString(4, row.domainFields);
+                });
+            }
+            rowCount += batch.size();
+            mismatchCount += mismatches.size();
+            if (!batch.isEmpty()) {
+                lastGuid = batch.get(batch.size() - 1).guid;
+            }
+        } while (batch.size() == batchSize);
+        lastMismatchCount = mismatchCount;
+        LOGGER.info("Reconciled domain-fields derived columns Fix={} Rows={} Mismatches={} Time={}", fix, rowCount, mismatchCount,
+                System.currentTimeMillis() - startTime);
+        return mismatchCount;
+    }
+
+    private List<DerivedColumns> readBatch(String lastGuid) {
+        return jdbcTemplate.query((Connection connection) -> {
+            PreparedStatement statement = connection.prepareStatement(MEDIA_DOMAIN_FIELDS_BATCH_QUERY);
+            statement.setString(1, lastGuid);
+            statement.setInt(2, batchSize);
+            return statement;
+        }, (ResultSet resultSet, int rowNumb) -> new DerivedColumns(resultSet.getString("guid"), resultSet.getString("domain-fields"),
+                resultSet.getString("lcm-media-id"), resultSet.getInt("property-hero") == 1));
+    }
+
+    /**
+     * The stored derived columns of a row, next to the values derived from its domain-fields.
+     */
+    private static final class DerivedColumns {
+        private final String guid;
+        private final String domainFields;
+        private final String lcmMediaId;
+        private final String expectedLcmMediaId;
+        private final boolean propertyHero;
+        private final boolean expectedPropertyHero;
+        private final boolean parsed;
+
+        private DerivedColumns(String guid, String domainFields, String lcmMediaId, boolean propertyHero) {
+            this.guid = guid;
+            this.domainFields = domainFields;
+            this.lcmMediaId = lcmMediaId;
+            this.propertyHero = propertyHero;
+            DomainFields typedDomainFields = null;
+            boolean isParsed = true;
+            if (domainFields != null) {
+                try {
+                    typedDomainFields = JSONUtil.buildDomainFieldsFromStoredJson(domainFields);
+                } catch (RequestMessageException e) {
+                    LOGGER.warn("Unable to parse domain-fields MediaGuid={} ErrorMessage={}", guid, e.getMessage());
+                    isParsed = false;
+                }
+            }
+            this.parsed = isParsed;
+            this.expectedLcmMediaId = typedDomainFields == null ? null : typedDomainFields.getLcmMediaId();
+            this.expectedPropertyHero = typedDomainFields != null && typedDomainFields.isPropertyHeroMedia();
+        }
+
+        private boolean isOutOfDate() {
+            return parsed && (!Objects.equals(lcmMediaId, expectedLcmMediaId) || propertyHero != expectedPropertyHero);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.expedia.content.media.processing.services.dao.mediadb;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Read only view of the media listing of a domain item, in the binary form written by {@link #write(List)}: the row count, the
+ * position of every row in listing order, the position of every row in guid order, then the rows in their
+ * {@link MediaDBDomainIdMediaRow} binary form. A page is read by walking the positions: the rows before the page are matched
+ * against the filters from their active flag and derivative category only, and only the rows of the page are decoded.
+ */
+public final class MediaDBDomainIdMediaListing {
+
+    private static final int HEADER_BYTES = Integer.BYTES;
+
+    private final ByteBuffer buffer;
+    private final int start;
+    private final int rowCount;
+
+    /**
+     * @param buffer The listing, positioned at its start.
+     */
+    public MediaDBDomainIdMediaListing(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.start = buffer.position();
+        this.rowCount = buffer.getInt(start);
+    }
+
+    /**
+     * Writes the binary form of a listing.
+     *
+     * @param rows The rows of the listing, in listing order.
+     * @return The binary form of the listing.
+     */
+    public static byte[] write(List<MediaDBDomainIdMediaRow> rows) {
+        final int rowsStart = HEADER_BYTES + 2 * rows.size() * Integer.BYTES;
+        final int[] rowPositions = new int[rows.size()];
+        final ByteArrayOutputStream rowBytes = new ByteArrayOutputStream();
+        try (DataOutputStream rowOutput = new DataOutputStream(rowBytes)) {
+            for (int i = 0; i < rows.size(); i++) {
+                rowPositions[i] = rowsStart + rowOutput.size();
+                rows.get(i).writeTo(rowOutput);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final List<Integer> guidOrder = IntStream.range(0, rows.size()).boxed()
+                .sorted(Comparator.comparing(i -> rows.get(i).getGuid(), Comparator.nullsFirst(Comparator.naturalOrder())))
+                .collect(Collectors.toList());
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(rowsStart + rowBytes.size());
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(rows.size());
+            for (final int rowPosition : rowPositions) {
+                output.writeInt(rowPosition);
+            }
+            for (final int rowIndex : guidOrder) {
+                output.writeInt(rowPositions[rowIndex]);
+            }
+            rowBytes.writeTo(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public int size() {
+        return rowCount;
+    }
+
+    /**
+     * Reads a page of the rows matching the filters, in listing order.
+     *
+     * @param active               The active flag of the rows, null for all.
+     * @param derivativeCategories The derivative categories of the rows, compared ignoring case, null for all.
+     * @param skip                 Number of matching rows before the page.
+     * @param limit                Maximum number of rows of the page.
+     * @return The rows of the page.
+     */
+    public List<MediaDBDomainIdMediaRow> getPage(Integer active, Collection<String> derivativeCategories, long skip, int limit) {
+        final List<MediaDBDomainIdMediaRow> page = new ArrayList<>();
+        long skipped = 0L;
+        for (int i = 0; i < rowCount && page.size() < limit; i++) {
+            final int rowPosition = rowPosition(i);
+            if (matches(rowPosition, active, derivativeCategories)) {
+                if (skipped < skip) {
+                    skipped++;
+                } else {
+                    page.add(MediaDBDomainIdMediaRow.readAt(buffer, rowPosition));
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Reads a page of the rows matching the filters whose guid follows a guid, in guid order.
+     *
+     * @param lastGuid             The guid the page follows, null for the first page.
+     * @param active               The active flag of the rows, null for all.
+     * @param derivativeCategories The derivative categories of the rows, compared ignoring case, null for all.
+     * @param limit                Maximum number of rows of the page.
+     * @return The rows of the page.
+     */
+    public List<MediaDBDomainIdMediaRow> getPageAfter(String lastGuid, Integer active, Collection<String> derivativeCategories, int limit) {
+        final List<MediaDBDomainIdMediaRow> page = new ArrayList<>();
+        for (int i = lastGuid == null ? 0 : firstGuidAfter(lastGuid); i < rowCount && page.size() < limit; i++) {
+            final int rowPosition = guidOrderRowPosition(i);
+            if (matches(rowPosition, active, derivativeCategories)) {
+                page.add(MediaDBDomainIdMediaRow.readAt(buffer, rowPosition));
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Binary searches the guid order for the first row whose guid is greater than a guid.
+     */
+    private int firstGuidAfter(String guid) {
+        int low = 0;
+        int high = rowCount;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            final String middleGuid = MediaDBDomainIdMediaRow.readGuidAt(buffer, guidOrderRowPosition(middle));
+            if (middleGuid == null || middleGuid.compareTo(guid) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private boolean matches(int rowPosition, Integer active, Collection<String> derivativeCategories) {
+        if (active != null && MediaDBDomainIdMediaRow.readActiveAt(buffer, rowPosition) != active) {
+            return false;
+        }
+        if (derivativeCategories == null) {
+            return true;
+        }
+        final String derivativeCategory = MediaDBDomainIdMediaRow.readDerivativeCategoryAt(buffer, rowPosition);
+        return derivativeCategory != null && derivativeCategories.stream().anyMatch(derivativeCategory::equalsIgnoreCase);
+    }
+
+    private int rowPosition(int index) {
+        return start + buffer.getInt(start + HEADER_BYTES + index * Integer.BYTES);
+    }
+
+    private int guidOrderRowPosition(int index) {
+        return start + buffer.getInt(start + HEADER_BYTES + (rowCount + index) * Integer.BYTES);
+    }
+}
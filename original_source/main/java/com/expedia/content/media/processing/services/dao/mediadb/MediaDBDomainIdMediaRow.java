@@ -0,0 +1,203 @@
+package com.expedia.content.media.processing.services.dao.mediadb;
+
+import lombok.Getter;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * The {@link MediaDBProjection#DOMAIN_ID_MEDIA} columns of a media row, as read from MediaDB. Rows are written to and read from
+ * a compact binary form so the media of a domain item can be cached outside of the heap: ints as 4 bytes, the update date
+ * as 8 bytes and strings as their UTF-8 bytes prefixed by their length, -1 for null.
+ */
+@Getter
+@SuppressWarnings({"PMD.TooManyFields"})
+public final class MediaDBDomainIdMediaRow {
+
+    private static final int NULL_LENGTH = -1;
+    private static final long NULL_TIMESTAMP = Long.MIN_VALUE;
+
+    private final String guid;
+    private final String fileUrl;
+    private final String sourceUrl;
+    private final String fileName;
+    private final int active;
+    private final int width;
+    private final int height;
+    private final int fileSize;
+    private final String status;
+    private final String updatedBy;
+    private final Timestamp updateDate;
+    private final String provider;
+    private final String derivativeCategory;
+    private final String domainFields;
+    private final String derivatives;
+    private final String comments;
+
+    @SuppressWarnings({"PMD.ExcessiveParameterList"})
+    private MediaDBDomainIdMediaRow(String guid, String fileUrl, String sourceUrl, String fileName, int active, int width, int height, int fileSize,
+                                    String status, String updatedBy, Timestamp updateDate, String provider, String derivativeCategory,
+                                    String domainFields, String derivatives, String comments) {
+        this.guid = guid;
+        this.fileUrl = fileUrl;
+        this.sourceUrl = sourceUrl;
+        this.fileName = fileName;
+        this.active = active;
+        this.width = width;
+        this.height = height;
+        this.fileSize = fileSize;
+        this.status = status;
+        this.updatedBy = updatedBy;
+        this.updateDate = updateDate;
+        this.provider = provider;
+        this.derivativeCategory = derivativeCategory;
+        this.domainFields = domainFields;
+        this.derivatives = derivatives;
+        this.comments = comments;
+    }
+
+    /**
+     * Reads the current row of a result set selecting the {@link MediaDBProjection#DOMAIN_ID_MEDIA} columns.
+     *
+     * @param resultSet The result set positioned on the row.
+     * @return The row.
+     * @throws SQLException when a column can not be read.
+     */
+    public static MediaDBDomainIdMediaRow fromResultSet(ResultSet resultSet) throws SQLException {
+        return new MediaDBDomainIdMediaRow(resultSet.getString("guid"), resultSet.getString("file-url"), resultSet.getString("source-url"),
+                resultSet.getString("file-name"), resultSet.getInt("active"), resultSet.getInt("width"), resultSet.getInt("height"),
+                resultSet.getInt("file-size"), resultSet.getString("status"), resultSet.getString("updated-by"), resultSet.getTimestamp("update-date"),
+                resultSet.getString("provider"), resultSet.getString("derivative-category"), resultSet.getString("domain-fields"),
+                resultSet.getString("derivatives"), resultSet.getString("comments"));
+    }
+
+    /**
+     * Writes the row in its binary form.
+     *
+     * @param output The output to write to.
+     * @throws IOException when the output can not be written.
+     */
+    public void writeTo(DataOutputStream output) throws IOException {
+        writeString(output, guid);
+        writeString(output, fileUrl);
+        writeString(output, sourceUrl);
+        writeString(output, fileName);
+        output.writeInt(active);
+        output.writeInt(width);
+        output.writeInt(height);
+        output.writeInt(fileSize);
+        writeString(output, status);
+        writeString(output, updatedBy);
+        output.writeLong(updateDate == null ? NULL_TIMESTAMP : updateDate.getTime());
+        writeString(output, provider);
+        writeString(output, derivativeCategory);
+        writeString(output, domainFields);
+        writeString(output, derivatives);
+        writeString(output, comments);
+    }
+
+    /**
+     * Reads a row written by {@link #writeTo(DataOutputStream)}, advancing the buffer position past the row.
+     *
+     * @param buffer The buffer positioned on the row.
+     * @return The row.
+     */
+    public static MediaDBDomainIdMediaRow readFrom(ByteBuffer buffer) {
+        final String guid = readString(buffer);
+        final String fileUrl = readString(buffer);
+        final String sourceUrl = readString(buffer);
+        final String fileName = readString(buffer);
+        final int active = buffer.getInt();
+        final int width = buffer.getInt();
+        final int height = buffer.getInt();
+        final int fileSize = buffer.getInt();
+        final String status = readString(buffer);
+        final String updatedBy = readString(buffer);
+        final long updateDateMillis = buffer.getLong();
+        final String provider = readString(buffer);
+        final String derivativeCategory = readString(buffer);
+        final String domainFields = readString(buffer);
+        final String derivatives = readString(buffer);
+        final String comments = readString(buffer);
+        return new MediaDBDomainIdMediaRow(guid, fileUrl, sourceUrl, fileName, active, width, height, fileSize, status, updatedBy,
+                updateDateMillis == NULL_TIMESTAMP ? null : new Timestamp(updateDateMillis), provider, derivativeCategory, domainFields,
+                derivatives, comments);
+    }
+
+    /**
+     * Reads the row written at a position of a buffer, leaving the buffer position unchanged.
+     *
+     * @param buffer   The buffer holding the row.
+     * @param position The position of the row.
+     * @return The row.
+     */
+    static MediaDBDomainIdMediaRow readAt(ByteBuffer buffer, int position) {
+        final ByteBuffer row = buffer.duplicate();
+        row.position(position);
+        return readFrom(row);
+    }
+
+    /**
+     * Reads the guid of the row written at a position of a buffer, without decoding the rest of the row.
+     */
+    static String readGuidAt(ByteBuffer buffer, int position) {
+        return readStringAt(buffer, position);
+    }
+
+    /**
+     * Reads the active flag of the row written at a position of a buffer, without decoding the rest of the row.
+     */
+    static int readActiveAt(ByteBuffer buffer, int position) {
+        return buffer.getInt(skipStrings(buffer, position, 4));
+    }
+
+    /**
+     * Reads the derivative category of the row written at a position of a buffer, without decoding the rest of the row.
+     */
+    static String readDerivativeCategoryAt(ByteBuffer buffer, int position) {
+        // guid to fileName, then active, width, height and fileSize, then status and updatedBy, then updateDate, then provider
+        final int statusPosition = skipStrings(buffer, position, 4) + 4 * Integer.BYTES;
+        final int providerPosition = skipStrings(buffer, statusPosition, 2) + Long.BYTES;
+        return readStringAt(buffer, skipStrings(buffer, providerPosition, 1));
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(NULL_LENGTH);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String readStringAt(ByteBuffer buffer, int position) {
+        final ByteBuffer string = buffer.duplicate();
+        string.position(position);
+        return readString(string);
+    }
+
+    private static int skipStrings(ByteBuffer buffer, int position, int count) {
+        int skippedPosition = position;
+        for (int i = 0; i < count; i++) {
+            final int length = buffer.getInt(skippedPosition);
+            skippedPosition += Integer.BYTES + (length == NULL_LENGTH ? 0 : length);
+        }
+        return skippedPosition;
+    }
+}
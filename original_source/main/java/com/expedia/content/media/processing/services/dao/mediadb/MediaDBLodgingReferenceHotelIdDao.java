@@ -1,24 +1,61 @@
 package com.expedia.content.media.processing.services.dao.mediadb;
 
+import com.expedia.content.media.processing.pipeline.util.FormattedLogger;
+import com.expedia.content.media.processing.services.dao.HotelIdIndex;
+import expedia.content.solutions.metrics.annotations.Gauge;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
 
+import javax.annotation.PostConstruct;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Dao class for accessing Hotel Reference Data in MediaDB.
+ * The ids of all the hotels are kept in memory in a {@link HotelIdIndex}, loaded at startup and refreshed in the background:
+ * the hotels with an id greater than the greatest indexed id are read every few minutes, and the whole index is reloaded every
+ * few hours to drop deleted hotels. A hotel added with an id below the greatest indexed id is not read by the refresh, it is
+ * found by the MediaDB check of an id missing from the index and only indexed by the next reload.
+ * Note that the {@code @Gauge} annotations introduce aspects from metrics-support.
  */
 public class MediaDBLodgingReferenceHotelIdDao {
-    private static final String HOTEL_ID_QUERY = "SELECT `name` FROM `lodging-reference-hotel-id` WHERE `hotel-id` = ?";
+    private static final FormattedLogger LOGGER = new FormattedLogger(MediaDBLodgingReferenceHotelIdDao.class);
+
+    private static final String HOTEL_ID_QUERY = "SELECT 1 FROM `lodging-reference-hotel-id` WHERE `hotel-id` = ? LIMIT 1";
+    private static final String ALL_HOTEL_IDS_QUERY = "SELECT `hotel-id` FROM `lodging-reference-hotel-id`";
+    // hotel-id is a string column, its ids are compared as numbers explicitly: compared as strings "1000" < "999"
+    private static final String NEW_HOTEL_IDS_QUERY = "SELECT `hotel-id` FROM `lodging-reference-hotel-id` WHERE CAST(`hotel-id` AS UNSIGNED) > ?";
+    private static final int INITIAL_IDS_CAPACITY = 1024;
 
     private final JdbcTemplate jdbcTemplate;
+    private final boolean indexEnabled;
+    private volatile HotelIdIndex hotelIdIndex = HotelIdIndex.EMPTY;
+    // hotels found in the MediaDB after missing from the index, until the next refresh adds them to the index
+    private final Set<Long> foundHotelIds = ConcurrentHashMap.newKeySet();
+    private final AtomicLong databaseCheckCount = new AtomicLong();
+    private volatile long lastRefreshMillis;
+    private volatile long lastRefreshRowCount;
 
     public MediaDBLodgingReferenceHotelIdDao(DataSource mediaDBDataSource) {
+        this(mediaDBDataSource, true);
+    }
+
+    /**
+     * @param mediaDBDataSource DataSource of the hotel reference data.
+     * @param indexEnabled      false to check every hotel id in the MediaDB.
+     */
+    public MediaDBLodgingReferenceHotelIdDao(DataSource mediaDBDataSource, boolean indexEnabled) {
         this.jdbcTemplate = new JdbcTemplate(mediaDBDataSource);
+        this.indexEnabled = indexEnabled;
     }
 
     /**
@@ -28,11 +65,161 @@ public class MediaDBLodgingReferenceHotelIdDao {
      * @return true if the domainId exists in the mediaDB, false otherwise.
      */
     public Boolean domainIdExists(String domainId) {
-        final List<String> hotelList = jdbcTemplate.query((Connection connection) -> {
+        final Long hotelId = indexEnabled ? toHotelId(domainId) : null;
+        if (hotelId != null && (hotelIdIndex.contains(hotelId) || foundHotelIds.contains(hotelId))) {
+            return true;
+        }
+        databaseCheckCount.incrementAndGet();
+        final Boolean exists = jdbcTemplate.query((Connection connection) -> {
             final PreparedStatement statement = connection.prepareStatement(HOTEL_ID_QUERY);
             statement.setString(1, domainId);
             return statement;
-        }, (ResultSet resultSet, int rowNumb) -> resultSet.getString("name")).stream().collect(Collectors.toList());
-        return !(hotelList == null || hotelList.isEmpty());
+        }, (ResultSetExtractor<Boolean>) ResultSet::next);
+        if (hotelId != null && exists) {
+            foundHotelIds.add(hotelId);
+        }
+        return exists;
+    }
+
+    /**
+     * Loads the whole index at startup, the index is left empty if the MediaDB can not be read.
+     */
+    @PostConstruct
+    public void loadIndex() {
+        if (indexEnabled) {
+            try {
+                reloadIndex();
+            } catch (Exception e) {
+                LOGGER.error(e, "Hotel id index load failed, hotel ids are checked in the MediaDB until the next refresh");
+            }
+        }
+    }
+
+    /**
+     * Reads the whole index again, dropping the deleted hotels.
+     */
+    @Scheduled(initialDelayString = "${mdb.lodging-reference.hotel-id-index.reload-delay-ms:21600000}",
+            fixedDelayString = "${mdb.lodging-reference.hotel-id-index.reload-delay-ms:21600000}")
+    public synchronized void reloadIndex() {
+        if (!indexEnabled) {
+            return;
+        }
+        final long startTime = System.currentTimeMillis();
+        final HotelIds hotelIds = new HotelIds();
+        jdbcTemplate.query(ALL_HOTEL_IDS_QUERY, (RowCallbackHandler) hotelIds::addRow);
+        hotelIdIndex = HotelIdIndex.of(hotelIds.ids, hotelIds.length);
+        foundHotelIds.clear();
+        recordRefresh(startTime, hotelIds.rowCount);
+        LOGGER.info("Reloaded hotel id index HotelIdCount={} IndexBytes={} RefreshMillis={}", hotelIdIndex.size(), hotelIdIndex.sizeInBytes(),
+                lastRefreshMillis);
+    }
+
+    /**
+     * Adds the hotels with ids greater than the greatest id of the index, and the hotels found in the MediaDB since the last
+     * refresh. The ids are compared as numbers, which the string index of hotel-id can not serve, so the refresh scans the
+     * index rather than seeking it; it still only transfers the new ids. Ids that are not the canonical form of a number,
+     * "0123" whose number is above the greatest id for instance, are read and skipped like the reload skips them.
+     * Ids below the greatest id of the index are never read by the refresh, see the class documentation.
+     */
+    @Scheduled(initialDelayString = "${mdb.lodging-reference.hotel-id-index.refresh-delay-ms:300000}",
+            fixedDelayString = "${mdb.lodging-reference.hotel-id-index.refresh-delay-ms:300000}")
+    public synchronized void refreshIndex() {
+        if (!indexEnabled) {
+            return;
+        }
+        final long startTime = System.currentTimeMillis();
+        final HotelIdIndex currentIndex = hotelIdIndex;
+        final HotelIds hotelIds = new HotelIds();
+        final Long[] hotelIdsFound = foundHotelIds.toArray(new Long[0]);
+        for (final Long hotelId : hotelIdsFound) {
+            hotelIds.add(hotelId);
+        }
+        if (currentIndex.size() == 0) {
+            jdbcTemplate.query(ALL_HOTEL_IDS_QUERY, (RowCallbackHandler) hotelIds::addRow);
+        } else {
+            jdbcTemplate.query((Connection connection) -> {
+                final PreparedStatement statement = connection.prepareStatement(NEW_HOTEL_IDS_QUERY);
+                statement.setLong(1, currentIndex.maxId());
+                return statement;
+            }, (RowCallbackHandler) hotelIds::addRow);
+        }
+        hotelIdIndex = currentIndex.merge(hotelIds.ids, hotelIds.length);
+        foundHotelIds.removeAll(Arrays.asList(hotelIdsFound));
+        recordRefresh(startTime, hotelIds.rowCount);
+    }
+
+    private void recordRefresh(long startTime, long rowCount) {
+        lastRefreshMillis = System.currentTimeMillis() - startTime;
+        lastRefreshRowCount = rowCount;
+    }
+
+    /**
+     * Converts a domainId to the hotel id of the index, only the canonical form of a number is indexed since the MediaDB
+     * compares the ids as strings.
+     *
+     * @return The hotel id, null if the domainId is not the canonical form of a number.
+     */
+    private static Long toHotelId(String domainId) {
+        if (domainId == null || domainId.isEmpty() || domainId.length() > 18) {
+            return null;
+        }
+        if (domainId.charAt(0) == '0' && domainId.length() > 1) {
+            return null;
+        }
+        for (int i = 0; i < domainId.length(); i++) {
+            if (domainId.charAt(i) < '0' || domainId.charAt(i) > '9') {
+                return null;
+            }
+        }
+        return Long.parseLong(domainId);
+    }
+
+    @Gauge(name = "hotelIdIndexSize")
+    public Integer indexSize() {
+        return hotelIdIndex.size();
+    }
+
+    @Gauge(name = "hotelIdIndexBytes")
+    public Long indexSizeInBytes() {
+        return hotelIdIndex.sizeInBytes();
+    }
+
+    @Gauge(name = "hotelIdIndexRefreshMillis")
+    public Long lastRefreshMillis() {
+        return lastRefreshMillis;
+    }
+
+    @Gauge(name = "hotelIdIndexRefreshRows")
+    public Long lastRefreshRowCount() {
+        return lastRefreshRowCount;
+    }
+
+    @Gauge(name = "hotelIdIndexDatabaseChecks")
+    public Long databaseCheckCount() {
+        return databaseCheckCount.get();
+    }
+
+    /**
+     * Growable array of the hotel ids read from the MediaDB, ids that are not the canonical form of a number are skipped.
+     */
+    private static final class HotelIds {
+        private long[] ids = new long[INITIAL_IDS_CAPACITY];
+        private int length;
+        private long rowCount;
+
+        private void addRow(ResultSet resultSet) throws SQLException {
+            rowCount++;
+            final Long hotelId = toHotelId(resultSet.getString(1));
+            if (hotelId != null) {
+                add(hotelId);
+            }
+        }
+
+        private void add(long hotelId) {
+            if (length == ids.length) {
+                ids = Arrays.copyOf(ids, length * 2);
+            }
+            ids[length++] = hotelId;
+        }
     }
 }
@@ -4,29 +4,63 @@ import com.amazonaws.util.CollectionUtils;
 import com.expedia.content.media.processing.pipeline.domain.Domain;
 import com.expedia.content.media.processing.pipeline.domain.OuterDomain;
 import com.expedia.content.media.processing.services.util.DomainDataUtil;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import expedia.content.solutions.metrics.annotations.Gauge;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
-
-import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.setArray;
-import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.setSQLTokensWithArray;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Dao class for accessing Room Reference Data in MediaDB.
+ * The room ids of a hotel are read in one query the first time the hotel is validated, and cached by hotel so the messages of a
+ * bulk upload are validated in memory. Concurrent validations of a hotel wait for the same query. The cache holds a bounded number
+ * of room ids and its entries expire after a TTL; a hotel whose cached rooms miss some room ids is read again, at most once per
+ * recheck interval, so rooms added to the MediaDB since the hotel was cached are found.
+ * Note that the {@code @Gauge} annotations introduce aspects from metrics-support.
  */
 public class MediaDBLodgingReferenceRoomIdDao {
 
-    private static final String ROOM_LIST_QUERY = "SELECT `room-id` FROM `lodging-reference-room-id` WHERE `room-id` IN (?) AND `hotel-id` = ?";
+    private static final String HOTEL_ROOMS_QUERY = "SELECT `room-id` FROM `lodging-reference-room-id` WHERE `hotel-id` = ?";
 
     private final JdbcTemplate jdbcTemplate;
+    private final long recheckMillis;
+    private final LoadingCache<String, HotelRooms> roomsByHotelId;
 
     public MediaDBLodgingReferenceRoomIdDao(DataSource mediaDBDataSource) {
+        this(mediaDBDataSource, 1_000_000L, 300L, 30L);
+    }
+
+    /**
+     * @param mediaDBDataSource DataSource of the room reference data.
+     * @param maximumRoomCount  Maximum number of cached room ids, over all hotels.
+     * @param timeToLiveSeconds Seconds the rooms of a hotel stay cached after being read.
+     * @param recheckSeconds    Minimum seconds between two reads of the rooms of a hotel caused by unknown room ids.
+     */
+    public MediaDBLodgingReferenceRoomIdDao(DataSource mediaDBDataSource, long maximumRoomCount, long timeToLiveSeconds, long recheckSeconds) {
         this.jdbcTemplate = new JdbcTemplate(mediaDBDataSource);
+        this.recheckMillis = TimeUnit.SECONDS.toMillis(recheckSeconds);
+        this.roomsByHotelId = CacheBuilder.newBuilder()
+                .maximumWeight(maximumRoomCount)
+                .weigher((String hotelId, HotelRooms rooms) -> rooms.roomIds.size() + 1)
+                .expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build(new CacheLoader<String, HotelRooms>() {
+                    @Override
+                    public HotelRooms load(String hotelId) {
+                        return readHotelRooms(hotelId);
+                    }
+                });
     }
 
     /**
@@ -38,20 +72,71 @@ public class MediaDBLodgingReferenceRoomIdDao {
      */
     public List<Object> getInvalidRoomIds(OuterDomain outerDomain) throws ClassCastException {
         final List<String> validFormatRoomIds = DomainDataUtil.collectValidFormatRoomIds(outerDomain);
-        final String[] arrayOfValidRoomIds = validFormatRoomIds.toArray(new String[validFormatRoomIds.size()]);
         if (outerDomain.getDomain().equals(Domain.LODGING) && !CollectionUtils.isNullOrEmpty(validFormatRoomIds)) {
             final String domainId = outerDomain.getDomainId();
-            final String query = setSQLTokensWithArray(ROOM_LIST_QUERY, arrayOfValidRoomIds);
-            final List<String> roomsInMediaDB = jdbcTemplate.query((Connection connection) -> {
-                        final PreparedStatement statement = connection.prepareStatement(query);
-                        int index = setArray(statement, 1, arrayOfValidRoomIds);
-                        statement.setString(index, domainId);
-                        return statement;
-                    }, (ResultSet resultSet, int rowNumb) -> resultSet.getString("room-id")).stream().collect(Collectors.toList());
-            validFormatRoomIds.removeAll(roomsInMediaDB);
+            HotelRooms hotelRooms = getHotelRooms(domainId);
+            if (!hotelRooms.roomIds.containsAll(validFormatRoomIds) && hotelRooms.loadTime + recheckMillis < System.currentTimeMillis()) {
+                roomsByHotelId.invalidate(domainId);
+                hotelRooms = getHotelRooms(domainId);
+            }
+            validFormatRoomIds.removeAll(hotelRooms.roomIds);
         }
         final List<Object> malFormatRoomIds = DomainDataUtil.collectMalFormatRoomIds(outerDomain);
         malFormatRoomIds.addAll(validFormatRoomIds);
         return malFormatRoomIds;
     }
+
+    private HotelRooms getHotelRooms(String hotelId) {
+        try {
+            return roomsByHotelId.getUnchecked(hotelId);
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private HotelRooms readHotelRooms(String hotelId) {
+        final Set<String> roomIds = new HashSet<>();
+        jdbcTemplate.query((Connection connection) -> {
+            final PreparedStatement statement = connection.prepareStatement(HOTEL_ROOMS_QUERY);
+            statement.setString(1, hotelId);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> roomIds.add(resultSet.getString("room-id")));
+        return new HotelRooms(Collections.unmodifiableSet(roomIds), System.currentTimeMillis());
+    }
+
+    @Gauge(name = "hotelRoomsCacheHits")
+    public Long hitCount() {
+        return roomsByHotelId.stats().hitCount();
+    }
+
+    @Gauge(name = "hotelRoomsCacheMisses")
+    public Long missCount() {
+        return roomsByHotelId.stats().missCount();
+    }
+
+    @Gauge(name = "hotelRoomsCacheEvictions")
+    public Long evictionCount() {
+        return roomsByHotelId.stats().evictionCount();
+    }
+
+    @Gauge(name = "hotelRoomsCacheSize")
+    public Long size() {
+        return roomsByHotelId.size();
+    }
+
+    /**
+     * The room ids of a hotel, and when they were read.
+     */
+    private static final class HotelRooms {
+        private final Set<String> roomIds;
+        private final long loadTime;
+
+        private HotelRooms(Set<String> roomIds, long loadTime) {
+            this.roomIds = roomIds;
+            this.loadTime = loadTime;
+        }
+    }
 }
@@ -4,31 +4,50 @@ import com.expedia.content.media.processing.pipeline.domain.Domain;
 import com.expedia.content.media.processing.pipeline.domain.ImageMessage;
 import com.expedia.content.media.processing.pipeline.reporting.App;
 import com.expedia.content.media.processing.pipeline.util.FormattedLogger;
+import com.expedia.content.media.processing.services.dao.DomainMediaCountCache;
+import com.expedia.content.media.processing.services.dao.DomainMediaListingCache;
+import com.expedia.content.media.processing.services.dao.MediaCache;
 import com.expedia.content.media.processing.services.dao.MediaDao;
 import com.expedia.content.media.processing.services.dao.domain.Media;
 import com.expedia.content.media.processing.services.dao.domain.MediaProcessLog;
 import com.expedia.content.media.processing.services.dao.domain.DomainIdMedia;
+import com.expedia.content.media.processing.services.dao.domain.DomainFields;
+import com.expedia.content.media.processing.services.exception.RequestMessageException;
+import com.expedia.content.media.processing.services.util.JSONUtil;
+import com.expedia.content.media.processing.services.util.MediaDBSQLUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLTimeoutException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 
+import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.buildDomainIdMedia;
 import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.buildDomainIdMediaFromResultSet;
 import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.buildMediaFromResultSet;
 import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.convertLcmMediaIdInMapToString;
+import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.getLcmMediaId;
+import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.isPropertyHero;
+import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.padToInListBucket;
 import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.setArray;
 import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.setMediaByDomainIdQueryString;
 import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.setSQLTokensWithArray;
@@ -43,20 +62,34 @@ public class MediaDBMediaDao implements MediaDao {
     private static final ObjectWriter WRITER = new ObjectMapper().writer();
     private static final String ACTIVE_FILTER_ALL = "all";
     private static final String ACTIVE_FILTER_TRUE = "true";
-    private static final String MEDIA_BY_DOMAIN_ID_QUERY_BASE = "SELECT SQL_CALC_FOUND_ROWS * FROM `media` WHERE `domain` = ? AND `domain-id` = ? AND `hidden` = 0";
-    private static final String TOTAL_ROWS_QUERY = "SELECT COUNT(*) FROM `media` WHERE `domain` = ? AND `domain-id` = ? AND `hidden` = 0";
-    private static final String MEDIA_BY_FILE_NAME_QUERY = "SELECT * FROM `media` WHERE `file-name` = ?";
-    private static final String MEDIAS_BY_FILE_NAMES_QUERY = "SELECT * FROM `media` WHERE `file-name` IN (?)";
-
-    private static final String MEDIA_BY_GUID_QUERY = "SELECT `guid`, `file-url`, `source-url`, `file-name`, `active`, `fingerprints`, `width`, `height`, `file-size`, `status`, `updated-by`, " +
-            "`update-date`, `provider`, `derivative-category`, `domain-fields`, `derivatives`, `comments`, `update-date`, `domain`, `domain-id`, `provided-name`, `hidden`, `metadata`, `user-id`, `client-id`" +
-            " FROM `media` WHERE `guid` = ?";
+    // bounds how long the counts of this instance miss the writes done through the other instances
+    private static final long MEDIA_COUNT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long MEDIA_COUNT_MAXIMUM_SIZE = 100000L;
+    // below the remove-abandoned-timeout of the pools, so a slow consumer gives the connection back before it is reclaimed
+    private static final long DEFAULT_STREAM_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    private static final String MEDIA_BY_DOMAIN_ID_QUERY_BASE = MediaDBProjection.DOMAIN_ID_MEDIA.select("FROM `media` WHERE `domain` = ? AND `domain-id` = ? AND `hidden` = 0");
+    private static final String MEDIA_BY_DOMAIN_ID_AFTER_GUID = " AND `guid` > ?";
+    private static final String MEDIA_BY_DOMAIN_ID_ORDER_BY_GUID_LIMIT = " ORDER BY `guid` LIMIT ?";
+    // hero first, then by subcategoryId, as the responses are sorted; every paged read pages over this order. subcategory-id is
+    // the generated column holding the subcategoryId of domain-fields, see sql/mediadb/004-media-subcategory-id.sql
+    private static final String MEDIA_BY_DOMAIN_ID_RESPONSE_ORDER = " ORDER BY `property-hero` DESC, `subcategory-id` IS NULL, `subcategory-id`, `guid`";
+    private static final String MEDIA_LISTING_BY_DOMAIN_ID_QUERY = MEDIA_BY_DOMAIN_ID_QUERY_BASE + MEDIA_BY_DOMAIN_ID_RESPONSE_ORDER;
+    private static final String MEDIA_BY_DOMAIN_ID_PAGE = " LIMIT ?, ?";
+    private static final String MEDIA_COUNTS_QUERY = "SELECT `active`, `derivative-category`, COUNT(*) AS `media-count` FROM `media` " +
+            "WHERE `domain` = ? AND `domain-id` = ? AND `hidden` = 0 GROUP BY `active`, `derivative-category`";
+    private static final String MEDIA_BY_FILE_NAME_QUERY = MediaDBProjection.REPROCESS_MEDIA.select("FROM `media` WHERE `file-name` = ?");
+    private static final String MEDIAS_BY_FILE_NAMES_QUERY = MediaDBProjection.MEDIA_STATUS.select("FROM `media` WHERE `file-name` IN (?)");
+
+    private static final String MEDIA_BY_GUID_QUERY = MediaDBProjection.MEDIA.select("FROM `media` WHERE `guid` = ?");
+    private static final String MEDIA_DOMAIN_BY_GUID_QUERY = "SELECT `domain`, `domain-id` FROM `media` WHERE `guid` = ?";
     private static final String DELETE_MEDIA_BY_GUID = "DELETE FROM `media` WHERE `guid` = ?";
-    private static final String MEDIA_BY_LCM_MEDIA_ID = "SELECT * FROM `media` WHERE `domain-fields` LIKE ?";
+    private static final String MEDIA_BY_LCM_MEDIA_ID = MediaDBProjection.MEDIA.select("FROM `media` WHERE `lcm-media-id` = ?");
+    private static final String UNINDEXED_MEDIA_BY_LCM_MEDIA_ID = MediaDBProjection.MEDIA.select("FROM `media` WHERE `lcm-media-id` IS NULL " +
+            "AND `domain-fields` LIKE ?");
     private static final String ADD_WITH_IMAGEMESSAGEAVRO_QUERY = "INSERT INTO `media` " +
             "(`guid`, `file-url`, `file-name`, `active`, `client-id`, `user-id`, `hidden`, `updated-by`, `update-date`, " +
-            "`domain`, `domain-id`, `provider`, `domain-fields`, `comments`, `provided-name`, `callback`)" +
-            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+            "`domain`, `domain-id`, `provider`, `domain-fields`, `comments`, `provided-name`, `callback`, `lcm-media-id`, `property-hero`)" +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
     private static final String UPDATE_WITH_IMAGEMESSAGEAVRO_QUERY = "UPDATE `media` SET " +
             "`active` = IFNULL(?, active), " +
@@ -73,17 +106,80 @@ public class MediaDBMediaDao implements MediaDao {
             "`file-url` = IFNULL(?, `file-url`), " +
             "`file-name` = IFNULL(?, `file-name`), " +
             "`provided-name` = IFNULL(?, `provided-name`), " +
-            "`callback` = IFNULL(?, callback) " +
+            "`callback` = IFNULL(?, callback), " +
+            "`lcm-media-id` = ?, " +
+            "`property-hero` = ? " +
             "WHERE `guid` = ?";
 
-    private static final String HERO_MEDIA_QUERY = "SELECT * FROM `media` WHERE `domain` = ? AND `domain-id` = ? AND `domain-fields` like '%\"propertyHero\":\"true\"%' ";
+    private static final String HERO_MEDIA_QUERY = MediaDBProjection.HERO_MEDIA.select("FROM `media` WHERE `domain` = ? AND `domain-id` = ? " +
+            "AND `property-hero` = 1");
 
-    private static final String UPDATE_MEDIA_UNHERO_QUERY = "UPDATE `media` SET " + " `domain-fields` = IFNULL(?, `domain-fields`) WHERE `guid` = ?";
+    private static final String UPDATE_MEDIA_UNHERO_QUERY = "UPDATE `media` SET " + " `domain-fields` = IFNULL(?, `domain-fields`), " +
+            "`lcm-media-id` = IF(? IS NULL, `lcm-media-id`, ?), " +
+            "`property-hero` = IF(? IS NULL, `property-hero`, ?) WHERE `guid` = ?";
+    private static final String HERO_MEDIA_TO_UNHERO_QUERY = MediaDBProjection.HERO_MEDIA.select("FROM `media` WHERE `domain` = ? " +
+            "AND `domain-id` = ? AND `property-hero` = 1 AND `guid` <> ? FOR UPDATE");
+    private static final String UNHERO_MEDIA_BY_GUID_QUERY = "UPDATE `media` SET `domain-fields` = ?, `property-hero` = 0 WHERE `guid` = ?";
 
     private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate readJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DomainMediaCountCache mediaCountCache = new DomainMediaCountCache(MEDIA_COUNT_MAXIMUM_SIZE, MEDIA_COUNT_TTL_MILLIS);
+    private final MediaCache mediaCache;
+    private final DomainMediaListingCache listingCache;
+    private final boolean unindexedLcmMediaIdLookup;
+    private final long streamTimeoutMillis;
 
     public MediaDBMediaDao(DataSource mediaDBDataSource) {
+        this(mediaDBDataSource, mediaDBDataSource);
+    }
+
+    public MediaDBMediaDao(DataSource mediaDBDataSource, DataSource mediaDBReadDataSource) {
+        this(mediaDBDataSource, mediaDBReadDataSource, new MediaCache(false, 0L, 0L), new DomainMediaListingCache(false, 0L, 0L));
+    }
+
+    /**
+     * @param mediaDBDataSource     DataSource used for writes and for reads that must see the latest writes.
+     * @param mediaDBReadDataSource DataSource used for the uncached read only listing and status queries.
+     * @param mediaCache            Cache of media by guid, invalidated by the writes of this DAO.
+     * @param listingCache          Cache of the media listing of domain items, invalidated by the writes of this DAO.
+     */
+    public MediaDBMediaDao(DataSource mediaDBDataSource, DataSource mediaDBReadDataSource, MediaCache mediaCache,
+                           DomainMediaListingCache listingCache) {
+        this(mediaDBDataSource, mediaDBReadDataSource, mediaCache, listingCache, true);
+    }
+
+    /**
+     * @param mediaDBDataSource         DataSource used for writes and for reads that must see the latest writes.
+     * @param mediaDBReadDataSource     DataSource used for the uncached read only listing and status queries.
+     * @param mediaCache                Cache of media by guid, invalidated by the writes of this DAO.
+     * @param listingCache              Cache of the media listing of domain items, invalidated by the writes of this DAO.
+     * @param unindexedLcmMediaIdLookup true to look up a media id missing from the lcm-media-id column in the domain-fields
+     *                                  of the rows the column was not backfilled for yet.
+     */
+    public MediaDBMediaDao(DataSource mediaDBDataSource, DataSource mediaDBReadDataSource, MediaCache mediaCache,
+                           DomainMediaListingCache listingCache, boolean unindexedLcmMediaIdLookup) {
+        this(mediaDBDataSource, mediaDBReadDataSource, mediaCache, listingCache, unindexedLcmMediaIdLookup, DEFAULT_STREAM_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param mediaDBDataSource         DataSource used for writes and for reads that must see the latest writes.
+     * @param mediaDBReadDataSource     DataSource used for the uncached read only listing and status queries.
+     * @param mediaCache                Cache of media by guid, invalidated by the writes of this DAO.
+     * @param listingCache              Cache of the media listing of domain items, invalidated by the writes of this DAO.
+     * @param unindexedLcmMediaIdLookup true to look up a media id missing from the lcm-media-id column in the domain-fields
+     *                                  of the rows the column was not backfilled for yet.
+     * @param streamTimeoutMillis       Time after which a streamed read is aborted, releasing its read pool connection.
+     */
+    public MediaDBMediaDao(DataSource mediaDBDataSource, DataSource mediaDBReadDataSource, MediaCache mediaCache,
+                           DomainMediaListingCache listingCache, boolean unindexedLcmMediaIdLookup, long streamTimeoutMillis) {
         this.jdbcTemplate = new JdbcTemplate(mediaDBDataSource);
+        this.readJdbcTemplate = new JdbcTemplate(mediaDBReadDataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(mediaDBDataSource));
+        this.mediaCache = mediaCache;
+        this.listingCache = listingCache;
+        this.unindexedLcmMediaIdLookup = unindexedLcmMediaIdLookup;
+        this.streamTimeoutMillis = streamTimeoutMillis;
     }
 
     @Override
@@ -94,11 +190,17 @@ public class MediaDBMediaDao implements MediaDao {
         final boolean isDerivativeCategoryFilterUsed = derivativeCategoryFilter != null && !derivativeCategoryFilter.isEmpty();
         final boolean isPaginationUsed = pageSize != null && pageIndex != null;
         final boolean isDerivativeFilterUsed = derivativeFilter != null && !derivativeFilter.isEmpty();
-        final String[] derivativeCategoryFilterArray = isDerivativeCategoryFilterUsed ? derivativeCategoryFilter.split(",") : null;
+        if (listingCache.isEnabled()) {
+            return getListing(domain, domainId).getPage(listingActiveFilter(activeFilter), listingDerivativeCategories(derivativeCategoryFilter),
+                    isPaginationUsed ? (long) pageSize * (pageIndex - 1) : 0L, isPaginationUsed ? pageSize : Integer.MAX_VALUE).stream()
+                    .map(row -> Optional.of(buildDomainIdMedia(row, isDerivativeFilterUsed, derivativeFilter)))
+                    .collect(Collectors.toList());
+        }
+        final String[] derivativeCategoryFilterArray = isDerivativeCategoryFilterUsed ? padToInListBucket(derivativeCategoryFilter.split(",")) : null;
         final String getMediaByDomainIdQuery = setMediaByDomainIdQueryString(MEDIA_BY_DOMAIN_ID_QUERY_BASE, isActiveFilterUsed, isDerivativeCategoryFilterUsed,
-                isPaginationUsed, derivativeCategoryFilterArray);
-        return jdbcTemplate.query((Connection connection) -> {
-            PreparedStatement statement = connection.prepareStatement(getMediaByDomainIdQuery.toString());
+                false, derivativeCategoryFilterArray) + MEDIA_BY_DOMAIN_ID_RESPONSE_ORDER + (isPaginationUsed ? MEDIA_BY_DOMAIN_ID_PAGE : "");
+        final List<Optional<DomainIdMedia>> domainIdMedias = readJdbcTemplate.query((Connection connection) -> {
+            PreparedStatement statement = connection.prepareStatement(getMediaByDomainIdQuery);
             statement.setString(1, domain.getDomain());
             statement.setString(2, domainId);
             int additionalIndex = 3;
@@ -116,19 +218,28 @@ public class MediaDBMediaDao implements MediaDao {
             }
             return statement;
         }, (ResultSet resultSet, int rowNumb) ->
-                buildDomainIdMediaFromResultSet(resultSet, isDerivativeFilterUsed, derivativeFilter))
-        .stream()
-        .collect(Collectors.toList());
+                buildDomainIdMediaFromResultSet(resultSet, isDerivativeFilterUsed, derivativeFilter));
+        return domainIdMedias;
     }
 
-    public Optional<Integer> getTotalMediaCountByDomainId(Domain domain, String domainId, String activeFilter, String derivativeCategoryFilter) {
+    @Override
+    public List<Optional<DomainIdMedia>> getMediaByDomainIdAfter(Domain domain, String domainId, String activeFilter, String derivativeFilter,
+                                                                 String derivativeCategoryFilter, Integer pageSize, String lastMediaGuid) {
         final boolean isActiveFilterUsed = activeFilter != null && !activeFilter.isEmpty() && !ACTIVE_FILTER_ALL.equals(activeFilter);
         final boolean isDerivativeCategoryFilterUsed = derivativeCategoryFilter != null && !derivativeCategoryFilter.isEmpty();
-        final String[] derivativeCategoryFilterArray = isDerivativeCategoryFilterUsed ? derivativeCategoryFilter.split(",") : null;
-        final String totalRowsQuery = setMediaByDomainIdQueryString(TOTAL_ROWS_QUERY, isActiveFilterUsed, isDerivativeCategoryFilterUsed,
-                false, derivativeCategoryFilterArray);
-        return jdbcTemplate.query((Connection connection) -> {
-            PreparedStatement statement = connection.prepareStatement(totalRowsQuery);
+        final boolean isDerivativeFilterUsed = derivativeFilter != null && !derivativeFilter.isEmpty();
+        if (listingCache.isEnabled()) {
+            // cursor pages follow the guid order of the listing, as the query below does
+            return getListing(domain, domainId).getPageAfter(lastMediaGuid, listingActiveFilter(activeFilter),
+                    listingDerivativeCategories(derivativeCategoryFilter), pageSize).stream()
+                    .map(row -> Optional.of(buildDomainIdMedia(row, isDerivativeFilterUsed, derivativeFilter)))
+                    .collect(Collectors.toList());
+        }
+        final String[] derivativeCategoryFilterArray = isDerivativeCategoryFilterUsed ? padToInListBucket(derivativeCategoryFilter.split(",")) : null;
+        final String getMediaByDomainIdQuery = setMediaByDomainIdQueryString(MEDIA_BY_DOMAIN_ID_QUERY_BASE, isActiveFilterUsed, isDerivativeCategoryFilterUsed,
+                false, derivativeCategoryFilterArray) + (lastMediaGuid == null ? "" : MEDIA_BY_DOMAIN_ID_AFTER_GUID) + MEDIA_BY_DOMAIN_ID_ORDER_BY_GUID_LIMIT;
+        return readJdbcTemplate.query((Connection connection) -> {
+            PreparedStatement statement = connection.prepareStatement(getMediaByDomainIdQuery);
             statement.setString(1, domain.getDomain());
             statement.setString(2, domainId);
             int additionalIndex = 3;
@@ -137,19 +248,142 @@ public class MediaDBMediaDao implements MediaDao {
                 additionalIndex++;
             }
             if (isDerivativeCategoryFilterUsed) {
-                setArray(statement, additionalIndex, derivativeCategoryFilterArray);
+                additionalIndex = setArray(statement, additionalIndex, derivativeCategoryFilterArray);
+            }
+            if (lastMediaGuid != null) {
+                statement.setString(additionalIndex, lastMediaGuid);
+                additionalIndex++;
             }
+            statement.setInt(additionalIndex, pageSize);
             return statement;
-        }, (ResultSet resultSet) -> resultSet.next() ? Optional.of(resultSet.getInt(1)) : Optional.empty());
+        }, (ResultSet resultSet, int rowNumb) ->
+                buildDomainIdMediaFromResultSet(resultSet, isDerivativeFilterUsed, derivativeFilter));
     }
 
+    /**
+     * The media are ordered in SQL and read from the read replica through a streaming result set, bypassing the listing cache,
+     * so only the current row is held in memory. The connection is held while the consumer writes the rows to the client, so a
+     * stream still running after the stream timeout is aborted with a {@link SQLTimeoutException}, a slow client can not hold
+     * the connection until the pool reclaims it.
+     */
+    @Override
+    public int streamMediaByDomainId(Domain domain, String domainId, String activeFilter, String derivativeFilter, String derivativeCategoryFilter,
+                                     Integer pageSize, Integer pageIndex, Consumer<DomainIdMedia> mediaConsumer) {
+        final boolean isActiveFilterUsed = activeFilter != null && !activeFilter.isEmpty() && !ACTIVE_FILTER_ALL.equals(activeFilter);
+        final boolean isDerivativeCategoryFilterUsed = derivativeCategoryFilter != null && !derivativeCategoryFilter.isEmpty();
+        final boolean isPaginationUsed = pageSize != null && pageIndex != null;
+        final boolean isDerivativeFilterUsed = derivativeFilter != null && !derivativeFilter.isEmpty();
+        final String[] derivativeCategoryFilterArray = isDerivativeCategoryFilterUsed ? padToInListBucket(derivativeCategoryFilter.split(",")) : null;
+        final String streamMediaByDomainIdQuery = setMediaByDomainIdQueryString(MEDIA_BY_DOMAIN_ID_QUERY_BASE, isActiveFilterUsed, isDerivativeCategoryFilterUsed,
+                false, derivativeCategoryFilterArray) + MEDIA_BY_DOMAIN_ID_RESPONSE_ORDER + (isPaginationUsed ? MEDIA_BY_DOMAIN_ID_PAGE : "");
+        final AtomicInteger rowCount = new AtomicInteger();
+        final long deadline = System.currentTimeMillis() + streamTimeoutMillis;
+        readJdbcTemplate.query((Connection connection) -> {
+            PreparedStatement statement = connection.prepareStatement(streamMediaByDomainIdQuery, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // makes the MySQL driver stream the rows one by one instead of reading the whole result set in memory
+            statement.setFetchSize(Integer.MIN_VALUE);
+            statement.setString(1, domain.getDomain());
+            statement.setString(2, domainId);
+            int additionalIndex = 3;
+            if (isActiveFilterUsed) {
+                statement.setInt(additionalIndex, ((ACTIVE_FILTER_TRUE).equals(activeFilter) ? 1 : 0));
+                additionalIndex++;
+            }
+            if (isDerivativeCategoryFilterUsed) {
+                additionalIndex = setArray(statement, additionalIndex, derivativeCategoryFilterArray);
+            }
+            if (isPaginationUsed) {
+                statement.setInt(additionalIndex, pageSize * (pageIndex - 1));
+                statement.setInt(additionalIndex + 1, pageSize);
+            }
+            return statement;
+        }, (RowCallbackHandler) (ResultSet resultSet) -> {
+            if (System.currentTimeMillis() > deadline) {
+                throw new SQLTimeoutException("Streaming media by domainId exceeded " + streamTimeoutMillis + " ms Domain=" + domain.getDomain()
+                        + " DomainId=" + domainId + " Rows=" + rowCount.get());
+            }
+            rowCount.incrementAndGet();
+            buildDomainIdMediaFromResultSet(resultSet, isDerivativeFilterUsed, derivativeFilter).ifPresent(mediaConsumer);
+        });
+        return rowCount.get();
+    }
+
+    /**
+     * The total count is summed up from the per active flag and derivative category counts of the domain item. The counts are
+     * loaded with a single grouped query when they are not cached yet, and are then reused for any filter combination. They are
+     * loaded from the write pool, a replica lagging behind a write invalidating them would otherwise cache them stale for the TTL.
+     */
+    @Override
+    public Optional<Integer> getTotalMediaCountByDomainId(Domain domain, String domainId, String activeFilter, String derivativeCategoryFilter) {
+        final Optional<Integer> cachedCount = mediaCountCache.getCount(domain.getDomain(), domainId, activeFilter, derivativeCategoryFilter);
+        if (cachedCount.isPresent()) {
+            return cachedCount;
+        }
+        final long invalidationCountBeforeLoad = mediaCountCache.getInvalidationCount();
+        final Map<DomainMediaCountCache.CountKey, Integer> counts = DomainMediaCountCache.newCounts();
+        jdbcTemplate.query((Connection connection) -> {
+            PreparedStatement statement = connection.prepareStatement(MEDIA_COUNTS_QUERY);
+            statement.setString(1, domain.getDomain());
+            statement.setString(2, domainId);
+            return statement;
+        }, (ResultSet resultSet) -> {
+            DomainMediaCountCache.increment(counts, resultSet.getInt("active") == 1, resultSet.getString("derivative-category"),
+                    resultSet.getInt("media-count"));
+        });
+        mediaCountCache.putCounts(domain.getDomain(), domainId, counts, invalidationCountBeforeLoad);
+        return Optional.of(DomainMediaCountCache.sumCounts(counts, activeFilter, derivativeCategoryFilter));
+    }
+
+    /**
+     * Gets the complete media listing of a domain item, in response order, from the listing cache. A listing loaded from the
+     * database also refreshes the media counts of the domain item. Both are cached, so they are loaded from the write pool.
+     *
+     * @param domain   Domain the item belongs to.
+     * @param domainId The id of the domain item.
+     * @return All the visible media rows of the domain item.
+     */
+    private MediaDBDomainIdMediaListing getListing(Domain domain, String domainId) {
+        return new MediaDBDomainIdMediaListing(listingCache.getListing(domain.getDomain(), domainId, () -> {
+            final long invalidationCountBeforeLoad = mediaCountCache.getInvalidationCount();
+            final List<MediaDBDomainIdMediaRow> rows = jdbcTemplate.query((Connection connection) -> {
+                PreparedStatement statement = connection.prepareStatement(MEDIA_LISTING_BY_DOMAIN_ID_QUERY);
+                statement.setString(1, domain.getDomain());
+                statement.setString(2, domainId);
+                return statement;
+            }, (ResultSet resultSet, int rowNumb) -> MediaDBDomainIdMediaRow.fromResultSet(resultSet));
+            final Map<DomainMediaCountCache.CountKey, Integer> counts = DomainMediaCountCache.newCounts();
+            rows.forEach(row -> DomainMediaCountCache.increment(counts, row.getActive() == 1, row.getDerivativeCategory(), 1));
+            mediaCountCache.putCounts(domain.getDomain(), domainId, counts, invalidationCountBeforeLoad);
+            return MediaDBDomainIdMediaListing.write(rows);
+        }));
+    }
+
+    /**
+     * @param activeFilter "true", "false", or "all"/null for both.
+     * @return The active flag of the listed rows to read, null for all.
+     */
+    private static Integer listingActiveFilter(String activeFilter) {
+        final boolean isActiveFilterUsed = activeFilter != null && !activeFilter.isEmpty() && !ACTIVE_FILTER_ALL.equals(activeFilter);
+        return isActiveFilterUsed ? (ACTIVE_FILTER_TRUE.equals(activeFilter) ? 1 : 0) : null;
+    }
+
+    /**
+     * @param derivativeCategoryFilter Comma separated derivative categories, null or empty for all.
+     * @return The derivative categories of the listed rows to read, compared ignoring case as the MediaDB collation does, null for all.
+     */
+    private static List<String> listingDerivativeCategories(String derivativeCategoryFilter) {
+        return derivativeCategoryFilter == null || derivativeCategoryFilter.isEmpty() ? null : Arrays.asList(derivativeCategoryFilter.split(","));
+    }
 
     @Override
     public void addMedia(ImageMessage message) throws Exception {
         String domain = message.getOuterDomainData().getDomain().getDomain();
         String domainId = message.getOuterDomainData().getDomainId();
         String domainProvider = message.getOuterDomainData().getProvider();
-        String domainField = WRITER.writeValueAsString(convertLcmMediaIdInMapToString(message.getOuterDomainData().getDomainFields()));
+        Map<String, Object> domainFieldsMap = convertLcmMediaIdInMapToString(message.getOuterDomainData().getDomainFields());
+        String domainField = WRITER.writeValueAsString(domainFieldsMap);
+        String lcmMediaId = getLcmMediaId(domainFieldsMap);
+        int propertyHero = isPropertyHero(domainFieldsMap) ? 1 : 0;
         LOGGER.debug("insert media record with ImageMessageAvro sql={} MediaGuid={} RequestId={} ClientId={} Filename={} FileUrl={} Domain={}",
                 ADD_WITH_IMAGEMESSAGEAVRO_QUERY,
                 message.getMediaGuid(), message.getRequestId(), message.getClientId(), message.getFileName(), message.getFileUrl(), domain);
@@ -171,8 +405,13 @@ public class MediaDBMediaDao implements MediaDao {
             statement.setString(14, message.getComment());
             statement.setString(15, message.getProvidedName());
             statement.setString(16, message.getCallback() == null ? "" : message.getCallback().toString());
+            statement.setString(17, lcmMediaId);
+            statement.setInt(18, propertyHero);
             return statement;
         });
+        mediaCountCache.invalidate(domain, domainId);
+        listingCache.invalidate(domain, domainId);
+        mediaCache.invalidate(message.getMediaGuid());
     }
 
     @Override
@@ -180,7 +419,10 @@ public class MediaDBMediaDao implements MediaDao {
         String domain = message.getOuterDomainData().getDomain().getDomain();
         String domainId = message.getOuterDomainData().getDomainId();
         String domainProvider = message.getOuterDomainData().getProvider();
-        String domainField = WRITER.writeValueAsString(convertLcmMediaIdInMapToString(message.getOuterDomainData().getDomainFields()));
+        Map<String, Object> domainFieldsMap = convertLcmMediaIdInMapToString(message.getOuterDomainData().getDomainFields());
+        String domainField = WRITER.writeValueAsString(domainFieldsMap);
+        String lcmMediaId = getLcmMediaId(domainFieldsMap);
+        int propertyHero = isPropertyHero(domainFieldsMap) ? 1 : 0;
         LOGGER.debug("update media record with ImageMessageAvro sql={} MediaGuid={} RequestId={} ClientId={} Filename={} FileUrl={} Domain={}",
                 UPDATE_WITH_IMAGEMESSAGEAVRO_QUERY,
                 message.getMediaGuid(), message.getRequestId(), message.getClientId(), message.getFileName(), message.getFileUrl(), domain);
@@ -201,9 +443,14 @@ public class MediaDBMediaDao implements MediaDao {
             statement.setString(13, message.getFileName());
             statement.setString(14, message.getProvidedName());
             statement.setString(15, message.getCallback() == null ? "" : message.getCallback().toString());
-            statement.setString(16, message.getMediaGuid());
+            statement.setString(16, lcmMediaId);
+            statement.setInt(17, propertyHero);
+            statement.setString(18, message.getMediaGuid());
             return statement;
         });
+        mediaCountCache.invalidate(domain, domainId);
+        listingCache.invalidate(domain, domainId);
+        mediaCache.invalidate(message.getMediaGuid());
     }
 
     @Override
@@ -212,11 +459,16 @@ public class MediaDBMediaDao implements MediaDao {
             PreparedStatement statement = connection.prepareStatement(MEDIA_BY_FILE_NAME_QUERY);
             statement.setString(1, fileName);
             return statement;
-        }, (ResultSet resultSet, int rowNumb) -> buildMediaFromResultSet(resultSet)).stream().collect(Collectors.toList());
+        }, (ResultSet resultSet, int rowNumb) -> buildMediaFromResultSet(resultSet, MediaDBProjection.REPROCESS_MEDIA)).stream().collect(Collectors.toList());
     }
 
     @Override
     public Optional<Media> getMediaByGuid(String mediaGUID) {
+        return mediaCache.getMediaByGuid(mediaGUID, this::getMediaByGuidForUpdate);
+    }
+
+    @Override
+    public Optional<Media> getMediaByGuidForUpdate(String mediaGUID) {
         return jdbcTemplate.query((Connection connection) -> {
             PreparedStatement statement = connection.prepareStatement(MEDIA_BY_GUID_QUERY);
             statement.setString(1, mediaGUID);
@@ -232,34 +484,117 @@ public class MediaDBMediaDao implements MediaDao {
             statement.setString(1, "Lodging");
             statement.setString(2, domainId);
             return statement;
-        }, (ResultSet resultSet, int rowNumb) -> buildMediaFromResultSet(resultSet)).stream().collect(Collectors.toList());
+        }, (ResultSet resultSet, int rowNumb) -> buildMediaFromResultSet(resultSet, MediaDBProjection.HERO_MEDIA)).stream().collect(Collectors.toList());
     }
 
     @Override
     public void unheroMedia(String guid, String domainField) {
+        final DomainFields domainFields = parseDomainFields(guid, domainField);
         jdbcTemplate.update((Connection connection) -> {
             PreparedStatement statement = connection.prepareStatement(UPDATE_MEDIA_UNHERO_QUERY);
             statement.setString(1, domainField);
-            statement.setString(2, guid);
+            statement.setString(2, domainField);
+            statement.setString(3, domainFields == null ? null : domainFields.getLcmMediaId());
+            statement.setString(4, domainField);
+            statement.setInt(5, domainFields != null && domainFields.isPropertyHeroMedia() ? 1 : 0);
+            statement.setString(6, guid);
             return statement;
         });
+        jdbcTemplate.query((Connection connection) -> {
+            PreparedStatement statement = connection.prepareStatement(MEDIA_DOMAIN_BY_GUID_QUERY);
+            statement.setString(1, guid);
+            return statement;
+        }, (RowCallbackHandler) (ResultSet resultSet) -> listingCache.invalidate(resultSet.getString("domain"), resultSet.getString("domain-id")));
+        mediaCache.invalidate(guid);
+    }
+
+    /**
+     * Parses the domain fields written by an unhero, so the indexed columns follow the domain fields.
+     *
+     * @param guid        The guid of the unheroed media.
+     * @param domainField The domain fields JSON written, may be null when the domain fields are left unchanged.
+     * @return The typed domain fields, null when the domain fields are left unchanged or can not be parsed.
+     */
+    private static DomainFields parseDomainFields(String guid, String domainField) {
+        if (domainField == null) {
+            return null;
+        }
+        try {
+            return JSONUtil.buildDomainFieldsFromStoredJson(domainField);
+        } catch (RequestMessageException e) {
+            LOGGER.warn("Unable to parse the domain fields of unheroed media MediaGuid={} ErrorMessage={}", guid, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Unheroes all the hero media of the property but the new hero in one transaction: the hero media are read and locked through
+     * the indexed property-hero column, then exactly those rows are written back unheroed, so media heroed concurrently are
+     * either unheroed and returned, or left alone.
+     */
+    @Override
+    public List<Media> unheroMediaByDomainId(String domainId, String heroMediaGuid) {
+        final List<Media> unheroedMedia = transactionTemplate.execute(status -> {
+            final List<Media> heroMedia = jdbcTemplate.query((Connection connection) -> {
+                PreparedStatement statement = connection.prepareStatement(HERO_MEDIA_TO_UNHERO_QUERY);
+                statement.setString(1, "Lodging");
+                statement.setString(2, domainId);
+                statement.setString(3, heroMediaGuid);
+                return statement;
+            }, (ResultSet resultSet, int rowNumb) -> buildMediaFromResultSet(resultSet, MediaDBProjection.HERO_MEDIA)).stream()
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .collect(Collectors.toList());
+            heroMedia.forEach(media -> media.setDomainFields(unheroDomainFields(media.getMediaGuid(), media.getDomainFields())));
+            if (!heroMedia.isEmpty()) {
+                jdbcTemplate.batchUpdate(UNHERO_MEDIA_BY_GUID_QUERY, heroMedia, heroMedia.size(), (PreparedStatement statement, Media media) -> {
+                    statement.setString(1, media.getDomainFields());
+                    statement.setString(2, media.getMediaGuid());
+                });
+            }
+            return heroMedia;
+        });
+        listingCache.invalidate("Lodging", domainId);
+        mediaCache.invalidateDomainId("Lodging", domainId);
+        return unheroedMedia;
+    }
+
+    /**
+     * Unsets the property hero flag of the domain fields of a media, leaving domain fields that can not be read unchanged.
+     */
+    private static String unheroDomainFields(String guid, String domainFields) {
+        try {
+            return MediaDBSQLUtil.unheroDomainFields(domainFields);
+        } catch (RequestMessageException e) {
+            LOGGER.warn("Unable to parse the domain fields of unheroed media MediaGuid={} ErrorMessage={}", guid, e.getMessage());
+            return domainFields;
+        }
     }
 
     @Override
     public List<Optional<Media>> getMediaByMediaId(String mediaId) {
-        final String lcmMediaIdSubstring = "%\"lcmMediaId\":\"" + mediaId + "\"%";
-        return jdbcTemplate.query((Connection connection) -> {
+        final List<Optional<Media>> indexedMedia = readJdbcTemplate.query((Connection connection) -> {
             PreparedStatement statement = connection.prepareStatement(MEDIA_BY_LCM_MEDIA_ID);
+            statement.setString(1, mediaId);
+            return statement;
+        }, (ResultSet resultSet, int rowNumb) -> buildMediaFromResultSet(resultSet));
+        if (!indexedMedia.isEmpty() || !unindexedLcmMediaIdLookup) {
+            return indexedMedia;
+        }
+        // rows written before the lcm-media-id column have it null until MediaDBDomainFieldsIndexer backfills them
+        final String lcmMediaIdSubstring = "%\"lcmMediaId\":\"" + mediaId + "\"%";
+        return readJdbcTemplate.query((Connection connection) -> {
+            PreparedStatement statement = connection.prepareStatement(UNINDEXED_MEDIA_BY_LCM_MEDIA_ID);
             statement.setString(1, lcmMediaIdSubstring);
             return statement;
-        }, (ResultSet resultSet, int rowNumb) -> buildMediaFromResultSet(resultSet)).stream().collect(Collectors.toList());
+        }, (ResultSet resultSet, int rowNumb) -> buildMediaFromResultSet(resultSet));
     }
 
     @Override
     public Map<String, String> getLatestStatus(List<String> fileNames) {
-        final String[] fileNamesArray = fileNames.toArray(new String[fileNames.size()]);
+        final String[] fileNamesArray = padToInListBucket(fileNames.toArray(new String[fileNames.size()]));
         Map<String, String> statusMap = new HashMap<>();
-        jdbcTemplate.query((Connection connection) -> {
+        readJdbcTemplate.query((Connection connection) -> {
             PreparedStatement statement = connection.prepareStatement(setSQLTokensWithArray(MEDIAS_BY_FILE_NAMES_QUERY, fileNamesArray));
             setArray(statement, 1, fileNamesArray);
             return statement;
@@ -269,9 +604,9 @@ public class MediaDBMediaDao implements MediaDao {
 
     @Override
     public List<MediaProcessLog> findMediaStatus(List<String> fileNames) {
-        final String[] fileNamesArray = fileNames.toArray(new String[fileNames.size()]);
+        final String[] fileNamesArray = padToInListBucket(fileNames.toArray(new String[fileNames.size()]));
         List<MediaProcessLog> processLogList = new ArrayList<>();
-        jdbcTemplate.query((Connection connection) -> {
+        readJdbcTemplate.query((Connection connection) -> {
             PreparedStatement statement = connection.prepareStatement(setSQLTokensWithArray(MEDIAS_BY_FILE_NAMES_QUERY, fileNamesArray));
             setArray(statement, 1, fileNamesArray);
             return statement;
@@ -0,0 +1,94 @@
+package com.expedia.content.media.processing.services.dao.mediadb;
+
+import expedia.content.solutions.metrics.annotations.Gauge;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the MediaDB read and write connection pool statistics.
+ * Note that the {@code @Gauge} annotations introduce aspects from metrics-support.
+ */
+@Component
+public class MediaDBPoolMetrics {
+
+    private final MediaDBDataSource writeDataSource;
+    private final MediaDBDataSource readDataSource;
+
+    @Autowired
+    public MediaDBPoolMetrics(@Qualifier("mediaDBDataSource") MediaDBDataSource writeDataSource,
+                              @Qualifier("mediaDBReadDataSource") MediaDBDataSource readDataSource) {
+        this.writeDataSource = writeDataSource;
+        this.readDataSource = readDataSource;
+    }
+
+    @Gauge(name = "mediaDBWritePoolActive")
+    public Integer writePoolActive() {
+        return writeDataSource.getActive();
+    }
+
+    @Gauge(name = "mediaDBWritePoolIdle")
+    public Integer writePoolIdle() {
+        return writeDataSource.getIdle();
+    }
+
+    @Gauge(name = "mediaDBWritePoolWaiting")
+    public Integer writePoolWaiting() {
+        return writeDataSource.getWaitCount();
+    }
+
+    @Gauge(name = "mediaDBWritePoolAverageWaitMillis")
+    public Double writePoolAverageWaitMillis() {
+        return writeDataSource.getAverageBorrowWaitMillis();
+    }
+
+    @Gauge(name = "mediaDBWritePoolTimeouts")
+    public Long writePoolTimeouts() {
+        return writeDataSource.getBorrowTimeoutCount();
+    }
+
+    @Gauge(name = "mediaDBWritePoolConnectionsCreated")
+    public Long writePoolConnectionsCreated() {
+        return writeDataSource.getCreatedCount();
+    }
+
+    @Gauge(name = "mediaDBWritePoolAbandoned")
+    public Long writePoolAbandoned() {
+        return writeDataSource.getRemoveAbandonedCount();
+    }
+
+    @Gauge(name = "mediaDBReadPoolActive")
+    public Integer readPoolActive() {
+        return readDataSource.getActive();
+    }
+
+    @Gauge(name = "mediaDBReadPoolIdle")
+    public Integer readPoolIdle() {
+        return readDataSource.getIdle();
+    }
+
+    @Gauge(name = "mediaDBReadPoolWaiting")
+    public Integer readPoolWaiting() {
+        return readDataSource.getWaitCount();
+    }
+
+    @Gauge(name = "mediaDBReadPoolAverageWaitMillis")
+    public Double readPoolAverageWaitMillis() {
+        return readDataSource.getAverageBorrowWaitMillis();
+    }
+
+    @Gauge(name = "mediaDBReadPoolTimeouts")
+    public Long readPoolTimeouts() {
+        return readDataSource.getBorrowTimeoutCount();
+    }
+
+    @Gauge(name = "mediaDBReadPoolConnectionsCreated")
+    public Long readPoolConnectionsCreated() {
+        return readDataSource.getCreatedCount();
+    }
+
+    @Gauge(name = "mediaDBReadPoolAbandoned")
+    public Long readPoolAbandoned() {
+        return readDataSource.getRemoveAbandonedCount();
+    }
+}
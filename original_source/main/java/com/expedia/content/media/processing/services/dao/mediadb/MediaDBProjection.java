@@ -0,0 +1,67 @@
+package com.expedia.content.media.processing.services.dao.mediadb;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Columns of the {@code media} table selected by each DAO operation. Each projection only holds the columns read by the
+ * row mapping of the operation, so the large JSON text columns are only transferred when they are used.
+ */
+public enum MediaDBProjection {
+
+    /**
+     * All the columns read to build a complete Media.
+     */
+    MEDIA("guid", "file-url", "source-url", "file-name", "active", "fingerprints", "width", "height", "file-size", "status", "updated-by",
+            "update-date", "provider", "derivative-category", "domain-fields", "derivatives", "comments", "domain", "domain-id", "provided-name",
+            "hidden", "metadata", "user-id", "client-id"),
+    /**
+     * Columns of a media listed by domain id.
+     */
+    DOMAIN_ID_MEDIA("guid", "file-url", "source-url", "file-name", "active", "width", "height", "file-size", "status", "updated-by",
+            "update-date", "provider", "derivative-category", "domain-fields", "derivatives", "comments"),
+    /**
+     * Columns needed to select the media to reprocess among media sharing a file name.
+     */
+    REPROCESS_MEDIA("guid", "file-name", "domain", "domain-id", "provider", "update-date", "domain-fields", "provided-name"),
+    /**
+     * Columns needed to unhero a media and publish it as an ImageMessage.
+     */
+    HERO_MEDIA("guid", "file-url", "file-name", "active", "hidden", "domain", "domain-id", "provider", "derivative-category", "domain-fields",
+            "comments", "provided-name", "user-id", "client-id"),
+    /**
+     * Columns of the processing status of a media file.
+     */
+    MEDIA_STATUS("file-name", "status", "update-date", "domain");
+
+    private final Set<String> columns;
+    private final String selectList;
+
+    MediaDBProjection(String... columns) {
+        final List<String> columnList = Arrays.asList(columns);
+        this.columns = Collections.unmodifiableSet(new HashSet<>(columnList));
+        this.selectList = columnList.stream().map(column -> "`" + column + "`").collect(Collectors.joining(", "));
+    }
+
+    /**
+     * @param column A column of the media table.
+     * @return true if the column is selected by the projection.
+     */
+    public boolean contains(String column) {
+        return columns.contains(column);
+    }
+
+    /**
+     * Builds a SELECT statement of the projection columns.
+     *
+     * @param fromClause The FROM clause, and anything that follows it, of the statement.
+     * @return The SELECT statement.
+     */
+    public String select(String fromClause) {
+        return "SELECT " + selectList + " " + fromClause;
+    }
+}
@@ -0,0 +1,89 @@
+package com.expedia.content.media.processing.services.reqres;
+
+import com.expedia.content.media.processing.pipeline.domain.ImageMessage;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents the JSON body of a mediaAdd or mediaUpdate request. The body is read once from the request by
+ * {@link ImageMessageRequestConverter}, bound to an ImageMessage the first time it is needed, and the same ImageMessage is then
+ * shared by the validators and the processors handling the request. The CPU time the threads handling the request report is
+ * added up, so it can be logged once the request is processed.
+ */
+public class ImageMessageRequest {
+    private static final String DOMAIN = "domain";
+    private static final String DOMAIN_ID = "domainId";
+
+    @Getter
+    private final String message;
+    private final Supplier<ImageMessage> imageMessage;
+    private final AtomicLong cpuNanos = new AtomicLong();
+
+    public ImageMessageRequest(String message) {
+        this.message = message;
+        this.imageMessage = Suppliers.memoize(() -> ImageMessage.parseJsonMessage(message));
+    }
+
+    /**
+     * Builds the request of a JSON body with the domain of the media it updates added to it. The fields are added at the end
+     * of the JSON object, so they replace the domain the body may hold once bound. A body that is not a JSON object is left
+     * as is, it fails to bind like any invalid body.
+     *
+     * @param message The JSON body of the request.
+     * @param domain The domain to add.
+     * @param domainId The domain id to add.
+     * @return The request of the body with the domain added, not bound yet.
+     */
+    public static ImageMessageRequest withDomain(String message, String domain, String domainId) {
+        final String body = message.trim();
+        if (body.length() < 2 || body.charAt(0) != '{' || body.charAt(body.length() - 1) != '}') {
+            return new ImageMessageRequest(message);
+        }
+        final String fields = body.substring(1, body.length() - 1).trim();
+        final StringBuilder domainMessage = new StringBuilder(body.length() + 64).append('{').append(fields);
+        if (!fields.isEmpty()) {
+            domainMessage.append(',');
+        }
+        appendField(domainMessage, DOMAIN, domain).append(',');
+        appendField(domainMessage, DOMAIN_ID, domainId).append('}');
+        return new ImageMessageRequest(domainMessage.toString());
+    }
+
+    private static StringBuilder appendField(StringBuilder json, String name, String value) {
+        json.append('"').append(name).append("\":");
+        if (value == null) {
+            return json.append("null");
+        }
+        return json.append('"').append(JsonStringEncoder.getInstance().quoteAsString(value)).append('"');
+    }
+
+    /**
+     * Returns the ImageMessage bound from the request body.
+     *
+     * @return The ImageMessage.
+     * @throws com.expedia.content.media.processing.pipeline.exception.ImageMessageException Thrown if the body is not a valid ImageMessage.
+     */
+    public ImageMessage getImageMessage() {
+        return imageMessage.get();
+    }
+
+    /**
+     * Adds the CPU time a thread spent handling the request.
+     *
+     * @param threadCpuNanos CPU time in nanoseconds, see {@link com.expedia.content.media.processing.services.util.ThreadCpuTime}.
+     */
+    public void addCpuNanos(long threadCpuNanos) {
+        cpuNanos.addAndGet(threadCpuNanos);
+    }
+
+    /**
+     * @return The CPU time spent handling the request so far, in microseconds.
+     */
+    public long getCpuMicros() {
+        return cpuNanos.get() / 1000L;
+    }
+}
@@ -0,0 +1,46 @@
+package com.expedia.content.media.processing.services.reqres;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the body of a mediaAdd or mediaUpdate request from the request InputStream straight into an
+ * {@link ImageMessageRequest}, in the charset of the Content-Type, UTF-8 by default like the String bodies. Registered as a
+ * bean, Spring Boot adds it to the message converters of the controllers.
+ */
+public class ImageMessageRequestConverter extends AbstractHttpMessageConverter<ImageMessageRequest> {
+
+    public ImageMessageRequestConverter() {
+        super(StandardCharsets.UTF_8, MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ImageMessageRequest.class == clazz;
+    }
+
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ImageMessageRequest readInternal(Class<? extends ImageMessageRequest> clazz, HttpInputMessage inputMessage) throws IOException {
+        final MediaType contentType = inputMessage.getHeaders().getContentType();
+        final Charset charset = contentType == null || contentType.getCharset() == null ? getDefaultCharset() : contentType.getCharset();
+        return new ImageMessageRequest(StreamUtils.copyToString(inputMessage.getBody(), charset));
+    }
+
+    @Override
+    protected void writeInternal(ImageMessageRequest request, HttpOutputMessage outputMessage) {
+        throw new HttpMessageNotWritableException("ImageMessageRequest is only read from requests");
+    }
+}
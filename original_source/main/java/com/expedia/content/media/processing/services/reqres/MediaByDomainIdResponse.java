@@ -3,6 +3,7 @@ package com.expedia.content.media.processing.services.reqres;
 import java.util.List;
 
 import com.expedia.content.media.processing.services.dao.domain.DomainIdMedia;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Getter;
 
@@ -17,5 +18,7 @@ public class MediaByDomainIdResponse {
     private final String domainId;
     private final Integer totalMediaCount;
     private final List<DomainIdMedia> images;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String continuationToken;
 
 }
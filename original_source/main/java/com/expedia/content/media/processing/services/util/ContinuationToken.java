@@ -0,0 +1,54 @@
+package com.expedia.content.media.processing.services.util;
+
+import com.expedia.content.media.processing.services.exception.PaginationValidationException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque continuation tokens used by the cursor based pagination of media by domain id.
+ * A token holds the sort key (media guid) of the last media of a page; the next page seeks past it. Cursor pages are therefore
+ * in guid order, not in the property hero and subcategory id response order of the pageIndex pages.
+ */
+public final class ContinuationToken {
+
+    private static final String TOKEN_VERSION_PREFIX = "1:";
+
+    private ContinuationToken() {
+        // no-op
+    }
+
+    /**
+     * Encodes the sort key of the last media of a page.
+     *
+     * @param lastMediaGuid The guid of the last media of the page.
+     * @return An opaque URL safe token.
+     */
+    public static String encode(String lastMediaGuid) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((TOKEN_VERSION_PREFIX + lastMediaGuid).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a continuation token. An empty token starts from the first page.
+     *
+     * @param continuationToken The token returned with the previous page.
+     * @return The guid of the last media of the previous page, null for the first page.
+     * @throws PaginationValidationException when the token was not produced by {@link #encode(String)}.
+     */
+    public static String decode(String continuationToken) {
+        if (StringUtils.isEmpty(continuationToken)) {
+            return null;
+        }
+        final String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(continuationToken), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new PaginationValidationException("continuationToken is not valid.");
+        }
+        if (!decoded.startsWith(TOKEN_VERSION_PREFIX) || decoded.length() == TOKEN_VERSION_PREFIX.length()) {
+            throw new PaginationValidationException("continuationToken is not valid.");
+        }
+        return decoded.substring(TOKEN_VERSION_PREFIX.length());
+    }
+}
@@ -21,8 +21,13 @@ import com.expedia.content.media.processing.services.exception.RequestMessageExc
 import com.fasterxml.jackson.core.JsonParser;
 
 import com.expedia.content.media.processing.services.dao.domain.Category;
+import com.expedia.content.media.processing.services.dao.domain.DomainFields;
 import com.expedia.content.media.processing.services.dao.domain.MediaProcessLog;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.core.type.TypeReference;
 import org.apache.commons.lang3.StringUtils;
 
@@ -33,7 +38,12 @@ import org.apache.commons.lang3.StringUtils;
         "PMD.NPathComplexity"})
 public final class JSONUtil {
 
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().configure(JsonParser.Feature.ALLOW_UNQUOTED_CONTROL_CHARS, true);
+    private static final ObjectReader MAP_READER = OBJECT_MAPPER.readerFor(Map.class);
+    private static final ObjectReader MAP_LIST_READER = OBJECT_MAPPER.readerFor(new TypeReference<List<Map<String, Object>>>() {});
+    private static final ObjectReader DOMAIN_FIELDS_READER = OBJECT_MAPPER.readerFor(DomainFields.class)
+            .with(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT);
+    private static final ObjectWriter OBJECT_WRITER = OBJECT_MAPPER.writer();
     private static final String JSON_TAG_STATUS = "status";
     private static final String JSON_TAG_TIME = "time";
     private static final String JSON_TAG_MEDIA_NAME = "mediaName";
@@ -48,12 +58,8 @@ public final class JSONUtil {
     private JSONUtil() {
     }
 
-    static {
-        OBJECT_MAPPER.configure(JsonParser.Feature.ALLOW_UNQUOTED_CONTROL_CHARS, true);
-    }
-    
     /**
-     * Converts json message to java map object
+     * Converts json message to java map object. The message is validated by ESAPI before it is parsed, escaped messages included.
      *
      * @param jsonMessage input json format message
      * @return Map map object that contain json message value.
@@ -61,26 +67,79 @@ public final class JSONUtil {
      */
     public static Map buildMapFromJson(String jsonMessage) throws RequestMessageException {
         try {
-            String validatedJson = "";
-            if (!jsonMessage.contains("\\")) {
-                validatedJson = ESAPIValidationUtil.validateJson(jsonMessage);
-            } else {
-                validatedJson = jsonMessage;
-            }
-            return OBJECT_MAPPER.readValue(validatedJson, Map.class);
+            return MAP_READER.readValue(ESAPIValidationUtil.validateJson(jsonMessage));
         } catch (IOException ex) {
             final String errorMsg = MessageFormat.format("Error parsing/converting Json message: {0}", jsonMessage);
             throw new RequestMessageException(errorMsg, ex);
         }
     }
 
+    /**
+     * Converts a JSON object stored in MediaDB, domain-fields for instance, to a java map object. Unlike
+     * {@link #buildMapFromJson(String)} the JSON is not validated again, it was validated with the request that wrote it,
+     * so it is parsed in a single pass straight from the stored text.
+     *
+     * @param storedJson The stored JSON object.
+     * @return Map map object that contain the JSON object values, null when the stored JSON is null.
+     * @throws RequestMessageException happens when the stored text is not a JSON object.
+     */
+    public static Map<String, Object> buildMapFromStoredJson(String storedJson) throws RequestMessageException {
+        if (storedJson == null) {
+            return null;
+        }
+        try {
+            return MAP_READER.readValue(storedJson);
+        } catch (IOException ex) {
+            final String errorMsg = MessageFormat.format("Error parsing/converting stored Json: {0}", storedJson);
+            throw new RequestMessageException(errorMsg, ex);
+        }
+    }
+
+    /**
+     * Binds a domain-fields JSON object stored in MediaDB to its typed view, in a single pass and without building the
+     * intermediate maps of {@link #buildMapFromStoredJson(String)}. Domain fields holding values of other types than the
+     * typed properties are bound through {@link DomainFields#fromMap(Map)} instead of failing.
+     *
+     * @param storedJson The stored domain-fields JSON object.
+     * @return The typed domain fields, null when the stored JSON is null.
+     * @throws RequestMessageException happens when the stored text is not a domain-fields JSON object.
+     */
+    public static DomainFields buildDomainFieldsFromStoredJson(String storedJson) throws RequestMessageException {
+        if (storedJson == null) {
+            return null;
+        }
+        try {
+            return DOMAIN_FIELDS_READER.readValue(storedJson);
+        } catch (JsonMappingException ex) {
+            // a value the typed properties can not hold, the domain fields are bound from their map instead
+            return DomainFields.fromMap(buildMapFromStoredJson(storedJson));
+        } catch (IOException ex) {
+            final String errorMsg = MessageFormat.format("Error parsing/converting stored Json: {0}", storedJson);
+            throw new RequestMessageException(errorMsg, ex);
+        }
+    }
+
+    /**
+     * Writes a value to JSON with the shared writer.
+     *
+     * @param value The value to write, a map or a domain object.
+     * @return The JSON string of the value.
+     * @throws RequestMessageException happens when the value can not be written to JSON.
+     */
+    public static String writeJson(Object value) throws RequestMessageException {
+        try {
+            return OBJECT_WRITER.writeValueAsString(value);
+        } catch (IOException ex) {
+            throw new RequestMessageException(ERROR_WRITING_MAP, ex);
+        }
+    }
+
     public static List<Map<String, Object>> buildMapListFromJson(String jsonMessage) throws RequestMessageException {
         if (StringUtils.isEmpty(jsonMessage)) {
             return new ArrayList<>();
         }
         try {
-            final TypeReference<List<Map<String, Object>>> typeReference = new TypeReference<List<Map<String, Object>>>() {};
-            return OBJECT_MAPPER.readValue(jsonMessage, typeReference);
+            return MAP_LIST_READER.readValue(jsonMessage);
         } catch (IOException ex) {
             final String errorMsg = MessageFormat.format("Error parsing/converting Json message: {0}", jsonMessage);
             throw new RequestMessageException(errorMsg, ex);
@@ -110,8 +169,17 @@ public final class JSONUtil {
      * @throws RequestMessageException happen when covert map to json error.
      */
     public static String generateJsonByProcessLogList(List<MediaProcessLog> mediaProcessLogList) throws RequestMessageException {
+        return writeJson(buildMapByProcessLogList(mediaProcessLogList));
+    }
+
+    /**
+     * Builds the media status response message, to be written as JSON or in another format.
+     *
+     * @param mediaProcessLogList list of MediaProcessLog from DB.
+     * @return Map of the media statuses of the ProcessLogList.
+     */
+    public static Map<String, Object> buildMapByProcessLogList(List<MediaProcessLog> mediaProcessLogList) {
         final Map<String, Object> allMap = new HashMap<>();
-        final ObjectMapper mapper = new ObjectMapper();
         final List mediaStatusList = new ArrayList();
         final List<MediaProcessLog> processedMediaProcessLogList = mediaProcessLogList.stream()
                 .collect(Collectors.groupingBy(MediaProcessLog::getMediaFileName))
@@ -132,12 +200,7 @@ public final class JSONUtil {
             mediaStatusList.add(eachEntryMap);
         }
         allMap.put(JSON_TAG_MEDIA_STATUS, mediaStatusList);
-        try {
-            return mapper.writeValueAsString(allMap);
-        } catch (IOException ex) {
-            throw new RequestMessageException(ERROR_WRITING_MAP, ex);
-        }
-        
+        return allMap;
     }
 
     /**
@@ -4,37 +4,44 @@ import com.expedia.content.media.processing.pipeline.util.FormattedLogger;
 import com.expedia.content.media.processing.services.dao.domain.Category;
 import com.expedia.content.media.processing.services.dao.domain.Comment;
 import com.expedia.content.media.processing.services.dao.domain.DomainCategory;
+import com.expedia.content.media.processing.services.dao.domain.DomainFields;
 import com.expedia.content.media.processing.services.dao.domain.DomainIdMedia;
 import com.expedia.content.media.processing.services.dao.domain.LocalizedName;
 import com.expedia.content.media.processing.services.dao.domain.Media;
+import com.expedia.content.media.processing.services.dao.domain.StoredJsonList;
+import com.expedia.content.media.processing.services.dao.domain.StoredJsonMap;
 import com.expedia.content.media.processing.services.dao.domain.Subcategory;
+import com.expedia.content.media.processing.services.exception.RequestMessageException;
+import com.expedia.content.media.processing.services.dao.mediadb.MediaDBDomainIdMediaRow;
+import com.expedia.content.media.processing.services.dao.mediadb.MediaDBProjection;
+import com.google.common.base.Suppliers;
 import org.springframework.util.StringUtils;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Util class for MediaDB SQL queries
  */
-@SuppressWarnings({"PMD.UnsynchronizedStaticDateFormatter"})
 public final class MediaDBSQLUtil {
     private static final FormattedLogger LOGGER = new FormattedLogger(MediaDBSQLUtil.class);
-    private final static SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd hh:mm:ss.SSS XXX", Locale.US);
+    private static final String LCM_MEDIA_ID_KEY = "\"lcmMediaId\"";
     private static final String MEDIA_BY_DOMAIN_ID_ACTIVE_FILTER = " AND `active` = ?";
     private static final String MEDIA_BY_DOMAIN_ID_DERIVATIVE_CATEGORY_FILTER = " AND `derivative-category` IN (?)";
     private static final String MEDIA_BY_DOMAIN_ID_LIMIT = " LIMIT ?, ?";
+    private static final int[] IN_LIST_BUCKET_SIZES = {1, 2, 4, 8, 16, 32, 64};
+    private static final int IN_LIST_MAX_BUCKET_SIZE = IN_LIST_BUCKET_SIZES[IN_LIST_BUCKET_SIZES.length - 1];
+    private static final String SUBCATEGORY_KEY_SEPARATOR = "|";
 
     private MediaDBSQLUtil() {
         // no-op
@@ -83,6 +90,43 @@ public final class MediaDBSQLUtil {
         return StringUtils.replace(sqlString, "IN (?)", "IN (" + tokens.toString() + ")");
     }
 
+    /**
+     * Pads an array of IN list values to the next bucket size (1, 2, 4, 8, 16, 32, 64 and then multiples of 64) by repeating
+     * its last element. Repeating a value does not change the result of an IN clause, and since only a handful of distinct
+     * SQL strings get generated the server and driver prepared statement caches can reuse them.
+     * i.e. ["a", "b", "c"] -> ["a", "b", "c", "c"] which renders "IN (?,?,?,?)" with {@link #setSQLTokensWithArray(String, String[])}.
+     *
+     * @param array The array of IN list values.
+     * @return The padded array, or the same array when its length is already a bucket size.
+     */
+    public static String[] padToInListBucket(String[] array) {
+        if (array.length == 0) {
+            return array;
+        }
+        final int bucketSize = inListBucketSize(array.length);
+        if (bucketSize == array.length) {
+            return array;
+        }
+        final String[] padded = Arrays.copyOf(array, bucketSize);
+        Arrays.fill(padded, array.length, bucketSize, array[array.length - 1]);
+        return padded;
+    }
+
+    /**
+     * Finds the IN list bucket size for a list length.
+     *
+     * @param length The number of values in the IN list.
+     * @return The smallest bucket size which fits the length.
+     */
+    public static int inListBucketSize(int length) {
+        for (final int bucketSize : IN_LIST_BUCKET_SIZES) {
+            if (length <= bucketSize) {
+                return bucketSize;
+            }
+        }
+        return ((length + IN_LIST_MAX_BUCKET_SIZE - 1) / IN_LIST_MAX_BUCKET_SIZE) * IN_LIST_MAX_BUCKET_SIZE;
+    }
+
     /**
      * LcmMediaId's need to be strings (to adhere to the API contract), this method looks in the DomainFields and
      * asserts that it is a String.
@@ -98,6 +142,91 @@ public final class MediaDBSQLUtil {
         return domainFieldsMap;
     }
 
+    /**
+     * Tells if stored DomainField JSON can be returned as is, as {@link #convertLcmMediaIdInMapToString(Map)} would leave it:
+     * a JSON object with its LcmMediaId as a String or null. The domain fields are written so since the LcmMediaId is converted
+     * when the media is added or updated, older rows can still hold it as a number.
+     *
+     * @param domainFields The stored DomainField JSON, may be null.
+     * @return true when the stored JSON can be returned as is.
+     */
+    public static boolean isDomainFieldsCanonical(String domainFields) {
+        if (!isStoredJson(domainFields, '{')) {
+            return false;
+        }
+        int keyIndex = domainFields.indexOf(LCM_MEDIA_ID_KEY);
+        while (keyIndex >= 0) {
+            int valueIndex = keyIndex + LCM_MEDIA_ID_KEY.length();
+            while (valueIndex < domainFields.length() && (domainFields.charAt(valueIndex) == ':' || Character.isWhitespace(domainFields.charAt(valueIndex)))) {
+                valueIndex++;
+            }
+            if (valueIndex < domainFields.length() && domainFields.charAt(valueIndex) != '"' && domainFields.charAt(valueIndex) != 'n') {
+                return false;
+            }
+            keyIndex = domainFields.indexOf(LCM_MEDIA_ID_KEY, valueIndex);
+        }
+        return true;
+    }
+
+    /**
+     * Tells if a stored JSON column holds a JSON object or array, as opposed to null, empty or JSON null.
+     *
+     * @param storedJson The stored JSON, may be null.
+     * @param start      The first character of the expected JSON, '{' for an object and '[' for an array.
+     * @return true when the stored JSON starts as expected.
+     */
+    public static boolean isStoredJson(String storedJson, char start) {
+        if (storedJson == null) {
+            return false;
+        }
+        for (int index = 0; index < storedJson.length(); index++) {
+            if (!Character.isWhitespace(storedJson.charAt(index))) {
+                return storedJson.charAt(index) == start;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the LcmMediaId of the DomainField data as stored in the indexed {@code lcm-media-id} column.
+     *
+     * @param domainFieldsMap The map of DomainField data, may be null.
+     * @return The LcmMediaId as a String, null if the DomainField data has none.
+     */
+    public static String getLcmMediaId(Map<String, Object> domainFieldsMap) {
+        if (domainFieldsMap == null || domainFieldsMap.get("lcmMediaId") == null) {
+            return null;
+        }
+        return String.valueOf(domainFieldsMap.get("lcmMediaId"));
+    }
+
+    /**
+     * Tells if the DomainField data marks the media as the property hero, as stored in the indexed {@code property-hero} column.
+     *
+     * @param domainFieldsMap The map of DomainField data, may be null.
+     * @return true if propertyHero is true, see {@link DomainFields#isPropertyHero(Object)}.
+     */
+    public static boolean isPropertyHero(Map<String, Object> domainFieldsMap) {
+        return domainFieldsMap != null && DomainFields.isPropertyHero(domainFieldsMap.get("propertyHero"));
+    }
+
+    /**
+     * Unsets the property hero flag of DomainField JSON. The JSON is read through its typed view, so the flag is found however
+     * it is written, and written back with propertyHero set to "false".
+     *
+     * @param domainFields The DomainField JSON, may be null.
+     * @return The DomainField JSON with propertyHero set to "false", unchanged when it does not mark the property hero.
+     * @throws RequestMessageException when the DomainField JSON can not be read.
+     */
+    public static String unheroDomainFields(String domainFields) {
+        final DomainFields typedDomainFields = JSONUtil.buildDomainFieldsFromStoredJson(domainFields);
+        if (typedDomainFields == null || !typedDomainFields.isPropertyHeroMedia()) {
+            return domainFields;
+        }
+        typedDomainFields.setPropertyHero(Boolean.FALSE.toString());
+        return JSONUtil.writeJson(typedDomainFields);
+    }
+
     /**
      * Converts a List of DomainCategory Objects to a Formatted list of Category Objects with lists of Subcategories.
      *
@@ -106,7 +235,8 @@ public final class MediaDBSQLUtil {
      */
     public static List<Category> domainCategoryListToCategoryList(List<DomainCategory> domainCategoryList) {
         final Map<String, Category> categoryMap = new HashMap<>();
-        domainCategoryList.forEach(domainCategory -> addDomainCategoryToMap(domainCategory, categoryMap));
+        final Map<String, Subcategory> subcategoryMap = new HashMap<>();
+        domainCategoryList.forEach(domainCategory -> addDomainCategoryToMap(domainCategory, categoryMap, subcategoryMap));
         return categoryMap.values().stream()
                 .map(category -> {
                     category.getSubcategories().sort(Comparator.comparing(Subcategory::getSubcategoryId));
@@ -132,8 +262,11 @@ public final class MediaDBSQLUtil {
      *
      * @param domainCategory The DomainCategory to convert, and add to the categoryMap.
      * @param categoryMap The Map to added the Converted Category to.
+     * @param subcategoryMap The Subcategories already added to the categoryMap, by parentCategoryId and SubcategoryId.
      */
-    private static void addDomainCategoryToMap(DomainCategory domainCategory, Map<String, Category> categoryMap) {
+    private static void addDomainCategoryToMap(DomainCategory domainCategory, Map<String, Category> categoryMap,
+                                               Map<String, Subcategory> subcategoryMap) {
+        final String subcategoryKey = domainCategory.getParentCategoryId() + SUBCATEGORY_KEY_SEPARATOR + domainCategory.getCategoryId();
         // Check if domainCategory is a Category (if parentCategory is null), or a Subcategory
         if (domainCategory.getParentCategoryId() == null) {
             final Category category = categoryMap.get(domainCategory.getCategoryId());
@@ -152,16 +285,15 @@ public final class MediaDBSQLUtil {
                 final Subcategory subcategory = new Subcategory(domainCategory.getCategoryId(), new ArrayList<>(Arrays.asList(localizedName)));
                 categoryMap.put(domainCategory.getParentCategoryId(), new Category(domainCategory.getParentCategoryId(), new ArrayList<>(),
                         new ArrayList<>(Arrays.asList(subcategory))));
+                subcategoryMap.put(subcategoryKey, subcategory);
             } else {
-                Subcategory subcategory = category.getSubcategories().stream()
-                        .filter(subcat -> domainCategory.getCategoryId().equals(subcat.getSubcategoryId()))
-                        .findFirst()
-                        .orElse(null);
+                Subcategory subcategory = subcategoryMap.get(subcategoryKey);
                 // Check if a SubcategoryId exists in the Category's subcategoryId list, if not add a new Subcategory. Otherwise add the LocalizedName to the SubcategoryList.
                 if (subcategory == null) {
                     final LocalizedName localizedName = new LocalizedName(domainCategory.getLocalizedName(), domainCategory.getLocaleId());
                     subcategory = new Subcategory(domainCategory.getCategoryId(), new ArrayList<>(Arrays.asList(localizedName)));
                     category.getSubcategories().add(subcategory);
+                    subcategoryMap.put(subcategoryKey, subcategory);
                 } else {
                     final LocalizedName localizedName = new LocalizedName(domainCategory.getLocalizedName(), domainCategory.getLocaleId());
                     subcategory.getSubcategoryName().add(localizedName);
@@ -171,61 +303,85 @@ public final class MediaDBSQLUtil {
     }
 
     /**
-     * Builds a Media from a ResultSet returned from a query.
+     * Builds a Media from a ResultSet returned from a query selecting all the Media columns.
      *
      * @param resultSet A result from a query.
      * @return a Media object of a ResultSet.
      */
     public static Optional<Media> buildMediaFromResultSet(ResultSet resultSet) {
+        return buildMediaFromResultSet(resultSet, MediaDBProjection.MEDIA);
+    }
+
+    /**
+     * Builds a Media from a ResultSet returned from a query. Only the columns of the projection are read, the fields
+     * of the other columns are left null.
+     *
+     * @param resultSet A result from a query.
+     * @param projection The columns selected by the query.
+     * @return a Media object of a ResultSet.
+     */
+    public static Optional<Media> buildMediaFromResultSet(ResultSet resultSet, MediaDBProjection projection) {
         try {
-            final String domainFields = resultSet.getString("domain-fields");
-            final Map<String, Object> domainData = convertLcmMediaIdInMapToString(JSONUtil.buildMapFromJson(domainFields));
-            final String derivatives = resultSet.getString("derivatives");
-            final String fingerprints = resultSet.getString("fingerprints");
-            final List<Map<String, Object>> fingerprintsList = JSONUtil.buildMapListFromJson(fingerprints);
-            final String pHash = fingerprintsList.stream().filter(map -> "pHash".equals(map.get("algorithm")))
-                    .map(map -> ((List<String>) map.get("values")).get(0)).findFirst().orElse(null);
-            final String sha1 = fingerprintsList.stream().filter(map -> "SHA1".equals(map.get("algorithm")))
-                    .map(map -> ((List<String>) map.get("values")).get(0)).findFirst().orElse(null);
+            final Integer fileSize = getInt(resultSet, projection, "file-size");
+            final Integer active = getInt(resultSet, projection, "active");
+            final Integer hidden = getInt(resultSet, projection, "hidden");
             final Media media = Media.builder()
-                    .mediaGuid(resultSet.getString("guid"))
-                    .fileUrl(resultSet.getString("file-url"))
-                    .fileName(resultSet.getString("file-name"))
-                    .fileSize((long) resultSet.getInt("file-size"))
-                    .width(resultSet.getInt("width"))
-                    .height(resultSet.getInt("height"))
-                    .sourceUrl(resultSet.getString("source-url"))
-                    .domain(resultSet.getString("domain"))
-                    .domainId(resultSet.getString("domain-id"))
-                    .domainFields(domainFields)
-                    .lastUpdated(resultSet.getTimestamp("update-date"))
-                    .active((resultSet.getInt("active") == 1) ? Boolean.TRUE.toString() : Boolean.FALSE.toString())
-                    .provider(resultSet.getString("provider"))
-                    .clientId(resultSet.getString("client-id"))
-                    .userId(resultSet.getString("user-id"))
-                    .metadata(resultSet.getString("metadata"))
-                    .derivatives(derivatives)
-                    .pHash(pHash)
-                    .sha1(sha1)
+                    .mediaGuid(getString(resultSet, projection, "guid"))
+                    .fileUrl(getString(resultSet, projection, "file-url"))
+                    .fileName(getString(resultSet, projection, "file-name"))
+                    .fileSize(fileSize == null ? null : fileSize.longValue())
+                    .width(getInt(resultSet, projection, "width"))
+                    .height(getInt(resultSet, projection, "height"))
+                    .sourceUrl(getString(resultSet, projection, "source-url"))
+                    .domain(getString(resultSet, projection, "domain"))
+                    .domainId(getString(resultSet, projection, "domain-id"))
+                    .domainFields(getString(resultSet, projection, "domain-fields"))
+                    .lastUpdated(projection.contains("update-date") ? resultSet.getTimestamp("update-date") : null)
+                    .active(active == null ? null : (active == 1) ? Boolean.TRUE.toString() : Boolean.FALSE.toString())
+                    .provider(getString(resultSet, projection, "provider"))
+                    .clientId(getString(resultSet, projection, "client-id"))
+                    .userId(getString(resultSet, projection, "user-id"))
+                    .metadata(getString(resultSet, projection, "metadata"))
+                    .derivatives(getString(resultSet, projection, "derivatives"))
                     .environment(null)
-                    .lcmMediaId(domainData.get("lcmMediaId") == null ? "" : domainData.get("lcmMediaId").toString())
-                    .derivativesList(JSONUtil.buildMapListFromJson(derivatives))
-                    .domainData(domainData)
-                    .commentList(Arrays.asList(resultSet.getString("comments")))
-                    .status(resultSet.getString("status"))
-                    .domainDerivativeCategory(resultSet.getString("derivative-category"))
-                    .propertyHero(Boolean.valueOf((String) domainData.get("propertyHero")))
-                    .hidden(resultSet.getInt("hidden") == 1)
-                    .providedName(resultSet.getString("provided-name"))
+                    .commentList(projection.contains("comments") ? Arrays.asList(resultSet.getString("comments")) : null)
+                    .status(getString(resultSet, projection, "status"))
+                    .domainDerivativeCategory(getString(resultSet, projection, "derivative-category"))
+                    .hidden(hidden == null ? null : hidden == 1)
+                    .providedName(getString(resultSet, projection, "provided-name"))
                     .build();
-            return Optional.of(media);
+            return Optional.of(media.decodeJsonColumnsLazily(getString(resultSet, projection, "fingerprints")));
         } catch (SQLException e) {
             LOGGER.error(e, "Error querying MediaDB result-set={}", resultSet.toString());
             return Optional.empty();
         }
     }
 
+    /**
+     * Reads a String column if it is part of the projection.
+     *
+     * @param resultSet A result from a query.
+     * @param projection The columns selected by the query.
+     * @param column The column to read.
+     * @return The column value, null if the column is not selected.
+     * @throws SQLException when the column can not be read.
+     */
+    private static String getString(ResultSet resultSet, MediaDBProjection projection, String column) throws SQLException {
+        return projection.contains(column) ? resultSet.getString(column) : null;
+    }
 
+    /**
+     * Reads an int column if it is part of the projection.
+     *
+     * @param resultSet A result from a query.
+     * @param projection The columns selected by the query.
+     * @param column The column to read.
+     * @return The column value, null if the column is not selected.
+     * @throws SQLException when the column can not be read.
+     */
+    private static Integer getInt(ResultSet resultSet, MediaDBProjection projection, String column) throws SQLException {
+        return projection.contains(column) ? resultSet.getInt(column) : null;
+    }
 
     /**
      * Adds extra WHERE clauses to an SQL Query String.
@@ -264,40 +420,54 @@ public final class MediaDBSQLUtil {
      */
     public static Optional<DomainIdMedia> buildDomainIdMediaFromResultSet(ResultSet resultSet, boolean isDerivativeFilterUsed, String derivativeFilter) {
         try {
-            final DomainIdMedia domainIdMedia = DomainIdMedia.builder()
-                    .mediaGuid(resultSet.getString("guid"))
-                    .fileUrl(resultSet.getString("file-url"))
-                    .sourceUrl(resultSet.getString("source-url"))
-                    .fileName(resultSet.getString("file-name"))
-                    .active((resultSet.getInt("active") == 1) ? Boolean.TRUE.toString() : Boolean.FALSE.toString())
-                    .width(resultSet.getInt("width"))
-                    .height(resultSet.getInt("height"))
-                    .fileSize((long) resultSet.getInt("file-size"))
-                    .status(resultSet.getString("status"))
-                    .lastUpdatedBy(resultSet.getString("updated-by"))
-                    .lastUpdateDateTime(DATE_FORMAT.format(resultSet.getTimestamp("update-date")))
-                    .domainProvider(resultSet.getString("provider"))
-                    .domainDerivativeCategory(resultSet.getString("derivative-category"))
-                    .domainFields(convertLcmMediaIdInMapToString(JSONUtil.buildMapFromJson(resultSet.getString("domain-fields"))))
-                    .derivatives(resultSet.getString("derivatives") == null ? null :
-                            (isDerivativeFilterUsed ? filterDerivatives(resultSet.getString("derivatives"), derivativeFilter) :
-                                    JSONUtil.buildMapListFromJson(resultSet.getString("derivatives")))
-                    )
-                    .comments(
-                            Stream.of(Comment.builder()
-                                    .note(resultSet.getString("comments"))
-                                    .timestamp(DATE_FORMAT.format(resultSet.getTimestamp("update-date")))
-                                    .build())
-                            .filter(comment -> !StringUtils.isEmpty(comment.getNote()))
-                            .collect(Collectors.toList()))
-                    .build();
-            return Optional.of(domainIdMedia);
+            return Optional.of(buildDomainIdMedia(MediaDBDomainIdMediaRow.fromResultSet(resultSet), isDerivativeFilterUsed, derivativeFilter));
         } catch (SQLException e) {
             LOGGER.error(e, "Error querying MediaDB result-set={}", resultSet.toString());
             return Optional.empty();
         }
     }
 
+    /**
+     * Builds a DomainIdMedia from the columns of a media row.
+     *
+     * @param row                    The columns of the media row.
+     * @param isDerivativeFilterUsed a flag to decide whether to filter derivatives returned in the result set.
+     * @param derivativeFilter       The filter to determine which derivatives to keep in the result set.
+     * @return The DomainIdMedia.
+     */
+    public static DomainIdMedia buildDomainIdMedia(MediaDBDomainIdMediaRow row, boolean isDerivativeFilterUsed, String derivativeFilter) {
+        final String updateDateTime = TimestampFormatter.format(row.getUpdateDate());
+        final boolean isDomainFieldsStored = isDomainFieldsCanonical(row.getDomainFields());
+        final boolean isDerivativesStored = !isDerivativeFilterUsed && isStoredJson(row.getDerivatives(), '[');
+        return DomainIdMedia.builder()
+                .mediaGuid(row.getGuid())
+                .fileUrl(row.getFileUrl())
+                .sourceUrl(row.getSourceUrl())
+                .fileName(row.getFileName())
+                .active((row.getActive() == 1) ? Boolean.TRUE.toString() : Boolean.FALSE.toString())
+                .width(row.getWidth())
+                .height(row.getHeight())
+                .fileSize((long) row.getFileSize())
+                .status(row.getStatus())
+                .lastUpdatedBy(row.getUpdatedBy())
+                .lastUpdateDateTime(updateDateTime)
+                .domainProvider(row.getProvider())
+                .domainDerivativeCategory(row.getDerivativeCategory())
+                // the JSON columns are decoded the first time they are read, and only once, until then they are returned as stored
+                .domainFields(isDomainFieldsStored ? new StoredJsonMap(row.getDomainFields()) : null)
+                .domainFieldsDecoder(isDomainFieldsStored ? null
+                        : Suppliers.memoize(() -> convertLcmMediaIdInMapToString(JSONUtil.buildMapFromStoredJson(row.getDomainFields())))::get)
+                .derivatives(isDerivativesStored ? new StoredJsonList(row.getDerivatives()) : null)
+                .derivativesDecoder(isDerivativesStored || row.getDerivatives() == null ? null : Suppliers.memoize(() -> isDerivativeFilterUsed
+                        ? filterDerivatives(row.getDerivatives(), derivativeFilter) : JSONUtil.buildMapListFromJson(row.getDerivatives()))::get)
+                .comments(StringUtils.isEmpty(row.getComments()) ? Collections.emptyList()
+                        : Collections.singletonList(Comment.builder()
+                                .note(row.getComments())
+                                .timestamp(updateDateTime)
+                                .build()))
+                .build();
+    }
+
     /**
      * Filters Derivatives by the derivative filter and returns a List of Maps representing Derivatives.
      *
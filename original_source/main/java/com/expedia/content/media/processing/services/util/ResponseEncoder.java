@@ -0,0 +1,183 @@
+package com.expedia.content.media.processing.services.util;
+
+import com.expedia.content.media.processing.services.exception.RequestMessageException;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Encodes the body of a response in one of the formats the media read services negotiate through the Accept header. JSON is the
+ * default format. The Jackson binary formats, Smile and CBOR, carry the same content in smaller payloads for the consumers paging
+ * through whole domain items.
+ *
+ * @param <T> The type of the encoded body, String for JSON and byte[] for the binary formats.
+ */
+public final class ResponseEncoder<T> {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final String APPLICATION_CBOR_VALUE = "application/cbor";
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+    public static final MediaType APPLICATION_CBOR = MediaType.valueOf(APPLICATION_CBOR_VALUE);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String ERROR_WRITING_RESPONSE = "Error writing response";
+
+    /**
+     * Leaves the responses as the JSON strings the services always returned.
+     */
+    public static final ResponseEncoder<String> JSON = new ResponseEncoder<>(null, new ObjectMapper(), JSONUtil::writeJson, jsonBody -> jsonBody);
+    public static final ResponseEncoder<byte[]> SMILE = binary(APPLICATION_SMILE, new SmileFactory());
+    public static final ResponseEncoder<byte[]> CBOR = binary(APPLICATION_CBOR, new CBORFactory());
+
+    private final MediaType contentType;
+    private final ObjectMapper mapper;
+    private final Function<Object, T> bodyEncoder;
+    private final Function<String, T> jsonBodyEncoder;
+
+    private ResponseEncoder(MediaType contentType, ObjectMapper mapper, Function<Object, T> bodyEncoder, Function<String, T> jsonBodyEncoder) {
+        this.contentType = contentType;
+        this.mapper = mapper;
+        this.bodyEncoder = bodyEncoder;
+        this.jsonBodyEncoder = jsonBodyEncoder;
+    }
+
+    /**
+     * Selects the binary encoder a request accepts, by order of preference of its Accept header.
+     *
+     * @param accept The Accept header of the request, may be null.
+     * @return The CBOR encoder when CBOR is preferred to Smile, the Smile encoder otherwise.
+     */
+    public static ResponseEncoder<byte[]> forAccept(String accept) {
+        if (accept != null) {
+            final List<MediaType> acceptedMediaTypes = MediaType.parseMediaTypes(accept);
+            MediaType.sortBySpecificityAndQuality(acceptedMediaTypes);
+            for (final MediaType acceptedMediaType : acceptedMediaTypes) {
+                if (acceptedMediaType.includes(APPLICATION_SMILE)) {
+                    return SMILE;
+                }
+                if (acceptedMediaType.includes(APPLICATION_CBOR)) {
+                    return CBOR;
+                }
+            }
+        }
+        return SMILE;
+    }
+
+    /**
+     * Selects the encoder a request accepts, by order of preference of its Accept header, for the handlers writing their
+     * response themselves.
+     *
+     * @param accept The Accept header of the request, may be null.
+     * @return The JSON encoder unless a binary format is preferred to JSON.
+     */
+    public static ResponseEncoder<?> negotiate(String accept) {
+        if (accept != null) {
+            final List<MediaType> acceptedMediaTypes = MediaType.parseMediaTypes(accept);
+            MediaType.sortBySpecificityAndQuality(acceptedMediaTypes);
+            for (final MediaType acceptedMediaType : acceptedMediaTypes) {
+                if (acceptedMediaType.includes(MediaType.APPLICATION_JSON)) {
+                    return JSON;
+                }
+                if (acceptedMediaType.includes(APPLICATION_SMILE)) {
+                    return SMILE;
+                }
+                if (acceptedMediaType.includes(APPLICATION_CBOR)) {
+                    return CBOR;
+                }
+            }
+        }
+        return JSON;
+    }
+
+    /**
+     * Returns the content type of the encoded responses.
+     *
+     * @return The content type.
+     */
+    public MediaType getContentType() {
+        return contentType == null ? MediaType.APPLICATION_JSON_UTF8 : contentType;
+    }
+
+    /**
+     * Encodes a response body.
+     *
+     * @param body   The body to encode.
+     * @param status The status of the response.
+     * @return The response with the encoded body.
+     */
+    public ResponseEntity<T> encode(Object body, HttpStatus status) {
+        return new ResponseEntity<>(bodyEncoder.apply(body), headers(), status);
+    }
+
+    /**
+     * Encodes a response built as JSON, such as the error responses of {@code CommonServiceController#buildErrorResponse}.
+     *
+     * @param jsonResponse The JSON response.
+     * @return The response with the JSON body encoded, the JSON response itself when encoding to JSON.
+     */
+    public ResponseEntity<T> encode(ResponseEntity<String> jsonResponse) {
+        if (contentType == null) {
+            @SuppressWarnings("unchecked")
+            final ResponseEntity<T> response = (ResponseEntity<T>) jsonResponse;
+            return response;
+        }
+        return new ResponseEntity<>(jsonBodyEncoder.apply(jsonResponse.getBody()), headers(), jsonResponse.getStatusCode());
+    }
+
+    private HttpHeaders headers() {
+        if (contentType == null) {
+            return null;
+        }
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        return headers;
+    }
+
+    /**
+     * Creates a generator writing in the format of the encoder, for the handlers streaming their response. Objects can be
+     * written with the generator. Closing the generator does not end the open arrays and objects, so a response that failed
+     * part way is left truncated instead of being turned into a complete, shorter, document.
+     *
+     * @param output The output to write to.
+     * @return The generator.
+     * @throws IOException Thrown if the generator can not be created.
+     */
+    public JsonGenerator createGenerator(OutputStream output) throws IOException {
+        return mapper.getFactory().createGenerator(output, JsonEncoding.UTF8).disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+    }
+
+    private static ResponseEncoder<byte[]> binary(MediaType contentType, JsonFactory binaryFactory) {
+        final ObjectMapper binaryMapper = new ObjectMapper(binaryFactory);
+        return new ResponseEncoder<>(contentType, binaryMapper, body -> {
+            try {
+                return binaryMapper.writeValueAsBytes(body);
+            } catch (IOException ex) {
+                throw new RequestMessageException(ERROR_WRITING_RESPONSE, ex);
+            }
+        }, jsonBody -> {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try (JsonParser parser = JSON_FACTORY.createParser(jsonBody);
+                 JsonGenerator generator = binaryMapper.getFactory().createGenerator(output)) {
+                parser.nextToken();
+                generator.copyCurrentStructure(parser);
+            } catch (IOException ex) {
+                throw new RequestMessageException(ERROR_WRITING_RESPONSE, ex);
+            }
+            return output.toByteArray();
+        });
+    }
+}
@@ -0,0 +1,83 @@
+package com.expedia.content.media.processing.services.util;
+
+import java.io.IOException;
+
+import com.expedia.content.media.processing.services.dao.domain.StoredJson;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * Writes a {@link StoredJson} value. While the value is not decoded the stored JSON is copied as is to a JSON response once it
+ * was checked to be a single well formed JSON value, without unescaped control characters, and transcoded token by token to
+ * the binary formats, without building the maps. Stored JSON failing the check is decoded and the decoded value is written,
+ * so the response stays valid, and a stored JSON that can not be decoded fails the response before any of it is written.
+ * Once decoded the decoded value is written, since it may have been modified.
+ */
+public class StoredJsonSerializer extends JsonSerializer<StoredJson> {
+
+    private static final JsonFactory STRICT_JSON_FACTORY = new JsonFactory();
+    private static final JsonFactory LENIENT_JSON_FACTORY = new JsonFactory().configure(JsonParser.Feature.ALLOW_UNQUOTED_CONTROL_CHARS, true);
+
+    @Override
+    public void serialize(StoredJson value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        final Object decodedValue = value.getDecodedValue();
+        if (decodedValue != null) {
+            provider.defaultSerializeValue(decodedValue, generator);
+        } else if (generator instanceof JsonGeneratorImpl) {
+            if (isWellFormed(value.getStoredJson())) {
+                generator.writeRawValue(value.getStoredJson());
+            } else {
+                provider.defaultSerializeValue(value.decode(), generator);
+            }
+        } else {
+            final TokenBuffer tokens = readTokens(value.getStoredJson());
+            if (tokens == null) {
+                provider.defaultSerializeValue(value.decode(), generator);
+            } else {
+                tokens.serialize(generator);
+            }
+        }
+    }
+
+    /**
+     * Reads the stored JSON in one pass with the strict parser, without decoding it.
+     *
+     * @return true when the stored JSON is a single JSON value that can be written as is to a JSON response.
+     */
+    private static boolean isWellFormed(String storedJson) throws IOException {
+        try (JsonParser parser = STRICT_JSON_FACTORY.createParser(storedJson)) {
+            if (parser.nextToken() == null) {
+                return false;
+            }
+            parser.skipChildren();
+            return parser.nextToken() == null;
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the tokens of the stored JSON with the lenient parser, so a truncated stored JSON is found before the generator is
+     * written to.
+     *
+     * @return The tokens of the stored JSON, null when it is not a single JSON value.
+     */
+    private static TokenBuffer readTokens(String storedJson) throws IOException {
+        try (JsonParser parser = LENIENT_JSON_FACTORY.createParser(storedJson)) {
+            if (parser.nextToken() == null) {
+                return null;
+            }
+            final TokenBuffer tokens = new TokenBuffer(parser);
+            tokens.copyCurrentStructure(parser);
+            return parser.nextToken() == null ? tokens : null;
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.expedia.content.media.processing.services.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Reads the CPU time of the current thread, to measure the CPU a request costs the service.
+ */
+public final class ThreadCpuTime {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean SUPPORTED = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+
+    private ThreadCpuTime() {
+    }
+
+    /**
+     * @return The CPU time of the current thread in nanoseconds, 0 when the JVM does not measure it.
+     */
+    public static long nanos() {
+        // -1 when the measurement is disabled
+        return SUPPORTED ? Math.max(0L, THREAD_MX_BEAN.getCurrentThreadCpuTime()) : 0L;
+    }
+}
@@ -0,0 +1,71 @@
+package com.expedia.content.media.processing.services.util;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Formats the update timestamps of media responses as {@code yyyy-MM-dd hh:mm:ss.SSS XXX} in the default time zone of the service, the format
+ * the responses always used. Unlike a shared {@link java.text.SimpleDateFormat} the formatter is safe to use from concurrent requests.
+ * <p>
+ * The seconds and the zone offset of a timestamp are formatted once and cached by the second, only the milliseconds are appended
+ * per call, so formatting the media of a listing, whose update dates are often close to each other, barely allocates.
+ */
+public final class TimestampFormatter {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final DateTimeFormatter SECONDS_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd hh:mm:ss.", Locale.US).withZone(ZONE);
+    private static final DateTimeFormatter OFFSET_FORMATTER = DateTimeFormatter.ofPattern(" XXX", Locale.US).withZone(ZONE);
+    private static final int CACHE_SIZE = 1024;
+    private static final AtomicReferenceArray<FormattedSecond> CACHE = new AtomicReferenceArray<>(CACHE_SIZE);
+
+    private TimestampFormatter() {
+    }
+
+    /**
+     * Formats a timestamp.
+     *
+     * @param date The timestamp to format.
+     * @return The formatted timestamp, null when the timestamp is null.
+     */
+    public static String format(Date date) {
+        if (date == null) {
+            return null;
+        }
+        final long epochMilli = date.getTime();
+        final long epochSecond = Math.floorDiv(epochMilli, 1000L);
+        final int millis = (int) Math.floorMod(epochMilli, 1000L);
+        final int slot = (int) Math.floorMod(epochSecond, (long) CACHE_SIZE);
+        FormattedSecond formattedSecond = CACHE.get(slot);
+        if (formattedSecond == null || formattedSecond.epochSecond != epochSecond) {
+            formattedSecond = new FormattedSecond(epochSecond);
+            CACHE.set(slot, formattedSecond);
+        }
+        return new StringBuilder(formattedSecond.seconds.length() + 3 + formattedSecond.offset.length())
+                .append(formattedSecond.seconds)
+                .append((char) ('0' + millis / 100))
+                .append((char) ('0' + millis / 10 % 10))
+                .append((char) ('0' + millis % 10))
+                .append(formattedSecond.offset)
+                .toString();
+    }
+
+    /**
+     * A formatted second. Immutable, so the cache slots are replaced rather than updated.
+     */
+    private static final class FormattedSecond {
+        private final long epochSecond;
+        private final String seconds;
+        private final String offset;
+
+        private FormattedSecond(long epochSecond) {
+            final Instant instant = Instant.ofEpochSecond(epochSecond);
+            this.epochSecond = epochSecond;
+            this.seconds = SECONDS_FORMATTER.format(instant);
+            this.offset = OFFSET_FORMATTER.format(instant);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.expedia.content.media.processing.services.validator;
+
+import com.expedia.content.media.processing.pipeline.util.FormattedLogger;
+import com.expedia.content.media.processing.services.util.URLUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import expedia.content.solutions.metrics.annotations.Gauge;
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies if HTTP URLs exist with HEAD requests, without holding the calling thread.
+ * The HEAD requests run on a bounded pool of threads sharing a pool of connections, a check that can not be queued fails
+ * instead of waiting for a thread, with an unavailable status the client can retry on. Concurrent checks of the same URL
+ * share one HEAD request, and the results are cached for a short time, the missing files for a shorter time than the found ones.
+ * <p>
+ * The socket timeout of a HEAD request adapts to the host: it is a multiple of the average response time of the host, between
+ * the minimum and the configured socket timeout, the latter being used for hosts not checked recently. A check not complete
+ * once its HEAD request could have timed out completes with an unavailable status.
+ * Note that the {@code @Gauge} annotations introduce aspects from metrics-support.
+ */
+public class HTTPUrlVerifier implements Closeable {
+    private static final FormattedLogger LOGGER = new FormattedLogger(HTTPUrlVerifier.class);
+
+    private static final String FILE_NOT_FOUND_MESSAGE = "Provided fileUrl does not exist.";
+    // weight of a new response time in the average response time of a host, as TCP smooths its round trip time
+    private static final int RESPONSE_TIME_SMOOTHING = 8;
+
+    private final CloseableHttpClient httpClient;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final ThreadPoolExecutor checkExecutor;
+    private final ScheduledThreadPoolExecutor timeoutExecutor;
+    private final RequestConfig requestConfig;
+    private final int connectTimeoutMillis;
+    private final int minSocketTimeoutMillis;
+    private final int maxSocketTimeoutMillis;
+    private final int socketTimeoutResponseTimeMultiplier;
+    private final Cache<String, AtomicLong> responseMillisByHost;
+    private final AtomicLong timedOutCheckCount = new AtomicLong();
+    private final Cache<String, ValidationStatus> foundUrls;
+    private final Cache<String, ValidationStatus> missingUrls;
+    private final ConcurrentMap<String, CompletableFuture<ValidationStatus>> runningChecks = new ConcurrentHashMap<>();
+    private final AtomicLong rejectedCheckCount = new AtomicLong();
+
+    /**
+     * Settings of the verifier, bound from the {@code media.url-check} properties of the active profile.
+     */
+    @Getter
+    @Setter
+    public static class Settings {
+        private int maxConnections = 50;
+        private int maxConnectionsPerHost = 10;
+        private int connectTimeoutMillis = 2000;
+        private int socketTimeoutMillis = 5000;
+        private int minSocketTimeoutMillis = 500;
+        private int socketTimeoutResponseTimeMultiplier = 4;
+        private long responseTimeHostsMaximumSize = 1000;
+        private int maxConcurrentChecks = 20;
+        private int maxQueuedChecks = 100;
+        private long cacheMaximumSize = 10000;
+        private long foundTimeToLiveSeconds = 300;
+        private long missingTimeToLiveSeconds = 30;
+    }
+
+    public HTTPUrlVerifier(Settings settings) {
+        this.connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(settings.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(settings.getMaxConnectionsPerHost());
+        this.requestConfig = RequestConfig.custom()
+                .setConnectTimeout(settings.getConnectTimeoutMillis())
+                .setSocketTimeout(settings.getSocketTimeoutMillis())
+                .setConnectionRequestTimeout(settings.getConnectTimeoutMillis())
+                .build();
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+        this.checkExecutor = new ThreadPoolExecutor(settings.getMaxConcurrentChecks(), settings.getMaxConcurrentChecks(), 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(settings.getMaxQueuedChecks()),
+                new ThreadFactoryBuilder().setNameFormat("url-check-%d").setDaemon(true).build());
+        checkExecutor.allowCoreThreadTimeOut(true);
+        this.timeoutExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder().setNameFormat("url-check-timeout-%d").setDaemon(true).build());
+        timeoutExecutor.setRemoveOnCancelPolicy(true);
+        this.connectTimeoutMillis = settings.getConnectTimeoutMillis();
+        this.minSocketTimeoutMillis = Math.min(settings.getMinSocketTimeoutMillis(), settings.getSocketTimeoutMillis());
+        this.maxSocketTimeoutMillis = settings.getSocketTimeoutMillis();
+        this.socketTimeoutResponseTimeMultiplier = settings.getSocketTimeoutResponseTimeMultiplier();
+        this.responseMillisByHost = CacheBuilder.newBuilder()
+                .maximumSize(settings.getResponseTimeHostsMaximumSize())
+                .expireAfterAccess(settings.getFoundTimeToLiveSeconds(), TimeUnit.SECONDS)
+                .build();
+        this.foundUrls = CacheBuilder.newBuilder()
+                .maximumSize(settings.getCacheMaximumSize())
+                .expireAfterWrite(settings.getFoundTimeToLiveSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        this.missingUrls = CacheBuilder.newBuilder()
+                .maximumSize(settings.getCacheMaximumSize())
+                .expireAfterWrite(settings.getMissingTimeToLiveSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Verifies the existence of an HTTP URL file without waiting for the HEAD request.
+     *
+     * @param fileUrl The file to verify.
+     * @return The future status of the file, completed at once when the status of the file is cached: a valid status if the
+     * file is found, an unavailable status if the check was rejected or timed out, a not found or invalid status otherwise.
+     */
+    public CompletableFuture<ValidationStatus> verify(String fileUrl) {
+        final String patchedUrl = URLUtil.patchURL(fileUrl);
+        final ValidationStatus cachedStatus = getCachedStatus(patchedUrl);
+        if (cachedStatus != null) {
+            return CompletableFuture.completedFuture(cachedStatus);
+        }
+        final CompletableFuture<ValidationStatus> check = new CompletableFuture<>();
+        final CompletableFuture<ValidationStatus> runningCheck = runningChecks.putIfAbsent(patchedUrl, check);
+        if (runningCheck != null) {
+            return runningCheck;
+        }
+        final int socketTimeoutMillis = socketTimeoutMillis(patchedUrl);
+        try {
+            checkExecutor.execute(() -> {
+                try {
+                    check.complete(head(fileUrl, patchedUrl, socketTimeoutMillis));
+                } catch (Exception e) {
+                    check.completeExceptionally(e);
+                } finally {
+                    runningChecks.remove(patchedUrl, check);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCheckCount.incrementAndGet();
+            runningChecks.remove(patchedUrl, check);
+            LOGGER.warn("Url check rejected, too many running checks Url={}", fileUrl);
+            check.complete(ValidationStatus.unavailable());
+            return check;
+        }
+        // a check waits for a pooled connection, for the connection itself and for the response
+        final long checkTimeoutMillis = 2L * connectTimeoutMillis + socketTimeoutMillis;
+        final ScheduledFuture<?> timeout = timeoutExecutor.schedule(() -> {
+            if (check.complete(ValidationStatus.unavailable())) {
+                runningChecks.remove(patchedUrl, check);
+                timedOutCheckCount.incrementAndGet();
+                LOGGER.warn("Url check timed out Url={} TimeoutMillis={}", fileUrl, checkTimeoutMillis);
+            }
+        }, checkTimeoutMillis, TimeUnit.MILLISECONDS);
+        check.whenComplete((status, failure) -> timeout.cancel(false));
+        return check;
+    }
+
+    /**
+     * @return The socket timeout of a HEAD request to the host of a URL, a multiple of the average response time of the host.
+     */
+    private int socketTimeoutMillis(String patchedUrl) {
+        final AtomicLong responseMillis = responseMillisByHost.getIfPresent(host(patchedUrl));
+        if (responseMillis == null) {
+            return maxSocketTimeoutMillis;
+        }
+        final long socketTimeoutMillis = socketTimeoutResponseTimeMultiplier * responseMillis.get();
+        return (int) Math.max(minSocketTimeoutMillis, Math.min(maxSocketTimeoutMillis, socketTimeoutMillis));
+    }
+
+    /**
+     * Adds the response time of a HEAD request to the average response time of its host.
+     */
+    private void recordResponseTime(String patchedUrl, long responseMillis) {
+        try {
+            responseMillisByHost.get(host(patchedUrl), () -> new AtomicLong(responseMillis))
+                    .updateAndGet(averageMillis -> averageMillis + (responseMillis - averageMillis) / RESPONSE_TIME_SMOOTHING);
+        } catch (ExecutionException e) {
+            LOGGER.warn(e, "Url response time not recorded Url={}", patchedUrl);
+        }
+    }
+
+    private static String host(String patchedUrl) {
+        final int hostStart = patchedUrl.indexOf("//") + 2;
+        final int hostEnd = patchedUrl.indexOf('/', hostStart);
+        return hostEnd < 0 ? patchedUrl.substring(hostStart) : patchedUrl.substring(hostStart, hostEnd);
+    }
+
+    private ValidationStatus getCachedStatus(String patchedUrl) {
+        final ValidationStatus foundStatus = foundUrls.getIfPresent(patchedUrl);
+        return foundStatus == null ? missingUrls.getIfPresent(patchedUrl) : foundStatus;
+    }
+
+    /**
+     * Sends the HEAD request of a file, and caches the status of the file when the server answered.
+     * Failures to reach the server are not cached.
+     */
+    private ValidationStatus head(String fileUrl, String patchedUrl, int socketTimeoutMillis) {
+        final URI fileURI;
+        try {
+            fileURI = new URI(patchedUrl);
+        } catch (URISyntaxException use) {
+            LOGGER.warn(use, "Url check failed Url={}", fileUrl);
+            final ValidationStatus invalidStatus = new ValidationStatus(false, "Provided fileUrl is invalid.", ValidationStatus.INVALID);
+            missingUrls.put(patchedUrl, invalidStatus);
+            return invalidStatus;
+        }
+        final HttpHead head = new HttpHead(fileURI);
+        head.setConfig(RequestConfig.copy(requestConfig).setSocketTimeout(socketTimeoutMillis).build());
+        final long start = System.currentTimeMillis();
+        try (CloseableHttpResponse response = httpClient.execute(head)) {
+            recordResponseTime(patchedUrl, System.currentTimeMillis() - start);
+            if (response.getStatusLine().getStatusCode() == HttpURLConnection.HTTP_OK) {
+                final ValidationStatus foundStatus = new ValidationStatus(true, "", ValidationStatus.VALID);
+                foundUrls.put(patchedUrl, foundStatus);
+                return foundStatus;
+            }
+            final ValidationStatus missingStatus = new ValidationStatus(false, FILE_NOT_FOUND_MESSAGE, ValidationStatus.NOT_FOUND);
+            missingUrls.put(patchedUrl, missingStatus);
+            return missingStatus;
+        } catch (SocketTimeoutException e) {
+            // a host slower than its timeout raises its average response time, and so its next timeouts
+            recordResponseTime(patchedUrl, socketTimeoutMillis);
+            LOGGER.warn(e, "Url check timed out Url={} SocketTimeoutMillis={}", fileUrl, socketTimeoutMillis);
+            return ValidationStatus.unavailable();
+        } catch (Exception e) {
+            LOGGER.warn(e, "Url check failed Url={}", fileUrl);
+            return new ValidationStatus(false, FILE_NOT_FOUND_MESSAGE, ValidationStatus.NOT_FOUND);
+        }
+    }
+
+    @Gauge(name = "urlCheckCacheHits")
+    public Long hitCount() {
+        return foundUrls.stats().hitCount() + missingUrls.stats().hitCount();
+    }
+
+    @Gauge(name = "urlCheckCacheSize")
+    public Long size() {
+        return foundUrls.size() + missingUrls.size();
+    }
+
+    @Gauge(name = "urlCheckRunningChecks")
+    public Integer runningCheckCount() {
+        return checkExecutor.getActiveCount();
+    }
+
+    @Gauge(name = "urlCheckRejectedChecks")
+    public Long rejectedCheckCount() {
+        return rejectedCheckCount.get();
+    }
+
+    @Gauge(name = "urlCheckTimedOutChecks")
+    public Long timedOutCheckCount() {
+        return timedOutCheckCount.get();
+    }
+
+    @Gauge(name = "urlCheckLeasedConnections")
+    public Integer leasedConnectionCount() {
+        return connectionManager.getTotalStats().getLeased();
+    }
+
+    @Override
+    public void close() throws IOException {
+        timeoutExecutor.shutdownNow();
+        checkExecutor.shutdownNow();
+        httpClient.close();
+    }
+}
@@ -4,14 +4,21 @@ import com.expedia.content.media.processing.pipeline.domain.ImageMessage;
 import com.expedia.content.media.processing.pipeline.util.FormattedLogger;
 import com.expedia.content.media.processing.services.util.ValidatorUtil;
 import org.mvel2.MVEL;
+import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.integration.impl.MapVariableResolverFactory;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * validation {@code ImageMessage} list based on MVEL rule that defined in xml configuration
+ * <p>
+ * The rules are compiled when they are set, a rule that does not compile fails the creation of the validator. The compiled
+ * rules are split once between the rules on the message and the rules on the domain data.
  */
 public class MVELValidator implements MapMessageValidator {
     private static final FormattedLogger LOGGER = new FormattedLogger(MVELValidator.class);
@@ -27,13 +34,25 @@ public class MVELValidator implements MapMessageValidator {
     }
 
     private Map<String, List<String>> ruleMaps;
+    private Map<String, CompiledRules> compiledRuleMaps = Collections.emptyMap();
 
     public Map<String, List<String>> getRuleMaps() {
         return ruleMaps;
     }
 
+    /**
+     * Sets and compiles the rules of each client.
+     *
+     * @param ruleMaps The rules by client.
+     * @throws org.mvel2.CompileException Thrown if a rule does not compile.
+     */
     public void setRuleMaps(Map<String, List<String>> ruleMaps) {
+        final Map<String, CompiledRules> compiledRules = new HashMap<>();
+        for (final Map.Entry<String, List<String>> clientRules : ruleMaps.entrySet()) {
+            compiledRules.put(clientRules.getKey(), new CompiledRules(clientRules.getValue()));
+        }
         this.ruleMaps = ruleMaps;
+        this.compiledRuleMaps = compiledRules;
     }
 
     /**
@@ -45,20 +64,19 @@ public class MVELValidator implements MapMessageValidator {
     @SuppressWarnings({"rawtypes", "unchecked"})
     public List<String> validateImages(List<ImageMessage> messageList) {
         final List<String> list = new ArrayList<>();
-        final List<String> ruleList = ruleMaps.get(clientRule);
+        final CompiledRules rules = compiledRuleMaps.get(clientRule);
         final Map messageMap = new HashMap();
-        final Map domainMap = new HashMap();
+        final VariableResolverFactory variables = new MapVariableResolverFactory(messageMap);
         for (final ImageMessage imageMessage : messageList) {
             final StringBuffer errorMsg = new StringBuffer();
             messageMap.put("imageMessage", imageMessage);
             //compare ImageMessage (non outer domain) fields with rules
-            compareRulesWithMessageMap(errorMsg, ruleList, messageMap);
+            compareRulesWithMessageMap(errorMsg, rules.messageRules, variables, imageMessage);
             if (imageMessage.getOuterDomainData() != null) {
-                domainMap.put(RULE_PREFIX, imageMessage.getOuterDomainData());
-                //merge two map because rule
+                //both variables are in the same map because of rules like
                 //imageMessage.imageType.imageType.equals('Lodging')&amp;&amp;!domainData.domainDataName.equals('LCM') ?"domainDataName must be LCM.":"valid"
-                messageMap.putAll(domainMap);
-                compareRulesWithDomainMap(errorMsg, ruleList, messageMap);
+                messageMap.put(RULE_PREFIX, imageMessage.getOuterDomainData());
+                compareRulesWithDomainMap(errorMsg, rules.domainRules, variables, imageMessage);
             }
             if (errorMsg.length() > 0) {
                 ValidatorUtil.putErrorMapToList(list, errorMsg);
@@ -67,15 +85,13 @@ public class MVELValidator implements MapMessageValidator {
         return list;
     }
 
-    private void compareRulesWithMessageMap(StringBuffer errorMsg, List<String> ruleList, Map<String, Object> objectMap) {
-        for (final String rule : ruleList) {
+    private void compareRulesWithMessageMap(StringBuffer errorMsg, List<Serializable> ruleList, VariableResolverFactory variables, ImageMessage imageMessage) {
+        for (final Serializable rule : ruleList) {
             String validationError = "";
             try {
-                if (!rule.contains(RULE_PREFIX)) {
-                    validationError = MVEL.eval(rule, objectMap).toString();
-                }
+                validationError = MVEL.executeExpression(rule, variables).toString();
             } catch (Exception ex) {
-                LOGGER.error(ex, "Rule compare exception", (ImageMessage) objectMap.get("imageMessage"));
+                LOGGER.error(ex, "Rule compare exception", imageMessage);
             }
             if (!validationError.contains("valid") && !"".equals(validationError)) {
                 errorMsg.append(validationError).append("\r\n");
@@ -83,16 +99,13 @@ public class MVELValidator implements MapMessageValidator {
         }
     }
 
-    private void compareRulesWithDomainMap(StringBuffer errorMsg, List<String> ruleList, Map<String, Object> objectMap) {
-        for (final String rule : ruleList) {
+    private void compareRulesWithDomainMap(StringBuffer errorMsg, List<Serializable> ruleList, VariableResolverFactory variables, ImageMessage imageMessage) {
+        for (final Serializable rule : ruleList) {
             String validationError = "";
             try {
-                if (rule.contains(RULE_PREFIX)) {
-                    validationError = "domainDataFields." + MVEL.eval(rule, objectMap).toString();
-
-                }
+                validationError = "domainDataFields." + MVEL.executeExpression(rule, variables).toString();
             } catch (Exception ex) {
-                LOGGER.warn(ex, "Rule compare exception", (ImageMessage) objectMap.get("imageMessage"));
+                LOGGER.warn(ex, "Rule compare exception", imageMessage);
                 //TODO: not very good solution here, later we need to define a validation Object for domain field Map
                 //now domainFields like domainData.domainDataFields.categoryId is not required any more
                 // String exceptionMsg = ex.getMessage();
@@ -104,6 +117,23 @@ public class MVELValidator implements MapMessageValidator {
         }
     }
 
+    /**
+     * The compiled rules of a client, split between the rules on the message and the rules on the domain data.
+     */
+    private static final class CompiledRules {
+        private final List<Serializable> messageRules = new ArrayList<>();
+        private final List<Serializable> domainRules = new ArrayList<>();
+
+        private CompiledRules(List<String> ruleList) {
+            for (final String rule : ruleList) {
+                if (rule.contains(RULE_PREFIX)) {
+                    domainRules.add(MVEL.compileExpression(rule));
+                } else {
+                    messageRules.add(MVEL.compileExpression(rule));
+                }
+            }
+        }
+    }
 }
 
 
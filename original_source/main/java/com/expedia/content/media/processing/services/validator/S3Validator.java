@@ -1,47 +1,135 @@
 package com.expedia.content.media.processing.services.validator;
 
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3Client;
-import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
-import com.amazonaws.services.s3.model.S3Object;
 import com.expedia.content.media.processing.pipeline.util.FormattedLogger;
-import org.apache.commons.lang.StringUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import expedia.content.solutions.metrics.annotations.Gauge;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.net.HttpURLConnection;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Verifies if a file exists in the S3 repo.
+ * The files are verified with the metadata of their objects, read through one shared S3 client. A limited number of checks
+ * run at the same time, a check that can not start in time fails with an unavailable status the client can retry on. The
+ * results are cached for a short time, the missing files for a shorter time than the found ones.
+ * Note that the {@code @Gauge} annotations introduce aspects from metrics-support.
  */
 public class S3Validator {
     private static final FormattedLogger LOGGER = new FormattedLogger(S3Validator.class);
 
     public static final String S3_PREFIX = "s3://";
 
-    private S3Validator() {
+    private static final String FILE_NOT_FOUND_MESSAGE = "Provided fileUrl does not exist.";
+
+    private final AmazonS3 s3Client;
+    private final Semaphore checkPermits;
+    private final long checkPermitTimeoutMillis;
+    private final Cache<String, ValidationStatus> foundObjects;
+    private final Cache<String, ValidationStatus> missingObjects;
+    private final AtomicLong rejectedCheckCount = new AtomicLong();
+
+    /**
+     * Settings of the validator, bound from the {@code media.s3-check} properties of the active profile.
+     */
+    @Getter
+    @Setter
+    public static class Settings {
+        private int maxConnections = 50;
+        private int connectTimeoutMillis = 2000;
+        private int socketTimeoutMillis = 5000;
+        private int maxConcurrentChecks = 20;
+        private long checkPermitTimeoutMillis = 2000;
+        private long cacheMaximumSize = 10000;
+        private long foundTimeToLiveSeconds = 300;
+        private long missingTimeToLiveSeconds = 30;
+
+        /**
+         * @return The configuration of an S3 client sized for the checks.
+         */
+        public ClientConfiguration toClientConfiguration() {
+            return new ClientConfiguration()
+                    .withMaxConnections(maxConnections)
+                    .withConnectionTimeout(connectTimeoutMillis)
+                    .withSocketTimeout(socketTimeoutMillis);
+        }
+    }
+
+    /**
+     * @param s3Client The S3 client shared by the checks.
+     * @param settings Settings of the checks.
+     */
+    public S3Validator(AmazonS3 s3Client, Settings settings) {
+        this.s3Client = s3Client;
+        this.checkPermits = new Semaphore(settings.getMaxConcurrentChecks());
+        this.checkPermitTimeoutMillis = settings.getCheckPermitTimeoutMillis();
+        this.foundObjects = CacheBuilder.newBuilder()
+                .maximumSize(settings.getCacheMaximumSize())
+                .expireAfterWrite(settings.getFoundTimeToLiveSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        this.missingObjects = CacheBuilder.newBuilder()
+                .maximumSize(settings.getCacheMaximumSize())
+                .expireAfterWrite(settings.getMissingTimeToLiveSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
     }
 
     /**
      * Verifies if a file exists in the S3 repo.
      *
      * @param fileUrl The file to verify.
-     * @return true if found, false otherwise.
+     * @return A valid status if found, an unavailable status if the check could not start in time or S3 failed, a not found
+     * status otherwise.
      */
-    public static ValidationStatus checkFileExists(String fileUrl) {
-        ValidationStatus validationStatus = new ValidationStatus(false, "Provided fileUrl does not exist.", ValidationStatus.NOT_FOUND);
-        String bucketName = StringUtils.EMPTY;
-        String objectName = StringUtils.EMPTY;
+    public ValidationStatus verify(String fileUrl) {
+        final String bucketName = getBucketName(fileUrl);
+        final String objectName = getObjectName(fileUrl);
+        final String objectKey = bucketName + '/' + objectName;
+        final ValidationStatus foundStatus = foundObjects.getIfPresent(objectKey);
+        if (foundStatus != null) {
+            return foundStatus;
+        }
+        final ValidationStatus missingStatus = missingObjects.getIfPresent(objectKey);
+        if (missingStatus != null) {
+            return missingStatus;
+        }
         try {
-            bucketName = getBucketName(fileUrl);
-            objectName = getObjectName(fileUrl);
-            final AmazonS3 s3Client = new AmazonS3Client();
-            final S3Object object = s3Client.getObject(new GetObjectRequest(bucketName, objectName));
-            if (object != null) {
-                validationStatus = checkFileIsGreaterThanZero(object);
+            if (!checkPermits.tryAcquire(checkPermitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                rejectedCheckCount.incrementAndGet();
+                LOGGER.warn("s3 key query rejected, too many running queries fileUrl = {}", fileUrl);
+                return ValidationStatus.unavailable();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn(e, "s3 key query interrupted fileUrl = {}", fileUrl);
+            return ValidationStatus.unavailable();
+        }
+        try {
+            final ValidationStatus validationStatus = checkFileIsGreaterThanZero(s3Client.getObjectMetadata(bucketName, objectName));
+            (validationStatus.isValid() ? foundObjects : missingObjects).put(objectKey, validationStatus);
+            return validationStatus;
         } catch (AmazonServiceException e) {
             LOGGER.error(e, "s3 key query exception fileUrl = {} bucketName = {} objectName = {}", fileUrl, bucketName, objectName);
+            if (e.getStatusCode() >= HttpURLConnection.HTTP_INTERNAL_ERROR) {
+                return ValidationStatus.unavailable();
+            }
+            final ValidationStatus notFoundStatus = new ValidationStatus(false, FILE_NOT_FOUND_MESSAGE, ValidationStatus.NOT_FOUND);
+            if (e.getStatusCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                missingObjects.put(objectKey, notFoundStatus);
+            }
+            return notFoundStatus;
+        } finally {
+            checkPermits.release();
         }
-        return validationStatus;
     }
 
     private static String getBucketName(String fileUrl) {
@@ -56,11 +144,25 @@ public class S3Validator {
 
     /**
      * Verifies if the file is not empty.
-     * @param object S3 object associated to the file
+     * @param objectMetadata Metadata of the S3 object associated to the file
      * @return false iff ObjectMetadata exists and the ContentLength is 0
      */
-    private static ValidationStatus checkFileIsGreaterThanZero(S3Object object) {
-        final ObjectMetadata objectMetadata = object.getObjectMetadata();
+    private static ValidationStatus checkFileIsGreaterThanZero(ObjectMetadata objectMetadata) {
         return new ValidationStatus(objectMetadata == null || (objectMetadata.getContentLength() > 0), "Provided file is 0 Bytes", ValidationStatus.ZERO_BYTES);
     }
+
+    @Gauge(name = "s3CheckCacheHits")
+    public Long hitCount() {
+        return foundObjects.stats().hitCount() + missingObjects.stats().hitCount();
+    }
+
+    @Gauge(name = "s3CheckCacheSize")
+    public Long size() {
+        return foundObjects.size() + missingObjects.size();
+    }
+
+    @Gauge(name = "s3CheckRejectedChecks")
+    public Long rejectedCheckCount() {
+        return rejectedCheckCount.get();
+    }
 }
@@ -3,7 +3,10 @@ package com.expedia.content.media.processing.services.validator;
 import com.expedia.content.media.processing.pipeline.util.FormattedLogger;
 import com.expedia.content.media.processing.services.reqres.TempDerivativeMessage;
 import org.mvel2.MVEL;
+import org.mvel2.integration.impl.MapVariableResolverFactory;
 
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -11,14 +14,26 @@ import java.util.Map;
 
 /**
  * validation {@code TempDerivative} list based on the Temporary Derivative API
+ * <p>
+ * The rules are compiled when they are set, a rule that does not compile fails the creation of the validator.
  */
 public class TempDerivativeMVELValidator {
     private static final FormattedLogger LOGGER = new FormattedLogger(TempDerivativeMVELValidator.class);
-    private List<String> ruleList;
+    private List<Serializable> ruleList;
 
 
+    /**
+     * Sets and compiles the rules.
+     *
+     * @param ruleMaps The rules.
+     * @throws org.mvel2.CompileException Thrown if a rule does not compile.
+     */
     public void setRuleList(List<String> ruleMaps) {
-        this.ruleList = ruleMaps;
+        final List<Serializable> compiledRules = new ArrayList<>(ruleMaps.size());
+        for (final String rule : ruleMaps) {
+            compiledRules.add(MVEL.compileExpression(rule));
+        }
+        this.ruleList = compiledRules;
     }
 
     /**
@@ -34,11 +49,12 @@ public class TempDerivativeMVELValidator {
         return compareRulesWithMessageMap(errorMsg, ruleList, messageMap);
     }
 
-    private String compareRulesWithMessageMap(StringBuffer errorMsg, List<String> ruleList, Map<String, Object> objectMap) {
-        for (final String rule : ruleList) {
+    private String compareRulesWithMessageMap(StringBuffer errorMsg, List<Serializable> ruleList, Map<String, Object> objectMap) {
+        final MapVariableResolverFactory variables = new MapVariableResolverFactory(objectMap);
+        for (final Serializable rule : ruleList) {
             String validationError = "";
             try {
-                validationError = MVEL.eval(rule, objectMap).toString();
+                validationError = MVEL.executeExpression(rule, variables).toString();
 
             } catch (Exception ex) {
                 LOGGER.error(ex, "rule compare exception Message={}", objectMap.get("tempDerivativeMessage"));
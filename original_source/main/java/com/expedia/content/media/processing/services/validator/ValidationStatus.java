@@ -15,11 +15,23 @@ public class ValidationStatus {
     public static final String NOT_FOUND = "not found";
     public static final String INVALID = "invalid";
     public static final String VALID = "valid";
+    /**
+     * The file could not be verified for now, the request can be retried.
+     */
+    public static final String UNAVAILABLE = "unavailable";
+    private static final String UNAVAILABLE_MESSAGE = "Provided fileUrl could not be verified, retry later.";
 
     private boolean isValid;
     private String message;
     private String status;
 
+    /**
+     * @return The status of a file that could not be verified for now.
+     */
+    public static ValidationStatus unavailable() {
+        return new ValidationStatus(false, UNAVAILABLE_MESSAGE, UNAVAILABLE);
+    }
+
     public boolean isValid() {
         return isValid;
     }
@@ -0,0 +1,3 @@
+-- Supports the cursor pagination of media by domain id: WHERE `domain` = ? AND `domain-id` = ? ... AND `guid` > ? ORDER BY `guid` LIMIT ?
+-- seeks to the continuation point and reads the page in index order instead of reading and discarding the skipped rows.
+CREATE INDEX `media-domain-guid` ON `media` (`domain`, `domain-id`, `guid`);
@@ -0,0 +1,5 @@
+-- Indexed copy of the lcmMediaId held in `domain-fields`, written by addMedia, updateMedia and unheroMedia.
+-- Lookups by media id (WHERE `lcm-media-id` = ?) seek the index instead of scanning `domain-fields` with LIKE.
+-- Existing rows are filled by MediaDBDomainFieldsIndexer with mdb.domainfields.reconcile.mode=backfill.
+ALTER TABLE `media` ADD COLUMN `lcm-media-id` VARCHAR(64) NULL;
+CREATE INDEX `media-lcm-media-id` ON `media` (`lcm-media-id`);
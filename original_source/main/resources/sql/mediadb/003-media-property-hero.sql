@@ -0,0 +1,9 @@
+-- Indexed copy of the propertyHero flag held in `domain-fields`, written by addMedia, updateMedia and the unhero statements.
+-- Heroes of a property are found with WHERE `domain` = ? AND `domain-id` = ? AND `property-hero` = 1 instead of a LIKE over
+-- `domain-fields`, and are unheroed with a single UPDATE per property.
+ALTER TABLE `media` ADD COLUMN `property-hero` TINYINT(1) NOT NULL DEFAULT 0;
+CREATE INDEX `media-domain-property-hero` ON `media` (`domain`, `domain-id`, `property-hero`);
+-- one time fill of the existing heroes, MediaDBDomainFieldsIndexer (mdb.domainfields.reconcile.mode) verifies the result.
+-- The flag is read as DomainFields.isPropertyHero does, a "true" string in any case or a JSON true, whatever the spacing.
+UPDATE `media` SET `property-hero` = 1
+WHERE JSON_VALID(`domain-fields`) AND LOWER(JSON_UNQUOTE(JSON_EXTRACT(`domain-fields`, '$.propertyHero'))) = 'true';
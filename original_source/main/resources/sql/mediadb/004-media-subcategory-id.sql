@@ -0,0 +1,7 @@
+-- Indexed copy of the numeric subcategoryId held in `domain-fields`, generated by MySQL so every write keeps it in sync.
+-- The media listings of a domain item are ordered on it instead of parsing and casting `domain-fields` for every row.
+-- Rows whose domain-fields are not valid JSON, or whose subcategoryId is not a number, get NULL and are listed last.
+ALTER TABLE `media` ADD COLUMN `subcategory-id` INT UNSIGNED AS (
+    IF(JSON_VALID(`domain-fields`) AND JSON_UNQUOTE(JSON_EXTRACT(`domain-fields`, '$.subcategoryId')) REGEXP '^[0-9]+$',
+       CAST(JSON_UNQUOTE(JSON_EXTRACT(`domain-fields`, '$.subcategoryId')) AS UNSIGNED), NULL)) STORED;
+CREATE INDEX `media-domain-subcategory-id` ON `media` (`domain`, `domain-id`, `subcategory-id`);
@@ -3,6 +3,7 @@ package com.expedia.content.media.processing.services;
 import com.expedia.content.media.processing.pipeline.util.Poker;
 import com.expedia.content.media.processing.services.dao.DomainCategoriesDao;
 import com.expedia.content.media.processing.services.dao.domain.Category;
+import com.expedia.content.media.processing.services.dao.domain.DomainCategory;
 import com.expedia.content.media.processing.services.dao.domain.LocalizedName;
 import com.expedia.content.media.processing.services.dao.domain.Subcategory;
 
@@ -25,8 +26,10 @@ import static com.expedia.content.media.processing.services.testing.TestingUtil.
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -103,6 +106,24 @@ public class CategoryControllerTest {
                 response.getBody());
     }
 
+    @Test
+    public void testSnapshotResponse() throws Exception {
+        final DomainCategoriesSnapshotService snapshotService = new DomainCategoriesSnapshotService(mockMediaDomainCategoriesDao);
+        when(mockMediaDomainCategoriesDao.getDomainCategories(anyString())).thenReturn(Arrays.asList(
+                DomainCategory.builder().categoryId("1234").localeId(LOCALE_ID).localizedName("cat-name").build(),
+                DomainCategory.builder().parentCategoryId("1234").categoryId("4321").localeId(LOCALE_ID).localizedName("sub-name").build()));
+        snapshotService.loadSnapshots();
+        categoryController.setDomainCategoriesSnapshotService(snapshotService);
+        MultiValueMap<String, String> mockHeader = new HttpHeaders();
+        mockHeader.add("request-id", "test-request-id");
+        ResponseEntity<String> response = categoryController.domainCategories(mockHeader, "lodging", LOCALE_ID);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(snapshotService.getDomainCategories("lodging", LOCALE_ID).get().getJson(), response.getBody());
+        assertEquals(snapshotService.getDomainCategories("lodging", LOCALE_ID).get().getETag(), response.getHeaders().getETag());
+        assertTrue(response.getBody().contains("\"sub-name\""));
+        verify(mockMediaDomainCategoriesDao, never()).getMediaCategoriesWithSubCategories(anyString(), anyString());
+    }
+
     @Test
     public void testDomainNotFound() throws Exception {
         final String lodgingDomain = "potato";
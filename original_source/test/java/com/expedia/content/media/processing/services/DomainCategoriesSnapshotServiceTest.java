@@ -0,0 +1,100 @@
+package com.expedia.content.media.processing.services;
+
+import com.expedia.content.media.processing.services.DomainCategoriesSnapshotService.CategoriesResponse;
+import com.expedia.content.media.processing.services.dao.DomainCategoriesDao;
+import com.expedia.content.media.processing.services.dao.domain.DomainCategory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DomainCategoriesSnapshotServiceTest {
+
+    @Mock
+    private DomainCategoriesDao domainCategoriesDao;
+
+    private DomainCategoriesSnapshotService snapshotService;
+
+    @Before
+    public void initialize() {
+        snapshotService = new DomainCategoriesSnapshotService(domainCategoriesDao);
+    }
+
+    @Test
+    public void testResponsesByLocale() {
+        when(domainCategoriesDao.getDomainCategories(anyString())).thenReturn(buildDomainCategories());
+        snapshotService.loadSnapshots();
+        final CategoriesResponse english = snapshotService.getDomainCategories("lodging", "1033").get();
+        assertEquals("{\"domain\":\"lodging\",\"categories\":[{\"categoryId\":\"1234\",\"categoryName\":[{\"localizedName\":\"cat-name\","
+                + "\"localeId\":\"1033\"}],\"subcategories\":[{\"subcategoryId\":\"4321\",\"subcategoryName\":[{\"localizedName\":\"sub-name\","
+                + "\"localeId\":\"1033\"}]}]}]}", english.getJson());
+        final CategoriesResponse french = snapshotService.getDomainCategories("Lodging", "1036").get();
+        assertTrue(french.getJson().contains("\"nom-cat\""));
+        assertFalse(french.getJson().contains("\"cat-name\""));
+        final CategoriesResponse allLocales = snapshotService.getDomainCategories("LODGING", null).get();
+        assertTrue(allLocales.getJson().contains("\"nom-cat\""));
+        assertTrue(allLocales.getJson().contains("\"cat-name\""));
+        assertNotEquals(english.getETag(), french.getETag());
+        assertFalse(snapshotService.getDomainCategories("lodging", "2058").isPresent());
+        assertFalse(snapshotService.getDomainCategories("potato", null).isPresent());
+        assertEquals(Long.valueOf(2L), snapshotService.missCount());
+    }
+
+    @Test
+    public void testSnapshotIsRebuiltOnlyWhenTheRowsChange() {
+        final List<DomainCategory> domainCategories = buildDomainCategories();
+        when(domainCategoriesDao.getDomainCategories(anyString())).thenReturn(domainCategories);
+        snapshotService.loadSnapshots();
+        final CategoriesResponse response = snapshotService.getDomainCategories("lodging", "1033").get();
+
+        final List<DomainCategory> reorderedDomainCategories = new ArrayList<>(domainCategories);
+        Collections.reverse(reorderedDomainCategories);
+        when(domainCategoriesDao.getDomainCategories(anyString())).thenReturn(reorderedDomainCategories);
+        snapshotService.refreshSnapshots();
+        assertSame(response, snapshotService.getDomainCategories("lodging", "1033").get());
+        assertEquals(Long.valueOf(1L), snapshotService.rebuildCount());
+
+        final List<DomainCategory> changedDomainCategories = new ArrayList<>(domainCategories);
+        changedDomainCategories.add(DomainCategory.builder().parentCategoryId("1234").categoryId("4322").localeId("1033").localizedName("sub-name-2").build());
+        when(domainCategoriesDao.getDomainCategories(anyString())).thenReturn(changedDomainCategories);
+        snapshotService.refreshSnapshots();
+        final CategoriesResponse changedResponse = snapshotService.getDomainCategories("lodging", "1033").get();
+        assertTrue(changedResponse.getJson().contains("\"sub-name-2\""));
+        assertNotEquals(response.getETag(), changedResponse.getETag());
+        assertEquals(Long.valueOf(2L), snapshotService.rebuildCount());
+    }
+
+    @Test
+    public void testFailedLoadLeavesNoSnapshot() {
+        when(domainCategoriesDao.getDomainCategories(anyString())).thenThrow(new IllegalStateException("database down"));
+        snapshotService.loadSnapshots();
+        assertFalse(snapshotService.getDomainCategories("lodging", "1033").isPresent());
+    }
+
+    private static List<DomainCategory> buildDomainCategories() {
+        return Arrays.asList(
+                DomainCategory.builder().categoryId("1234").localeId("1033").localizedName("cat-name").build(),
+                DomainCategory.builder().categoryId("1234").localeId("1036").localizedName("nom-cat").build(),
+                DomainCategory.builder().parentCategoryId("1234").categoryId("4321").localeId("1033").localizedName("sub-name").build(),
+                DomainCategory.builder().parentCategoryId("1234").categoryId("4321").localeId("1036").localizedName("nom-sous-cat").build(),
+                DomainCategory.builder().categoryId("3").localeId("1033").localizedName("Primary Image").build(),
+                DomainCategory.builder().parentCategoryId("3").categoryId("3").localeId("1033").localizedName("Featured Image").build(),
+                DomainCategory.builder().categoryId("1").localeId("1033").localizedName("").build(),
+                DomainCategory.builder().parentCategoryId("1").categoryId("0").localeId("1033").localizedName("").build());
+    }
+}
@@ -7,6 +7,7 @@ import com.expedia.content.media.processing.pipeline.reporting.Reporting;
 import com.expedia.content.media.processing.services.dao.MediaDao;
 import com.expedia.content.media.processing.services.dao.domain.Media;
 import com.expedia.content.media.processing.services.dao.domain.Thumbnail;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -20,11 +21,12 @@ import org.springframework.test.context.ContextConfiguration;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.Executors;
 
 import static com.expedia.content.media.processing.services.testing.TestingUtil.setFieldValue;
 import static org.junit.Assert.assertEquals;
@@ -33,6 +35,7 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -60,6 +63,7 @@ public class MediaAddProcessorTest {
     @Mock
     private Properties mockProviderProperties;
 
+    private MediaUnheroProcessor mediaUnheroProcessor;
     private MediaAddProcessor mediaAddProcessor;
     private Properties providerProperties;
 
@@ -73,11 +77,18 @@ public class MediaAddProcessorTest {
         providerProperties.setProperty("54", "Despegar");
         providerProperties.setProperty("56", "ICE Portal");
         providerProperties.setProperty("56", "VFMLeonardo");
-        mediaAddProcessor = new MediaAddProcessor(mockMediaDao, kafkaCommonPublisher, thumbnailProcessor, logActivityProcess, reporting, messagingTemplate);
+        mediaUnheroProcessor = new MediaUnheroProcessor(mockMediaDao, kafkaCommonPublisher, Executors.newSingleThreadExecutor(), 5000L);
+        mediaAddProcessor = new MediaAddProcessor(mockMediaDao, kafkaCommonPublisher, thumbnailProcessor, logActivityProcess, reporting, messagingTemplate,
+                mediaUnheroProcessor);
         setFieldValue(mediaAddProcessor, "providerProperties", mockProviderProperties);
         when(mockProviderProperties.entrySet()).thenReturn(providerProperties.entrySet());
     }
 
+    @After
+    public void tearDown() throws Exception {
+        mediaUnheroProcessor.shutdown();
+    }
+
     @Test
     public void testProcessNewMediaAddRequest() throws Exception {
         String jsonMessage = "{ "
@@ -124,16 +135,16 @@ public class MediaAddProcessorTest {
                 "{\"propertyHero\":\"false\",\"subcategoryId\":\"22001\"}",
                 new Date(), "true", "EPC", "EPC", "bobtheokay", "", null, "2345145145341", "23142513425431", "", "123", new ArrayList<>(),
                 new HashMap<>(), new ArrayList<>(), "", "", true, false, null);
-        Media heroMedia = Media.builder().lcmMediaId("1234").mediaGuid("aaa45678-aaaa-bbbb-cccc-123456789112").domainFields("{\"subcategoryId\":\"22024\",\"propertyHero\":\"true\"}").build();
-        List heroMediaList = Arrays.asList(Optional.of(heroMedia));
-        when(mockMediaDao.getHeroMediaByDomainId(anyString())).thenReturn(heroMediaList);
+        Media heroMedia = Media.builder().lcmMediaId("1234").mediaGuid("aaa45678-aaaa-bbbb-cccc-123456789112").domainFields("{\"propertyHero\":\"false\",\"subcategoryId\":\"22024\"}").build();
+        when(mockMediaDao.unheroMediaByDomainId(eq("1238"), anyString())).thenReturn(Collections.singletonList(heroMedia));
 
         mediaAddProcessor.processRequest(jsonMessage, "123", "expedia.com", "blinn", HttpStatus.ACCEPTED, new Date());
         media.setUserId("bobthegreat");
         media.setDomainFields("{\"propertyHero\":\"true\",\"subcategoryId\":\"22003\"}");
         ImageMessage updatedImageMessage = media.toImageMessage();
         ArgumentCaptor<ImageMessage> argument = ArgumentCaptor.forClass(ImageMessage.class);
-        verify(mockMediaDao, times(1)).unheroMedia(anyString(), anyString());
+        verify(mockMediaDao, times(1)).unheroMediaByDomainId(eq("1238"), anyString());
+        verify(mockMediaDao, never()).unheroMedia(anyString(), anyString());
         verify(kafkaCommonPublisher, times(2)).publishImageMessage(any(ImageMessage.class), anyString(), anyString());
      }
 
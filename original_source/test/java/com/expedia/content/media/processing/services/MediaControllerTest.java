@@ -10,6 +10,7 @@ import com.expedia.content.media.processing.services.dao.MediaDao;
 import com.expedia.content.media.processing.services.dao.domain.DomainIdMedia;
 import com.expedia.content.media.processing.services.dao.domain.Media;
 import com.expedia.content.media.processing.services.dao.mediadb.MediaDBLodgingReferenceHotelIdDao;
+import com.expedia.content.media.processing.services.reqres.ImageMessageRequest;
 import com.expedia.content.media.processing.services.reqres.MediaByDomainIdResponse;
 import com.expedia.content.media.processing.services.reqres.MediaGetResponse;
 import com.expedia.content.media.processing.services.validator.MapMessageValidator;
@@ -18,6 +19,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatcher;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
@@ -36,13 +38,16 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.argThat;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
@@ -119,22 +124,53 @@ public class MediaControllerTest {
         String requestId = "12345678-1234-1234-1234-010203040506";
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
-        doReturn(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString())).when(mediaControllerSpy).verifyUrl(anyString());
+        doReturn(CompletableFuture.completedFuture(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString()))).when(mediaControllerSpy).verifyUrl(anyString());
         List<MapMessageValidator> validatorList = new ArrayList<>();
         List<String> validationErrorList = new ArrayList<>();
         when(mockMessageValidator.validateImages(any())).thenReturn(validationErrorList);
         validatorList.add(mockMessageValidator);
         when(mockValidators.get(anyString())).thenReturn(validatorList);
         when(mockValidators.getOrDefault(eq("a-user"), any())).thenReturn(validatorList);
-        when(mediaAddProcessor.processRequest(eq(jsonMessage), eq(requestId), anyString(), anyString(), eq(HttpStatus.ACCEPTED), any(Date.class)))
+        when(mediaAddProcessor.processRequest(imageMessageRequestOf(jsonMessage), eq(requestId), anyString(), anyString(), eq(HttpStatus.ACCEPTED), any(Date.class)))
                 .thenReturn(new ResponseEntity<String>("You did it!", HttpStatus.ACCEPTED));
-        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaAdd(jsonMessage, mockHeader);
+        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaAdd(new ImageMessageRequest(jsonMessage), mockHeader).get();
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.ACCEPTED, responseEntity.getStatusCode());
-        verify(mediaAddProcessor, times(1)).processRequest(anyString(), anyString(), anyString(), anyString(), any(HttpStatus.class), any(Date.class));
+        verify(mediaAddProcessor, times(1)).processRequest(any(ImageMessageRequest.class), anyString(), anyString(), anyString(), any(HttpStatus.class), any(Date.class));
         verifyZeroInteractions(mediaUpdateProcessor);
     }
 
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Test
+    public void testImageAddMessageIsBoundOnce() throws Exception {
+        String jsonMessage = "{ "
+                + "\"fileUrl\": \"https://i.imgur.com/3PRGFii.jpg\", "
+                + "\"fileName\": \"NASA_ISS-4.jpg\", "
+                + "\"userId\": \"bobthegreat\", "
+                + "\"domain\": \"Lodging\", "
+                + "\"domainId\": \"1238\", "
+                + "\"domainProvider\": \"EPC Internal User\" "
+                + "}";
+
+        String requestId = "12345678-1234-1234-1234-010203040506";
+        MultiValueMap<String, String> mockHeader = new HttpHeaders();
+        mockHeader.add("request-id", requestId);
+        doReturn(CompletableFuture.completedFuture(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString()))).when(mediaControllerSpy).verifyUrl(anyString());
+        List<MapMessageValidator> validatorList = new ArrayList<>();
+        when(mockMessageValidator.validateImages(any())).thenReturn(new ArrayList<>());
+        validatorList.add(mockMessageValidator);
+        when(mockValidators.get(anyString())).thenReturn(validatorList);
+        when(mockValidators.getOrDefault(eq("a-user"), any())).thenReturn(validatorList);
+        when(mediaAddProcessor.processRequest(imageMessageRequestOf(jsonMessage), eq(requestId), anyString(), anyString(), eq(HttpStatus.ACCEPTED), any(Date.class)))
+                .thenReturn(new ResponseEntity<String>("You did it!", HttpStatus.ACCEPTED));
+        mediaControllerSpy.mediaAdd(new ImageMessageRequest(jsonMessage), mockHeader).get();
+        ArgumentCaptor<List> validatedImages = ArgumentCaptor.forClass(List.class);
+        verify(mockMessageValidator, times(1)).validateImages(validatedImages.capture());
+        ArgumentCaptor<ImageMessageRequest> processedRequest = ArgumentCaptor.forClass(ImageMessageRequest.class);
+        verify(mediaAddProcessor, times(1)).processRequest(processedRequest.capture(), anyString(), anyString(), anyString(), any(HttpStatus.class), any(Date.class));
+        assertSame(validatedImages.getValue().get(0), processedRequest.getValue().getImageMessage());
+    }
+
     @Test
     public void testValidateNonValidImageMessage() throws Exception {
         String jsonMessage = "{ "
@@ -148,7 +184,7 @@ public class MediaControllerTest {
         String requestId = "12345678-1234-1234";
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
-        doReturn(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString())).when(mediaControllerSpy).verifyUrl(anyString());
+        doReturn(CompletableFuture.completedFuture(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString()))).when(mediaControllerSpy).verifyUrl(anyString());
         List<MapMessageValidator> validatorList = new ArrayList<>();
         List<String> validationErrorList = new ArrayList<>();
         validationErrorList.add("test Error");
@@ -157,9 +193,9 @@ public class MediaControllerTest {
         when(mockValidators.get(anyString())).thenReturn(validatorList);
         validatorList.add(mockMessageValidator);
         when(mockValidators.getOrDefault(eq("a-user"), any())).thenReturn(validatorList);
-        when(mediaAddProcessor.processRequest(eq(jsonMessage), eq(requestId), anyString(), anyString(), eq(HttpStatus.ACCEPTED), any(Date.class)))
+        when(mediaAddProcessor.processRequest(imageMessageRequestOf(jsonMessage), eq(requestId), anyString(), anyString(), eq(HttpStatus.ACCEPTED), any(Date.class)))
                 .thenReturn(new ResponseEntity<String>("You did it!", HttpStatus.ACCEPTED));
-        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaAdd(jsonMessage, mockHeader);
+        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaAdd(new ImageMessageRequest(jsonMessage), mockHeader).get();
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("test Error"));
@@ -180,15 +216,15 @@ public class MediaControllerTest {
         String requestId = "12345678-1234-1234-1234-010203040506";
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
-        doReturn(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString())).when(mediaControllerSpy).verifyUrl(anyString());
+        doReturn(CompletableFuture.completedFuture(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString()))).when(mediaControllerSpy).verifyUrl(anyString());
         List<MapMessageValidator> validatorList = null;
         List<String> validationErrorList = null;
         when(mockMessageValidator.validateImages(any())).thenReturn(validationErrorList);
         when(mockValidators.get(anyString())).thenReturn(validatorList);
         when(mockValidators.getOrDefault(eq("a-user"), any())).thenReturn(validatorList);
-        when(mediaAddProcessor.processRequest(eq(jsonMessage), eq(requestId), anyString(), anyString(), eq(HttpStatus.ACCEPTED), any(Date.class)))
+        when(mediaAddProcessor.processRequest(imageMessageRequestOf(jsonMessage), eq(requestId), anyString(), anyString(), eq(HttpStatus.ACCEPTED), any(Date.class)))
                 .thenReturn(new ResponseEntity<String>("You did it!", HttpStatus.ACCEPTED));
-        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaAdd(jsonMessage, mockHeader);
+        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaAdd(new ImageMessageRequest(jsonMessage), mockHeader).get();
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("User is not authorized."));
@@ -210,14 +246,14 @@ public class MediaControllerTest {
         String requestId = "12345678-1234-1234-1234-010203040506";
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
-        doReturn(new ValidationStatus(false, "not found", "not found")).when(mediaControllerSpy).verifyUrl(anyString());
+        doReturn(CompletableFuture.completedFuture(new ValidationStatus(false, "not found", "not found"))).when(mediaControllerSpy).verifyUrl(anyString());
         List<MapMessageValidator> validatorList = new ArrayList<>();
         List<String> validationErrorList = new ArrayList<>();
         when(mockMessageValidator.validateImages(any())).thenReturn(validationErrorList);
         validatorList.add(mockMessageValidator);
         when(mockValidators.get(anyString())).thenReturn(validatorList);
         when(mockValidators.getOrDefault(eq("a-user"), any())).thenReturn(validatorList);
-         ResponseEntity<String> responseEntity = mediaControllerSpy.mediaAdd(jsonMessage, mockHeader);
+         ResponseEntity<String> responseEntity = mediaControllerSpy.mediaAdd(new ImageMessageRequest(jsonMessage), mockHeader).get();
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("not found"));
@@ -225,6 +261,34 @@ public class MediaControllerTest {
         verifyZeroInteractions(mediaUpdateProcessor);
     }
 
+    @Test
+    public void testValidateImageAddUrlCheckUnavailable() throws Exception {
+        String jsonMessage = "{ "
+                + "\"fileUrl\": \"https://i.imgur.com/3PRGFii.jpg\", "
+                + "\"fileName\": \"NASA_ISS-4.jpg\", "
+                + "\"userId\": \"bobthegreat\", "
+                + "\"domain\": \"Lodging\", "
+                + "\"domainId\": \"1238\", "
+                + "\"domainProvider\": \"EPC Internal User\" "
+                + "}";
+
+        String requestId = "12345678-1234-1234-1234-010203040506";
+        MultiValueMap<String, String> mockHeader = new HttpHeaders();
+        mockHeader.add("request-id", requestId);
+        doReturn(CompletableFuture.completedFuture(new ValidationStatus(false, "Provided fileUrl could not be verified, retry later.", ValidationStatus.UNAVAILABLE)))
+                .when(mediaControllerSpy).verifyUrl(anyString());
+        List<MapMessageValidator> validatorList = new ArrayList<>();
+        when(mockMessageValidator.validateImages(any())).thenReturn(new ArrayList<>());
+        validatorList.add(mockMessageValidator);
+        when(mockValidators.get(anyString())).thenReturn(validatorList);
+        when(mockValidators.getOrDefault(eq("a-user"), any())).thenReturn(validatorList);
+        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaAdd(new ImageMessageRequest(jsonMessage), mockHeader).get();
+        assertNotNull(responseEntity);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, responseEntity.getStatusCode());
+        assertTrue(responseEntity.getBody().contains("retry later"));
+        verifyZeroInteractions(mediaAddProcessor);
+    }
+
     @Test
     public void testValidateImageAddZeroBytes() throws Exception {
         String jsonMessage = "{ "
@@ -239,14 +303,14 @@ public class MediaControllerTest {
         String requestId = "12345678-1234-1234-1234-010203040506";
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
-        doReturn(new ValidationStatus(false, "0 Bytes", "0 Bytes")).when(mediaControllerSpy).verifyUrl(anyString());
+        doReturn(CompletableFuture.completedFuture(new ValidationStatus(false, "0 Bytes", "0 Bytes"))).when(mediaControllerSpy).verifyUrl(anyString());
         List<MapMessageValidator> validatorList = new ArrayList<>();
         List<String> validationErrorList = new ArrayList<>();
         when(mockMessageValidator.validateImages(any())).thenReturn(validationErrorList);
         validatorList.add(mockMessageValidator);
         when(mockValidators.get(anyString())).thenReturn(validatorList);
         when(mockValidators.getOrDefault(eq("a-user"), any())).thenReturn(validatorList);
-        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaAdd(jsonMessage, mockHeader);
+        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaAdd(new ImageMessageRequest(jsonMessage), mockHeader).get();
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("0 Bytes"));
@@ -268,14 +332,14 @@ public class MediaControllerTest {
         String requestId = "12345678-1234-1234-1234-010203040506";
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
-        doReturn(new ValidationStatus(false, "Something Different", "status")).when(mediaControllerSpy).verifyUrl(anyString());
+        doReturn(CompletableFuture.completedFuture(new ValidationStatus(false, "Something Different", "status"))).when(mediaControllerSpy).verifyUrl(anyString());
         List<MapMessageValidator> validatorList = new ArrayList<>();
         List<String> validationErrorList = new ArrayList<>();
         when(mockMessageValidator.validateImages(any())).thenReturn(validationErrorList);
         validatorList.add(mockMessageValidator);
         when(mockValidators.get(anyString())).thenReturn(validatorList);
         when(mockValidators.getOrDefault(eq("a-user"), any())).thenReturn(validatorList);
-        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaAdd(jsonMessage, mockHeader);
+        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaAdd(new ImageMessageRequest(jsonMessage), mockHeader).get();
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("Something Different"));
@@ -296,9 +360,9 @@ public class MediaControllerTest {
         String requestId = "12345678-1234-1234-1234-010203040506";
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
-        doReturn(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString())).when(mediaControllerSpy).verifyUrl(anyString());
+        doReturn(CompletableFuture.completedFuture(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString()))).when(mediaControllerSpy).verifyUrl(anyString());
         Optional<Media> media = Optional.of(Media.builder().mediaGuid(mediaGuid).lcmMediaId("12345").domain("Lodging").active("true").domainId("54321").build());
-        when(mockMediaDao.getMediaByGuid(eq(mediaGuid))).thenReturn(media);
+        when(mockMediaDao.getMediaByGuidForUpdate(eq(mediaGuid))).thenReturn(media);
         List<MapMessageValidator> validatorList = new ArrayList<>();
         List<String> validationErrorList = new ArrayList<>();
         when(mockMessageValidator.validateImages(any())).thenReturn(validationErrorList);
@@ -307,7 +371,7 @@ public class MediaControllerTest {
         validatorList.add(mockMessageValidator);
         when(mockValidators.getOrDefault(eq("EPCUpdate"), any())).thenReturn(validatorList);
         when(mediaUpdateProcessor.processRequest(any(ImageMessage.class), eq(media.get()))).thenReturn(new ResponseEntity<String>("You did it!", HttpStatus.OK));
-        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaUpdate(mediaGuid, jsonMessage, mockHeader);
+        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaUpdate(mediaGuid, new ImageMessageRequest(jsonMessage), mockHeader);
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("You did it!"));
@@ -329,9 +393,9 @@ public class MediaControllerTest {
         String requestId = "12345678-1234-1234-1234-010203040506";
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
-        doReturn(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString())).when(mediaControllerSpy).verifyUrl(anyString());
+        doReturn(CompletableFuture.completedFuture(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString()))).when(mediaControllerSpy).verifyUrl(anyString());
         Optional<Media> media = Optional.of(Media.builder().mediaGuid(mediaGuid).lcmMediaId("12345").status("REJECTED").domain("Lodging").active("true").domainId("54321").build());
-        when(mockMediaDao.getMediaByGuid(eq(mediaGuid))).thenReturn(media);
+        when(mockMediaDao.getMediaByGuidForUpdate(eq(mediaGuid))).thenReturn(media);
         List<MapMessageValidator> validatorList = new ArrayList<>();
         List<String> validationErrorList = new ArrayList<>();
         when(mockMessageValidator.validateImages(any())).thenReturn(validationErrorList);
@@ -340,7 +404,7 @@ public class MediaControllerTest {
         validatorList.add(mockMessageValidator);
         when(mockValidators.getOrDefault(eq("EPCUpdate"), any())).thenReturn(validatorList);
         when(mediaUpdateProcessor.processRequest(any(ImageMessage.class), eq(media.get()))).thenReturn(new ResponseEntity<String>("You did it!", HttpStatus.OK));
-        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaUpdate(mediaGuid, jsonMessage, mockHeader);
+        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaUpdate(mediaGuid, new ImageMessageRequest(jsonMessage), mockHeader);
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("You did it!"));
@@ -362,9 +426,9 @@ public class MediaControllerTest {
         String requestId = "12345678-1234-1234-1234-010203040506";
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
-        doReturn(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString())).when(mediaControllerSpy).verifyUrl(anyString());
+        doReturn(CompletableFuture.completedFuture(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString()))).when(mediaControllerSpy).verifyUrl(anyString());
         Optional<Media> media = Optional.of(Media.builder().mediaGuid(mediaGuid).lcmMediaId("12345").status("PUBLISHED").domain("Lodging").active("true").domainId("54321").build());
-        when(mockMediaDao.getMediaByGuid(eq(mediaGuid))).thenReturn(media);
+        when(mockMediaDao.getMediaByGuidForUpdate(eq(mediaGuid))).thenReturn(media);
         List<MapMessageValidator> validatorList = new ArrayList<>();
         List<String> validationErrorList = new ArrayList<>();
         when(mockMessageValidator.validateImages(any())).thenReturn(validationErrorList);
@@ -373,7 +437,7 @@ public class MediaControllerTest {
         validatorList.add(mockMessageValidator);
         when(mockValidators.getOrDefault(eq("EPCUpdate"), any())).thenReturn(validatorList);
         when(mediaUpdateProcessor.processRequest(any(ImageMessage.class), eq(media.get()))).thenReturn(new ResponseEntity<String>("You did it!", HttpStatus.OK));
-        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaUpdate(mediaGuid, jsonMessage, mockHeader);
+        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaUpdate(mediaGuid, new ImageMessageRequest(jsonMessage), mockHeader);
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("Only unpublished media can be hidden"));
@@ -395,9 +459,9 @@ public class MediaControllerTest {
         String requestId = "12345678-1234-1234-1234-010203040506";
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
-        doReturn(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString())).when(mediaControllerSpy).verifyUrl(anyString());
+        doReturn(CompletableFuture.completedFuture(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString()))).when(mediaControllerSpy).verifyUrl(anyString());
         Optional<Media> media = Optional.of(Media.builder().mediaGuid(mediaGuid).lcmMediaId("12345").status("PUBLISHED").domain("Cars").active("true").domainId("54321").build());
-        when(mockMediaDao.getMediaByGuid(eq(mediaGuid))).thenReturn(media);
+        when(mockMediaDao.getMediaByGuidForUpdate(eq(mediaGuid))).thenReturn(media);
         List<MapMessageValidator> validatorList = new ArrayList<>();
         List<String> validationErrorList = new ArrayList<>();
         when(mockMessageValidator.validateImages(any())).thenReturn(validationErrorList);
@@ -406,7 +470,7 @@ public class MediaControllerTest {
         validatorList.add(mockMessageValidator);
         when(mockValidators.getOrDefault(eq("EPCUpdate"), any())).thenReturn(validatorList);
         when(mediaUpdateProcessor.processRequest(any(ImageMessage.class), eq(media.get()))).thenReturn(new ResponseEntity<String>("You did it!", HttpStatus.OK));
-        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaUpdate(mediaGuid, jsonMessage, mockHeader);
+        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaUpdate(mediaGuid, new ImageMessageRequest(jsonMessage), mockHeader);
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("You did it!"));
@@ -427,9 +491,9 @@ public class MediaControllerTest {
         String requestId = "12345678-1234-1234-1234-010203040506";
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
-        doReturn(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString())).when(mediaControllerSpy).verifyUrl(anyString());
+        doReturn(CompletableFuture.completedFuture(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString()))).when(mediaControllerSpy).verifyUrl(anyString());
         Optional<Media> media = Optional.of(Media.builder().mediaGuid(mediaGuid).lcmMediaId("12345").status("PUBLISHED").domain("Lodging").active("true").domainId("54321").build());
-        when(mockMediaDao.getMediaByGuid(eq(mediaGuid))).thenReturn(media);
+        when(mockMediaDao.getMediaByGuidForUpdate(eq(mediaGuid))).thenReturn(media);
         List<MapMessageValidator> validatorList = new ArrayList<>();
         List<String> validationErrorList = new ArrayList<>();
         validationErrorList.add("an error occurred!");
@@ -439,7 +503,7 @@ public class MediaControllerTest {
         validatorList.add(mockMessageValidator);
         when(mockValidators.getOrDefault(eq("EPCUpdate"), any())).thenReturn(validatorList);
         when(mediaUpdateProcessor.processRequest(any(ImageMessage.class), eq(media.get()))).thenReturn(new ResponseEntity<String>("You did it!", HttpStatus.OK));
-        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaUpdate(mediaGuid, jsonMessage, mockHeader);
+        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaUpdate(mediaGuid, new ImageMessageRequest(jsonMessage), mockHeader);
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("an error occurred!"));
@@ -460,7 +524,7 @@ public class MediaControllerTest {
         String requestId = "12345678-1234-1234-1234-010203040506";
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
-        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaUpdate(mediaGuid, jsonMessage, mockHeader);
+        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaUpdate(mediaGuid, new ImageMessageRequest(jsonMessage), mockHeader);
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("Input queryId is invalid. Must be a valid GUID in the following format [xxxxxxxx-xxxx-xxxx-xxxx-xxxxxxxxxxxx]"));
@@ -481,9 +545,9 @@ public class MediaControllerTest {
         String requestId = "12345678-1234-1234-1234-010203040506";
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
-        doReturn(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString())).when(mediaControllerSpy).verifyUrl(anyString());
-        when(mockMediaDao.getMediaByGuid(eq(mediaGuid))).thenReturn(Optional.empty());
-        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaUpdate(mediaGuid, jsonMessage, mockHeader);
+        doReturn(CompletableFuture.completedFuture(new ValidationStatus(true, "yup", HttpStatus.ACCEPTED.toString()))).when(mediaControllerSpy).verifyUrl(anyString());
+        when(mockMediaDao.getMediaByGuidForUpdate(eq(mediaGuid))).thenReturn(Optional.empty());
+        ResponseEntity<String> responseEntity = mediaControllerSpy.mediaUpdate(mediaGuid, new ImageMessageRequest(jsonMessage), mockHeader);
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("Requested resource with ID " + mediaGuid + " was not found."));
@@ -536,7 +600,7 @@ public class MediaControllerTest {
     public void testDeleteMediaSuccess() throws Exception {
         String mediaGuid = "87654321-4321-4321-4321-605040302010";
         Optional<Media> media = Optional.of(Media.builder().mediaGuid(mediaGuid).lcmMediaId("12345").domain("Lodging").active("true").domainId("54321").hidden(false).build());
-        when(mockMediaDao.getMediaByGuid(eq(mediaGuid))).thenReturn(media);
+        when(mockMediaDao.getMediaByGuidForUpdate(eq(mediaGuid))).thenReturn(media);
         String requestId = "12345678-1234-1234-1234-010203040506";
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
@@ -566,7 +630,7 @@ public class MediaControllerTest {
     @Test
     public void testDeleteNonExistentMedia() throws Exception {
         String mediaGuid = "87654321-4321-4321-4321-605040302010";
-        when(mockMediaDao.getMediaByGuid(eq(mediaGuid))).thenReturn(Optional.empty());
+        when(mockMediaDao.getMediaByGuidForUpdate(eq(mediaGuid))).thenReturn(Optional.empty());
         String requestId = "12345678-1234-1234-1234-010203040506";
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
@@ -593,9 +657,9 @@ public class MediaControllerTest {
                 .domainId(domainId)
                 .totalMediaCount(mediaList.size())
                 .images(mediaList).build();
-        when(mediaGetProcessor.processMediaByDomainIDRequest(Domain.LODGING, domainId, null, null, null, null, null)).thenReturn(mediaByDomainIdResponse);
+        when(mediaGetProcessor.processMediaByDomainIDRequest(Domain.LODGING, domainId, null, null, null, null, null, null)).thenReturn(mediaByDomainIdResponse);
         ResponseEntity<String> responseEntity = mediaControllerSpy.getMediaByDomainId(domain, domainId, null, null,
-                null, null, null, mockHeader);
+                null, null, null, null, mockHeader);
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("\"domain\":\"lodging\",\"domainId\":\"1234\",\"totalMediaCount\":3"));
@@ -612,7 +676,7 @@ public class MediaControllerTest {
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
         ResponseEntity<String> responseEntity = mediaControllerSpy.getMediaByDomainId(domain, domainId, null, null,
-                "NOT_A_REAL_FILTER", null, null, mockHeader);
+                "NOT_A_REAL_FILTER", null, null, null, mockHeader);
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("Unsupported active filter NOT_A_REAL_FILTER"));
@@ -626,7 +690,7 @@ public class MediaControllerTest {
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
         ResponseEntity<String> responseEntity = mediaControllerSpy.getMediaByDomainId(domain, domainId, null, null,
-                null, null, null, mockHeader);
+                null, null, null, null, mockHeader);
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("Domain not found RowBoats"));
@@ -640,7 +704,7 @@ public class MediaControllerTest {
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
         ResponseEntity<String> responseEntity = mediaControllerSpy.getMediaByDomainId(domain, domainId, null, 1,
-                null, null, null, mockHeader);
+                null, null, null, null, mockHeader);
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("pageSize is null and pageIndex is not null, both pageSize and pageIndex parameters are inclusive. " +
@@ -655,7 +719,7 @@ public class MediaControllerTest {
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
         ResponseEntity<String> responseEntity = mediaControllerSpy.getMediaByDomainId(domain, domainId, 13, null,
-                null, null, null, mockHeader);
+                null, null, null, null, mockHeader);
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("pageIndex is null and pageSize is not null, both pageSize and pageIndex parameters are inclusive. " +
@@ -670,9 +734,63 @@ public class MediaControllerTest {
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
         ResponseEntity<String> responseEntity = mediaControllerSpy.getMediaByDomainId(domain, domainId, -13, -1,
-                null, null, null, mockHeader);
+                null, null, null, null, mockHeader);
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("pageSize and pageIndex do not accept negative values."));
     }
+
+    @Test
+    public void testGetMediaByDomainIdContinuationTokenWithPageIndex() throws Exception {
+        String domain = "lodging";
+        String domainId = "1234";
+        String requestId = "12345678-1234-1234-1234-010203040506";
+        MultiValueMap<String, String> mockHeader = new HttpHeaders();
+        mockHeader.add("request-id", requestId);
+        ResponseEntity<String> responseEntity = mediaControllerSpy.getMediaByDomainId(domain, domainId, 10, 2,
+                null, null, null, "", mockHeader);
+        assertNotNull(responseEntity);
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        assertTrue(responseEntity.getBody().contains("pageIndex can not be used with continuationToken"));
+    }
+
+    @Test
+    public void testGetMediaByDomainIdContinuationTokenWithoutPageSize() throws Exception {
+        String domain = "lodging";
+        String domainId = "1234";
+        String requestId = "12345678-1234-1234-1234-010203040506";
+        MultiValueMap<String, String> mockHeader = new HttpHeaders();
+        mockHeader.add("request-id", requestId);
+        ResponseEntity<String> responseEntity = mediaControllerSpy.getMediaByDomainId(domain, domainId, null, null,
+                null, null, null, "", mockHeader);
+        assertNotNull(responseEntity);
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        assertTrue(responseEntity.getBody().contains("pageSize must be a positive value when continuationToken is set."));
+    }
+
+    @Test
+    public void testGetMediaByDomainIdInvalidContinuationToken() throws Exception {
+        String domain = "lodging";
+        String domainId = "1234";
+        String requestId = "12345678-1234-1234-1234-010203040506";
+        MultiValueMap<String, String> mockHeader = new HttpHeaders();
+        mockHeader.add("request-id", requestId);
+        ResponseEntity<String> responseEntity = mediaControllerSpy.getMediaByDomainId(domain, domainId, 10, null,
+                null, null, null, "not a token!", mockHeader);
+        assertNotNull(responseEntity);
+        assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+        assertTrue(responseEntity.getBody().contains("continuationToken is not valid."));
+    }
+
+    /**
+     * Matches the ImageMessageRequest of a request body.
+     */
+    private static ImageMessageRequest imageMessageRequestOf(String message) {
+        return argThat(new ArgumentMatcher<ImageMessageRequest>() {
+            @Override
+            public boolean matches(Object request) {
+                return request instanceof ImageMessageRequest && message.equals(((ImageMessageRequest) request).getMessage());
+            }
+        });
+    }
 }
@@ -6,27 +6,41 @@ import com.expedia.content.media.processing.services.dao.domain.DomainIdMedia;
 import com.expedia.content.media.processing.services.dao.domain.Media;
 import com.expedia.content.media.processing.services.reqres.MediaByDomainIdResponse;
 import com.expedia.content.media.processing.services.reqres.MediaGetResponse;
+import com.expedia.content.media.processing.services.util.ContinuationToken;
 import com.expedia.content.media.processing.services.util.JSONUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.io.ByteArrayOutputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -154,7 +168,7 @@ public class MediaGetProcessorTest {
         domainIdMediaList.addAll(Arrays.asList(domainIdMedia0, domainIdMedia1, domainIdMedia2));
         when(mockMediaDao.getMediaByDomainId(eq(Domain.LODGING), eq("1234"), any(), any(), any(), any(), any())).thenReturn(domainIdMediaList);
         when(mockMediaDao.getTotalMediaCountByDomainId(eq(Domain.LODGING), eq("1234"), any(), any())).thenReturn(Optional.of(domainIdMediaList.size()));
-        MediaByDomainIdResponse response = mediaGetProcessor.processMediaByDomainIDRequest(Domain.LODGING, "1234", null, null, null, null, null);
+        MediaByDomainIdResponse response = mediaGetProcessor.processMediaByDomainIDRequest(Domain.LODGING, "1234", null, null, null, null, null, null);
         assertTrue(3 == response.getImages().size());
         assertTrue(3 == response.getTotalMediaCount());
         assertEquals(Domain.LODGING.getDomain(), response.getDomain());
@@ -165,10 +179,120 @@ public class MediaGetProcessorTest {
     public void processMediaByDomainIDRequestTestNoMediaInDomainId() throws Exception {
         when(mockMediaDao.getMediaByDomainId(eq(Domain.LODGING), eq("1234"), any(), any(), any(), any(), any())).thenReturn(Arrays.asList(Optional.empty()));
         when(mockMediaDao.getTotalMediaCountByDomainId(eq(Domain.LODGING), eq("1234"), any(), any())).thenReturn(Optional.empty());
-        MediaByDomainIdResponse response = mediaGetProcessor.processMediaByDomainIDRequest(Domain.LODGING, "1234", null, null, null, null, null);
+        MediaByDomainIdResponse response = mediaGetProcessor.processMediaByDomainIDRequest(Domain.LODGING, "1234", null, null, null, null, null, null);
         assertTrue(0 == response.getImages().size());
         assertTrue(0 == response.getTotalMediaCount());
         assertEquals(Domain.LODGING.getDomain(), response.getDomain());
         assertEquals("1234", response.getDomainId());
     }
+
+    @Test
+    public void processMediaByDomainIDRequestTestLastPageCountWithoutCountQuery() throws Exception {
+        List<Optional<DomainIdMedia>> domainIdMediaList = Arrays.asList(buildDomainIdMedia("aaaabbbb-cccc-dddd-eeee-ffffgggg0000"),
+                buildDomainIdMedia("aaaabbbb-cccc-dddd-eeee-ffffgggg1111"));
+        when(mockMediaDao.getMediaByDomainId(eq(Domain.LODGING), eq("1234"), any(), any(), any(), eq(5), eq(3))).thenReturn(domainIdMediaList);
+        MediaByDomainIdResponse response = mediaGetProcessor.processMediaByDomainIDRequest(Domain.LODGING, "1234", null, null, null, 5, 3, null);
+        assertTrue(2 == response.getImages().size());
+        assertTrue(12 == response.getTotalMediaCount());
+        verify(mockMediaDao, never()).getTotalMediaCountByDomainId(any(), anyString(), any(), any());
+    }
+
+    @Test
+    public void processMediaByDomainIDRequestTestFullPageUsesCount() throws Exception {
+        List<Optional<DomainIdMedia>> domainIdMediaList = Arrays.asList(buildDomainIdMedia("aaaabbbb-cccc-dddd-eeee-ffffgggg0000"),
+                buildDomainIdMedia("aaaabbbb-cccc-dddd-eeee-ffffgggg1111"));
+        when(mockMediaDao.getMediaByDomainId(eq(Domain.LODGING), eq("1234"), any(), any(), any(), eq(2), eq(1))).thenReturn(domainIdMediaList);
+        when(mockMediaDao.getTotalMediaCountByDomainId(eq(Domain.LODGING), eq("1234"), any(), any())).thenReturn(Optional.of(7));
+        MediaByDomainIdResponse response = mediaGetProcessor.processMediaByDomainIDRequest(Domain.LODGING, "1234", null, null, null, 2, 1, null);
+        assertTrue(2 == response.getImages().size());
+        assertTrue(7 == response.getTotalMediaCount());
+        verify(mockMediaDao, times(1)).getTotalMediaCountByDomainId(any(), anyString(), any(), any());
+    }
+
+    @Test
+    public void processMediaByDomainIDRequestTestPageAfterLastUsesCount() throws Exception {
+        when(mockMediaDao.getMediaByDomainId(eq(Domain.LODGING), eq("1234"), any(), any(), any(), eq(2), eq(9))).thenReturn(Collections.emptyList());
+        when(mockMediaDao.getTotalMediaCountByDomainId(eq(Domain.LODGING), eq("1234"), any(), any())).thenReturn(Optional.of(7));
+        MediaByDomainIdResponse response = mediaGetProcessor.processMediaByDomainIDRequest(Domain.LODGING, "1234", null, null, null, 2, 9, null);
+        assertTrue(0 == response.getImages().size());
+        assertTrue(7 == response.getTotalMediaCount());
+    }
+
+    @Test
+    public void processMediaByDomainIDRequestTestCursorFirstPage() throws Exception {
+        List<Optional<DomainIdMedia>> domainIdMediaList = Arrays.asList(buildDomainIdMedia("aaaabbbb-cccc-dddd-eeee-ffffgggg0000"),
+                buildDomainIdMedia("aaaabbbb-cccc-dddd-eeee-ffffgggg1111"));
+        when(mockMediaDao.getMediaByDomainIdAfter(eq(Domain.LODGING), eq("1234"), any(), any(), any(), eq(2), eq(null))).thenReturn(domainIdMediaList);
+        when(mockMediaDao.getTotalMediaCountByDomainId(eq(Domain.LODGING), eq("1234"), any(), any())).thenReturn(Optional.of(7));
+        MediaByDomainIdResponse response = mediaGetProcessor.processMediaByDomainIDRequest(Domain.LODGING, "1234", null, null, null, 2, null, "");
+        assertTrue(2 == response.getImages().size());
+        assertTrue(7 == response.getTotalMediaCount());
+        assertEquals("aaaabbbb-cccc-dddd-eeee-ffffgggg1111", ContinuationToken.decode(response.getContinuationToken()));
+        verify(mockMediaDao, never()).getMediaByDomainId(any(), anyString(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void processMediaByDomainIDRequestTestCursorLastPage() throws Exception {
+        String continuationToken = ContinuationToken.encode("aaaabbbb-cccc-dddd-eeee-ffffgggg1111");
+        List<Optional<DomainIdMedia>> domainIdMediaList = Arrays.asList(buildDomainIdMedia("aaaabbbb-cccc-dddd-eeee-ffffgggg2222"));
+        when(mockMediaDao.getMediaByDomainIdAfter(eq(Domain.LODGING), eq("1234"), any(), any(), any(), eq(2), eq("aaaabbbb-cccc-dddd-eeee-ffffgggg1111")))
+                .thenReturn(domainIdMediaList);
+        when(mockMediaDao.getTotalMediaCountByDomainId(eq(Domain.LODGING), eq("1234"), any(), any())).thenReturn(Optional.of(3));
+        MediaByDomainIdResponse response = mediaGetProcessor.processMediaByDomainIDRequest(Domain.LODGING, "1234", null, null, null, 2, null, continuationToken);
+        assertTrue(1 == response.getImages().size());
+        assertTrue(3 == response.getTotalMediaCount());
+        assertNull(response.getContinuationToken());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void streamMediaByDomainIDRequestTest() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<DomainIdMedia> mediaConsumer = (Consumer<DomainIdMedia>) invocation.getArguments()[7];
+            mediaConsumer.accept(buildDomainIdMedia("aaaabbbb-cccc-dddd-eeee-ffffgggg0000").get());
+            mediaConsumer.accept(buildDomainIdMedia("aaaabbbb-cccc-dddd-eeee-ffffgggg1111").get());
+            return 2;
+        }).when(mockMediaDao).streamMediaByDomainId(eq(Domain.LODGING), eq("1234"), any(), any(), any(), eq(5), eq(3), any());
+        ObjectMapper objectMapper = new ObjectMapper();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            mediaGetProcessor.streamMediaByDomainIDRequest(Domain.LODGING, "1234", null, null, null, 5, 3, generator);
+        }
+        JsonNode response = objectMapper.readTree(output.toByteArray());
+        assertEquals("Lodging", response.get("domain").asText());
+        assertEquals("1234", response.get("domainId").asText());
+        assertEquals(2, response.get("images").size());
+        assertEquals("aaaabbbb-cccc-dddd-eeee-ffffgggg1111", response.get("images").get(1).get("mediaGuid").asText());
+        assertEquals(12, response.get("totalMediaCount").asInt());
+        verify(mockMediaDao, never()).getTotalMediaCountByDomainId(any(), anyString(), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void streamMediaByDomainIDRequestTestFullPageUsesCount() throws Exception {
+        doAnswer(invocation -> {
+            ((Consumer<DomainIdMedia>) invocation.getArguments()[7]).accept(buildDomainIdMedia("aaaabbbb-cccc-dddd-eeee-ffffgggg0000").get());
+            return 1;
+        }).when(mockMediaDao).streamMediaByDomainId(eq(Domain.LODGING), eq("1234"), any(), any(), any(), eq(1), eq(1), any());
+        when(mockMediaDao.getTotalMediaCountByDomainId(eq(Domain.LODGING), eq("1234"), any(), any())).thenReturn(Optional.of(7));
+        ObjectMapper objectMapper = new ObjectMapper();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            mediaGetProcessor.streamMediaByDomainIDRequest(Domain.LODGING, "1234", null, null, null, 1, 1, generator);
+        }
+        JsonNode response = objectMapper.readTree(output.toByteArray());
+        assertEquals(1, response.get("images").size());
+        assertEquals(7, response.get("totalMediaCount").asInt());
+    }
+
+    private static Optional<DomainIdMedia> buildDomainIdMedia(String mediaGuid) {
+        return Optional.of(DomainIdMedia.builder()
+                .mediaGuid(mediaGuid)
+                .fileUrl("s3://somewhere.com/images/1")
+                .fileName("hello.jpg")
+                .status("PUBLISHED")
+                .active("true")
+                .domainFields(new HashMap<>())
+                .build());
+    }
 }
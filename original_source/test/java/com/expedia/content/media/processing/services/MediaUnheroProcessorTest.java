@@ -0,0 +1,152 @@
+package com.expedia.content.media.processing.services;
+
+import com.expedia.content.media.processing.pipeline.domain.ImageMessage;
+import com.expedia.content.media.processing.pipeline.kafka.KafkaCommonPublisher;
+import com.expedia.content.media.processing.services.dao.MediaDao;
+import com.expedia.content.media.processing.services.dao.domain.Media;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MediaUnheroProcessorTest {
+    private static final String HERO_GUID = "12345678-aaaa-bbbb-cccc-123456789112";
+
+    @Mock
+    private MediaDao mockMediaDao;
+    @Mock
+    private KafkaCommonPublisher kafkaCommonPublisher;
+
+    private ExecutorService publishExecutor;
+    private MediaUnheroProcessor mediaUnheroProcessor;
+
+    @Before
+    public void testSetUp() throws Exception {
+        publishExecutor = Executors.newFixedThreadPool(2);
+        mediaUnheroProcessor = new MediaUnheroProcessor(mockMediaDao, kafkaCommonPublisher, publishExecutor, 5000L);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mediaUnheroProcessor.shutdown();
+    }
+
+    @Test
+    public void testPublishTheUnheroedMedia() throws Exception {
+        Media firstHero = Media.builder().mediaGuid("aaa45678-aaaa-bbbb-cccc-123456789112").domain("Lodging").domainId("1238")
+                .domainFields("{\"propertyHero\":\"false\",\"subcategoryId\":\"22024\"}").build();
+        Media secondHero = Media.builder().mediaGuid("bbb45678-aaaa-bbbb-cccc-123456789112").domain("Lodging").domainId("1238")
+                .domainFields("{\"propertyHero\":\"false\"}").build();
+        when(mockMediaDao.unheroMediaByDomainId("1238", HERO_GUID)).thenReturn(Arrays.asList(firstHero, secondHero));
+
+        mediaUnheroProcessor.unheroMedia(buildHeroImageMessage(), "1238");
+
+        verify(mockMediaDao, times(1)).unheroMediaByDomainId(eq("1238"), eq(HERO_GUID));
+        verify(mockMediaDao, never()).unheroMedia(anyString(), anyString());
+        ArgumentCaptor<ImageMessage> argument = ArgumentCaptor.forClass(ImageMessage.class);
+        verify(kafkaCommonPublisher, times(2)).publishImageMessage(argument.capture(), anyString(), anyString());
+        argument.getAllValues().forEach(imageMessage -> assertEquals("false", imageMessage.getOuterDomainData().getDomainFields().get("propertyHero")));
+    }
+
+    @Test
+    public void testPublishFailureDoesNotStopOtherPublications() throws Exception {
+        Media firstHero = Media.builder().mediaGuid("aaa45678-aaaa-bbbb-cccc-123456789112").domain("Lodging").domainId("1238")
+                .domainFields("{\"propertyHero\":\"false\"}").build();
+        Media secondHero = Media.builder().mediaGuid("bbb45678-aaaa-bbbb-cccc-123456789112").domain("Lodging").domainId("1238")
+                .domainFields("{\"propertyHero\":\"false\"}").build();
+        when(mockMediaDao.unheroMediaByDomainId("1238", HERO_GUID)).thenReturn(Arrays.asList(firstHero, secondHero));
+        doThrow(new RuntimeException("kafka is down")).doNothing().when(kafkaCommonPublisher)
+                .publishImageMessage(any(ImageMessage.class), anyString(), anyString());
+
+        mediaUnheroProcessor.unheroMedia(buildHeroImageMessage(), "1238");
+
+        verify(mockMediaDao, times(1)).unheroMediaByDomainId(eq("1238"), eq(HERO_GUID));
+        verify(kafkaCommonPublisher, times(2)).publishImageMessage(any(ImageMessage.class), anyString(), anyString());
+    }
+
+    @Test
+    public void testPublicationTimeoutDoesNotFailTheUnhero() throws Exception {
+        Media firstHero = Media.builder().mediaGuid("aaa45678-aaaa-bbbb-cccc-123456789112").domain("Lodging").domainId("1238")
+                .domainFields("{\"propertyHero\":\"false\"}").build();
+        when(mockMediaDao.unheroMediaByDomainId("1238", HERO_GUID)).thenReturn(Collections.singletonList(firstHero));
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(kafkaCommonPublisher).publishImageMessage(any(ImageMessage.class), anyString(), anyString());
+        final MediaUnheroProcessor timingOutProcessor = new MediaUnheroProcessor(mockMediaDao, kafkaCommonPublisher, publishExecutor, 50L);
+
+        try {
+            final long start = System.currentTimeMillis();
+            timingOutProcessor.unheroMedia(buildHeroImageMessage(), "1238");
+            assertTrue(System.currentTimeMillis() - start < 5000L);
+        } finally {
+            release.countDown();
+        }
+        verify(mockMediaDao, times(1)).unheroMediaByDomainId(eq("1238"), eq(HERO_GUID));
+    }
+
+    @Test
+    public void testRejectedPublicationDoesNotFailTheUnhero() throws Exception {
+        Media firstHero = Media.builder().mediaGuid("aaa45678-aaaa-bbbb-cccc-123456789112").domain("Lodging").domainId("1238")
+                .domainFields("{\"propertyHero\":\"false\"}").build();
+        when(mockMediaDao.unheroMediaByDomainId("1238", HERO_GUID)).thenReturn(Collections.singletonList(firstHero));
+        final ExecutorService rejectingExecutor = Executors.newSingleThreadExecutor();
+        rejectingExecutor.shutdown();
+        final MediaUnheroProcessor rejectingProcessor = new MediaUnheroProcessor(mockMediaDao, kafkaCommonPublisher, rejectingExecutor, 5000L);
+
+        rejectingProcessor.unheroMedia(buildHeroImageMessage(), "1238");
+
+        verify(mockMediaDao, times(1)).unheroMediaByDomainId(eq("1238"), eq(HERO_GUID));
+        verifyZeroInteractions(kafkaCommonPublisher);
+    }
+
+    @Test
+    public void testNoOtherHero() throws Exception {
+        when(mockMediaDao.unheroMediaByDomainId("1238", HERO_GUID)).thenReturn(Collections.emptyList());
+
+        mediaUnheroProcessor.unheroMedia(buildHeroImageMessage(), "1238");
+
+        verify(mockMediaDao, times(1)).unheroMediaByDomainId(eq("1238"), eq(HERO_GUID));
+        verifyZeroInteractions(kafkaCommonPublisher);
+    }
+
+    @Test
+    public void testNotAHero() throws Exception {
+        ImageMessage imageMessage = ImageMessage.parseJsonMessage("{\"mediaGuid\":\"" + HERO_GUID + "\",\"domain\":\"Lodging\",\"domainId\":\"1238\","
+                + "\"domainFields\":{\"propertyHero\":\"false\"}}");
+
+        mediaUnheroProcessor.unheroMedia(imageMessage, "1238");
+
+        verify(mockMediaDao, never()).unheroMediaByDomainId(anyString(), anyString());
+        verifyZeroInteractions(kafkaCommonPublisher);
+    }
+
+    private static ImageMessage buildHeroImageMessage() throws Exception {
+        return ImageMessage.parseJsonMessage("{\"mediaGuid\":\"" + HERO_GUID + "\",\"domain\":\"Lodging\",\"domainId\":\"1238\","
+                + "\"domainFields\":{\"propertyHero\":\"true\"}}");
+    }
+}
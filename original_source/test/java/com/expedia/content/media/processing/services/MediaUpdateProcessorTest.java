@@ -4,13 +4,15 @@ package com.expedia.content.media.processing.services;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.Executors;
 
 import com.expedia.content.media.processing.pipeline.kafka.KafkaCommonPublisher;
 import com.expedia.content.media.processing.services.dao.mediadb.MediaDBMediaDao;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -30,6 +32,8 @@ import static org.mockito.Mockito.times;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 
 
 @ContextConfiguration(locations = "classpath:media-services.xml")
@@ -40,12 +44,19 @@ public class MediaUpdateProcessorTest {
     @Mock
     private KafkaCommonPublisher kafkaCommonPublisher;
 
+    private MediaUnheroProcessor mediaUnheroProcessor;
     private MediaUpdateProcessor mediaUpdateProcessor;
 
 
     @Before
     public void testSetUp() throws Exception {
-        mediaUpdateProcessor = new MediaUpdateProcessor(kafkaCommonPublisher, mediaDBMediaDao);
+        mediaUnheroProcessor = new MediaUnheroProcessor(mediaDBMediaDao, kafkaCommonPublisher, Executors.newSingleThreadExecutor(), 5000L);
+        mediaUpdateProcessor = new MediaUpdateProcessor(kafkaCommonPublisher, mediaDBMediaDao, mediaUnheroProcessor);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mediaUnheroProcessor.shutdown();
     }
 
     @Test
@@ -140,9 +151,8 @@ public class MediaUpdateProcessorTest {
                 "{\"propertyHero\":\"false\",\"subcategoryId\":\"22001\"}",
                 new Date(), "true", "EPC", "EPC", "bobtheokay", "", null, "2345145145341", "23142513425431", "", "123", new ArrayList<>(),
                 new HashMap<>(), new ArrayList<>(), "", "", true, false, null);
-        Media heroMedia = Media.builder().lcmMediaId("1234").mediaGuid("aaa45678-aaaa-bbbb-cccc-123456789112").domainFields("{\"subcategoryId\":\"22024\",\"propertyHero\":\"true\"}").build();
-        List heroMediaList = Arrays.asList(Optional.of(heroMedia));
-        when(mediaDBMediaDao.getHeroMediaByDomainId(anyString())).thenReturn( heroMediaList);
+        Media heroMedia = Media.builder().lcmMediaId("1234").mediaGuid("aaa45678-aaaa-bbbb-cccc-123456789112").domainFields("{\"propertyHero\":\"false\",\"subcategoryId\":\"22024\"}").build();
+        when(mediaDBMediaDao.unheroMediaByDomainId(eq("12345"), anyString())).thenReturn(Collections.singletonList(heroMedia));
 
         mediaUpdateProcessor.processRequest(imageMessage, media);
         media.setUserId("bobthegreat");
@@ -150,7 +160,8 @@ public class MediaUpdateProcessorTest {
         ImageMessage updatedImageMessage = media.toImageMessage();
         ArgumentCaptor<ImageMessage> argument = ArgumentCaptor.forClass(ImageMessage.class);
         verify(mediaDBMediaDao, times(1)).updateMedia(argument.capture());
-        verify(mediaDBMediaDao, times(1)).unheroMedia(anyString(),anyString());
+        verify(mediaDBMediaDao, times(1)).unheroMediaByDomainId(eq("12345"), anyString());
+        verify(mediaDBMediaDao, never()).unheroMedia(anyString(), anyString());
         verify(kafkaCommonPublisher, times(2)).publishImageMessage(any(ImageMessage.class), anyString(), anyString());
         assertEquals(updatedImageMessage.getOuterDomainData().getDomainFields(), argument.getValue().getOuterDomainData().getDomainFields());
     }
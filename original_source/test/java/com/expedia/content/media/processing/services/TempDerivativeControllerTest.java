@@ -4,8 +4,10 @@ import com.expedia.content.media.processing.pipeline.reporting.Reporting;
 import com.expedia.content.media.processing.pipeline.util.Poker;
 import com.expedia.content.media.processing.services.dao.domain.Thumbnail;
 import com.expedia.content.media.processing.services.reqres.TempDerivativeMessage;
+import com.expedia.content.media.processing.services.validator.HTTPUrlVerifier;
 import com.expedia.content.media.processing.services.validator.TempDerivativeMVELValidator;
 import com.expedia.content.media.processing.services.validator.ValidationStatus;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -21,6 +23,9 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.util.MultiValueMap;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
 import static com.expedia.content.media.processing.services.testing.TestingUtil.setFieldValue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -48,6 +53,7 @@ public class TempDerivativeControllerTest {
     private Poker poker;
 
     private TempDerivativeController tempDerivativeController;
+    private HTTPUrlVerifier httpUrlVerifier;
 
     @Before
     public void setSecurityContext() throws IllegalAccessException {
@@ -61,6 +67,14 @@ public class TempDerivativeControllerTest {
     @Before
     public void initialize() throws IllegalAccessException {
         tempDerivativeController = new TempDerivativeController(thumbnailProcessor, tempDerivativeMVELValidator, poker);
+        httpUrlVerifier = new HTTPUrlVerifier(new HTTPUrlVerifier.Settings());
+        tempDerivativeController.setHttpUrlVerifier(httpUrlVerifier);
+        tempDerivativeController.setVerifiedRequestExecutor(Runnable::run);
+    }
+
+    @After
+    public void closeVerifier() throws Exception {
+        httpUrlVerifier.close();
     }
 
     @Test
@@ -78,7 +92,7 @@ public class TempDerivativeControllerTest {
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
       
-        ResponseEntity<String> responseEntity = tempDerivativeController.getTempDerivative(jsonMessage, mockHeader);
+        ResponseEntity<String> responseEntity = tempDerivativeController.getTempDerivative(jsonMessage, mockHeader).get();
         assertNotNull(responseEntity);
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("\"thumbnailUrl\":"));
@@ -100,7 +114,7 @@ public class TempDerivativeControllerTest {
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
 
-        ResponseEntity<String> responseEntity = tempDerivativeController.getTempDerivative(jsonMessage, mockHeader);
+        ResponseEntity<String> responseEntity = tempDerivativeController.getTempDerivative(jsonMessage, mockHeader).get();
         assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
 
     }
@@ -120,7 +134,7 @@ public class TempDerivativeControllerTest {
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
 
-        ResponseEntity<String> responseEntity = tempDerivativeController.getTempDerivative(jsonMessage, mockHeader);
+        ResponseEntity<String> responseEntity = tempDerivativeController.getTempDerivative(jsonMessage, mockHeader).get();
         assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
 
     }
@@ -140,8 +154,8 @@ public class TempDerivativeControllerTest {
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
         TempDerivativeController tempDerivativeControllerSpy = spy(tempDerivativeController);
-        doReturn(new ValidationStatus(false, "0 Bytes", "0 Bytes")).when(tempDerivativeControllerSpy).verifyUrl(anyString());
-        ResponseEntity<String> responseEntity = tempDerivativeControllerSpy.getTempDerivative(jsonMessage, mockHeader);
+        doReturn(CompletableFuture.completedFuture(new ValidationStatus(false, "0 Bytes", "0 Bytes"))).when(tempDerivativeControllerSpy).verifyUrl(anyString());
+        ResponseEntity<String> responseEntity = tempDerivativeControllerSpy.getTempDerivative(jsonMessage, mockHeader).get();
         assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
     }
 
@@ -160,7 +174,7 @@ public class TempDerivativeControllerTest {
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
 
-        ResponseEntity<String> responseEntity = tempDerivativeController.getTempDerivative(jsonMessage, mockHeader);
+        ResponseEntity<String> responseEntity = tempDerivativeController.getTempDerivative(jsonMessage, mockHeader).get();
         assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
     }
 
@@ -179,7 +193,7 @@ public class TempDerivativeControllerTest {
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
 
-        ResponseEntity<String> responseEntity = tempDerivativeController.getTempDerivative(jsonMessage, mockHeader);
+        ResponseEntity<String> responseEntity = tempDerivativeController.getTempDerivative(jsonMessage, mockHeader).get();
         assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
         assertTrue(responseEntity.getBody().contains("JSON request format is invalid. "));
     }
@@ -202,10 +216,15 @@ public class TempDerivativeControllerTest {
         String requestId = "test-request-id";
         MultiValueMap<String, String> mockHeader = new HttpHeaders();
         mockHeader.add("request-id", requestId);
-        when(tempDerivativeController.getTempDerivative(jsonMessage, mockHeader)).thenThrow(exception);
-        tempDerivativeController.getTempDerivative(jsonMessage, mockHeader);
-        verify(poker).poke(eq("Media Services failed to process a getTempDerivative request - RequestId: " + requestId),  eq("EWE CS: Phoenix Notifications"),
-                eq(jsonMessage), eq(exception));
+        TempDerivativeController tempDerivativeControllerSpy = spy(tempDerivativeController);
+        doReturn(CompletableFuture.completedFuture(new ValidationStatus(true, "", ValidationStatus.VALID))).when(tempDerivativeControllerSpy).verifyUrl(anyString());
+        try {
+            tempDerivativeControllerSpy.getTempDerivative(jsonMessage, mockHeader).get();
+        } catch (ExecutionException e) {
+            verify(poker).poke(eq("Media Services failed to process a getTempDerivative request - RequestId: " + requestId),  eq("EWE CS: Phoenix Notifications"),
+                    eq(jsonMessage), eq(exception));
+            throw (Exception) e.getCause();
+        }
     }
 
 }
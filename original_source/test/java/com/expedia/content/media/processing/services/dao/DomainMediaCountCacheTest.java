@@ -0,0 +1,87 @@
+package com.expedia.content.media.processing.services.dao;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class DomainMediaCountCacheTest {
+
+    private DomainMediaCountCache countCache;
+
+    @Before
+    public void initialize() {
+        countCache = new DomainMediaCountCache(100L, 60000L);
+        final Map<DomainMediaCountCache.CountKey, Integer> counts = DomainMediaCountCache.newCounts();
+        DomainMediaCountCache.increment(counts, true, null, 10);
+        DomainMediaCountCache.increment(counts, true, "Exterior", 3);
+        DomainMediaCountCache.increment(counts, false, "Exterior", 2);
+        DomainMediaCountCache.increment(counts, false, "Interior", 1);
+        DomainMediaCountCache.increment(counts, false, "Interior", 1);
+        countCache.putCounts("Lodging", "1234", counts, countCache.getInvalidationCount());
+    }
+
+    @Test
+    public void testCountWithoutFilters() {
+        assertEquals(Optional.of(17), countCache.getCount("Lodging", "1234", null, null));
+        assertEquals(Optional.of(17), countCache.getCount("Lodging", "1234", "all", ""));
+    }
+
+    @Test
+    public void testCountWithActiveFilter() {
+        assertEquals(Optional.of(13), countCache.getCount("Lodging", "1234", "true", null));
+        assertEquals(Optional.of(4), countCache.getCount("Lodging", "1234", "false", null));
+    }
+
+    @Test
+    public void testCountWithDerivativeCategoryFilter() {
+        assertEquals(Optional.of(7), countCache.getCount("Lodging", "1234", null, "Exterior,Interior"));
+        assertEquals(Optional.of(2), countCache.getCount("Lodging", "1234", "false", "Exterior"));
+        assertEquals(Optional.of(0), countCache.getCount("Lodging", "1234", null, "Pool"));
+    }
+
+    @Test
+    public void testDerivativeCategoriesIgnoreCase() {
+        final Map<DomainMediaCountCache.CountKey, Integer> counts = DomainMediaCountCache.newCounts();
+        DomainMediaCountCache.increment(counts, true, "EXTERIOR", 1);
+        DomainMediaCountCache.increment(counts, true, "exterior", 2);
+        countCache.putCounts("Lodging", "4321", counts, countCache.getInvalidationCount());
+        assertEquals(Optional.of(3), countCache.getCount("Lodging", "4321", null, "Exterior"));
+        assertEquals(Optional.of(5), countCache.getCount("Lodging", "1234", null, "EXTERIOR"));
+    }
+
+    @Test
+    public void testCountMissing() {
+        assertFalse(countCache.getCount("Lodging", "4321", null, null).isPresent());
+        countCache.invalidate("Lodging", "1234");
+        assertFalse(countCache.getCount("Lodging", "1234", null, null).isPresent());
+    }
+
+    @Test
+    public void testCountExpired() {
+        final DomainMediaCountCache expiredCache = new DomainMediaCountCache(100L, 0L);
+        expiredCache.putCounts("Lodging", "1234", DomainMediaCountCache.newCounts(), expiredCache.getInvalidationCount());
+        assertFalse(expiredCache.getCount("Lodging", "1234", null, null).isPresent());
+    }
+
+    @Test
+    public void testCountsLoadedDuringAnInvalidationAreNotStored() {
+        final long invalidationCountBeforeLoad = countCache.getInvalidationCount();
+        countCache.invalidate("Lodging", "4321");
+        countCache.putCounts("Lodging", "4321", DomainMediaCountCache.newCounts(), invalidationCountBeforeLoad);
+        assertFalse(countCache.getCount("Lodging", "4321", null, null).isPresent());
+    }
+
+    @Test
+    public void testCountsAreBounded() {
+        final DomainMediaCountCache boundedCache = new DomainMediaCountCache(1L, 60000L);
+        boundedCache.putCounts("Lodging", "1234", DomainMediaCountCache.newCounts(), boundedCache.getInvalidationCount());
+        boundedCache.putCounts("Lodging", "4321", DomainMediaCountCache.newCounts(), boundedCache.getInvalidationCount());
+        assertFalse(boundedCache.getCount("Lodging", "1234", null, null).isPresent());
+        assertEquals(Optional.of(0), boundedCache.getCount("Lodging", "4321", null, null));
+    }
+}
@@ -0,0 +1,132 @@
+package com.expedia.content.media.processing.services.dao;
+
+import com.expedia.content.media.processing.services.dao.mediadb.MediaDBDomainIdMediaListing;
+import com.expedia.content.media.processing.services.dao.mediadb.MediaDBDomainIdMediaRow;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DomainMediaListingCacheTest {
+
+    private static final byte[] LISTING = {0, 0, 0, 0};
+
+    @Test
+    public void testReadThrough() {
+        final DomainMediaListingCache listingCache = new DomainMediaListingCache(true, 1024L, 60L);
+        final AtomicInteger loadCount = new AtomicInteger();
+        final Supplier<byte[]> loader = countingLoader(loadCount, LISTING);
+        listingCache.getListing("Lodging", "1234", loader);
+        final ByteBuffer listing = listingCache.getListing("Lodging", "1234", loader);
+        assertEquals(1, loadCount.get());
+        assertTrue(listing.isReadOnly());
+        assertEquals(0, listing.getInt());
+        assertEquals(Long.valueOf(1L), listingCache.hitCount());
+        assertEquals(Long.valueOf(1L), listingCache.missCount());
+        assertEquals(Long.valueOf(LISTING.length), listingCache.totalBytes());
+    }
+
+    @Test
+    public void testInvalidate() {
+        final DomainMediaListingCache listingCache = new DomainMediaListingCache(true, 1024L, 60L);
+        final AtomicInteger loadCount = new AtomicInteger();
+        final Supplier<byte[]> loader = countingLoader(loadCount, LISTING);
+        listingCache.getListing("Lodging", "1234", loader);
+        listingCache.invalidate("Lodging", "4321");
+        listingCache.getListing("Lodging", "1234", loader);
+        assertEquals(1, loadCount.get());
+        listingCache.invalidate("Lodging", "1234");
+        listingCache.getListing("Lodging", "1234", loader);
+        listingCache.invalidateAll();
+        listingCache.getListing("Lodging", "1234", loader);
+        assertEquals(3, loadCount.get());
+    }
+
+    @Test
+    public void testListingReadDuringInvalidationIsNotCached() {
+        final DomainMediaListingCache listingCache = new DomainMediaListingCache(true, 1024L, 60L);
+        final AtomicInteger loadCount = new AtomicInteger();
+        final Supplier<byte[]> loader = countingLoader(loadCount, LISTING);
+        listingCache.getListing("Lodging", "1234", () -> {
+            listingCache.invalidate("Lodging", "1234");
+            return loader.get();
+        });
+        listingCache.getListing("Lodging", "1234", loader);
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedListingsAreEvicted() {
+        final DomainMediaListingCache listingCache = new DomainMediaListingCache(true, 8L, 60L);
+        final AtomicInteger loadCount = new AtomicInteger();
+        final Supplier<byte[]> loader = countingLoader(loadCount, LISTING);
+        listingCache.getListing("Lodging", "1", loader);
+        listingCache.getListing("Lodging", "2", loader);
+        listingCache.getListing("Lodging", "1", loader);
+        listingCache.getListing("Lodging", "3", loader);
+        assertEquals(3, loadCount.get());
+        assertEquals(Long.valueOf(1L), listingCache.evictionCount());
+        listingCache.getListing("Lodging", "1", loader);
+        assertEquals(3, loadCount.get());
+        listingCache.getListing("Lodging", "2", loader);
+        assertEquals(4, loadCount.get());
+        assertEquals(Long.valueOf(8L), listingCache.totalBytes());
+    }
+
+    @Test
+    public void testListingLargerThanTheCacheIsNotCached() {
+        final DomainMediaListingCache listingCache = new DomainMediaListingCache(true, 2L, 60L);
+        final AtomicInteger loadCount = new AtomicInteger();
+        final Supplier<byte[]> loader = countingLoader(loadCount, LISTING);
+        assertEquals(0, listingCache.getListing("Lodging", "1234", loader).getInt());
+        listingCache.getListing("Lodging", "1234", loader);
+        assertEquals(2, loadCount.get());
+        assertEquals(Integer.valueOf(0), listingCache.size());
+    }
+
+    @Test
+    public void testRowsBinaryRoundTrip() throws Exception {
+        final ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getString("guid")).thenReturn("aaa45678-aaaa-bbbb-cccc-123456789112");
+        when(resultSet.getString("file-url")).thenReturn("s3://bucket/lodging/1000000/1234/1234_ü.jpg");
+        when(resultSet.getInt("active")).thenReturn(1);
+        when(resultSet.getInt("width")).thenReturn(1024);
+        when(resultSet.getTimestamp("update-date")).thenReturn(new Timestamp(1458000000000L));
+        when(resultSet.getString("derivative-category")).thenReturn("Original");
+        when(resultSet.getString("domain-fields")).thenReturn("{\"subcategoryId\":\"22024\"}");
+        final MediaDBDomainIdMediaRow row = MediaDBDomainIdMediaRow.fromResultSet(resultSet);
+
+        final List<MediaDBDomainIdMediaRow> rows = new MediaDBDomainIdMediaListing(ByteBuffer.wrap(MediaDBDomainIdMediaListing.write(Arrays.asList(row, row))))
+                .getPage(null, null, 0L, Integer.MAX_VALUE);
+
+        assertEquals(2, rows.size());
+        final MediaDBDomainIdMediaRow readRow = rows.get(1);
+        assertEquals(row.getGuid(), readRow.getGuid());
+        assertEquals(row.getFileUrl(), readRow.getFileUrl());
+        assertNull(readRow.getSourceUrl());
+        assertEquals(1, readRow.getActive());
+        assertEquals(1024, readRow.getWidth());
+        assertEquals(row.getUpdateDate(), readRow.getUpdateDate());
+        assertEquals("Original", readRow.getDerivativeCategory());
+        assertEquals(row.getDomainFields(), readRow.getDomainFields());
+        assertNull(readRow.getComments());
+    }
+
+    private static Supplier<byte[]> countingLoader(AtomicInteger loadCount, byte[] listing) {
+        return () -> {
+            loadCount.incrementAndGet();
+            return listing.clone();
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package com.expedia.content.media.processing.services.dao;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HotelIdIndexTest {
+
+    @Test
+    public void testContains() {
+        final HotelIdIndex index = HotelIdIndex.of(new long[]{41, 7, 1234, 7, 99, 0}, 5);
+        assertTrue(index.contains(7));
+        assertTrue(index.contains(41));
+        assertTrue(index.contains(1234));
+        assertTrue(index.contains(99));
+        assertFalse(index.contains(0));
+        assertFalse(index.contains(42));
+        assertEquals(4, index.size());
+        assertEquals(4L * Long.BYTES, index.sizeInBytes());
+        assertEquals(1234L, index.maxId());
+    }
+
+    @Test
+    public void testEmpty() {
+        assertFalse(HotelIdIndex.EMPTY.contains(1));
+        assertEquals(0, HotelIdIndex.EMPTY.size());
+        assertEquals(Long.MIN_VALUE, HotelIdIndex.EMPTY.maxId());
+    }
+
+    @Test
+    public void testMerge() {
+        final HotelIdIndex index = HotelIdIndex.of(new long[]{10, 30, 50}, 3);
+        final HotelIdIndex mergedIndex = index.merge(new long[]{60, 20, 30, 20}, 4);
+        assertEquals(5, mergedIndex.size());
+        assertTrue(mergedIndex.contains(20));
+        assertTrue(mergedIndex.contains(60));
+        assertTrue(mergedIndex.contains(10));
+        assertFalse(index.contains(20));
+        assertEquals(60L, mergedIndex.maxId());
+    }
+
+    @Test
+    public void testMergeWithoutNewIds() {
+        final HotelIdIndex index = HotelIdIndex.of(new long[]{10, 30, 50}, 3);
+        assertSame(index, index.merge(new long[]{30, 10}, 2));
+        assertSame(index, index.merge(new long[0], 0));
+        assertSame(HotelIdIndex.EMPTY, HotelIdIndex.EMPTY.merge(new long[0], 0));
+    }
+}
@@ -0,0 +1,130 @@
+package com.expedia.content.media.processing.services.dao;
+
+import com.expedia.content.media.processing.services.dao.domain.Media;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+
+public class MediaCacheTest {
+
+    private static final String MEDIA_GUID = "aaa45678-aaaa-bbbb-cccc-123456789112";
+
+    @Test
+    public void testReadThrough() {
+        final MediaCache mediaCache = new MediaCache(true, 10L, 60L);
+        final AtomicInteger loadCount = new AtomicInteger();
+        final Function<String, Optional<Media>> loader = countingLoader(loadCount);
+        final Media firstMedia = mediaCache.getMediaByGuid(MEDIA_GUID, loader).get();
+        final Media secondMedia = mediaCache.getMediaByGuid(MEDIA_GUID, loader).get();
+        assertEquals(1, loadCount.get());
+        assertEquals(MEDIA_GUID, secondMedia.getMediaGuid());
+        assertNotSame(firstMedia, secondMedia);
+        assertEquals(Long.valueOf(1L), mediaCache.hitCount());
+        assertEquals(Long.valueOf(1L), mediaCache.missCount());
+    }
+
+    @Test
+    public void testCachedMediaIsNotChangedByCaller() {
+        final MediaCache mediaCache = new MediaCache(true, 10L, 60L);
+        final Function<String, Optional<Media>> loader = countingLoader(new AtomicInteger());
+        mediaCache.getMediaByGuid(MEDIA_GUID, loader).get().setUserId("bobthegreat");
+        assertEquals("bobtheokay", mediaCache.getMediaByGuid(MEDIA_GUID, loader).get().getUserId());
+    }
+
+    @Test
+    public void testCachedCollectionsAreNotChangedByCaller() {
+        final MediaCache mediaCache = new MediaCache(true, 10L, 60L);
+        final Function<String, Optional<Media>> loader = guid -> {
+            final Map<String, Object> room = new HashMap<>();
+            room.put("roomId", "1234");
+            final Map<String, Object> domainData = new HashMap<>();
+            domainData.put("rooms", new ArrayList<>(Collections.singletonList(room)));
+            final Map<String, Object> derivative = new HashMap<>();
+            derivative.put("type", "t");
+            return Optional.of(Media.builder().mediaGuid(guid).domainData(domainData)
+                    .derivativesList(new ArrayList<>(Collections.singletonList(derivative)))
+                    .commentList(new ArrayList<>(Collections.singletonList("comment"))).build());
+        };
+        final Media media = mediaCache.getMediaByGuid(MEDIA_GUID, loader).get();
+        ((Map<String, Object>) ((List<Object>) media.getDomainData().get("rooms")).get(0)).put("roomId", "4321");
+        media.getDomainData().put("propertyHero", "true");
+        media.getDerivativesList().get(0).put("type", "v");
+        media.getCommentList().clear();
+        final Media cachedMedia = mediaCache.getMediaByGuid(MEDIA_GUID, loader).get();
+        assertEquals("1234", ((Map<String, Object>) ((List<Object>) cachedMedia.getDomainData().get("rooms")).get(0)).get("roomId"));
+        assertFalse(cachedMedia.getDomainData().containsKey("propertyHero"));
+        assertEquals("t", cachedMedia.getDerivativesList().get(0).get("type"));
+        assertEquals(Collections.singletonList("comment"), cachedMedia.getCommentList());
+    }
+
+    @Test
+    public void testMissingMediaIsNotCached() {
+        final MediaCache mediaCache = new MediaCache(true, 10L, 60L);
+        final AtomicInteger loadCount = new AtomicInteger();
+        final Function<String, Optional<Media>> loader = guid -> {
+            loadCount.incrementAndGet();
+            return Optional.empty();
+        };
+        assertFalse(mediaCache.getMediaByGuid(MEDIA_GUID, loader).isPresent());
+        assertFalse(mediaCache.getMediaByGuid(MEDIA_GUID, loader).isPresent());
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testInvalidate() {
+        final MediaCache mediaCache = new MediaCache(true, 10L, 60L);
+        final AtomicInteger loadCount = new AtomicInteger();
+        final Function<String, Optional<Media>> loader = countingLoader(loadCount);
+        mediaCache.getMediaByGuid(MEDIA_GUID, loader);
+        mediaCache.invalidate(MEDIA_GUID);
+        mediaCache.getMediaByGuid(MEDIA_GUID, loader);
+        mediaCache.invalidateDomainId("Lodging", "4321");
+        mediaCache.getMediaByGuid(MEDIA_GUID, loader);
+        assertEquals(2, loadCount.get());
+        mediaCache.invalidateDomainId("Lodging", "1234");
+        mediaCache.getMediaByGuid(MEDIA_GUID, loader);
+        assertEquals(3, loadCount.get());
+    }
+
+    @Test
+    public void testMediaReadDuringInvalidationIsNotCached() {
+        final MediaCache mediaCache = new MediaCache(true, 10L, 60L);
+        final AtomicInteger loadCount = new AtomicInteger();
+        final Function<String, Optional<Media>> loader = countingLoader(loadCount);
+        mediaCache.getMediaByGuid(MEDIA_GUID, guid -> {
+            mediaCache.invalidate(guid);
+            return loader.apply(guid);
+        });
+        mediaCache.getMediaByGuid(MEDIA_GUID, loader);
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testDisabled() {
+        final MediaCache mediaCache = new MediaCache(false, 10L, 60L);
+        final AtomicInteger loadCount = new AtomicInteger();
+        final Function<String, Optional<Media>> loader = countingLoader(loadCount);
+        mediaCache.getMediaByGuid(MEDIA_GUID, loader);
+        mediaCache.getMediaByGuid(MEDIA_GUID, loader);
+        assertEquals(2, loadCount.get());
+        assertEquals(Long.valueOf(0L), mediaCache.size());
+    }
+
+    private static Function<String, Optional<Media>> countingLoader(AtomicInteger loadCount) {
+        return guid -> {
+            loadCount.incrementAndGet();
+            return Optional.of(Media.builder().mediaGuid(guid).domain("Lodging").domainId("1234").userId("bobtheokay").build());
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.expedia.content.media.processing.services.dao;
+
+import com.google.common.base.Ticker;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MediaSubCategoryCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+    private final List<Runnable> refreshTasks = new ArrayList<>();
+    private final AtomicInteger loadCount = new AtomicInteger();
+    private volatile Collection<String> subCategoryIds;
+    private MediaSubCategoryCache cache;
+
+    @Before
+    public void initialize() {
+        subCategoryIds = Arrays.asList("3", "4");
+        cache = new MediaSubCategoryCache((domain, localeId) -> {
+            loadCount.incrementAndGet();
+            if (subCategoryIds == null) {
+                throw new IllegalStateException("database down");
+            }
+            return "1033".equals(localeId) ? subCategoryIds : Arrays.asList("5");
+        }, 60L, refreshTasks::add, ticker);
+    }
+
+    @Test
+    public void testIdsAreLoadedOncePerDomainAndLocale() {
+        assertTrue(cache.contains("Lodging", "1033", "3"));
+        assertFalse(cache.contains("Lodging", "1033", "5"));
+        assertTrue(cache.contains("Lodging", "1036", "5"));
+        assertFalse(cache.contains("Lodging", null, "3"));
+        assertEquals(3, loadCount.get());
+        assertEquals(1L, cache.hitCount());
+        assertEquals(3L, cache.missCount());
+        assertEquals(3L, cache.size());
+    }
+
+    @Test
+    public void testIdsAreRefreshedInTheBackground() {
+        assertTrue(cache.contains("Lodging", "1033", "3"));
+        subCategoryIds = Arrays.asList("3", "4", "6");
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        assertFalse(cache.contains("Lodging", "1033", "6"));
+        assertEquals(1, loadCount.get());
+        assertEquals(1, refreshTasks.size());
+        refreshTasks.get(0).run();
+        assertTrue(cache.contains("Lodging", "1033", "6"));
+        assertEquals(2, loadCount.get());
+        assertEquals(1L, cache.refreshCount());
+        assertEquals(0L, cache.refreshFailureCount());
+    }
+
+    @Test
+    public void testFailedRefreshKeepsTheCachedIds() {
+        assertTrue(cache.contains("Lodging", "1033", "3"));
+        subCategoryIds = null;
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        assertTrue(cache.contains("Lodging", "1033", "3"));
+        refreshTasks.get(0).run();
+        assertTrue(cache.contains("Lodging", "1033", "4"));
+        assertEquals(1L, cache.refreshFailureCount());
+    }
+}
@@ -0,0 +1,61 @@
+package com.expedia.content.media.processing.services.dao.mediadb;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MediaDBDomainIdMediaListingTest {
+
+    private MediaDBDomainIdMediaListing listing;
+
+    @Before
+    public void initialize() throws Exception {
+        // listed in response order, not in guid order
+        listing = new MediaDBDomainIdMediaListing(ByteBuffer.wrap(MediaDBDomainIdMediaListing.write(Arrays.asList(
+                buildRow("ccc", 1, "Original"), buildRow("aaa", 0, "Original"), buildRow("ddd", 1, null), buildRow("bbb", 1, "Thumbnail")))));
+    }
+
+    @Test
+    public void testPagesFollowTheListingOrder() {
+        assertEquals(4, listing.size());
+        assertEquals(Arrays.asList("ccc", "aaa", "ddd", "bbb"), guids(listing.getPage(null, null, 0L, Integer.MAX_VALUE)));
+        assertEquals(Arrays.asList("ddd", "bbb"), guids(listing.getPage(null, null, 2L, 2)));
+        assertEquals(Arrays.asList("ddd"), guids(listing.getPage(1, null, 1L, 1)));
+        assertEquals(Arrays.asList("ccc", "aaa"), guids(listing.getPage(null, Collections.singletonList("original"), 0L, 5)));
+        assertEquals(Collections.emptyList(), guids(listing.getPage(0, null, 1L, 5)));
+    }
+
+    @Test
+    public void testCursorPagesFollowTheGuidOrder() {
+        assertEquals(Arrays.asList("aaa", "bbb"), guids(listing.getPageAfter(null, null, null, 2)));
+        assertEquals(Arrays.asList("ccc", "ddd"), guids(listing.getPageAfter("bbb", null, null, 2)));
+        assertEquals(Arrays.asList("ccc", "ddd"), guids(listing.getPageAfter("bbc", null, null, 5)));
+        assertEquals(Arrays.asList("bbb", "ccc"), guids(listing.getPageAfter("aaa", 1, Arrays.asList("ORIGINAL", "Thumbnail"), 5)));
+        assertEquals(Collections.emptyList(), guids(listing.getPageAfter("ddd", null, null, 5)));
+    }
+
+    private static MediaDBDomainIdMediaRow buildRow(String guid, int active, String derivativeCategory) throws Exception {
+        final ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getString("guid")).thenReturn(guid);
+        when(resultSet.getString("file-url")).thenReturn("s3://bucket/lodging/1000000/1234/" + guid + ".jpg");
+        when(resultSet.getInt("active")).thenReturn(active);
+        when(resultSet.getString("status")).thenReturn("PUBLISHED");
+        when(resultSet.getString("provider")).thenReturn("EPC Internal User");
+        when(resultSet.getString("derivative-category")).thenReturn(derivativeCategory);
+        return MediaDBDomainIdMediaRow.fromResultSet(resultSet);
+    }
+
+    private static List<String> guids(List<MediaDBDomainIdMediaRow> rows) {
+        return rows.stream().map(MediaDBDomainIdMediaRow::getGuid).collect(Collectors.toList());
+    }
+}
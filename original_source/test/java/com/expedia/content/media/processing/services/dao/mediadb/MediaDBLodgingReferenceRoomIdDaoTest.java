@@ -0,0 +1,69 @@
+package com.expedia.content.media.processing.services.dao.mediadb;
+
+import com.expedia.content.media.processing.pipeline.domain.ImageMessage;
+import com.expedia.content.media.processing.pipeline.domain.OuterDomain;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MediaDBLodgingReferenceRoomIdDaoTest {
+
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private MediaDBLodgingReferenceRoomIdDao roomIdDao;
+
+    @Before
+    public void initialize() throws Exception {
+        final DataSource dataSource = mock(DataSource.class);
+        final Connection connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getString("room-id")).thenReturn("1234", "5678");
+        roomIdDao = new MediaDBLodgingReferenceRoomIdDao(dataSource, 1000L, 300L, 0L);
+    }
+
+    @Test
+    public void testRoomsOfAHotelAreReadOnce() throws Exception {
+        final OuterDomain outerDomain = buildOuterDomain("123", "1234", "5678");
+        assertEquals(Collections.emptyList(), roomIdDao.getInvalidRoomIds(outerDomain));
+        assertEquals(Collections.emptyList(), roomIdDao.getInvalidRoomIds(outerDomain));
+        verify(statement, times(1)).setString(1, "123");
+        verify(statement, times(1)).executeQuery();
+        assertEquals(Long.valueOf(1L), roomIdDao.hitCount());
+    }
+
+    @Test
+    public void testUnknownRoomsReadTheHotelAgain() throws Exception {
+        when(resultSet.next()).thenReturn(true, true, false, true, true, false);
+        when(resultSet.getString("room-id")).thenReturn("1234", "5678", "1234", "5678");
+        assertEquals(Arrays.asList("9999"), roomIdDao.getInvalidRoomIds(buildOuterDomain("123", "1234", "9999")));
+        verify(statement, times(2)).executeQuery();
+    }
+
+    private static OuterDomain buildOuterDomain(String hotelId, String... roomIds) {
+        final StringBuilder rooms = new StringBuilder();
+        for (final String roomId : roomIds) {
+            rooms.append(rooms.length() == 0 ? "" : ",").append("{\"roomId\": \"").append(roomId).append("\"}");
+        }
+        final String jsonMsg = "{ \"fileUrl\": \"http://well-formed-url/hello.jpg\", \"domain\": \"Lodging\", \"domainId\": \"" + hotelId + "\", "
+                + "\"userId\": \"user-id\", \"domainProvider\": \"EPC Internal User\", \"domainFields\": { \"rooms\": [" + rooms + "] } }";
+        return ImageMessage.parseJsonMessage(jsonMsg).getOuterDomainData();
+    }
+}
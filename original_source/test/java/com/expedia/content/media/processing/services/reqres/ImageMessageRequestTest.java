@@ -0,0 +1,54 @@
+package com.expedia.content.media.processing.services.reqres;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpInputMessage;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class ImageMessageRequestTest {
+
+    @Test
+    public void testDomainIsAddedAtTheEndOfTheBody() {
+        final ImageMessageRequest request = ImageMessageRequest.withDomain(" {\"userId\": \"bobthegreat\", \"domain\": \"Cars\"} ", "Lodging", "1234");
+        assertEquals("{\"userId\": \"bobthegreat\", \"domain\": \"Cars\",\"domain\":\"Lodging\",\"domainId\":\"1234\"}", request.getMessage());
+    }
+
+    @Test
+    public void testDomainIsAddedToAnEmptyBody() {
+        final ImageMessageRequest request = ImageMessageRequest.withDomain("{ }", "Lodging", null);
+        assertEquals("{\"domain\":\"Lodging\",\"domainId\":null}", request.getMessage());
+    }
+
+    @Test
+    public void testDomainIdIsEscaped() {
+        final ImageMessageRequest request = ImageMessageRequest.withDomain("{}", "Lodging", "12\"34");
+        assertEquals("{\"domain\":\"Lodging\",\"domainId\":\"12\\\"34\"}", request.getMessage());
+    }
+
+    @Test
+    public void testBodyThatIsNotAnObjectIsLeftAsIs() {
+        assertEquals("[1]", ImageMessageRequest.withDomain("[1]", "Lodging", "1234").getMessage());
+    }
+
+    @Test
+    public void testCpuTimeOfTheThreadsIsAddedUp() {
+        final ImageMessageRequest request = new ImageMessageRequest("{}");
+        request.addCpuNanos(1500L);
+        request.addCpuNanos(2500L);
+        assertEquals(4L, request.getCpuMicros());
+    }
+
+    @Test
+    public void testBodyIsReadInTheCharsetOfTheContentType() throws Exception {
+        final ImageMessageRequestConverter converter = new ImageMessageRequestConverter();
+        final MockHttpInputMessage utf8Message = new MockHttpInputMessage("{\"comment\":\"café\"}".getBytes(StandardCharsets.UTF_8));
+        utf8Message.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        assertEquals("{\"comment\":\"café\"}", converter.read(ImageMessageRequest.class, utf8Message).getMessage());
+        final MockHttpInputMessage latin1Message = new MockHttpInputMessage("{\"comment\":\"café\"}".getBytes(StandardCharsets.ISO_8859_1));
+        latin1Message.getHeaders().setContentType(MediaType.valueOf("application/json;charset=ISO-8859-1"));
+        assertEquals("{\"comment\":\"café\"}", converter.read(ImageMessageRequest.class, latin1Message).getMessage());
+    }
+}
@@ -0,0 +1,34 @@
+package com.expedia.content.media.processing.services.util;
+
+import com.expedia.content.media.processing.services.exception.PaginationValidationException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class ContinuationTokenTest {
+
+    @Test
+    public void testEncodeDecode() {
+        String token = ContinuationToken.encode("aaaabbbb-cccc-dddd-eeee-ffffgggghhhh");
+        assertFalse(token.contains("aaaabbbb"));
+        assertEquals("aaaabbbb-cccc-dddd-eeee-ffffgggghhhh", ContinuationToken.decode(token));
+    }
+
+    @Test
+    public void testDecodeFirstPage() {
+        assertNull(ContinuationToken.decode(""));
+        assertNull(ContinuationToken.decode(null));
+    }
+
+    @Test(expected = PaginationValidationException.class)
+    public void testDecodeNotBase64() {
+        ContinuationToken.decode("not a token!");
+    }
+
+    @Test(expected = PaginationValidationException.class)
+    public void testDecodeUnknownVersion() {
+        ContinuationToken.decode(java.util.Base64.getUrlEncoder().encodeToString("9:aaaabbbb".getBytes()));
+    }
+}
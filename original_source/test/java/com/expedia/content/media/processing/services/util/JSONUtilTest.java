@@ -1,11 +1,14 @@
 package com.expedia.content.media.processing.services.util;
 
+import com.expedia.content.media.processing.services.dao.domain.DomainFields;
 import com.expedia.content.media.processing.services.dao.domain.MediaProcessLog;
+import com.expedia.content.media.processing.services.exception.RequestMessageException;
 import java.util.*;
 import org.junit.Test;
 import org.springframework.http.HttpStatus;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class JSONUtilTest {
@@ -35,6 +38,56 @@ public class JSONUtilTest {
         assertTrue(value.contains("Cama Box Quenn"));
     }
     
+    @Test
+    public void testBuildMapFromStoredJson() throws Exception {
+        final String storedJson = "{\"lcmMediaId\":14633796,\"propertyHero\":\"true\",\"caption\":\"TV 32\\\", ar-condicionado,\nNão temos elevador.\"}";
+        final Map<String, Object> domainFields = JSONUtil.buildMapFromStoredJson(storedJson);
+        assertEquals(14633796, domainFields.get("lcmMediaId"));
+        assertEquals("true", domainFields.get("propertyHero"));
+        assertTrue(domainFields.get("caption").toString().startsWith("TV 32\", ar-condicionado,\nNão"));
+        assertNull(JSONUtil.buildMapFromStoredJson(null));
+        assertNull(JSONUtil.buildMapFromStoredJson("null"));
+    }
+
+    @Test(expected = RequestMessageException.class)
+    public void testBuildMapFromStoredJsonInvalid() throws Exception {
+        JSONUtil.buildMapFromStoredJson("{\"lcmMediaId\":");
+    }
+
+    @Test
+    public void testBuildDomainFieldsFromStoredJson() throws Exception {
+        final String storedJson = "{\"lcmMediaId\":14633796,\"propertyHero\":true,\"subcategoryId\":\"22024\","
+                + "\"rooms\":[{\"roomId\":928675,\"roomHero\":\"true\",\"roomName\":\"King\"}],\"caption\":\"Lobby\"}";
+        final DomainFields domainFields = JSONUtil.buildDomainFieldsFromStoredJson(storedJson);
+        assertEquals("14633796", domainFields.getLcmMediaId());
+        assertTrue(domainFields.isPropertyHeroMedia());
+        assertEquals("22024", domainFields.getSubcategoryId());
+        assertEquals("928675", domainFields.getRooms().get(0).getRoomId());
+        assertEquals("true", domainFields.getRooms().get(0).getRoomHero());
+        assertEquals("King", domainFields.getRooms().get(0).getOtherFields().get("roomName"));
+        assertEquals("Lobby", domainFields.getOtherFields().get("caption"));
+        final Map<String, Object> written = JSONUtil.buildMapFromStoredJson(JSONUtil.writeJson(domainFields));
+        assertEquals("14633796", written.get("lcmMediaId"));
+        assertEquals("true", written.get("propertyHero"));
+        assertEquals("Lobby", written.get("caption"));
+        assertEquals(1, ((List) written.get("rooms")).size());
+        assertNull(JSONUtil.buildDomainFieldsFromStoredJson(null));
+    }
+
+    @Test
+    public void testBuildDomainFieldsFromStoredJsonWithMismatchedTypes() throws Exception {
+        final String storedJson = "{\"lcmMediaId\":14633796,\"propertyHero\":\"True\",\"subcategoryId\":{\"id\":\"22024\"},"
+                + "\"rooms\":[928675,{\"roomId\":928676}]}";
+        final DomainFields domainFields = JSONUtil.buildDomainFieldsFromStoredJson(storedJson);
+        assertEquals("14633796", domainFields.getLcmMediaId());
+        assertTrue(domainFields.isPropertyHeroMedia());
+        assertNull(domainFields.getSubcategoryId());
+        assertNull(domainFields.getRooms());
+        final Map<String, Object> written = JSONUtil.buildMapFromStoredJson(JSONUtil.writeJson(domainFields));
+        assertEquals("22024", ((Map) written.get("subcategoryId")).get("id"));
+        assertEquals(2, ((List) written.get("rooms")).size());
+    }
+
     @Test
     public void testGenerateJsonResponse() throws Exception {
         final String expectedJson =
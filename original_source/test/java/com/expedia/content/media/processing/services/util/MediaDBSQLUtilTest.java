@@ -4,6 +4,8 @@ import com.expedia.content.media.processing.services.dao.domain.Category;
 import com.expedia.content.media.processing.services.dao.domain.DomainCategory;
 import com.expedia.content.media.processing.services.dao.domain.DomainIdMedia;
 import com.expedia.content.media.processing.services.dao.domain.Media;
+import com.expedia.content.media.processing.services.dao.mediadb.MediaDBProjection;
+import com.expedia.content.media.processing.services.exception.RequestMessageException;
 import com.expedia.content.media.processing.services.util.MediaDBSQLUtil;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -18,26 +20,36 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.buildDomainIdMediaFromResultSet;
 import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.buildMediaFromResultSet;
 import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.domainCategoryListToCategoryList;
+import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.getLcmMediaId;
+import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.inListBucketSize;
+import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.isPropertyHero;
+import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.padToInListBucket;
 import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.setArray;
 import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.setMediaByDomainIdQueryString;
 import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.setSQLTokensWithArray;
+import static com.expedia.content.media.processing.services.util.MediaDBSQLUtil.unheroDomainFields;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -83,6 +95,49 @@ public class MediaDBSQLUtilTest {
         assertEquals("SELECT * FROM Media WHERE media-id IN (?)", result);
     }
 
+    @Test
+    public void padToInListBucketTest() throws Exception {
+        String[] array = new String[]{"hamburger", "apples", "cheese"};
+        String[] result = padToInListBucket(array);
+        assertEquals(4, result.length);
+        assertEquals("cheese", result[3]);
+        assertEquals("SELECT * FROM Media WHERE media-id IN (?,?,?,?)", setSQLTokensWithArray("SELECT * FROM Media WHERE media-id IN (?)", result));
+    }
+
+    @Test
+    public void padToInListBucketTestAlreadyBucketSize() throws Exception {
+        String[] array = new String[]{"hamburger", "apples"};
+        assertTrue(array == padToInListBucket(array));
+        String[] empty = new String[]{};
+        assertTrue(empty == padToInListBucket(empty));
+    }
+
+    @Test
+    public void inListBucketSizeTest() throws Exception {
+        assertEquals(1, inListBucketSize(1));
+        assertEquals(8, inListBucketSize(5));
+        assertEquals(64, inListBucketSize(50));
+        assertEquals(64, inListBucketSize(64));
+        assertEquals(128, inListBucketSize(65));
+        assertEquals(192, inListBucketSize(130));
+    }
+
+    @Test
+    public void padToInListBucketReducesDistinctStatements() throws Exception {
+        String sqlString = "SELECT * FROM `media` WHERE `file-name` IN (?)";
+        Set<String> unpaddedStatements = new HashSet<>();
+        Set<String> paddedStatements = new HashSet<>();
+        // a status request holds up to 50 file names, every length yields a distinct statement without padding
+        for (int length = 1; length <= 50; length++) {
+            String[] array = new String[length];
+            Arrays.fill(array, "file.jpg");
+            unpaddedStatements.add(setSQLTokensWithArray(sqlString, array));
+            paddedStatements.add(setSQLTokensWithArray(sqlString, padToInListBucket(array)));
+        }
+        assertEquals(50, unpaddedStatements.size());
+        assertEquals(7, paddedStatements.size());
+    }
+
     @Test
     public void convertLcmMediaIdInMapToString() {
         Map<String, Object> domainFieldsMap = new HashMap<>();
@@ -256,6 +311,66 @@ public class MediaDBSQLUtilTest {
         assertNotNull(resultMedia.getDerivatives());
     }
 
+    @Test
+    public void buildMediaFromResultSetTestWithProjection() throws Exception {
+        when(mockResultSet.getString(eq("domain-fields"))).thenReturn("{\"lcmMediaId\":14633796,\"propertyHero\":\"true\"}");
+        when(mockResultSet.getString(eq("guid"))).thenReturn("0000041d-4119-4b61-867c-9c758c8b94d3");
+        when(mockResultSet.getString(eq("file-name"))).thenReturn("9547249_00005fx1.jpg");
+        when(mockResultSet.getString(eq("domain"))).thenReturn("Lodging");
+        when(mockResultSet.getString(eq("domain-id"))).thenReturn("9547249");
+        when(mockResultSet.getInt(eq("active"))).thenReturn(1);
+        when(mockResultSet.getInt(eq("hidden"))).thenReturn(0);
+        Optional<Media> result = buildMediaFromResultSet(mockResultSet, MediaDBProjection.HERO_MEDIA);
+        assertTrue(result.isPresent());
+        Media resultMedia = result.get();
+        assertEquals("0000041d-4119-4b61-867c-9c758c8b94d3", resultMedia.getMediaGuid());
+        assertEquals("true", resultMedia.getActive());
+        assertEquals("14633796", resultMedia.getLcmMediaId());
+        assertFalse(resultMedia.isHidden());
+        assertNull(resultMedia.getFileSize());
+        assertNull(resultMedia.getDerivatives());
+        verify(mockResultSet, never()).getString(eq("derivatives"));
+        verify(mockResultSet, never()).getString(eq("fingerprints"));
+        verify(mockResultSet, never()).getString(eq("metadata"));
+        verify(mockResultSet, never()).getInt(eq("file-size"));
+    }
+
+    @Test
+    public void buildMediaFromResultSetTestJsonColumnsDecodedWhenRead() throws Exception {
+        when(mockResultSet.getString(eq("domain-fields"))).thenReturn("{\"lcmMediaId\":14633796,\"propertyHero\":\"true\"}");
+        when(mockResultSet.getString(eq("derivatives"))).thenReturn("[{\"location\": ");
+        when(mockResultSet.getString(eq("fingerprints"))).thenReturn("[{\"algorithm\": \"pHash\", \"values\": [\"0011000110011001110111100011111001111010010111101\"]}, " +
+                "{\"algorithm\": \"SHA1\", \"values\": [\"6AB477AF6944298431795A11F48CCA4F55B154E4\"]}]");
+        when(mockResultSet.getString(eq("guid"))).thenReturn("0000041d-4119-4b61-867c-9c758c8b94d3");
+        Optional<Media> result = buildMediaFromResultSet(mockResultSet);
+        assertTrue(result.isPresent());
+        Media resultMedia = result.get();
+        assertEquals("0000041d-4119-4b61-867c-9c758c8b94d3", resultMedia.getMediaGuid());
+        assertTrue(resultMedia.getPropertyHero());
+        assertSame(resultMedia.getDomainData(), resultMedia.getDomainData());
+        assertEquals("14633796", resultMedia.getDomainData().get("lcmMediaId"));
+        assertEquals("6AB477AF6944298431795A11F48CCA4F55B154E4", resultMedia.getSha1());
+        assertEquals("0011000110011001110111100011111001111010010111101", Media.of(resultMedia).getPHash());
+        try {
+            resultMedia.getDerivativesList();
+            fail("Should throw exception");
+        } catch (RequestMessageException e) {
+            assertNotNull(e.getMessage());
+        }
+        resultMedia.setDomainFields("{\"propertyHero\":\"false\"}");
+        assertFalse(resultMedia.getPropertyHero());
+        assertEquals("", resultMedia.getLcmMediaId());
+    }
+
+    @Test
+    public void mediaDBProjectionSelectTest() throws Exception {
+        assertEquals("SELECT `file-name`, `status`, `update-date`, `domain` FROM `media` WHERE `file-name` IN (?)",
+                MediaDBProjection.MEDIA_STATUS.select("FROM `media` WHERE `file-name` IN (?)"));
+        assertTrue(MediaDBProjection.DOMAIN_ID_MEDIA.contains("derivatives"));
+        assertFalse(MediaDBProjection.DOMAIN_ID_MEDIA.contains("fingerprints"));
+        assertFalse(MediaDBProjection.DOMAIN_ID_MEDIA.contains("metadata"));
+    }
+
     @Test
     public void buildMediaFromResultSetTestError() throws Exception {
         when(mockResultSet.getString(anyString())).thenThrow(new SQLException());
@@ -372,6 +487,35 @@ public class MediaDBSQLUtilTest {
         assertTrue(10 == resultMedia.getDerivatives().size());
     }
 
+    @Test
+    public void buildDomainIdMediaFromResultSetTestStoredJsonWrittenAsIs() throws Exception {
+        final String domainFields = "{\"lcmMediaId\": \"14633796\", \"subcategoryId\": \"81003\"}";
+        final String derivatives = "[{\"location\": \"s3://ewe-cs-media-test/test/derivative/9547249_7_t.jpg\", \"type\": \"t\", \"width\": 70}]";
+        when(mockResultSet.getString(eq("domain-fields"))).thenReturn(domainFields);
+        when(mockResultSet.getString(eq("derivatives"))).thenReturn(derivatives);
+        when(mockResultSet.getTimestamp(eq("update-date"))).thenReturn(new Timestamp(System.currentTimeMillis()));
+        final String json = JSONUtil.writeJson(buildDomainIdMediaFromResultSet(mockResultSet, false, null).get());
+        assertTrue(json.contains("\"domainFields\":" + domainFields));
+        assertTrue(json.contains("\"derivatives\":" + derivatives));
+
+        when(mockResultSet.getString(eq("domain-fields"))).thenReturn("{\"lcmMediaId\": 14633796}");
+        final DomainIdMedia media = buildDomainIdMediaFromResultSet(mockResultSet, true, "t").get();
+        final String convertedJson = JSONUtil.writeJson(media);
+        assertTrue(convertedJson.contains("\"domainFields\":{\"lcmMediaId\":\"14633796\"}"));
+        assertEquals("t", media.getDerivatives().get(0).get("type"));
+    }
+
+    @Test
+    public void isDomainFieldsCanonicalTest() {
+        assertTrue(MediaDBSQLUtil.isDomainFieldsCanonical("{\"lcmMediaId\":\"14633796\",\"propertyHero\":\"true\"}"));
+        assertTrue(MediaDBSQLUtil.isDomainFieldsCanonical(" {\"lcmMediaId\" : null}"));
+        assertTrue(MediaDBSQLUtil.isDomainFieldsCanonical("{\"subcategoryId\":\"81003\"}"));
+        assertFalse(MediaDBSQLUtil.isDomainFieldsCanonical("{\"lcmMediaId\": 14633796}"));
+        assertFalse(MediaDBSQLUtil.isDomainFieldsCanonical("{\"subcategoryId\":\"81003\",\"lcmMediaId\":true}"));
+        assertFalse(MediaDBSQLUtil.isDomainFieldsCanonical("null"));
+        assertFalse(MediaDBSQLUtil.isDomainFieldsCanonical(null));
+    }
+
     @Test
     public void buildDomainIdMediaFromResultSetTestError() throws Exception {
         when(mockResultSet.getString(anyString())).thenThrow(new SQLException());
@@ -380,4 +524,39 @@ public class MediaDBSQLUtilTest {
         assertFalse(result.isPresent());
     }
 
+    @Test
+    public void getLcmMediaIdTest() throws Exception {
+        Map<String, Object> domainFields = new HashMap<>();
+        assertNull(getLcmMediaId(null));
+        assertNull(getLcmMediaId(domainFields));
+        domainFields.put("lcmMediaId", 19671339);
+        assertEquals("19671339", getLcmMediaId(domainFields));
+        domainFields.put("lcmMediaId", "19671340");
+        assertEquals("19671340", getLcmMediaId(domainFields));
+    }
+
+    @Test
+    public void isPropertyHeroTest() throws Exception {
+        Map<String, Object> domainFields = new HashMap<>();
+        assertFalse(isPropertyHero(null));
+        assertFalse(isPropertyHero(domainFields));
+        domainFields.put("propertyHero", "false");
+        assertFalse(isPropertyHero(domainFields));
+        domainFields.put("propertyHero", "true");
+        assertTrue(isPropertyHero(domainFields));
+        domainFields.put("propertyHero", "TRUE");
+        assertTrue(isPropertyHero(domainFields));
+        domainFields.put("propertyHero", Boolean.TRUE);
+        assertTrue(isPropertyHero(domainFields));
+    }
+
+    @Test
+    public void unheroDomainFieldsTest() throws Exception {
+        assertNull(unheroDomainFields(null));
+        assertEquals("{\"propertyHero\":\"false\",\"subcategoryId\":\"22024\"}",
+                unheroDomainFields("{\"subcategoryId\":\"22024\",\"propertyHero\":\"true\"}"));
+        assertEquals("{\"propertyHero\":\"false\",\"caption\":\"Lobby\"}", unheroDomainFields("{\"propertyHero\" : true,\"caption\":\"Lobby\"}"));
+        assertEquals("{\"subcategoryId\":\"22024\"}", unheroDomainFields("{\"subcategoryId\":\"22024\"}"));
+    }
+
 }
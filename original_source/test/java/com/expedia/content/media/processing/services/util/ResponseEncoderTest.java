@@ -0,0 +1,82 @@
+package com.expedia.content.media.processing.services.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseEncoderTest {
+
+    @Test
+    public void testNegotiate() {
+        assertSame(ResponseEncoder.JSON, ResponseEncoder.negotiate(null));
+        assertSame(ResponseEncoder.JSON, ResponseEncoder.negotiate("*/*"));
+        assertSame(ResponseEncoder.JSON, ResponseEncoder.negotiate("application/json, application/x-jackson-smile;q=0.5"));
+        assertSame(ResponseEncoder.SMILE, ResponseEncoder.negotiate("application/x-jackson-smile, application/json;q=0.5"));
+        assertSame(ResponseEncoder.CBOR, ResponseEncoder.negotiate("application/cbor"));
+        assertSame(ResponseEncoder.CBOR, ResponseEncoder.forAccept("application/x-jackson-smile;q=0.2, application/cbor"));
+        assertSame(ResponseEncoder.SMILE, ResponseEncoder.forAccept("application/x-jackson-smile"));
+    }
+
+    @Test
+    public void testStreamingGeneratorDoesNotCompleteAFailedDocument() throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final JsonGenerator generator = ResponseEncoder.JSON.createGenerator(output);
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("images");
+        generator.writeString("aaaaaaa-1010-bbbb-292929229");
+        generator.close();
+        assertEquals("{\"images\":[\"aaaaaaa-1010-bbbb-292929229\"", output.toString("UTF-8"));
+    }
+
+    @Test
+    public void testEncodeJson() {
+        final ResponseEntity<String> response = ResponseEncoder.JSON.encode(body(), HttpStatus.OK);
+        assertEquals("{\"mediaGuid\":\"aaaaaaa-1010-bbbb-292929229\",\"width\":1024}", response.getBody());
+        assertNull(response.getHeaders().getContentType());
+        final ResponseEntity<String> errorResponse = new ResponseEntity<>("{\"status\":404}", HttpStatus.NOT_FOUND);
+        assertSame(errorResponse, ResponseEncoder.JSON.encode(errorResponse));
+    }
+
+    @Test
+    public void testEncodeBinary() throws Exception {
+        final ResponseEntity<byte[]> smileResponse = ResponseEncoder.SMILE.encode(body(), HttpStatus.OK);
+        assertEquals(ResponseEncoder.APPLICATION_SMILE, smileResponse.getHeaders().getContentType());
+        assertEquals(body(), new ObjectMapper(new SmileFactory()).readValue(smileResponse.getBody(), Map.class));
+        final ResponseEntity<byte[]> cborResponse = ResponseEncoder.CBOR.encode(body(), HttpStatus.OK);
+        assertEquals(ResponseEncoder.APPLICATION_CBOR, cborResponse.getHeaders().getContentType());
+        assertEquals(body(), new ObjectMapper(new CBORFactory()).readValue(cborResponse.getBody(), Map.class));
+        assertTrue(smileResponse.getBody().length < ResponseEncoder.JSON.encode(body(), HttpStatus.OK).getBody().length());
+    }
+
+    @Test
+    public void testEncodeBinaryErrorResponse() throws Exception {
+        final ResponseEntity<String> errorResponse = new ResponseEntity<>("{\"status\":404,\"message\":\"not found\"}", HttpStatus.NOT_FOUND);
+        final ResponseEntity<byte[]> response = ResponseEncoder.SMILE.encode(errorResponse);
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        final Map error = new ObjectMapper(new SmileFactory()).readValue(response.getBody(), Map.class);
+        assertEquals(404, error.get("status"));
+        assertEquals("not found", error.get("message"));
+        assertEquals(MediaType.APPLICATION_JSON_UTF8, ResponseEncoder.JSON.getContentType());
+    }
+
+    private static Map<String, Object> body() {
+        final Map<String, Object> body = new LinkedHashMap<>();
+        body.put("mediaGuid", "aaaaaaa-1010-bbbb-292929229");
+        body.put("width", 1024);
+        return body;
+    }
+}
@@ -0,0 +1,58 @@
+package com.expedia.content.media.processing.services.util;
+
+import com.expedia.content.media.processing.services.dao.domain.StoredJsonList;
+import com.expedia.content.media.processing.services.dao.domain.StoredJsonMap;
+import com.expedia.content.media.processing.services.exception.RequestMessageException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class StoredJsonSerializerTest {
+
+    private static final ObjectMapper STRICT_MAPPER = new ObjectMapper();
+
+    @Test
+    public void testWellFormedJsonIsWrittenAsIs() throws Exception {
+        final String storedJson = "{\"lcmMediaId\": \"14633796\", \"rooms\": [{\"roomId\": 928675}]}";
+        final StoredJsonMap domainFields = new StoredJsonMap(storedJson);
+        assertEquals(storedJson, JSONUtil.writeJson(domainFields));
+        assertNull(domainFields.getDecodedValue());
+    }
+
+    @Test
+    public void testControlCharactersAreEscaped() throws Exception {
+        final StoredJsonMap domainFields = new StoredJsonMap("{\"caption\":\"Lobby\nbar\tarea\"}");
+        final String json = JSONUtil.writeJson(domainFields);
+        assertEquals("{\"caption\":\"Lobby\\nbar\\tarea\"}", json);
+        assertEquals("Lobby\nbar\tarea", STRICT_MAPPER.readValue(json, Map.class).get("caption"));
+    }
+
+    @Test
+    public void testTrailingContentIsNotWrittenAsIs() throws Exception {
+        final StoredJsonList derivatives = new StoredJsonList("[{\"type\":\"t\"}]]");
+        assertEquals("[{\"type\":\"t\"}]", JSONUtil.writeJson(derivatives));
+    }
+
+    @Test
+    public void testBinaryFormatsAcceptControlCharacters() throws Exception {
+        final String storedJson = "[{\"type\":\"t\",\"location\":\"s3://bucket/a\nb.jpg\"}]";
+        final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        final List smileDerivatives = smileMapper.readValue(smileMapper.writeValueAsBytes(new StoredJsonList(storedJson)), List.class);
+        assertEquals("s3://bucket/a\nb.jpg", ((Map) smileDerivatives.get(0)).get("location"));
+        final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+        final List cborDerivatives = cborMapper.readValue(cborMapper.writeValueAsBytes(new StoredJsonList(storedJson)), List.class);
+        assertEquals("t", ((Map) cborDerivatives.get(0)).get("type"));
+    }
+
+    @Test(expected = RequestMessageException.class)
+    public void testTruncatedJsonFailsTheResponse() throws Exception {
+        JSONUtil.writeJson(new StoredJsonMap("{\"caption\":\"Lob"));
+    }
+}
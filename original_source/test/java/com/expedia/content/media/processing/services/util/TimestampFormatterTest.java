@@ -0,0 +1,30 @@
+package com.expedia.content.media.processing.services.util;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TimestampFormatterTest {
+
+    @Test
+    public void testFormatMatchesSimpleDateFormat() {
+        final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd hh:mm:ss.SSS XXX", Locale.US);
+        final long[] timestamps = {0L, 7L, 999L, 1458000000000L, 1458000000042L, 1458000001042L, 1458043200500L, -1L, 1478412000123L};
+        for (final long timestamp : timestamps) {
+            assertEquals(dateFormat.format(new Date(timestamp)), TimestampFormatter.format(new Date(timestamp)));
+        }
+        // same cache slot, another second
+        assertEquals(dateFormat.format(new Date(1458000000000L + 1024000L)), TimestampFormatter.format(new Date(1458000000000L + 1024000L)));
+        assertEquals(dateFormat.format(new Date(1458000000000L)), TimestampFormatter.format(new Date(1458000000000L)));
+    }
+
+    @Test
+    public void testFormatNull() {
+        assertNull(TimestampFormatter.format(null));
+    }
+}
@@ -0,0 +1,76 @@
+package com.expedia.content.media.processing.services.validator;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HTTPUrlVerifierRemoteTest {
+
+    private final HTTPUrlVerifier verifier = new HTTPUrlVerifier(new HTTPUrlVerifier.Settings());
+
+    @After
+    public void closeVerifier() throws Exception {
+        verifier.close();
+    }
+
+    @Test
+    public void testFileFound() throws Exception {
+        ValidationStatus status = checkFileExists("https://www.google.com/images/branding/googlelogo/1x/googlelogo_color_272x92dp.png");
+        assertTrue(status.isValid());
+        assertEquals(ValidationStatus.VALID, status.getStatus());
+    }
+
+    @Test
+    public void testFileNotFound() throws Exception {
+        ValidationStatus status = checkFileExists("https://images.trvl-media.net/hotels/captain_potato_pants.jpg");
+        assertFalse(status.isValid());
+        assertEquals(ValidationStatus.NOT_FOUND, status.getStatus());
+    }
+
+    @Test
+    public void testRedAwningUrl() throws Exception {
+        ValidationStatus status = checkFileExists("https://www.redawning.com/sites/default/files/rental_property/681/coh0861-amay.jpg");
+        assertTrue(status.isValid());
+        assertEquals(ValidationStatus.VALID, status.getStatus());
+    }
+
+    @Test
+    public void testSquareBracketUrl() throws Exception {
+        ValidationStatus status = checkFileExists("https://assets01.redawning.com/sites/default/files/rental_property/65905/CropperCapture[6].jpg");
+        assertTrue(status.isValid());
+        assertEquals(ValidationStatus.VALID, status.getStatus());
+    }
+
+    @Test
+    public void testInvalidDomainUrl() throws Exception {
+        ValidationStatus status = checkFileExists("https://potatosoft.int/default/files/rental_property/65905/CropperCapture[6].jpg");
+        assertFalse(status.isValid());
+        assertEquals(ValidationStatus.NOT_FOUND, status.getStatus());
+    }
+    
+    @Test
+    public void testSpaceUrl() throws Exception {
+        ValidationStatus status = checkFileExists("http://images.xtravelsystem.com/slide/files/public/89/0/7/9/Images/c_89079 hotel2.jpg");
+        assertTrue(status.isValid());
+        assertEquals(ValidationStatus.VALID, status.getStatus());
+    }
+
+    @Test
+    public void testFirewalled() throws Exception {
+        final long start = System.currentTimeMillis();
+        final ValidationStatus status = checkFileExists("https://cs-media-moderate-service.us-west-2.prod-p.expedia.com/buildInfo");
+        final long end = System.currentTimeMillis();
+        assertTrue(end - start < 30000);
+        assertFalse(status.isValid());
+        assertEquals(ValidationStatus.NOT_FOUND, status.getStatus());
+    }
+
+    private ValidationStatus checkFileExists(String fileUrl) throws InterruptedException, ExecutionException {
+        return verifier.verify(fileUrl).get();
+    }
+}
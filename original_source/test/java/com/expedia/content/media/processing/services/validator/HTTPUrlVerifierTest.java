@@ -0,0 +1,128 @@
+package com.expedia.content.media.processing.services.validator;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HTTPUrlVerifierTest {
+
+    private HttpServer server;
+    private String serverUrl;
+    private final AtomicInteger headCount = new AtomicInteger();
+    private final CountDownLatch slowResponse = new CountDownLatch(1);
+    private HTTPUrlVerifier verifier;
+
+    @Before
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/found.jpg", exchange -> {
+            headCount.incrementAndGet();
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/missing.jpg", exchange -> {
+            headCount.incrementAndGet();
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.createContext("/slow.jpg", exchange -> {
+            headCount.incrementAndGet();
+            try {
+                slowResponse.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        serverUrl = "http://localhost:" + server.getAddress().getPort();
+        final HTTPUrlVerifier.Settings settings = new HTTPUrlVerifier.Settings();
+        settings.setMaxConcurrentChecks(1);
+        settings.setMaxQueuedChecks(1);
+        settings.setMinSocketTimeoutMillis(200);
+        verifier = new HTTPUrlVerifier(settings);
+    }
+
+    @After
+    public void stopServer() throws Exception {
+        slowResponse.countDown();
+        verifier.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testFileFound() throws Exception {
+        final ValidationStatus status = checkFileExists(serverUrl + "/found.jpg");
+        assertTrue(status.isValid());
+        assertEquals(ValidationStatus.VALID, status.getStatus());
+    }
+
+    @Test
+    public void testFileNotFound() throws Exception {
+        final ValidationStatus status = checkFileExists(serverUrl + "/missing.jpg");
+        assertFalse(status.isValid());
+        assertEquals(ValidationStatus.NOT_FOUND, status.getStatus());
+    }
+
+    @Test
+    public void testResultsAreCached() throws Exception {
+        checkFileExists(serverUrl + "/found.jpg");
+        checkFileExists(serverUrl + "/missing.jpg");
+        assertTrue(checkFileExists(serverUrl + "/found.jpg").isValid());
+        assertFalse(checkFileExists(serverUrl + "/missing.jpg").isValid());
+        assertEquals(2, headCount.get());
+        assertEquals(Long.valueOf(2L), verifier.hitCount());
+    }
+
+    @Test
+    public void testConcurrentChecksOfAUrlShareTheRequest() throws Exception {
+        final CompletableFuture<ValidationStatus> firstCheck = verifier.verify(serverUrl + "/slow.jpg");
+        final CompletableFuture<ValidationStatus> secondCheck = verifier.verify(serverUrl + "/slow.jpg");
+        assertSame(firstCheck, secondCheck);
+        slowResponse.countDown();
+        assertTrue(firstCheck.get(5, TimeUnit.SECONDS).isValid());
+        assertEquals(1, headCount.get());
+    }
+
+    @Test
+    public void testChecksOverTheLimitAreRejected() throws Exception {
+        final CompletableFuture<ValidationStatus> runningCheck = verifier.verify(serverUrl + "/slow.jpg");
+        final CompletableFuture<ValidationStatus> queuedCheck = verifier.verify(serverUrl + "/found.jpg");
+        final CompletableFuture<ValidationStatus> rejectedCheck = verifier.verify(serverUrl + "/missing.jpg");
+        assertTrue(rejectedCheck.isDone());
+        assertEquals(ValidationStatus.UNAVAILABLE, rejectedCheck.get().getStatus());
+        assertEquals(ValidationStatus.UNAVAILABLE, checkFileExists(serverUrl + "/missing.jpg").getStatus());
+        assertEquals(Long.valueOf(2L), verifier.rejectedCheckCount());
+        slowResponse.countDown();
+        assertTrue(runningCheck.get(5, TimeUnit.SECONDS).isValid());
+        assertTrue(queuedCheck.get(5, TimeUnit.SECONDS).isValid());
+    }
+
+    @Test
+    public void testSocketTimeoutFollowsTheResponseTimeOfTheHost() throws Exception {
+        assertTrue(checkFileExists(serverUrl + "/found.jpg").isValid());
+        final long start = System.currentTimeMillis();
+        final ValidationStatus status = verifier.verify(serverUrl + "/slow.jpg").get(5, TimeUnit.SECONDS);
+        assertEquals(ValidationStatus.UNAVAILABLE, status.getStatus());
+        assertTrue(System.currentTimeMillis() - start < 2000);
+    }
+
+    private ValidationStatus checkFileExists(String fileUrl) throws Exception {
+        return verifier.verify(fileUrl).get(5, TimeUnit.SECONDS);
+    }
+}
@@ -1,11 +1,14 @@
 package com.expedia.content.media.processing.services.validator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mvel2.CompileException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
@@ -37,6 +40,13 @@ public class MVELValidatorTest {
         assertNotNull(mvelValidator);
     }
 
+    @Test(expected = CompileException.class)
+    public void testRuleThatDoesNotCompileIsRejected() {
+        MVELValidator validator = new MVELValidator();
+        validator.setRuleMaps(Collections.singletonMap("mediaAdd", Arrays.asList("imageMessage.userId != null ? \"valid\" : \"userId is required.\"",
+                "imageMessage.userId != null ? (\"valid\" : \"userId is required.\"")));
+    }
+
     @Test
     public void testMessageFileUrlMissing() throws Exception {
         String jsonMsg = "{}";
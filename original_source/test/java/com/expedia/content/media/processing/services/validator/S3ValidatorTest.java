@@ -1,34 +1,63 @@
 package com.expedia.content.media.processing.services.validator;
 
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.S3ClientOptions;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.expedia.content.media.processing.pipeline.util.FormattedLogger;
+import com.sun.net.httpserver.HttpServer;
 import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Matchers;
 
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class S3ValidatorTest {
 
+    private AmazonS3Client s3Client;
+    private S3Validator s3Validator;
+
+    @Before
+    public void setUp() {
+        final S3Validator.Settings settings = new S3Validator.Settings();
+        s3Client = new AmazonS3Client(settings.toClientConfiguration());
+        s3Validator = new S3Validator(s3Client, settings);
+    }
+
+    @After
+    public void tearDown() {
+        s3Client.shutdown();
+    }
+
     @Test
     public void testFileFound() {
-        assertTrue(S3Validator.checkFileExists("s3://ewe-cs-media-test/source/10962099_26.jpg").isValid());
+        assertTrue(s3Validator.verify("s3://ewe-cs-media-test/source/10962099_26.jpg").isValid());
     }
 
     @Test public void testFileNotFound() throws Exception {
-        Constructor<S3Validator> constructor = S3Validator.class.getDeclaredConstructor();
-        constructor.setAccessible(true);
-        S3Validator s3Validator = constructor.newInstance();
         FormattedLogger mockLogger = mock(FormattedLogger.class);
         setFinalField(s3Validator, mockLogger);
-        ValidationStatus validationStatus = s3Validator.checkFileExists("s3://ewe-cs-media-test/source/blahblahbalah.jpg");
+        ValidationStatus validationStatus = s3Validator.verify("s3://ewe-cs-media-test/source/blahblahbalah.jpg");
         verify(mockLogger, times(1)).error(Matchers.<Throwable>any(), eq("s3 key query exception fileUrl = {} bucketName = {} objectName = {}"),
                 eq("s3://ewe-cs-media-test/source/blahblahbalah.jpg"), eq("ewe-cs-media-test"), eq("source/blahblahbalah.jpg"));
         assertFalse(validationStatus.isValid());
@@ -43,12 +72,90 @@ public class S3ValidatorTest {
 
     @Test
     public void testFileIsEmpty() {
-        assertFalse(S3Validator.checkFileExists("s3://ewe-cs-media-test/rejected/ZeroKb.jpg").isValid());
+        assertFalse(s3Validator.verify("s3://ewe-cs-media-test/rejected/ZeroKb.jpg").isValid());
     }
 
     @Test
     public void testBracket() {
-        assertTrue(S3Validator.checkFileExists("s3://ewe-cs-media-test/e2e/images/Hotel-lobby-decorations[la-la-la].jpg").isValid());
+        assertTrue(s3Validator.verify("s3://ewe-cs-media-test/e2e/images/Hotel-lobby-decorations[la-la-la].jpg").isValid());
     }
 
+    @Test
+    public void testMetadataOnlyChecksAgainstLocalStandIn() throws Exception {
+        final List<String> requests = new CopyOnWriteArrayList<>();
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath());
+            final String path = exchange.getRequestURI().getPath();
+            if (path.endsWith("/source/found.jpg")) {
+                exchange.getResponseHeaders().set("Content-Length", "20971520");
+                exchange.sendResponseHeaders(200, -1);
+            } else if (path.endsWith("/source/empty.jpg")) {
+                exchange.getResponseHeaders().set("Content-Length", "0");
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            final AmazonS3Client s3Client = new AmazonS3Client(new BasicAWSCredentials("access", "secret"));
+            s3Client.setEndpoint("http://localhost:" + server.getAddress().getPort());
+            s3Client.setS3ClientOptions(new S3ClientOptions().withPathStyleAccess(true));
+            final S3Validator s3Validator = new S3Validator(s3Client, new S3Validator.Settings());
+
+            assertTrue(s3Validator.verify("s3://bucket/source/found.jpg").isValid());
+            assertFalse(s3Validator.verify("s3://bucket/source/empty.jpg").isValid());
+            final ValidationStatus missingStatus = s3Validator.verify("s3://bucket/source/missing.jpg");
+            assertFalse(missingStatus.isValid());
+            assertEquals(ValidationStatus.NOT_FOUND, missingStatus.getStatus());
+            assertTrue(s3Validator.verify("s3://bucket/source/found.jpg").isValid());
+            assertFalse(s3Validator.verify("s3://bucket/source/missing.jpg").isValid());
+
+            // one metadata request per object, the repeated checks are answered from the cache
+            assertEquals(3, requests.size());
+            assertTrue(requests.stream().allMatch(request -> request.startsWith("HEAD ")));
+            assertEquals(Long.valueOf(2L), s3Validator.hitCount());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testCheckThatCanNotStartIsUnavailable() throws Exception {
+        final AmazonS3 blockingS3Client = mock(AmazonS3.class);
+        final CountDownLatch checkStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(blockingS3Client.getObjectMetadata(anyString(), anyString())).thenAnswer(invocation -> {
+            checkStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new ObjectMetadata();
+        });
+        final S3Validator.Settings settings = new S3Validator.Settings();
+        settings.setMaxConcurrentChecks(1);
+        settings.setCheckPermitTimeoutMillis(50L);
+        final S3Validator limitedValidator = new S3Validator(blockingS3Client, settings);
+        final CompletableFuture<ValidationStatus> runningCheck = CompletableFuture.supplyAsync(() -> limitedValidator.verify("s3://bucket/source/slow.jpg"));
+        assertTrue(checkStarted.await(5, TimeUnit.SECONDS));
+
+        final ValidationStatus rejectedStatus = limitedValidator.verify("s3://bucket/source/found.jpg");
+        assertFalse(rejectedStatus.isValid());
+        assertEquals(ValidationStatus.UNAVAILABLE, rejectedStatus.getStatus());
+        assertEquals(Long.valueOf(1L), limitedValidator.rejectedCheckCount());
+        release.countDown();
+        assertTrue(runningCheck.get(5, TimeUnit.SECONDS).isValid());
+    }
+
+    @Test
+    public void testS3ErrorIsUnavailableAndNotCached() {
+        final AmazonS3 failingS3Client = mock(AmazonS3.class);
+        final AmazonServiceException slowDown = new AmazonServiceException("Slow Down");
+        slowDown.setStatusCode(503);
+        when(failingS3Client.getObjectMetadata(anyString(), anyString())).thenThrow(slowDown).thenReturn(new ObjectMetadata());
+        final S3Validator failingValidator = new S3Validator(failingS3Client, new S3Validator.Settings());
+
+        assertEquals(ValidationStatus.UNAVAILABLE, failingValidator.verify("s3://bucket/source/found.jpg").getStatus());
+        assertTrue(failingValidator.verify("s3://bucket/source/found.jpg").isValid());
+    }
 }